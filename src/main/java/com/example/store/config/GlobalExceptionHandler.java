@@ -1,6 +1,9 @@
 package com.example.store.config;
 
+import com.example.store.exception.StoreBusyException;
 import com.example.store.exception.StoreException;
+import com.example.store.exception.StorePreconditionFailedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -44,6 +47,36 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorBody);
     }
 
+    /**
+     * handle store precondition failed exception (a conditional write found a newer version).
+     * @param ex StorePreconditionFailedException
+     * @return ResponseEntity
+     */
+    @ExceptionHandler(StorePreconditionFailedException.class)
+    public ResponseEntity<Map<String, String>> handleStorePreconditionFailedException(
+            StorePreconditionFailedException ex) {
+        logger.warn(STORE_PRECONDITION_FAILED_LOG_MESSAGE, ex.getMessage());
+        final Map<String, String> errorBody = new HashMap<>();
+        errorBody.put(ERROR, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(errorBody);
+    }
+
+    /**
+     * handle store busy exception (the server is overloaded, so the client may retry later).
+     * It is logged as a warning without the stack trace, as it is expected under load.
+     * @param ex StoreBusyException
+     * @return ResponseEntity
+     */
+    @ExceptionHandler(StoreBusyException.class)
+    public ResponseEntity<Map<String, String>> handleStoreBusyException(StoreBusyException ex) {
+        logger.warn(STORE_BUSY_EXCEPTION_LOG_MESSAGE, ex.getMessage());
+        final Map<String, String> errorBody = new HashMap<>();
+        errorBody.put(ERROR, ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(errorBody);
+    }
+
     /**
      * handle other exceptions.
      * @param ex Exception
@@ -1,7 +1,9 @@
 package com.example.store.config;
 
+import com.example.store.security.BoundedPasswordEncoder;
 import com.example.store.security.JwtRequestFilter;
 import com.example.store.service.MyUserDetailsService;
+import com.example.store.service.PasswordHashingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,7 +22,7 @@ import static com.example.store.util.Constants.*;
 
 /**
  * Configuration class where we set that the operations CREATE, UPDATE and DELETE are available
- * only to authenticated users.
+ * only to authenticated users, and that the banned users can be changed only by the store admins.
  */
 @Configuration
 @EnableWebSecurity
@@ -28,11 +30,14 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final MyUserDetailsService myUserDetailsService;
     private final JwtRequestFilter jwtRequestFilter;
+    private final PasswordHashingService passwordHashingService;
 
     @Autowired
-    public SecurityConfig(MyUserDetailsService myUserDetailsService, JwtRequestFilter jwtRequestFilter) {
+    public SecurityConfig(MyUserDetailsService myUserDetailsService, JwtRequestFilter jwtRequestFilter,
+                          PasswordHashingService passwordHashingService) {
         this.myUserDetailsService = myUserDetailsService;
         this.jwtRequestFilter = jwtRequestFilter;
+        this.passwordHashingService = passwordHashingService;
     }
 
     @Override
@@ -51,12 +56,19 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         http.csrf().disable()
                 .authorizeRequests()
                 .antMatchers(AUTHENTICATE).permitAll()
+                .antMatchers(LOGOUT).authenticated()
+                .antMatchers(HttpMethod.GET, STORE_TICKETS_EXT).authenticated()
                 .antMatchers(HttpMethod.GET, STORE_EXT).permitAll()
-                .antMatchers(HttpMethod.POST, STORE).authenticated()
+                .antMatchers(HttpMethod.POST, STORE, STORE_EXT).authenticated()
                 .antMatchers(HttpMethod.PUT, STORE_EXT).authenticated()
+                .antMatchers(HttpMethod.PATCH, STORE_EXT).authenticated()
                 .antMatchers(HttpMethod.DELETE, STORE_EXT).authenticated()
+                .antMatchers(STATS_EXT).hasRole(ADMIN_ROLE)
+                .antMatchers(BANNED_USERS_EXT).hasRole(ADMIN_ROLE)
                 .and().sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+        // the default logout filter clears the session (we have none) and would intercept POST /logout.
+        http.logout().disable();
         http.addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
     }
 
@@ -66,8 +78,12 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         return super.authenticationManagerBean();
     }
 
+    /**
+     * BCrypt runs on the bounded executor of PasswordHashingService, so logins cannot occupy every request thread.
+     * @return PasswordEncoder
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashingService);
     }
 }
\ No newline at end of file
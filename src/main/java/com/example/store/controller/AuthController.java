@@ -7,8 +7,11 @@ import com.example.store.service.MyUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import static com.example.store.util.Constants.AUTHORIZATION;
+
 /**
  * Authentication controller.
  * </br>
@@ -17,6 +20,7 @@ import org.springframework.web.bind.annotation.RestController;
  * That LOGIN_TOKEN must be set as a header on CRUD STORE API:
  * Key: Authorization
  * Value: Bearer LOGIN_TOKEN
+ * Calling /logout with the same header revokes the LOGIN_TOKEN before it expires.
  * </br>
  * Note. This can be further improved by having API documentation automatically generated
  * using the OPENAPI framework.
@@ -44,6 +48,16 @@ public class AuthController {
         return authService.authenticate(authRequest);
     }
 
+    /**
+     * API responsible with the logout of a User: the LOGIN_TOKEN used for this call is revoked.
+     * @param authorizationHeader String the Authorization header (Bearer LOGIN_TOKEN)
+     * @return true if the token was not revoked before
+     */
+    @PostMapping("/logout")
+    public boolean logout(@RequestHeader(AUTHORIZATION) String authorizationHeader) {
+        return authService.logout(authorizationHeader);
+    }
+
     /**
      * API responsible with registering of a User.
      * @param user User object
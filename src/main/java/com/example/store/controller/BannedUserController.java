@@ -0,0 +1,47 @@
+package com.example.store.controller;
+
+import com.example.store.service.BannedUserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * BannedUserController allows banning users at runtime.
+ * Only the users having the ADMIN role (see store.admin.usernames) are allowed to call it (see SecurityConfig),
+ * as any visitor can register and authenticate.
+ * A ban takes effect immediately: the user cannot authenticate anymore and the tokens already issued are refused.
+ */
+@RestController
+@RequestMapping("/banned-users")
+public class BannedUserController {
+
+    private final BannedUserService bannedUserService;
+
+    @Autowired
+    public BannedUserController(BannedUserService bannedUserService) {
+        this.bannedUserService = bannedUserService;
+    }
+
+    /**
+     * Bans a user.
+     * @param username String
+     * @return true if the user was not banned before
+     */
+    @PutMapping("/{username}")
+    public boolean banUser(@PathVariable String username) {
+        return bannedUserService.ban(username);
+    }
+
+    /**
+     * Lifts the ban of a user.
+     * @param username String
+     * @return true if the user was banned before
+     */
+    @DeleteMapping("/{username}")
+    public boolean unbanUser(@PathVariable String username) {
+        return bannedUserService.unban(username);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.store.controller;
+
+import com.example.store.dto.CacheStatsDTO;
+import com.example.store.dto.ConcurrencyLimitStatsDTO;
+import com.example.store.dto.PasswordHashingStatsDTO;
+import com.example.store.dto.RateLimitStatsDTO;
+import com.example.store.service.ConcurrencyLimitService;
+import com.example.store.service.PasswordHashingService;
+import com.example.store.service.ProductCacheService;
+import com.example.store.service.RateLimitService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * StatsController exposes the runtime counters of the application (caches etc.).
+ * Only the store admins (ADMIN role, see store.admin.usernames) are allowed to read them (see SecurityConfig).
+ * </br>
+ * Note: Spring Boot Actuator / Micrometer could expose these as metrics, but we avoid adding new dependencies
+ * for this POC.
+ */
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private final ProductCacheService productCacheService;
+
+    private final PasswordHashingService passwordHashingService;
+
+    private final RateLimitService rateLimitService;
+
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    @Autowired
+    public StatsController(ProductCacheService productCacheService, PasswordHashingService passwordHashingService,
+                           RateLimitService rateLimitService, ConcurrencyLimitService concurrencyLimitService) {
+        this.productCacheService = productCacheService;
+        this.passwordHashingService = passwordHashingService;
+        this.rateLimitService = rateLimitService;
+        this.concurrencyLimitService = concurrencyLimitService;
+    }
+
+    /**
+     * Counters of the product cache used by GET /store/{id}.
+     * @return {@link CacheStatsDTO} object.
+     */
+    @GetMapping(value = "/product-cache", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public CacheStatsDTO getProductCacheStats() {
+        return productCacheService.getStats();
+    }
+
+    /**
+     * Counters of the executor running the password hashing (queue depth, wait and hash latency).
+     * @return {@link PasswordHashingStatsDTO} object.
+     */
+    @GetMapping(value = "/password-hashing", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public PasswordHashingStatsDTO getPasswordHashingStats() {
+        return passwordHashingService.getStats();
+    }
+
+    /**
+     * Counters of the rate limiter (requests allowed and throttled by route group).
+     * @return {@link RateLimitStatsDTO} object.
+     */
+    @GetMapping(value = "/rate-limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public RateLimitStatsDTO getRateLimitStats() {
+        return rateLimitService.getStats();
+    }
+
+    /**
+     * Counters of the adaptive concurrency limits (current limit, requests in flight and rejected).
+     * @return {@link ConcurrencyLimitStatsDTO} object.
+     */
+    @GetMapping(value = "/concurrency", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public ConcurrencyLimitStatsDTO getConcurrencyLimitStats() {
+        return concurrencyLimitService.getStats();
+    }
+}
@@ -1,12 +1,41 @@
 package com.example.store.controller;
 
+import com.example.store.dto.BatchResultDTO;
+import com.example.store.dto.BatchUpdateDTO;
+import com.example.store.dto.CheckoutDTO;
+import com.example.store.dto.IdListDTO;
 import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductFilterDTO;
+import com.example.store.dto.ProductListDTO;
+import com.example.store.dto.ProductPageDTO;
+import com.example.store.dto.WriteTicketDTO;
+import com.example.store.exception.StoreException;
+import com.example.store.service.AsyncWriteService;
+import com.example.store.service.CatalogSnapshot;
+import com.example.store.service.CatalogSnapshotService;
+import com.example.store.service.CheckoutService;
+import com.example.store.service.ProductBatchService;
+import com.example.store.service.ProductExportService;
+import com.example.store.service.ProductFieldService;
 import com.example.store.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.example.store.util.Constants.STORE_TICKETS;
+import static com.example.store.util.ErrorMessages.INVALID_IF_MATCH;
 
 /**
  * StoreController responsible with product operations. I see this application as a store platform.
@@ -30,34 +59,219 @@ import java.util.List;
  * based on Content-Type & Accept headers
  * application/json for JSON
  * application/xml for XML
+ * Note4: The GET endpoints accept a "fields" parameter (sparse fieldset), for example ?fields=title,price,coverImage,
+ * so list views don't download the description and the author they don't display (see ProductFieldService).
  */
 @RestController
 @RequestMapping("/store")
 public class StoreController {
+    private static final String GZIP = "gzip";
+    private static final String ANY_ETAG = "*";
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    private static final Pattern ETAG_VERSION = Pattern.compile("(?:W/)?\"(\\d{1,18})[^\"]*\"");
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductBatchService productBatchService;
+    private final ProductFieldService productFieldService;
+    private final CheckoutService checkoutService;
+    private final AsyncWriteService asyncWriteService;
     @Autowired
-    public StoreController(ProductService productService) {
+    public StoreController(ProductService productService, ProductExportService productExportService,
+                           CatalogSnapshotService catalogSnapshotService, ProductBatchService productBatchService,
+                           ProductFieldService productFieldService, CheckoutService checkoutService,
+                           AsyncWriteService asyncWriteService) {
         this.productService = productService;
+        this.productExportService = productExportService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productBatchService = productBatchService;
+        this.productFieldService = productFieldService;
+        this.checkoutService = checkoutService;
+        this.asyncWriteService = asyncWriteService;
+    }
+
+    /**
+     * GET all the products (no title, no paging, all the fields). This is the hottest endpoint, so the already serialized
+     * catalog snapshot is written as is (gzip compressed when the client accepts it), without touching
+     * the database. When the snapshot is not up-to-date (it is being rebuilt after a write), the products
+     * are read from the database. Stock changes (purchases, checkouts) don't cause this fallback: the last snapshot
+     * is served until its periodic rebuild (see CatalogSnapshotService.markStockChanged).
+     * </br>
+     * The ETag is derived from the catalog version, so clients polling with If-None-Match receive 304
+     * until the catalog changes, without the catalog being read or serialized.
+     * @param accept String Accept header, used to choose between JSON (default) and XML
+     * @param acceptEncoding String Accept-Encoding header
+     * @param webRequest WebRequest used to evaluate If-None-Match
+     * @return the serialized catalog, or the Products (null when not modified)
+     */
+    @GetMapping(params = {"!title", "!limit", "!fields", "!minPrice", "!maxPrice", "!author", "!inStock", "!sort"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public ResponseEntity<Object> getCatalog(@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                             String acceptEncoding, WebRequest webRequest) {
+        final boolean xml = isXmlPreferred(accept);
+        final CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        final boolean gzip = !Objects.isNull(snapshot) && !Objects.isNull(acceptEncoding)
+                && acceptEncoding.toLowerCase(Locale.ROOT).contains(GZIP);
+        final String catalogVersion = Objects.isNull(snapshot)
+                ? catalogSnapshotService.getCatalogVersion() : snapshot.getCatalogVersion();
+        final String eTag = toETag(catalogVersion, xml, gzip);
+
+        ResponseEntity<Object> result = null;
+        if (!webRequest.checkNotModified(eTag)) {
+            final Object body;
+            if (Objects.isNull(snapshot)) {
+                final List<ProductDTO> products = productService.getProducts(null);
+                body = xml ? new ProductListDTO(products) : products;
+            } else if (xml) {
+                body = gzip ? snapshot.getGzipXml() : snapshot.getXml();
+            } else {
+                body = gzip ? snapshot.getGzipJson() : snapshot.getJson();
+            }
+            final ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                    .contentType(xml ? MediaType.APPLICATION_XML : MediaType.APPLICATION_JSON)
+                    .eTag(eTag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            if (gzip) {
+                builder.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+            }
+            result = builder.body(body);
+        }
+        return result;
+    }
+
+    /**
+     * Builds a strong ETag. JSON, XML and gzip are different representations, so their ETags must differ.
+     * @param version String version of the resource
+     * @param xml boolean
+     * @param gzip boolean
+     * @return String quoted ETag
+     */
+    private String toETag(String version, boolean xml, boolean gzip) {
+        final StringBuilder result = new StringBuilder("\"").append(version);
+        if (xml) {
+            result.append("-xml");
+        }
+        if (gzip) {
+            result.append("-gzip");
+        }
+        return result.append('"').toString();
     }
 
     /**
-     * GET either all products, or if title is provided, we filter those products with the provided title.
-     * @param title String
+     * Checks if the client prefers XML over JSON (JSON is the default).
+     * @param accept String Accept header
+     * @return boolean
+     */
+    private boolean isXmlPreferred(String accept) {
+        boolean result = false;
+        if (!Objects.isNull(accept)) {
+            final List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(mediaTypes);
+            boolean decided = false;
+            for (int i = 0; !decided && i < mediaTypes.size(); i++) {
+                final MediaType mediaType = mediaTypes.get(i);
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    decided = true;
+                } else if (mediaType.isCompatibleWith(MediaType.APPLICATION_XML)) {
+                    result = true;
+                    decided = true;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * GET the products matching the provided filters, in the requested order and / or having only the requested
+     * fields (without any of them see getCatalog). The filters are combined, see {@link ProductFilterDTO}.
+     * At most MAX_FILTERED_RESULTS products are returned, a broader filter has to use getProductsPage (limit).
+     * Example: /store?minPrice=5&amp;maxPrice=20&amp;inStock=true&amp;sort=-price&amp;fields=title,price,coverImage
+     * @param filter ProductFilterDTO bound from the title, minPrice, maxPrice, author and inStock parameters
+     * @param sort String (optional) comma separated properties, "-" prefix for descending order
+     * @param fields String (optional) comma separated properties
      * @return List of Products
      */
     @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
-    public List<ProductDTO> getAllProducts(@RequestParam(required = false) String title) {
-        return productService.getProducts(title);
+    public List<ProductDTO> getAllProducts(ProductFilterDTO filter,
+                                           @RequestParam(required = false) String sort,
+                                           @RequestParam(required = false) String fields) {
+        return productService.getProducts(filter, sort, fields);
+    }
+
+    /**
+     * GET a page of products (keyset / cursor pagination). This endpoint is selected when "limit" is provided.
+     * The response contains a nextCursor which should be sent as "after" to obtain the next page.
+     * The filters of getAllProducts can be used, the products being ordered by id.
+     * Example: /store?limit=20 followed by /store?limit=20&after=MjA
+     * @param filter ProductFilterDTO bound from the title, minPrice, maxPrice, author and inStock parameters
+     * @param after String (optional) opaque cursor from the previous page
+     * @param limit Integer page size
+     * @param fields String (optional) comma separated properties
+     * @return {@link ProductPageDTO} object.
+     */
+    @GetMapping(params = "limit", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public ProductPageDTO getProductsPage(ProductFilterDTO filter,
+                                          @RequestParam(required = false) String after,
+                                          @RequestParam Integer limit,
+                                          @RequestParam(required = false) String fields) {
+        return productService.getProductsPage(filter, after, limit, fields);
+    }
+
+    /**
+     * Streaming export of the whole catalog as NDJSON (one product per line), for feed consumers.
+     * The products are written while they are read from the database (see {@link ProductExportService}).
+     * @return the streamed response body
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProductsAsNdjson() {
+        final StreamingResponseBody body = productExportService::exportAsNdjson;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Streaming export of the whole catalog as a chunked &lt;products&gt; XML document, for feed consumers.
+     * @return the streamed response body
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_XML_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProductsAsXml() {
+        final StreamingResponseBody body = productExportService::exportAsXml;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_XML).body(body);
     }
 
     /**
      * We return a {@link ProductDTO} by an ID.
+     * The ETag is derived from the version of the product. When If-None-Match is sent, only the version is read,
+     * so an unchanged product is answered with 304 without being loaded or serialized.
+     * The whole product is cached, so the requested fields are copied from it (no database read on a cache hit).
+     * Each fieldset is a different representation, so the requested fields are part of the ETag.
      * @param id Long
-     * @return {@link ProductDTO} object.
+     * @param fields String (optional) comma separated properties
+     * @param accept String Accept header, used to choose between JSON (default) and XML
+     * @param ifNoneMatch String If-None-Match header
+     * @param webRequest WebRequest used to evaluate If-None-Match
+     * @return {@link ProductDTO} object (null when not modified).
      */
     @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
-    public ProductDTO getProductById(@PathVariable Long id) {
-        return productService.getProductById(id);
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id,
+                                                     @RequestParam(required = false) String fields,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                     String accept,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                     String ifNoneMatch, WebRequest webRequest) {
+        final boolean xml = isXmlPreferred(accept);
+        final String fieldsKey = productFieldService.toKey(fields);
+        ResponseEntity<ProductDTO> result = null;
+        if (Objects.isNull(ifNoneMatch) || !webRequest.checkNotModified(
+                toETag(productService.getProductVersion(id) + fieldsKey, xml, false))) {
+            final ProductDTO product = productService.getProductById(id);
+            result = ResponseEntity.ok()
+                    .contentType(xml ? MediaType.APPLICATION_XML : MediaType.APPLICATION_JSON)
+                    .eTag(toETag(product.getVersion() + fieldsKey, xml, false))
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(productFieldService.select(product, productFieldService.parse(fields)));
+        }
+        return result;
     }
 
     /**
@@ -94,16 +308,193 @@ public class StoreController {
         return productService.saveProduct(product);
     }
 
+    /**
+     * We create several products at once (seller onboarding), see {@link ProductBatchService}.
+     * Example JSON: [{"title" : "title", ... "author" : {"username" : "valentin"}}, ...]
+     * Each item has the same format as for POST /store.
+     * @param products List of ProductDTO
+     * @return {@link BatchResultDTO} with the result of each product
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public BatchResultDTO createProducts(@RequestBody List<ProductDTO> products) {
+        return productBatchService.saveProducts(products);
+    }
+
+    /**
+     * XML variant of POST /store/batch.
+     * Example XML: &lt;products&gt;&lt;product&gt;...&lt;/product&gt;&lt;product&gt;...&lt;/product&gt;&lt;/products&gt;
+     * @param products ProductListDTO
+     * @return {@link BatchResultDTO} with the result of each product
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_XML_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public BatchResultDTO createProductsFromXml(@RequestBody ProductListDTO products) {
+        return productBatchService.saveProducts(products.getProducts());
+    }
+
+    /**
+     * We change the price and / or quantity of several products of the current user at once (reprice, stock).
+     * Example JSON: {"ids" : [1, 2, 3], "price" : 9.99}
+     * @param batchUpdate BatchUpdateDTO
+     * @return {@link IdListDTO} the ids of the updated products
+     */
+    @PutMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public IdListDTO updateProducts(@RequestBody BatchUpdateDTO batchUpdate) {
+        return productBatchService.updateProducts(batchUpdate);
+    }
+
+    /**
+     * We un-publish several products of the current user at once.
+     * Example JSON: {"ids" : [1, 2, 3]}
+     * @param idList IdListDTO
+     * @return {@link IdListDTO} the ids of the deleted products
+     */
+    @DeleteMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public IdListDTO deleteProducts(@RequestBody IdListDTO idList) {
+        return productBatchService.deleteProducts(idList);
+    }
+
     /**
      * We update an existent product with id, based on provided product information
+     * The update applies only to the version in If-Match (the ETag returned by GET /store/{id}), otherwise 412 is
+     * returned. Without If-Match, the product is updated whatever its version. The ETag of the new version is
+     * returned, so the client can chain its changes without reading the product again.
      * @param id Long
      * @param product ProductDTO
+     * @param accept String Accept header, used to choose between JSON (default) and XML
+     * @param ifMatch String (optional) If-Match header
      * @return updated Product
      */
     @PutMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE},
             produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
-    public ProductDTO updateProduct(@PathVariable Long id, @RequestBody ProductDTO product) {
-        return productService.updateProduct(id, product);
+    public ResponseEntity<ProductDTO> updateProduct(@PathVariable Long id, @RequestBody ProductDTO product,
+                                                    @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                    String accept,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                    String ifMatch) {
+        final ProductDTO result = productService.updateProduct(id, product, parseVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(toETag(String.valueOf(result.getVersion()), isXmlPreferred(accept), false))
+                .body(result);
+    }
+
+    /**
+     * We partially update an existent product: only the provided fields are written (JSON Merge Patch, RFC 7396),
+     * so a reprice or a restock doesn't rewrite the whole product.
+     * Example JSON: {"price" : 9.99}, example XML: &lt;product&gt;&lt;quantity&gt;5&lt;/quantity&gt;&lt;/product&gt;
+     * The missing fields are kept. A null value is treated as missing, as all the fields of a product are required.
+     * If-Match is handled as for PUT, and the ETag of the new version is returned.
+     * @param id Long
+     * @param patch ProductDTO having only the fields to change
+     * @param accept String Accept header, used to choose between JSON (default) and XML
+     * @param ifMatch String (optional) If-Match header
+     * @return updated Product
+     */
+    @PatchMapping(value = "/{id}",
+            consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public ResponseEntity<ProductDTO> patchProduct(@PathVariable Long id, @RequestBody ProductDTO patch,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                   String accept,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                   String ifMatch) {
+        final ProductDTO result = productService.patchProduct(id, patch, parseVersion(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(toETag(String.valueOf(result.getVersion()), isXmlPreferred(accept), false))
+                .body(result);
+    }
+
+    /**
+     * Extracts the product version from an If-Match header. Every ETag of a product starts with its version
+     * (see getProductById), whatever the representation or the fields it was returned for.
+     * @param ifMatch String If-Match header
+     * @return Long version, or null when missing or "*" (any version)
+     */
+    private Long parseVersion(String ifMatch) {
+        Long result = null;
+        if (!Objects.isNull(ifMatch) && !ANY_ETAG.equals(ifMatch.trim())) {
+            final Matcher matcher = ETAG_VERSION.matcher(ifMatch.trim());
+            if (!matcher.matches()) {
+                throw new StoreException(INVALID_IF_MATCH);
+            }
+            result = Long.valueOf(matcher.group(1));
+        }
+        return result;
+    }
+
+    /**
+     * We buy qty units of a product. The stock is decremented atomically, so concurrent buyers of the same product
+     * cannot oversell it. When not enough units are left, nothing is bought.
+     * Example: POST /store/1/purchase?qty=2
+     * @param id Long
+     * @param qty Long units to buy
+     */
+    @PostMapping("/{id}/purchase")
+    public boolean purchaseProduct(@PathVariable Long id, @RequestParam Long qty) {
+        return productService.purchaseProduct(id, qty);
+    }
+
+    /**
+     * We buy all the items of a cart at once, or none of them when an item has not enough stock.
+     * Example JSON: {"items" : [{"productId" : 1, "quantity" : 2}, {"productId" : 3, "quantity" : 1}]}
+     * @param checkout CheckoutDTO
+     * @return {@link IdListDTO} the ids of the bought products
+     */
+    @PostMapping(value = "/checkout", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public IdListDTO checkout(@RequestBody CheckoutDTO checkout) {
+        return checkoutService.checkout(checkout);
+    }
+
+    /**
+     * We queue the creation of a product (asynchronous write mode, see AsyncWriteService).
+     * The product is written together with other writes (group commit), and the response is sent only once it is
+     * committed (or failed), so an acknowledged write is durable. The request thread is released meanwhile.
+     * @param product ProductDTO
+     * @return the {@link WriteTicketDTO} (COMPLETED or FAILED), also available at the Location header
+     */
+    @PostMapping(value = "/writes", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public CompletableFuture<ResponseEntity<WriteTicketDTO>> createProductAsync(@RequestBody ProductDTO product) {
+        return asyncWriteService.submitSave(product).thenApply(this::toTicketResponse);
+    }
+
+    /**
+     * We queue the update of a product (asynchronous write mode, see AsyncWriteService).
+     * The update applies whatever the version of the product, as PUT /store/{id} without If-Match.
+     * As for the creation, the response is sent only once the update is committed (or failed).
+     * @param id Long
+     * @param product ProductDTO
+     * @return the {@link WriteTicketDTO} (COMPLETED or FAILED), also available at the Location header
+     */
+    @PutMapping(value = "/writes/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE},
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public CompletableFuture<ResponseEntity<WriteTicketDTO>> updateProductAsync(@PathVariable Long id,
+                                                                                @RequestBody ProductDTO product) {
+        return asyncWriteService.submitUpdate(id, product).thenApply(this::toTicketResponse);
+    }
+
+    /**
+     * We get the state of an asynchronous write. COMPLETED means the write is committed.
+     * @param ticket String
+     * @return {@link WriteTicketDTO} object.
+     */
+    @GetMapping(value = "/tickets/{ticket}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_XML_VALUE})
+    public WriteTicketDTO getWriteTicket(@PathVariable String ticket) {
+        return asyncWriteService.getTicket(ticket);
+    }
+
+    /**
+     * Builds the response of a write which is committed or failed, the ticket telling which.
+     * @param ticket WriteTicketDTO
+     * @return ResponseEntity
+     */
+    private ResponseEntity<WriteTicketDTO> toTicketResponse(WriteTicketDTO ticket) {
+        return ResponseEntity.ok().location(URI.create(STORE_TICKETS + ticket.getTicket())).body(ticket);
     }
 
     /**
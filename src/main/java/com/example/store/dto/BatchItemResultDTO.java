@@ -0,0 +1,57 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Result of one item of a batch request.
+ * - index: position of the item in the request
+ * - id: the id of the product, when the item succeeded
+ * - error: the reason, when the item failed
+ */
+@XmlRootElement(name = "item")
+public class BatchItemResultDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 6L;
+
+    private int index;
+    private Long id;
+    private String error;
+
+    public BatchItemResultDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    public BatchItemResultDTO(int index) {
+        this.index = index;
+    }
+
+    @XmlElement
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    @XmlElement
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    @XmlElement
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a batch request: the number of succeeded and failed items, and the result of each item
+ * (in the order of the request).
+ */
+@XmlRootElement(name = "batchResult")
+public class BatchResultDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 7L;
+
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDTO> items = new ArrayList<>();
+
+    public BatchResultDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    @XmlElement
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+
+    @XmlElement
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    @XmlElementWrapper(name = "items")
+    @XmlElement(name = "item")
+    public List<BatchItemResultDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<BatchItemResultDTO> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A change applied to several products at once (PUT /store/batch), for example a reprice or a stock update.
+ * Only the provided (not null) fields are changed.
+ */
+@XmlRootElement(name = "batchUpdate")
+public class BatchUpdateDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 9L;
+
+    private List<Long> ids = new ArrayList<>();
+    private Double price;
+    private Long quantity;
+
+    public BatchUpdateDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    @XmlElementWrapper(name = "ids")
+    @XmlElement(name = "id")
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    @XmlElement
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    @XmlElement
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Counters of a cache.
+ * - hits: requests served from the cache
+ * - misses: requests not served from the cache (missing or expired entry)
+ * - loads: database loads (concurrent misses of the same entry share one load)
+ * - evictions: entries removed because the cache was full or because they expired
+ */
+@XmlRootElement(name = "cacheStats")
+public class CacheStatsDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 4L;
+
+    private long hits;
+    private long misses;
+    private long loads;
+    private long evictions;
+    private int size;
+
+    public CacheStatsDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    @XmlElement
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    @XmlElement
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    @XmlElement
+    public long getLoads() {
+        return loads;
+    }
+
+    public void setLoads(long loads) {
+        this.loads = loads;
+    }
+
+    @XmlElement
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    @XmlElement
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
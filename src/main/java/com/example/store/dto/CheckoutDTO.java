@@ -0,0 +1,38 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cart to check out (POST /store/checkout): all its items are bought together, or none of them.
+ */
+@XmlRootElement(name = "checkout")
+public class CheckoutDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 14L;
+
+    private List<CheckoutItemDTO> items = new ArrayList<>();
+
+    public CheckoutDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    public CheckoutDTO(List<CheckoutItemDTO> items) {
+        this.items = items;
+    }
+
+    @XmlElementWrapper(name = "items")
+    @XmlElement(name = "item")
+    public List<CheckoutItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CheckoutItemDTO> items) {
+        this.items = items;
+    }
+}
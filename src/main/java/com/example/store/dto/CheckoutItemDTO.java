@@ -0,0 +1,47 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * One item of a cart.
+ * - productId: the product to buy
+ * - quantity: the units to buy
+ */
+@XmlRootElement(name = "item")
+public class CheckoutItemDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 15L;
+
+    private Long productId;
+    private Long quantity;
+
+    public CheckoutItemDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    public CheckoutItemDTO(Long productId, Long quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    @XmlElement
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    @XmlElement
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Counters of the adaptive concurrency limiter, for the read and the write routes.
+ * - limit: the current concurrency limit (it moves with the observed latency)
+ * - inFlight: requests being served right now
+ * - rejected: requests rejected with 503 because the limit was reached
+ */
+@XmlRootElement(name = "concurrencyLimitStats")
+public class ConcurrencyLimitStatsDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 13L;
+
+    private int readLimit;
+    private int readInFlight;
+    private long readRejected;
+    private int writeLimit;
+    private int writeInFlight;
+    private long writeRejected;
+
+    public ConcurrencyLimitStatsDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    @XmlElement
+    public int getReadLimit() {
+        return readLimit;
+    }
+
+    public void setReadLimit(int readLimit) {
+        this.readLimit = readLimit;
+    }
+
+    @XmlElement
+    public int getReadInFlight() {
+        return readInFlight;
+    }
+
+    public void setReadInFlight(int readInFlight) {
+        this.readInFlight = readInFlight;
+    }
+
+    @XmlElement
+    public long getReadRejected() {
+        return readRejected;
+    }
+
+    public void setReadRejected(long readRejected) {
+        this.readRejected = readRejected;
+    }
+
+    @XmlElement
+    public int getWriteLimit() {
+        return writeLimit;
+    }
+
+    public void setWriteLimit(int writeLimit) {
+        this.writeLimit = writeLimit;
+    }
+
+    @XmlElement
+    public int getWriteInFlight() {
+        return writeInFlight;
+    }
+
+    public void setWriteInFlight(int writeInFlight) {
+        this.writeInFlight = writeInFlight;
+    }
+
+    @XmlElement
+    public long getWriteRejected() {
+        return writeRejected;
+    }
+
+    public void setWriteRejected(long writeRejected) {
+        this.writeRejected = writeRejected;
+    }
+}
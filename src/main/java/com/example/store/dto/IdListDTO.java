@@ -0,0 +1,39 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of product ids: the products to delete (DELETE /store/batch), or the products affected by a batch
+ * operation.
+ */
+@XmlRootElement(name = "idList")
+public class IdListDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 8L;
+
+    private List<Long> ids = new ArrayList<>();
+
+    public IdListDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    public IdListDTO(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    @XmlElementWrapper(name = "ids")
+    @XmlElement(name = "id")
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Counters of the password hashing executor.
+ * - poolSize: number of threads running the hashing
+ * - activeThreads: threads hashing right now
+ * - queueDepth: hashing tasks waiting for a thread
+ * - queueCapacity: maximum queueDepth, above it the tasks are rejected
+ * - completed: hashing tasks completed (successfully or not)
+ * - rejected: hashing tasks rejected because the queue was full or the wait timed out
+ * - averageWaitMicros / maxWaitMicros: time spent in the queue
+ * - averageHashMicros / maxHashMicros: time spent hashing
+ */
+@XmlRootElement(name = "passwordHashingStats")
+public class PasswordHashingStatsDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 10L;
+
+    private int poolSize;
+    private int activeThreads;
+    private int queueDepth;
+    private int queueCapacity;
+    private long completed;
+    private long rejected;
+    private long averageWaitMicros;
+    private long maxWaitMicros;
+    private long averageHashMicros;
+    private long maxHashMicros;
+
+    public PasswordHashingStatsDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    @XmlElement
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    @XmlElement
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public void setActiveThreads(int activeThreads) {
+        this.activeThreads = activeThreads;
+    }
+
+    @XmlElement
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    @XmlElement
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    @XmlElement
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    @XmlElement
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    @XmlElement
+    public long getAverageWaitMicros() {
+        return averageWaitMicros;
+    }
+
+    public void setAverageWaitMicros(long averageWaitMicros) {
+        this.averageWaitMicros = averageWaitMicros;
+    }
+
+    @XmlElement
+    public long getMaxWaitMicros() {
+        return maxWaitMicros;
+    }
+
+    public void setMaxWaitMicros(long maxWaitMicros) {
+        this.maxWaitMicros = maxWaitMicros;
+    }
+
+    @XmlElement
+    public long getAverageHashMicros() {
+        return averageHashMicros;
+    }
+
+    public void setAverageHashMicros(long averageHashMicros) {
+        this.averageHashMicros = averageHashMicros;
+    }
+
+    @XmlElement
+    public long getMaxHashMicros() {
+        return maxHashMicros;
+    }
+
+    public void setMaxHashMicros(long maxHashMicros) {
+        this.maxHashMicros = maxHashMicros;
+    }
+}
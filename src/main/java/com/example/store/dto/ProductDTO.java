@@ -1,11 +1,18 @@
 package com.example.store.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlRootElement;
 import java.io.Serial;
 import java.io.Serializable;
 
+/**
+ * Null properties are not serialized (JAXB omits them as well), so a response with a sparse fieldset (?fields=)
+ * contains only the requested properties.
+ */
 @XmlRootElement(name = "product")
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ProductDTO implements Serializable {
     @Serial
     private static final long serialVersionUID = 1L;
@@ -20,11 +27,28 @@ public class ProductDTO implements Serializable {
     private String description;
     private String coverImage;
     private Double price;
+    private Long version;
 
     public ProductDTO() {
         // No-argument constructor for JAXB
     }
 
+    /**
+     * Constructor used by the projection queries of ProductRepository (JPQL constructor expression),
+     * so the read endpoints build the DTO straight from the result set, without loading the entities.
+     */
+    public ProductDTO(Long id, Long quantity, String title, String description, String coverImage, Double price,
+                      Long version, Long authorId, String authorUsername, String authorPseudonym) {
+        this.id = id;
+        this.quantity = quantity;
+        this.title = title;
+        this.description = description;
+        this.coverImage = coverImage;
+        this.price = price;
+        this.version = version;
+        this.author = new UserDTO(authorId, authorUsername, authorPseudonym);
+    }
+
     @XmlElement
     public String getCoverImage() {
         return coverImage;
@@ -87,4 +111,13 @@ public class ProductDTO implements Serializable {
     public void setQuantity(Long quantity) {
         this.quantity = quantity;
     }
+
+    @XmlElement
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
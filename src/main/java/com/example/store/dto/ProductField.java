@@ -0,0 +1,59 @@
+package com.example.store.dto;
+
+import java.util.Objects;
+
+/**
+ * The properties of {@link ProductDTO} which can be requested with the "fields" parameter (sparse fieldsets),
+ * together with the JPQL expressions reading them ("p" is the product, "a" is its author).
+ * </br>
+ * The declaration order is the order of the columns in the select clause, see ProductRepositoryCustomImpl.
+ */
+public enum ProductField {
+    ID("id", "p.id"),
+    QUANTITY("quantity", "p.quantity"),
+    TITLE("title", "p.title"),
+    DESCRIPTION("description", "p.description"),
+    COVER_IMAGE("coverImage", "p.coverImage"),
+    PRICE("price", "p.price"),
+    VERSION("version", "p.version"),
+    AUTHOR("author", "a.id, a.username, a.pseudonym");
+
+    /**
+     * Name of the property, as serialized in JSON and XML. It is also the name of the attribute of the entity.
+     */
+    private final String property;
+
+    /**
+     * JPQL select expression(s) of the property.
+     */
+    private final String selection;
+
+    ProductField(String property, String selection) {
+        this.property = property;
+        this.selection = selection;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String getSelection() {
+        return selection;
+    }
+
+    /**
+     * Finds the field by its property name.
+     * @param property String
+     * @return ProductField or null when there is no such property
+     */
+    public static ProductField fromProperty(String property) {
+        ProductField result = null;
+        final ProductField[] fields = values();
+        for (int i = 0; Objects.isNull(result) && i < fields.length; i++) {
+            if (fields[i].property.equals(property)) {
+                result = fields[i];
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.store.dto;
+
+import java.util.Objects;
+
+/**
+ * Filters of GET /store, bound from the query parameters (for example ?minPrice=5&maxPrice=20&inStock=true).
+ * All the filters are optional and they are combined with AND.
+ * - title: part of the title (case-insensitive)
+ * - minPrice / maxPrice: price range, inclusive
+ * - author: username of the author
+ * - inStock: true for quantity &gt; 0, false for the products out of stock
+ * </br>
+ * It is never serialized, so it has no JAXB annotations.
+ */
+public class ProductFilterDTO {
+
+    private String title;
+    private Double minPrice;
+    private Double maxPrice;
+    private String author;
+    private Boolean inStock;
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public Boolean getInStock() {
+        return inStock;
+    }
+
+    public void setInStock(Boolean inStock) {
+        this.inStock = inStock;
+    }
+
+    /**
+     * Checks if any filter other than the title is set (the title alone is served by the title index).
+     * @return boolean
+     */
+    public boolean hasCriteria() {
+        return !Objects.isNull(minPrice) || !Objects.isNull(maxPrice) || !Objects.isNull(author)
+                || !Objects.isNull(inStock);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * XML representation of a list of products: &lt;products&gt;&lt;product&gt;...&lt;/product&gt;&lt;/products&gt;.
+ * JAXB cannot marshal a List directly, so the catalog snapshot wraps it in this class.
+ */
+@XmlRootElement(name = "products")
+public class ProductListDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 5L;
+
+    private List<ProductDTO> products = new ArrayList<>();
+
+    public ProductListDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    public ProductListDTO(List<ProductDTO> products) {
+        this.products = products;
+    }
+
+    @XmlElement(name = "product")
+    public List<ProductDTO> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductDTO> products) {
+        this.products = products;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlElementWrapper;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of products obtained with keyset (cursor) pagination.
+ * nextCursor is an opaque value which should be sent back as the "after" parameter in order to get the next page.
+ * When nextCursor is missing, the last page was reached.
+ */
+@XmlRootElement(name = "productPage")
+public class ProductPageDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 3L;
+
+    private List<ProductDTO> products = new ArrayList<>();
+    private String nextCursor;
+
+    public ProductPageDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    @XmlElementWrapper(name = "products")
+    @XmlElement(name = "product")
+    public List<ProductDTO> getProducts() {
+        return products;
+    }
+
+    public void setProducts(List<ProductDTO> products) {
+        this.products = products;
+    }
+
+    @XmlElement
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * Counters of the rate limiter for one route group.
+ * - route: the route group (see RateLimitRoute)
+ * - allowed: requests let through
+ * - throttled: requests rejected with 429 Too Many Requests
+ */
+@XmlRootElement(name = "route")
+public class RateLimitRouteStatsDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 12L;
+
+    private String route;
+    private long allowed;
+    private long throttled;
+
+    public RateLimitRouteStatsDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    public RateLimitRouteStatsDTO(String route) {
+        this.route = route;
+    }
+
+    @XmlElement
+    public String getRoute() {
+        return route;
+    }
+
+    public void setRoute(String route) {
+        this.route = route;
+    }
+
+    @XmlElement
+    public long getAllowed() {
+        return allowed;
+    }
+
+    public void setAllowed(long allowed) {
+        this.allowed = allowed;
+    }
+
+    @XmlElement
+    public long getThrottled() {
+        return throttled;
+    }
+
+    public void setThrottled(long throttled) {
+        this.throttled = throttled;
+    }
+}
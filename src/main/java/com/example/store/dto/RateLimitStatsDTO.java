@@ -0,0 +1,44 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counters of the rate limiter.
+ * - trackedClients: clients (IP or user, per route) currently holding a bucket
+ * - routes: the counters of each route group
+ */
+@XmlRootElement(name = "rateLimitStats")
+public class RateLimitStatsDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 11L;
+
+    private int trackedClients;
+    private List<RateLimitRouteStatsDTO> routes = new ArrayList<>();
+
+    public RateLimitStatsDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    @XmlElement
+    public int getTrackedClients() {
+        return trackedClients;
+    }
+
+    public void setTrackedClients(int trackedClients) {
+        this.trackedClients = trackedClients;
+    }
+
+    @XmlElement(name = "route")
+    public List<RateLimitRouteStatsDTO> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<RateLimitRouteStatsDTO> routes) {
+        this.routes = routes;
+    }
+}
@@ -23,6 +23,12 @@ public class UserDTO implements Serializable {
         // No-argument constructor for JAXB
     }
 
+    public UserDTO(Long id, String username, String pseudonym) {
+        this.id = id;
+        this.username = username;
+        this.pseudonym = pseudonym;
+    }
+
     // Getters and Setters
     @XmlElement
     public Long getId() {
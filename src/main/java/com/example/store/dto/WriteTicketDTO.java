@@ -0,0 +1,83 @@
+package com.example.store.dto;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * State of an asynchronous write (POST / PUT /store/writes).
+ * - ticket: the id of the write, used to poll it (GET /store/tickets/{ticket})
+ * - status: PENDING (queued or being written), COMPLETED (committed) or FAILED
+ * - productId, version: the written product, when completed
+ * - error: the reason, when failed
+ */
+@XmlRootElement(name = "writeTicket")
+public class WriteTicketDTO implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 16L;
+
+    public static final String PENDING = "PENDING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+
+    private String ticket;
+    private String status;
+    private Long productId;
+    private Long version;
+    private String error;
+
+    public WriteTicketDTO() {
+        // No-argument constructor for JAXB
+    }
+
+    public WriteTicketDTO(String ticket, String status) {
+        this.ticket = ticket;
+        this.status = status;
+    }
+
+    @XmlElement
+    public String getTicket() {
+        return ticket;
+    }
+
+    public void setTicket(String ticket) {
+        this.ticket = ticket;
+    }
+
+    @XmlElement
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    @XmlElement
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    @XmlElement
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    @XmlElement
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.store.exception;
+
+/**
+ * Thrown when the server has no capacity left for a request (for example too many logins in progress).
+ * Unlike the other StoreExceptions it is not a client error: the same request may succeed later,
+ * so it is mapped to 503 Service Unavailable with a Retry-After header (see GlobalExceptionHandler).
+ */
+public class StoreBusyException extends StoreException {
+
+    public StoreBusyException(String message) {
+        super(message);
+    }
+
+    public StoreBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.store.exception;
+
+/**
+ * Thrown when a conditional write doesn't apply because the resource was changed in the meantime
+ * (the version expected by the client, usually sent as If-Match, is not the current one).
+ * It is mapped to 412 Precondition Failed (see GlobalExceptionHandler): the client should read the resource
+ * again and retry its change on top of the current version.
+ */
+public class StorePreconditionFailedException extends StoreException {
+
+    public StorePreconditionFailedException(String message) {
+        super(message);
+    }
+}
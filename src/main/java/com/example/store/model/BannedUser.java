@@ -0,0 +1,46 @@
+package com.example.store.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.util.Objects;
+
+/**
+ * A banned username. Banned users cannot authenticate and their already issued tokens are refused.
+ * </br>
+ * The username is the primary key, so banning the same user twice is a no-op and there is no need of a
+ * separate unique index. It is not a foreign key to User, so a username can be banned before it is registered.
+ */
+@Entity
+public class BannedUser {
+
+    @Id
+    private String username;
+
+    public BannedUser() {
+        // No-argument constructor for JPA
+    }
+
+    public BannedUser(String username) {
+        this.username = username;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BannedUser bannedUser)) return false;
+        return Objects.equals(getUsername(), bannedUser.getUsername());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getUsername());
+    }
+}
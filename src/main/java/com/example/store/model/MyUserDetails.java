@@ -1,26 +1,50 @@
 package com.example.store.model;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+
+import static com.example.store.util.Constants.ADMIN_AUTHORITY;
 
 /**
  * MyUserDetails - Class used in the authentication process.
  */
 public class MyUserDetails implements UserDetails {
+    private final Long id;
     private final String username;
     private final String password;
+    private final Collection<? extends GrantedAuthority> authorities;
 
     public MyUserDetails(User user) {
+        this(user, false);
+    }
+
+    /**
+     * @param user User
+     * @param admin boolean true if the user is a store admin (granted the ADMIN role)
+     */
+    public MyUserDetails(User user, boolean admin) {
+        this.id = user.getId();
         this.username = user.getUsername();
         this.password = user.getPassword();
+        this.authorities = admin ? List.of(new SimpleGrantedAuthority(ADMIN_AUTHORITY)) : Collections.emptyList();
+    }
+
+    /**
+     * The id of the user, so the ownership of the products can be checked without reading the user again.
+     * @return Long
+     */
+    public Long getId() {
+        return id;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return authorities;
     }
 
     @Override
@@ -8,12 +8,24 @@ import java.util.Objects;
  * </br>
  * Note1: BigDecimal should be used for Finance related calculus in java, however this
  * is a POC (Proof of Concept) and as a result we simplified a bit the implementation using Double.
+ * Note2: The indexes back the filters of GET /store (see ProductSpecifications). The author index leads with the
+ * author, so it serves both the author filter and the author + price range filter.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_product_price", columnList = "price"),
+        @Index(name = "idx_product_quantity", columnList = "quantity"),
+        @Index(name = "idx_product_author_price", columnList = "author_id, price")
+})
 public class Product {
 
+    /**
+     * IDENTITY ids are known only after each insert, which stops Hibernate from batching the inserts.
+     * A sequence with allocationSize > 1 uses the pooled optimizer: one sequence call reserves a range of ids.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     private Long quantity;
@@ -29,6 +41,12 @@ public class Product {
 
     private Double price;
 
+    /**
+     * Optimistic lock version, incremented by every update. It is also used to build the ETag of the product.
+     */
+    @Version
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -85,6 +103,14 @@ public class Product {
         this.price = price;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
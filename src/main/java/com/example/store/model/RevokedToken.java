@@ -0,0 +1,62 @@
+package com.example.store.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.util.Objects;
+
+/**
+ * A revoked token, identified by its id (the jti claim).
+ * The expiration of the token is kept, so the row can be deleted once the token would be rejected anyway.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_revoked_token_expiration", columnList = "expiration"))
+public class RevokedToken {
+
+    @Id
+    private String tokenId;
+
+    /**
+     * Expiration time of the token, in epoch milliseconds.
+     */
+    private long expiration;
+
+    public RevokedToken() {
+        // No-argument constructor for JPA
+    }
+
+    public RevokedToken(String tokenId, long expiration) {
+        this.tokenId = tokenId;
+        this.expiration = expiration;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public long getExpiration() {
+        return expiration;
+    }
+
+    public void setExpiration(long expiration) {
+        this.expiration = expiration;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RevokedToken revokedToken)) return false;
+        return getExpiration() == revokedToken.getExpiration()
+                && Objects.equals(getTokenId(), revokedToken.getTokenId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getTokenId(), getExpiration());
+    }
+}
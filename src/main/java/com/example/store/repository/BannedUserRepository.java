@@ -0,0 +1,20 @@
+package com.example.store.repository;
+
+import com.example.store.model.BannedUser;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * BannedUser repository class.
+ */
+public interface BannedUserRepository extends JpaRepository<BannedUser, String> {
+
+    /**
+     * Find all the banned usernames (only the column, not the entities, as the list can be large).
+     * @return List of String
+     */
+    @Query("select b.username from BannedUser b")
+    List<String> findAllUsernames();
+}
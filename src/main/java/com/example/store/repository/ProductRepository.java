@@ -1,19 +1,161 @@
 package com.example.store.repository;
 
+import com.example.store.dto.ProductDTO;
 import com.example.store.model.Product;
+import com.example.store.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * ProductRepository class.
+ * </br>
+ * The author is an eager @ManyToOne, but JPQL queries ignore the mapping, so Hibernate loads the authors with an extra
+ * select for each distinct author (N+1 selects). The queries returning lists of products use an entity graph
+ * or a join, so the authors are fetched in the same statement (see StoreControllerSqlStatementsTest).
+ * </br>
+ * The read endpoints use the ProductDTO projection queries: the DTOs are built straight from the result set,
+ * so no entity is materialized (no persistence context snapshot, no dirty checking) and the password column
+ * of the author is never read. When the client asks for some fields only (?fields=), the queries of
+ * ProductRepositoryCustom select only their columns.
  */
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    String SELECT_PRODUCT_DTO = "select new com.example.store.dto.ProductDTO(p.id, p.quantity, p.title, "
+            + "p.description, p.coverImage, p.price, p.version, a.id, a.username, a.pseudonym) "
+            + "from Product p join p.author a ";
 
     /**
-     * Finds a product if it contains provided value in its title.
-     * @param title String - provided value
+     * Finds all the products, fetching their authors in the same statement.
      * @return List of products
      */
-    List<Product> findByTitleContaining(String title);
+    @Override
+    @EntityGraph(attributePaths = "author")
+    List<Product> findAll();
+
+    /**
+     * Reads all the products as DTOs, ordered by id.
+     * @return List of ProductDTO
+     */
+    @Query(SELECT_PRODUCT_DTO + "order by p.id")
+    List<ProductDTO> findAllProductDtos();
+
+    /**
+     * Reads a product as DTO.
+     * @param id Long
+     * @return Optional ProductDTO
+     */
+    @Query(SELECT_PRODUCT_DTO + "where p.id = :id")
+    Optional<ProductDTO> findProductDtoById(@Param("id") Long id);
+
+    /**
+     * Reads the products with the provided ids as DTOs, ordered by id (used with the ids found by the title index).
+     * @param ids Collection of ids
+     * @return List of ProductDTO
+     */
+    @Query(SELECT_PRODUCT_DTO + "where p.id in :ids order by p.id")
+    List<ProductDTO> findProductDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads only the version of a product (used to answer conditional GET requests without loading the product).
+     * @param id Long
+     * @return Optional version, empty if the product doesn't exist
+     */
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Reads only the id and title of all the products (used to build the title index at startup).
+     * @return List of ProductTitleView
+     */
+    @Query("select p.id as id, p.title as title from Product p")
+    List<ProductTitleView> findAllTitles();
+
+    /**
+     * Keyset (cursor) pagination: finds the products with an id greater than the provided one, ordered by id.
+     * As the primary key index is used to seek directly to the first row of the page, deep pages cost the same as
+     * the first page (unlike OFFSET pagination which reads and discards all the previous rows).
+     * @param id Long - the id of the last product from the previous page
+     * @param pageable Pageable - only the page size is relevant (page number should always be 0)
+     * @return List of ProductDTO
+     */
+    @Query(SELECT_PRODUCT_DTO + "where p.id > :id order by p.id")
+    List<ProductDTO> findProductDtosByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Optimistic update of a product with a single statement: it applies only if the product still has the
+     * expected version, and increments the version. No product is loaded, so there is no dirty checking either.
+     * Transactional here, so the change is committed when the method returns (and the caches can be invalidated).
+     * @param id Long
+     * @param version Long expected version
+     * @param title String
+     * @param description String
+     * @param author User
+     * @param coverImage String
+     * @param price Double
+     * @param quantity Long
+     * @return number of updated products (0 when the product doesn't exist or has another version)
+     */
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.title = :title, p.description = :description, p.author = :author, "
+            + "p.coverImage = :coverImage, p.price = :price, p.quantity = :quantity, p.version = p.version + 1 "
+            + "where p.id = :id and p.version = :version")
+    int updateIfVersionMatches(@Param("id") Long id, @Param("version") Long version, @Param("title") String title,
+                               @Param("description") String description, @Param("author") User author,
+                               @Param("coverImage") String coverImage, @Param("price") Double price,
+                               @Param("quantity") Long quantity);
+
+    /**
+     * Takes units from the stock of a product, only if enough units are left. The check and the decrement are a
+     * single statement: concurrent buyers of the same product queue on its row lock and each one evaluates the
+     * condition against the stock left by the previous one, so the stock never goes negative.
+     * The version is incremented, as the product changed.
+     * @param id Long
+     * @param quantity Long units to take (positive)
+     * @return number of updated products (0 when the product doesn't exist or has not enough stock)
+     */
+    @Transactional
+    @Modifying
+    @Query("update Product p set p.quantity = p.quantity - :quantity, p.version = p.version + 1 "
+            + "where p.id = :id and p.quantity >= :quantity")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") Long quantity);
+
+    /**
+     * Deletes a product if it belongs to the author. The ownership is checked by the statement itself.
+     * @param id Long
+     * @param authorId Long
+     * @return number of deleted products (0 when the product doesn't exist or belongs to another author)
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from Product p where p.id = :id and p.author.id = :authorId")
+    int deleteByIdAndAuthor(@Param("id") Long id, @Param("authorId") Long authorId);
+
+    /**
+     * Reads the whole catalog as a forward-only cursor ordered by id (used for the streaming export).
+     * Rows are fetched from the database in chunks (fetch size), and the authors are fetched in the same
+     * statement, so the memory used does not depend on the catalog size as long as the consumer detaches the
+     * entities it already processed (the products and their authors).
+     * Read only hint skips the dirty checking snapshots.
+     * Important: the stream must be consumed inside a transaction and closed afterwards.
+     * @return Stream of products
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "100"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select p from Product p join fetch p.author order by p.id")
+    Stream<Product> streamAllOrderedById();
 }
@@ -0,0 +1,112 @@
+package com.example.store.repository;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductField;
+import com.example.store.model.Product;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Queries of {@link ProductRepository} whose select clause is built at runtime (sparse fieldsets):
+ * only the columns of the requested fields are read, and the author is joined only when requested.
+ * The returned DTOs have only the requested fields set.
+ * Similarly, the partial update (PATCH) writes only the columns of the provided fields.
+ * The checkout decrements the stock of several products with a single JDBC batch.
+ * The set-based batch update and delete return the ids of the changed rows, read in the same transaction.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Reads all the products, ordered by id.
+     * @param fields Set of fields to read
+     * @return List of ProductDTO
+     */
+    List<ProductDTO> findProductDtos(Set<ProductField> fields);
+
+    /**
+     * Reads the products with the provided ids, ordered by id.
+     * @param fields Set of fields to read
+     * @param ids Collection of ids
+     * @return List of ProductDTO
+     */
+    List<ProductDTO> findProductDtosByIdIn(Set<ProductField> fields, Collection<Long> ids);
+
+    /**
+     * Keyset (cursor) pagination: reads at most limit products with an id greater than the provided one, ordered by id.
+     * @param fields Set of fields to read
+     * @param id Long - the id of the last product from the previous page
+     * @param limit int
+     * @return List of ProductDTO
+     */
+    List<ProductDTO> findProductDtosByIdGreaterThan(Set<ProductField> fields, Long id, int limit);
+
+    /**
+     * Reads at most limit products matching the specification (Criteria query), in the requested order.
+     * @param specification Specification of the products to read
+     * @param sort Sort
+     * @param fields Set of fields to read, null meaning all the fields
+     * @param limit int
+     * @return List of ProductDTO
+     */
+    List<ProductDTO> findProductDtos(Specification<Product> specification, Sort sort, Set<ProductField> fields,
+                                     int limit);
+
+    /**
+     * Changes only the columns of the provided fields of a product, if it still has the expected version.
+     * The version is incremented, as for any other update.
+     * @param id Long product id
+     * @param version Long expected version
+     * @param values Map of the new values by field (id and version cannot be changed), the author being a User
+     * @return number of updated products (0 when missing or having another version, 1 otherwise)
+     */
+    int updateFieldsIfVersionMatches(Long id, Long version, Map<ProductField, Object> values);
+
+    /**
+     * Changes the columns of the provided fields of a product, whatever its version (no precondition).
+     * The version is incremented, and the new one is read within the same transaction.
+     * @param id Long product id
+     * @param values Map of the new values by field (id and version cannot be changed), the author being a User
+     * @return Optional new version, empty when the product doesn't exist
+     */
+    Optional<Long> updateFields(Long id, Map<ProductField, Object> values);
+
+    /**
+     * Takes units from the stock of several products, each one only if enough units are left (as
+     * ProductRepository.decrementQuantity does for one product). The conditional updates are sent as one JDBC batch,
+     * in ascending id order, so concurrent checkouts lock the common products in the same order and cannot deadlock.
+     * Must be called within a transaction, which the caller rolls back when a product has not enough stock.
+     * @param quantities SortedMap of the units to take by product id
+     * @return the number of updated rows of each product, in ascending id order (0 when missing or not enough stock)
+     */
+    int[] decrementQuantities(SortedMap<Long, Long> quantities);
+
+    /**
+     * Set-based update of the price and quantity of the products which belong to the author (null keeps the
+     * current value). The ownership is checked by the statement itself and the version is incremented,
+     * so the ETags and the optimistic locking see the change.
+     * The ids are read after the update, in the same transaction: the updated rows stay locked until the commit.
+     * @param ids Collection of ids
+     * @param authorId Long
+     * @param price Double (optional)
+     * @param quantity Long (optional)
+     * @return List of the updated ids, ascending
+     */
+    List<Long> updatePriceAndQuantityByAuthor(Collection<Long> ids, Long authorId, Double price, Long quantity);
+
+    /**
+     * Set-based delete of the products which belong to the author. The ownership is checked by the statement itself.
+     * The owned ids are read (without locking) before the delete, which keeps its ownership condition. When the
+     * delete removes fewer rows (changed concurrently), only the ids which are gone are returned.
+     * @param ids Collection of ids
+     * @param authorId Long
+     * @return List of the deleted ids, ascending
+     */
+    List<Long> deleteByAuthor(Collection<Long> ids, Long authorId);
+}
@@ -0,0 +1,368 @@
+package com.example.store.repository;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductField;
+import com.example.store.dto.UserDTO;
+import com.example.store.model.Product;
+import com.example.store.model.User;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+
+/**
+ * Implementation of {@link ProductRepositoryCustom}.
+ * The JPQL is built only from the {@link ProductField} constants (never from the request), and the values are bound
+ * as parameters. The fields are iterated in declaration order (EnumSet), both when building the select clause
+ * and when reading the tuples.
+ * The updates are built the same way: the set clause has one assignment per provided field, each value being
+ * bound to the parameter named after the property.
+ */
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String AUTHOR = "author";
+    private static final String ID = "id";
+    private static final String USERNAME = "username";
+    private static final String PSEUDONYM = "pseudonym";
+    private static final String VERSION = "version";
+
+    /**
+     * Native, as JPQL bulk updates cannot be sent as a JDBC batch.
+     */
+    private static final String DECREMENT_QUANTITY_SQL =
+            "update product set quantity = quantity - ?, version = version + 1 where id = ? and quantity >= ?";
+
+    /**
+     * Set-based statements of the batch update and delete, in plain SQL accepted by any database (no RETURNING).
+     * They are sent through the JDBC connection of the transaction, the IN list placeholders being appended for
+     * each call.
+     */
+    private static final String UPDATE_PRICE_AND_QUANTITY_SQL = "update product "
+            + "set price = coalesce(?, price), quantity = coalesce(?, quantity), version = version + 1 "
+            + "where author_id = ? and id in (%s)";
+    private static final String DELETE_BY_AUTHOR_SQL = "delete from product where author_id = ? and id in (%s)";
+    private static final String SELECT_IDS_BY_AUTHOR_SQL =
+            "select id from product where author_id = ? and id in (%s) order by id";
+    private static final String SELECT_IDS_SQL = "select id from product where id in (%s)";
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public ProductRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<ProductDTO> findProductDtos(Set<ProductField> fields) {
+        final TypedQuery<Tuple> query = entityManager.createQuery(buildQuery(fields, "order by p.id"), Tuple.class);
+        return toProductDtos(query.getResultList(), fields);
+    }
+
+    @Override
+    public List<ProductDTO> findProductDtosByIdIn(Set<ProductField> fields, Collection<Long> ids) {
+        final TypedQuery<Tuple> query = entityManager.createQuery(
+                buildQuery(fields, "where p.id in :ids order by p.id"), Tuple.class);
+        query.setParameter("ids", ids);
+        return toProductDtos(query.getResultList(), fields);
+    }
+
+    @Override
+    public List<ProductDTO> findProductDtosByIdGreaterThan(Set<ProductField> fields, Long id, int limit) {
+        final TypedQuery<Tuple> query = entityManager.createQuery(
+                buildQuery(fields, "where p.id > :id order by p.id"), Tuple.class);
+        query.setParameter("id", id);
+        query.setMaxResults(limit);
+        return toProductDtos(query.getResultList(), fields);
+    }
+
+    @Override
+    public List<ProductDTO> findProductDtos(Specification<Product> specification, Sort sort, Set<ProductField> fields,
+                                            int limit) {
+        final Set<ProductField> selectedFields = Objects.isNull(fields)
+                ? EnumSet.allOf(ProductField.class) : EnumSet.copyOf(fields);
+        final CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        final Root<Product> product = query.from(Product.class);
+        query.multiselect(getSelections(product, selectedFields));
+        final Predicate predicate = specification.toPredicate(product, query, builder);
+        if (!Objects.isNull(predicate)) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, product, builder));
+        return toProductDtos(entityManager.createQuery(query).setMaxResults(limit).getResultList(), selectedFields);
+    }
+
+    @Override
+    @Transactional
+    public int updateFieldsIfVersionMatches(Long id, Long version, Map<ProductField, Object> values) {
+        final Query query = buildUpdate(values, "where p.id = :id and p.version = :version");
+        query.setParameter(ID, id);
+        query.setParameter(VERSION, version);
+        return query.executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public Optional<Long> updateFields(Long id, Map<ProductField, Object> values) {
+        final Query query = buildUpdate(values, "where p.id = :id");
+        query.setParameter(ID, id);
+        Optional<Long> result = Optional.empty();
+        if (query.executeUpdate() > 0) {
+            // the updated row stays locked until the commit, so the version read is the one written above.
+            final TypedQuery<Long> versionQuery =
+                    entityManager.createQuery("select p.version from Product p where p.id = :id", Long.class);
+            result = Optional.of(versionQuery.setParameter(ID, id).getSingleResult());
+        }
+        return result;
+    }
+
+    @Override
+    public int[] decrementQuantities(SortedMap<Long, Long> quantities) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(DECREMENT_QUANTITY_SQL)) {
+                for (Map.Entry<Long, Long> entry : quantities.entrySet()) {
+                    statement.setLong(1, entry.getValue());
+                    statement.setLong(2, entry.getKey());
+                    statement.setLong(3, entry.getValue());
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    @Transactional
+    public List<Long> updatePriceAndQuantityByAuthor(Collection<Long> ids, Long authorId, Double price,
+                                                     Long quantity) {
+        final String sql = String.format(UPDATE_PRICE_AND_QUANTITY_SQL, getPlaceholders(ids.size()));
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            List<Long> result = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setObject(1, price, Types.DOUBLE);
+                statement.setObject(2, quantity, Types.BIGINT);
+                statement.setLong(3, authorId);
+                bindIds(statement, ids, 4);
+                if (statement.executeUpdate() > 0) {
+                    // the updated rows stay locked by this transaction, so they are all still owned by the author.
+                    result = selectIds(connection, SELECT_IDS_BY_AUTHOR_SQL, authorId, ids);
+                }
+            }
+            return result;
+        });
+    }
+
+    @Override
+    @Transactional
+    public List<Long> deleteByAuthor(Collection<Long> ids, Long authorId) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            // a deleted row cannot be read back, so the owned ids are read first (without locking them).
+            List<Long> result = selectIds(connection, SELECT_IDS_BY_AUTHOR_SQL, authorId, ids);
+            if (!result.isEmpty()) {
+                final String sql = String.format(DELETE_BY_AUTHOR_SQL, getPlaceholders(result.size()));
+                final int deleted;
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setLong(1, authorId);
+                    bindIds(statement, result, 2);
+                    deleted = statement.executeUpdate();
+                }
+                if (deleted < result.size()) {
+                    // changed concurrently between the two statements: keep only the ids which are gone.
+                    result = new ArrayList<>(result);
+                    result.removeAll(selectIds(connection, SELECT_IDS_SQL, null, result));
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Builds the placeholders of an IN list.
+     * @param count int number of values (positive)
+     * @return String "?, ?, ..."
+     */
+    private String getPlaceholders(int count) {
+        final StringBuilder result = new StringBuilder("?");
+        for (int i = 1; i < count; i++) {
+            result.append(", ?");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Binds the ids of the IN list.
+     * @param statement PreparedStatement
+     * @param ids Collection of ids
+     * @param firstIndex int index of the first placeholder of the IN list
+     * @throws SQLException on database errors
+     */
+    private void bindIds(PreparedStatement statement, Collection<Long> ids, int firstIndex) throws SQLException {
+        int index = firstIndex;
+        for (Long id : ids) {
+            statement.setLong(index++, id);
+        }
+    }
+
+    /**
+     * Reads the ids of the products among the provided ones, optionally only the ones of the author.
+     * @param connection Connection of the current transaction
+     * @param sql String SELECT_IDS_BY_AUTHOR_SQL or SELECT_IDS_SQL
+     * @param authorId Long (null for SELECT_IDS_SQL)
+     * @param ids Collection of ids
+     * @return List of ids
+     * @throws SQLException on database errors
+     */
+    private List<Long> selectIds(Connection connection, String sql, Long authorId, Collection<Long> ids)
+            throws SQLException {
+        final List<Long> result = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                String.format(sql, getPlaceholders(ids.size())))) {
+            int firstIndex = 1;
+            if (!Objects.isNull(authorId)) {
+                statement.setLong(firstIndex++, authorId);
+            }
+            bindIds(statement, ids, firstIndex);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(resultSet.getLong(1));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the update of the provided fields, which also increments the version.
+     * @param values Map of the new values by field (id and version cannot be changed)
+     * @param where String the where clause
+     * @return Query having the values bound (the parameters of the where clause are left to the caller)
+     */
+    private Query buildUpdate(Map<ProductField, Object> values, String where) {
+        final StringBuilder jpql = new StringBuilder("update Product p set ");
+        for (ProductField field : values.keySet()) {
+            if (field == ProductField.ID || field == ProductField.VERSION) {
+                throw new IllegalArgumentException(field.getProperty());
+            }
+            jpql.append("p.").append(field.getProperty()).append(" = :").append(field.getProperty()).append(", ");
+        }
+        jpql.append("p.version = p.version + 1 ").append(where);
+        final Query result = entityManager.createQuery(jpql.toString());
+        for (Map.Entry<ProductField, Object> entry : values.entrySet()) {
+            result.setParameter(entry.getKey().getProperty(), entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Builds the select clause of the Criteria query. The property name of each field is also the attribute name
+     * of the entity, and the author is joined only when requested.
+     * @param product Root
+     * @param fields Set of fields, in declaration order
+     * @return List of Selection
+     */
+    private List<Selection<?>> getSelections(Root<Product> product, Set<ProductField> fields) {
+        final List<Selection<?>> result = new ArrayList<>();
+        for (ProductField field : fields) {
+            if (field == ProductField.AUTHOR) {
+                final Join<Product, User> author = product.join(AUTHOR);
+                result.add(author.get(ID));
+                result.add(author.get(USERNAME));
+                result.add(author.get(PSEUDONYM));
+            } else {
+                result.add(product.get(field.getProperty()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds the query selecting only the columns of the fields.
+     * @param fields Set of fields
+     * @param condition String where and order by clauses
+     * @return String JPQL
+     */
+    private String buildQuery(Set<ProductField> fields, String condition) {
+        final StringBuilder result = new StringBuilder("select ");
+        String separator = "";
+        for (ProductField field : EnumSet.copyOf(fields)) {
+            result.append(separator).append(field.getSelection());
+            separator = ", ";
+        }
+        result.append(" from Product p ");
+        if (fields.contains(ProductField.AUTHOR)) {
+            result.append("join p.author a ");
+        }
+        return result.append(condition).toString();
+    }
+
+    /**
+     * Converts the tuples to DTOs.
+     * @param tuples List of Tuple
+     * @param fields Set of fields
+     * @return List of ProductDTO
+     */
+    private List<ProductDTO> toProductDtos(List<Tuple> tuples, Set<ProductField> fields) {
+        final Set<ProductField> orderedFields = EnumSet.copyOf(fields);
+        final List<ProductDTO> result = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            result.add(toProductDto(tuple, orderedFields));
+        }
+        return result;
+    }
+
+    /**
+     * Converts a tuple to a DTO, having only the selected fields set.
+     * @param tuple Tuple
+     * @param fields Set of fields, in declaration order
+     * @return ProductDTO
+     */
+    private ProductDTO toProductDto(Tuple tuple, Set<ProductField> fields) {
+        final ProductDTO result = new ProductDTO();
+        int column = 0;
+        for (ProductField field : fields) {
+            switch (field) {
+                case ID -> result.setId(tuple.get(column, Long.class));
+                case QUANTITY -> result.setQuantity(tuple.get(column, Long.class));
+                case TITLE -> result.setTitle(tuple.get(column, String.class));
+                case DESCRIPTION -> result.setDescription(tuple.get(column, String.class));
+                case COVER_IMAGE -> result.setCoverImage(tuple.get(column, String.class));
+                case PRICE -> result.setPrice(tuple.get(column, Double.class));
+                case VERSION -> result.setVersion(tuple.get(column, Long.class));
+                case AUTHOR -> {
+                    result.setAuthor(new UserDTO(tuple.get(column, Long.class), tuple.get(column + 1, String.class),
+                            tuple.get(column + 2, String.class)));
+                    column += 2;
+                }
+            }
+            column++;
+        }
+        return result;
+    }
+}
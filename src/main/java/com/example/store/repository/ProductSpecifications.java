@@ -0,0 +1,101 @@
+package com.example.store.repository;
+
+import com.example.store.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Specifications (Criteria predicates) used to filter the products, see ProductService.getProducts.
+ * Each one matches an index declared on {@link Product}, so a selective filter reads only the rows it returns.
+ */
+public final class ProductSpecifications {
+
+    private static final String ID = "id";
+    private static final String PRICE = "price";
+    private static final String QUANTITY = "quantity";
+    private static final String AUTHOR = "author";
+    private static final String TITLE = "title";
+    private static final char ESCAPE = '\\';
+    private static final String WILDCARD = "%";
+
+    /**
+     * private constructor specific to utility classes.
+     */
+    private ProductSpecifications() {
+        throw new UnsupportedOperationException("You are not allowed to extend or instantiate this utility class");
+    }
+
+    /**
+     * Products having one of the ids (found by the title index).
+     * @param ids Collection of ids
+     * @return Specification
+     */
+    public static Specification<Product> idIn(Collection<Long> ids) {
+        return (product, query, builder) -> product.get(ID).in(ids);
+    }
+
+    /**
+     * Products whose title contains the value, case-insensitive (same matching as the title index).
+     * The title is not indexed, so this is a scan of the rows left by the other filters; it is used only when
+     * the title index matches too many ids to pass them in an IN list.
+     * @param value String the searched part of the title
+     * @return Specification
+     */
+    public static Specification<Product> titleContains(String value) {
+        final String escapedValue = value.toLowerCase(Locale.ROOT)
+                .replace(String.valueOf(ESCAPE), String.valueOf(ESCAPE) + ESCAPE)
+                .replace(WILDCARD, ESCAPE + WILDCARD)
+                .replace("_", ESCAPE + "_");
+        return (product, query, builder) -> builder.like(builder.lower(product.get(TITLE)),
+                WILDCARD + escapedValue + WILDCARD, ESCAPE);
+    }
+
+    /**
+     * Products with an id greater than the provided one (keyset pagination, the id being the primary key).
+     * @param id Long - the id of the last product from the previous page
+     * @return Specification
+     */
+    public static Specification<Product> idGreaterThan(Long id) {
+        return (product, query, builder) -> builder.greaterThan(product.get(ID), id);
+    }
+
+    /**
+     * Products with a price greater than or equal to the provided one.
+     * @param minPrice Double
+     * @return Specification
+     */
+    public static Specification<Product> priceGreaterThanOrEqualTo(Double minPrice) {
+        return (product, query, builder) -> builder.greaterThanOrEqualTo(product.get(PRICE), minPrice);
+    }
+
+    /**
+     * Products with a price less than or equal to the provided one.
+     * @param maxPrice Double
+     * @return Specification
+     */
+    public static Specification<Product> priceLessThanOrEqualTo(Double maxPrice) {
+        return (product, query, builder) -> builder.lessThanOrEqualTo(product.get(PRICE), maxPrice);
+    }
+
+    /**
+     * Products of the author. The author id is the foreign key column of the product, so no join is needed.
+     * @param authorId Long
+     * @return Specification
+     */
+    public static Specification<Product> authorIdEquals(Long authorId) {
+        return (product, query, builder) -> builder.equal(product.get(AUTHOR).get(ID), authorId);
+    }
+
+    /**
+     * Products in stock (quantity &gt; 0), or out of stock (quantity missing or &lt;= 0).
+     * @param inStock boolean
+     * @return Specification
+     */
+    public static Specification<Product> inStock(boolean inStock) {
+        return (product, query, builder) -> inStock
+                ? builder.greaterThan(product.get(QUANTITY), 0L)
+                : builder.or(builder.isNull(product.get(QUANTITY)), builder.lessThanOrEqualTo(product.get(QUANTITY), 0L));
+    }
+}
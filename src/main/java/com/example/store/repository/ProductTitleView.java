@@ -0,0 +1,11 @@
+package com.example.store.repository;
+
+/**
+ * Projection holding only the id and the title of a product (used to build the title index).
+ */
+public interface ProductTitleView {
+
+    Long getId();
+
+    String getTitle();
+}
@@ -0,0 +1,25 @@
+package com.example.store.repository;
+
+import com.example.store.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * RevokedToken repository class.
+ */
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Deletes the revoked tokens which expired (they are rejected anyway), with a single statement.
+     * Transactional here, as it is also called at startup, outside the service transactions.
+     * @param now long epoch milliseconds
+     * @return number of deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiration <= :now")
+    int deleteExpired(@Param("now") long now);
+}
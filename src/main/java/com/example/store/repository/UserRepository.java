@@ -3,6 +3,8 @@ package com.example.store.repository;
 import com.example.store.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,4 +25,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return User object
      */
     Optional<User> findByPseudonym(String pseudonym);
+
+    /**
+     * Find the Users with the provided usernames (used by the batch operations)
+     * @param usernames Collection of String
+     * @return List of User objects
+     */
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    /**
+     * Find the Users with the provided pseudonyms (used by the batch operations)
+     * @param pseudonyms Collection of String
+     * @return List of User objects
+     */
+    List<User> findByPseudonymIn(Collection<String> pseudonyms);
 }
\ No newline at end of file
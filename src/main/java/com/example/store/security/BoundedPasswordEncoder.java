@@ -0,0 +1,53 @@
+package com.example.store.security;
+
+import com.example.store.service.PasswordHashingService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * PasswordEncoder which runs the hashing of its delegate on the bounded executor of PasswordHashingService,
+ * instead of the request thread. Both the login (matches) and the user registration (encode) go through it.
+ * </br>
+ * upgradeEncoding only reads the cost of the stored hash, so it is not worth a thread switch.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final PasswordHashingService passwordHashingService;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingService passwordHashingService) {
+        this.delegate = delegate;
+        this.passwordHashingService = passwordHashingService;
+    }
+
+    /**
+     * Hashes the raw password.
+     * @param rawPassword CharSequence
+     * @return String the encoded password
+     */
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingService.execute(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Verifies the raw password against the stored hash.
+     * @param rawPassword CharSequence
+     * @param encodedPassword String
+     * @return true if they match
+     */
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingService.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Checks if the stored hash should be encoded again (for example with a higher cost).
+     * @param encodedPassword String
+     * @return boolean
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
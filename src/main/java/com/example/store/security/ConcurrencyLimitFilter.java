@@ -0,0 +1,85 @@
+package com.example.store.security;
+
+import com.example.store.service.ConcurrencyLimitService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.example.store.util.Constants.ERROR;
+import static com.example.store.util.Constants.RETRY_AFTER_SECONDS;
+import static com.example.store.util.ErrorMessages.SERVER_OVERLOADED;
+
+/**
+ * ConcurrencyLimitFilter sheds the load of the store and authentication routes (see ConcurrencyLimitService).
+ * It runs after RateLimitFilter (a client over its own quota doesn't take a slot) and before the security filter
+ * chain (a rejected request costs no token verification nor user lookup).
+ * A rejected request gets 503 Service Unavailable with a Retry-After header.
+ * Note: the asynchronous requests (GET /store/export) release their slot when the servlet thread is released.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimitService concurrencyLimitService;
+
+    /**
+     * The body of the rejections never changes, so it is serialized once.
+     */
+    private final byte[] rejectionBody;
+
+    @Autowired
+    public ConcurrencyLimitFilter(ConcurrencyLimitService concurrencyLimitService, ObjectMapper objectMapper) {
+        this.concurrencyLimitService = concurrencyLimitService;
+        try {
+            this.rejectionBody = objectMapper.writeValueAsBytes(Map.of(ERROR, SERVER_OVERLOADED));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(SERVER_OVERLOADED, e);
+        }
+    }
+
+    /**
+     * Serves the request if its route has a free slot, measuring its latency, otherwise rejects it with 503.
+     * @param request HttpServletRequest
+     * @param response HttpServletResponse
+     * @param filterChain FilterChain
+     * @throws ServletException on Servlet related problems
+     * @throws IOException on IO related problems
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        final RateLimitRoute route = RateLimitRoute.resolve(request.getMethod(), path);
+        if (Objects.isNull(route)) {
+            filterChain.doFilter(request, response);
+        } else if (concurrencyLimitService.tryAcquire(route)) {
+            final long startedAt = System.nanoTime();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                concurrencyLimitService.release(route, startedAt, System.nanoTime());
+            }
+        } else {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(rejectionBody.length);
+            response.getOutputStream().write(rejectionBody);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.store.security;
+
+/**
+ * The claims of a verified token, as used by the application. Immutable, so it can be cached and shared
+ * between requests (see JwtUtil.parseToken).
+ */
+public final class JwtClaims {
+
+    /**
+     * The jti claim, null for the tokens issued before it was introduced.
+     */
+    private final String tokenId;
+
+    private final String username;
+
+    /**
+     * Expiration time, in epoch milliseconds.
+     */
+    private final long expiration;
+
+    public JwtClaims(String tokenId, String username, long expiration) {
+        this.tokenId = tokenId;
+        this.username = username;
+        this.expiration = expiration;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * Checks if the token is expired at the provided time.
+     * @param now long epoch milliseconds
+     * @return TRUE if is expired, FALSE otherwise
+     */
+    public boolean isExpired(long now) {
+        return expiration <= now;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.store.security;
 
+import com.example.store.service.BannedUserService;
 import com.example.store.service.MyUserDetailsService;
+import com.example.store.service.TokenRevocationService;
 import io.jsonwebtoken.ExpiredJwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -17,29 +19,38 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
+import static com.example.store.util.Constants.AUTHORIZATION;
+import static com.example.store.util.Constants.BEARER_PREFIX;
+
 /**
  * JwtRequestFilter class.
  */
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
-    private static final String AUTHORIZATION = "Authorization";
-    private static final String BEARER_STRING = "Bearer ";
-    private static final int START_IDX = 7;
-
     private final MyUserDetailsService userDetailsService;
 
     private final JwtUtil jwtUtil;
 
+    private final BannedUserService bannedUserService;
+
+    private final TokenRevocationService tokenRevocationService;
+
     @Autowired
-    public JwtRequestFilter(MyUserDetailsService userDetailsService, JwtUtil jwtUtil) {
+    public JwtRequestFilter(MyUserDetailsService userDetailsService, JwtUtil jwtUtil,
+                            BannedUserService bannedUserService, TokenRevocationService tokenRevocationService) {
         this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
+        this.bannedUserService = bannedUserService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     /**
      * This method ensure that our application processes JWT tokens correctly, enabling secure authentication
      * and authorization mechanisms for our API.
+     * The token is verified and parsed once (see JwtUtil.parseToken), the validation reuses the parsed claims.
+     * Tokens issued to users banned afterwards and revoked tokens are refused (in-memory checks, see
+     * BannedUserService and TokenRevocationService).
      * @param request HttpServletRequest
      * @param response HttpServletResponse
      * @param filterChain FilterChain
@@ -52,12 +63,13 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         final String authorizationHeader = request.getHeader(AUTHORIZATION);
 
         String username = null;
-        String jwt = null;
+        JwtClaims claims = null;
 
-        if (authorizationHeader != null && authorizationHeader.startsWith(BEARER_STRING)) {
-            jwt = authorizationHeader.substring(START_IDX);
+        if (authorizationHeader != null && authorizationHeader.startsWith(BEARER_PREFIX)) {
+            final String jwt = authorizationHeader.substring(BEARER_PREFIX.length());
             try {
-                username = jwtUtil.extractUsername(jwt);
+                claims = jwtUtil.parseToken(jwt);
+                username = claims.getUsername();
             } catch (ExpiredJwtException e) {
                 //JWT Token has expired
             } catch (Exception e) {
@@ -65,9 +77,11 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        if (username != null && !bannedUserService.isBanned(username)
+                && !tokenRevocationService.isRevoked(claims.getTokenId())
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
             final UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            if (jwtUtil.validateToken(claims, userDetails)) {
                 final var authorities = userDetails.getAuthorities();
                 final UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
@@ -1,24 +1,77 @@
 package com.example.store.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
  * JwtUtil component used on token related operations.
+ * </br>
+ * Verifying a token (HMAC signature, base64 and JSON parsing) is the most expensive part of an authenticated request,
+ * and clients send the same bearer token on every request. So the verified claims are cached:
+ * - the key is the SHA-256 digest of the token, so the tokens themselves are not kept in memory.
+ * - an entry is used only until the token expires, then the token is verified again (and rejected as expired).
+ * - the cache is bounded (least recently used entries are evicted first).
+ * Note: the signing key is static, so a cached verification stays valid until the token expires.
  */
 @Component
 public class JwtUtil {
 
     private final static String SECRET_KEY = "secret";
     private final static int TEN_HOURS = 1000 * 60 * 60 * 10;
+    private final static String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Verified claims by token digest, in access order. Guarded by "this".
+     */
+    private final Map<String, JwtClaims> verifiedTokens;
+
+    @Autowired
+    public JwtUtil(@Value("${store.jwt.cache.max-size:10000}") int cacheMaxSize) {
+        this.verifiedTokens = new LruMap(cacheMaxSize);
+    }
+
+    /**
+     * Verifies and parses a token, once: the claims of a token already verified are returned from the cache.
+     * @param token String
+     * @return JwtClaims
+     * @throws ExpiredJwtException when the token is expired
+     * @throws io.jsonwebtoken.JwtException when the token is invalid (signature, format)
+     */
+    public JwtClaims parseToken(String token) {
+        final String digest = digest(token);
+        JwtClaims result;
+        synchronized (this) {
+            result = verifiedTokens.get(digest);
+        }
+        if (Objects.isNull(result) || result.isExpired(System.currentTimeMillis())) {
+            // verified outside the lock, so concurrent requests with different tokens don't wait for each other.
+            final Claims claims = extractAllClaims(token);
+            result = new JwtClaims(claims.getId(), claims.getSubject(), claims.getExpiration().getTime());
+            synchronized (this) {
+                verifiedTokens.put(digest, result);
+            }
+        }
+        return result;
+    }
 
     /**
      * Extracts username from token.
@@ -26,7 +79,7 @@ public class JwtUtil {
      * @return the username String
      */
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return parseToken(token).getUsername();
     }
 
     /**
@@ -35,7 +88,7 @@ public class JwtUtil {
      * @return the expiration Date object
      */
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return new Date(parseToken(token).getExpiration());
     }
 
     /**
@@ -50,7 +103,7 @@ public class JwtUtil {
     }
 
     /**
-     * Extracts all claims from token
+     * Extracts all claims from token (verifying its signature and expiration).
      * @param token String
      * @return Claims
      */
@@ -59,12 +112,19 @@ public class JwtUtil {
     }
 
     /**
-     * Checks if Token is Expired.
+     * Computes the cache key of a token.
      * @param token String
-     * @return TRUE if is expired, FALSE otherwise
+     * @return String base64 SHA-256 digest
      */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private String digest(String token) {
+        try {
+            // MessageDigest is not thread safe, so we create one for each call (which is cheap).
+            final MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return Base64.getEncoder().encodeToString(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 is available on every Java platform.
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -79,12 +139,14 @@ public class JwtUtil {
 
     /**
      * Method that creates a token using the SECRET_KEY.
+     * Each token gets a random id (jti claim), so it can be revoked (see TokenRevocationService).
      * @param claims Map
      * @param subject String
      * @return token
      */
     private String createToken(Map<String, Object> claims, String subject) {
-        return Jwts.builder().setClaims(claims).setSubject(subject).setIssuedAt(new Date(System.currentTimeMillis()))
+        return Jwts.builder().setClaims(claims).setId(UUID.randomUUID().toString()).setSubject(subject)
+                .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + TEN_HOURS))
                 .signWith(SignatureAlgorithm.HS256, SECRET_KEY).compact();
     }
@@ -96,7 +158,37 @@ public class JwtUtil {
      * @return TRUE if is valid, FALSE otherwise
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(parseToken(token), userDetails);
+    }
+
+    /**
+     * Method that validates the claims of an already parsed token.
+     * @param claims JwtClaims
+     * @param userDetails UserDetails
+     * @return TRUE if is valid, FALSE otherwise
+     */
+    public Boolean validateToken(JwtClaims claims, UserDetails userDetails) {
+        return claims.getUsername().equals(userDetails.getUsername())
+                && !claims.isExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * LinkedHashMap in access order, which removes the least recently used entry once maxSize is exceeded.
+     */
+    private static final class LruMap extends LinkedHashMap<String, JwtClaims> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private LruMap(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JwtClaims> eldest) {
+            return size() > maxSize;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,124 @@
+package com.example.store.security;
+
+import com.example.store.service.RateLimitService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.store.util.Constants.AUTHORIZATION;
+import static com.example.store.util.Constants.BEARER_PREFIX;
+import static com.example.store.util.Constants.ERROR;
+import static com.example.store.util.ErrorMessages.TOO_MANY_REQUESTS;
+
+/**
+ * RateLimitFilter applies the per-client token buckets of RateLimitService, before the security filter chain,
+ * so a throttled request costs neither a user lookup nor a BCrypt hash.
+ * </br>
+ * The client is the user when the request carries a valid bearer token (the parsing is served from the JwtUtil
+ * cache), otherwise the remote IP. /authenticate and /register are always limited per IP, as their caller is not
+ * authenticated yet. A throttled request gets 429 Too Many Requests with a Retry-After header.
+ * Note: behind a proxy, server.forward-headers-strategy must be set so that the remote IP is the client one.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 2)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String IP_PREFIX = "ip:";
+    private static final String USER_PREFIX = "user:";
+
+    private final RateLimitService rateLimitService;
+
+    private final JwtUtil jwtUtil;
+
+    /**
+     * The body of the rejections never changes, so it is serialized once.
+     */
+    private final byte[] rejectionBody;
+
+    @Autowired
+    public RateLimitFilter(RateLimitService rateLimitService, JwtUtil jwtUtil, ObjectMapper objectMapper) {
+        this.rateLimitService = rateLimitService;
+        this.jwtUtil = jwtUtil;
+        try {
+            this.rejectionBody = objectMapper.writeValueAsBytes(Map.of(ERROR, TOO_MANY_REQUESTS));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(TOO_MANY_REQUESTS, e);
+        }
+    }
+
+    /**
+     * Lets the request through when the bucket of its client has a token, otherwise rejects it with 429.
+     * @param request HttpServletRequest
+     * @param response HttpServletResponse
+     * @param filterChain FilterChain
+     * @throws ServletException on Servlet related problems
+     * @throws IOException on IO related problems
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        final RateLimitRoute route = RateLimitRoute.resolve(request.getMethod(), path);
+        long waitNanos = 0;
+        if (!Objects.isNull(route)) {
+            waitNanos = rateLimitService.tryAcquire(route, getClient(route, request));
+        }
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+        } else {
+            reject(response, waitNanos);
+        }
+    }
+
+    /**
+     * Gets the key of the client: the user for requests with a valid bearer token, otherwise the remote IP.
+     * @param route RateLimitRoute
+     * @param request HttpServletRequest
+     * @return String
+     */
+    private String getClient(RateLimitRoute route, HttpServletRequest request) {
+        String result = IP_PREFIX + request.getRemoteAddr();
+        final String authorizationHeader = request.getHeader(AUTHORIZATION);
+        if (route != RateLimitRoute.AUTHENTICATE && !Objects.isNull(authorizationHeader)
+                && authorizationHeader.startsWith(BEARER_PREFIX)) {
+            try {
+                result = USER_PREFIX + jwtUtil.parseToken(authorizationHeader.substring(BEARER_PREFIX.length()))
+                        .getUsername();
+            } catch (Exception e) {
+                // invalid or expired token: the request is limited by IP (and rejected later by JwtRequestFilter).
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the 429 response.
+     * @param response HttpServletResponse
+     * @param waitNanos long time until the next token, rounded up to seconds for Retry-After
+     * @throws IOException on IO related problems
+     */
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        final long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(rejectionBody.length);
+        response.getOutputStream().write(rejectionBody);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.store.security;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Route groups which are rate limited separately (see RateLimitFilter and RateLimitService).
+ * They are also the routes protected by the concurrency limits (see ConcurrencyLimitFilter).
+ * - AUTHENTICATE: /authenticate and /register, which run BCrypt. Always limited per IP.
+ * - CATALOG: the reads of the store (GET /store/**).
+ * - WRITE: the other methods on /store/**.
+ * The configuration of each group is read from store.rate-limit.{property}.*
+ */
+public enum RateLimitRoute {
+    AUTHENTICATE("authenticate"),
+    CATALOG("catalog"),
+    WRITE("write");
+
+    private static final String AUTHENTICATE_PATH = "/authenticate";
+    private static final String REGISTER_PATH = "/register";
+    private static final String STORE_PATH = "/store";
+    private static final String STORE_PREFIX = "/store/";
+
+    private final String property;
+
+    RateLimitRoute(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * Finds the route group of a request.
+     * @param method String HTTP method
+     * @param path String request path (without the context path)
+     * @return RateLimitRoute or null when the request is not rate limited
+     */
+    public static RateLimitRoute resolve(String method, String path) {
+        RateLimitRoute result = null;
+        if (AUTHENTICATE_PATH.equals(path) || REGISTER_PATH.equals(path)) {
+            result = AUTHENTICATE;
+        } else if (STORE_PATH.equals(path) || path.startsWith(STORE_PREFIX)) {
+            result = HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) ? CATALOG : WRITE;
+        }
+        return result;
+    }
+}
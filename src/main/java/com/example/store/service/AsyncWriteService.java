@@ -0,0 +1,441 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.WriteTicketDTO;
+import com.example.store.exception.StoreBusyException;
+import com.example.store.exception.StoreException;
+import com.example.store.util.ErrorMessages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in asynchronous write mode for product creations and updates (group commit).
+ * </br>
+ * Each synchronous POST / PUT /store commits its own transaction on the request thread, so under burst writes
+ * (seller sync jobs) the commits dominate. Here the writes are put in a bounded queue and a single writer thread
+ * drains them in batches of at most maxBatchSize, each batch being written by one transaction (one commit, and the
+ * inserts are grouped in JDBC batches). Several updates of the same product within a batch are coalesced: only the
+ * last one is written, and all of them complete with its result.
+ * - when the queue is full the write is rejected right away with StoreBusyException (503).
+ * - when a batch fails, its writes are retried one by one, so a single invalid write fails alone.
+ * - a write completes (its future, its ticket) only once its transaction is committed, and the client is answered
+ * (submitSave, submitUpdate) only then: an acknowledged write is durable. Many clients still share each commit, and
+ * no request thread waits meanwhile (the controller returns the future).
+ * - when the application stops, new writes are rejected and the writer (not a daemon thread) writes the queued
+ * ones. The writes still queued after SHUTDOWN_TIMEOUT_MS fail, so their clients get an error, never a lost write.
+ * </br>
+ * The completed tickets are kept for ticketTtl, so the clients can poll them again (GET /store/tickets/{ticket}).
+ */
+@Service
+public class AsyncWriteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncWriteService.class);
+
+    private static final String THREAD_NAME = "product-writer";
+    private static final String BATCH_FAILED = "Group commit of {} writes failed, writing them one by one";
+    private static final String WRITES_NOT_WRITTEN = "{} queued writes were not written before the shutdown timeout";
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+    private static final long PURGE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final ProductService productService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+
+    private final int maxBatchSize;
+
+    private final long ticketTtlMillis;
+
+    private final BlockingQueue<Write> queue;
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    private volatile boolean running;
+
+    /**
+     * Set when the application stops, so no write is queued once the writer may have stopped.
+     */
+    private boolean stopped;
+
+    private final Object submitLock = new Object();
+
+    private Thread writer;
+
+    @Autowired
+    public AsyncWriteService(ProductService productService, TransactionTemplate transactionTemplate,
+                             @Value("${store.write.async.enabled:false}") boolean enabled,
+                             @Value("${store.write.async.queue-capacity:10000}") int queueCapacity,
+                             @Value("${store.write.async.max-batch-size:100}") int maxBatchSize,
+                             @Value("${store.write.async.ticket-ttl-ms:600000}") long ticketTtlMillis) {
+        this.productService = productService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.ticketTtlMillis = ticketTtlMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Starts the writer thread, when the asynchronous writes are enabled.
+     */
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            running = true;
+            writer = new Thread(this::drain, THREAD_NAME);
+            writer.start();
+        }
+    }
+
+    /**
+     * Rejects the new writes and stops the writer thread once the queued writes are written.
+     * The writes still queued after SHUTDOWN_TIMEOUT_MS are failed instead of being dropped.
+     * @throws InterruptedException when interrupted while waiting for the writer
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        synchronized (submitLock) {
+            stopped = true;
+        }
+        running = false;
+        try {
+            if (!Objects.isNull(writer)) {
+                writer.join(SHUTDOWN_TIMEOUT_MS);
+            }
+        } finally {
+            failQueuedWrites();
+        }
+    }
+
+    /**
+     * Fails the writes left in the queue (the writer is stopped, or didn't write them in time).
+     * The batch the writer may still be writing is not in the queue, it completes when committed.
+     */
+    private void failQueuedWrites() {
+        final List<Write> writes = new ArrayList<>();
+        queue.drainTo(writes);
+        if (!writes.isEmpty()) {
+            logger.warn(WRITES_NOT_WRITTEN, writes.size());
+            final StoreBusyException exception = new StoreBusyException(ErrorMessages.WRITES_STOPPED);
+            for (Write write : writes) {
+                write.future.completeExceptionally(exception);
+            }
+        }
+    }
+
+    /**
+     * Queues the creation of a product.
+     * @param productDto ProductDTO
+     * @return CompletableFuture completed with the persisted product once committed
+     * @throws StoreBusyException when the queue is full
+     */
+    public CompletableFuture<ProductDTO> saveProductAsync(ProductDTO productDto) {
+        return submit(new Write(null, productDto));
+    }
+
+    /**
+     * Queues the update of a product (applied whatever its version, as PUT without If-Match).
+     * @param id Long
+     * @param productDto ProductDTO
+     * @return CompletableFuture completed with the updated product once committed
+     * @throws StoreBusyException when the queue is full
+     */
+    public CompletableFuture<ProductDTO> updateProductAsync(Long id, ProductDTO productDto) {
+        return submit(new Write(id, productDto));
+    }
+
+    /**
+     * Queues the creation of a product and registers its ticket.
+     * @param productDto ProductDTO
+     * @return CompletableFuture completed with the ticket (COMPLETED or FAILED) once the write is committed or failed
+     */
+    public CompletableFuture<WriteTicketDTO> submitSave(ProductDTO productDto) {
+        return register(saveProductAsync(productDto));
+    }
+
+    /**
+     * Queues the update of a product and registers its ticket.
+     * @param id Long
+     * @param productDto ProductDTO
+     * @return CompletableFuture completed with the ticket (COMPLETED or FAILED) once the write is committed or failed
+     */
+    public CompletableFuture<WriteTicketDTO> submitUpdate(Long id, ProductDTO productDto) {
+        return register(updateProductAsync(id, productDto));
+    }
+
+    /**
+     * Gets the state of a write.
+     * @param ticket String
+     * @return WriteTicketDTO
+     */
+    public WriteTicketDTO getTicket(String ticket) {
+        final Ticket entry = tickets.get(ticket);
+        if (Objects.isNull(entry)) {
+            throw new StoreException(ErrorMessages.TICKET_NOT_FOUND);
+        }
+        return entry.toDto(ticket);
+    }
+
+    /**
+     * Adds a write to the queue.
+     * @param write Write
+     * @return CompletableFuture of the write
+     */
+    private CompletableFuture<ProductDTO> submit(Write write) {
+        if (!enabled) {
+            throw new StoreException(ErrorMessages.ASYNC_WRITES_DISABLED);
+        }
+        synchronized (submitLock) {
+            if (stopped) {
+                throw new StoreBusyException(ErrorMessages.WRITES_STOPPED);
+            }
+            if (!queue.offer(write)) {
+                throw new StoreBusyException(ErrorMessages.WRITE_QUEUE_FULL);
+            }
+        }
+        return write.future;
+    }
+
+    /**
+     * Registers a ticket for a queued write.
+     * @param future CompletableFuture of the write
+     * @return CompletableFuture of the ticket, completed once the write is committed or failed
+     */
+    private CompletableFuture<WriteTicketDTO> register(CompletableFuture<ProductDTO> future) {
+        final long now = System.currentTimeMillis();
+        purgeIfNeeded(now);
+        final String ticket = UUID.randomUUID().toString();
+        final Ticket entry = new Ticket(future);
+        tickets.put(ticket, entry);
+        return future.handle((result, error) -> {
+            entry.completedAt = System.currentTimeMillis();
+            return entry.toDto(ticket);
+        });
+    }
+
+    /**
+     * Removes the tickets completed more than ticketTtl ago, at most once per PURGE_INTERVAL.
+     * @param now long current time in millis
+     */
+    private void purgeIfNeeded(long now) {
+        final long scheduled = nextPurge.get();
+        if (now >= scheduled && nextPurge.compareAndSet(scheduled, now + PURGE_INTERVAL)) {
+            for (Map.Entry<String, Ticket> entry : tickets.entrySet()) {
+                final long completedAt = entry.getValue().completedAt;
+                if (completedAt > 0 && now - completedAt > ticketTtlMillis) {
+                    tickets.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writer loop: waits for a write, then takes all the queued ones (up to maxBatchSize) and writes them together.
+     * Once stopped, it writes what is left in the queue. When interrupted it stops at once, the writes left in the
+     * queue are failed by shutdown.
+     */
+    private void drain() {
+        final List<Write> batch = new ArrayList<>(maxBatchSize);
+        boolean interrupted = false;
+        while (!interrupted && (running || !queue.isEmpty())) {
+            try {
+                final Write first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (!Objects.isNull(first)) {
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatchSize - 1);
+                    write(coalesce(batch));
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                interrupted = true;
+            }
+        }
+    }
+
+    /**
+     * Groups the writes of a batch: each creation alone, the updates by product (in the order of their first
+     * update), the last update of a product replacing the previous ones.
+     * @param batch List of Write, in queue order
+     * @return List of WriteGroup
+     */
+    private List<WriteGroup> coalesce(List<Write> batch) {
+        final Map<Object, WriteGroup> groups = new LinkedHashMap<>();
+        for (Write write : batch) {
+            final Object key = Objects.isNull(write.id) ? write : write.id;
+            final WriteGroup group = groups.get(key);
+            if (Objects.isNull(group)) {
+                groups.put(key, new WriteGroup(write));
+            } else {
+                group.add(write);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Writes the groups in one transaction (group commit). When the transaction fails, each group is written in
+     * its own transaction, so only the invalid groups fail.
+     * @param groups List of WriteGroup
+     */
+    private void write(List<WriteGroup> groups) {
+        boolean committed;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (WriteGroup group : groups) {
+                    group.result = apply(group.last);
+                }
+            });
+            committed = true;
+        } catch (RuntimeException e) {
+            logger.warn(BATCH_FAILED, groups.size());
+            committed = false;
+        }
+        for (WriteGroup group : groups) {
+            if (committed) {
+                group.complete();
+            } else {
+                writeAlone(group);
+            }
+        }
+    }
+
+    /**
+     * Writes a group in its own transaction, completing its writes with the result or the failure.
+     * @param group WriteGroup
+     */
+    private void writeAlone(WriteGroup group) {
+        try {
+            group.result = transactionTemplate.execute(status -> apply(group.last));
+            group.complete();
+        } catch (RuntimeException e) {
+            group.fail(e);
+        }
+    }
+
+    /**
+     * Applies a write through ProductService, within the current transaction.
+     * @param write Write
+     * @return ProductDTO the written product
+     */
+    private ProductDTO apply(Write write) {
+        return Objects.isNull(write.id)
+                ? productService.saveProduct(write.productDto)
+                : productService.updateProduct(write.id, write.productDto, null);
+    }
+
+    /**
+     * A queued creation (id is null) or update.
+     */
+    private static final class Write {
+        private final Long id;
+        private final ProductDTO productDto;
+        private final CompletableFuture<ProductDTO> future = new CompletableFuture<>();
+
+        private Write(Long id, ProductDTO productDto) {
+            this.id = id;
+            this.productDto = productDto;
+        }
+    }
+
+    /**
+     * The writes of a batch applied as one: a creation, or the coalesced updates of a product.
+     */
+    private static final class WriteGroup {
+        private final List<Write> writes = new ArrayList<>();
+        private Write last;
+        private ProductDTO result;
+
+        private WriteGroup(Write write) {
+            add(write);
+        }
+
+        private void add(Write write) {
+            writes.add(write);
+            last = write;
+        }
+
+        private void complete() {
+            for (Write write : writes) {
+                write.future.complete(result);
+            }
+        }
+
+        private void fail(RuntimeException e) {
+            for (Write write : writes) {
+                write.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * A registered write, with the time it completed (0 while pending).
+     */
+    private static final class Ticket {
+        private final CompletableFuture<ProductDTO> future;
+        private volatile long completedAt;
+
+        private Ticket(CompletableFuture<ProductDTO> future) {
+            this.future = future;
+        }
+
+        /**
+         * Builds the DTO from the state of the future.
+         * @param ticket String
+         * @return WriteTicketDTO
+         */
+        private WriteTicketDTO toDto(String ticket) {
+            final WriteTicketDTO result = new WriteTicketDTO(ticket, WriteTicketDTO.PENDING);
+            if (future.isCompletedExceptionally()) {
+                result.setStatus(WriteTicketDTO.FAILED);
+                result.setError(getError());
+            } else if (future.isDone()) {
+                final ProductDTO product = future.join();
+                result.setStatus(WriteTicketDTO.COMPLETED);
+                result.setProductId(product.getId());
+                result.setVersion(product.getVersion());
+            }
+            return result;
+        }
+
+        /**
+         * The message of a StoreException is returned to the client, other failures get a generic message.
+         * @return String
+         */
+        private String getError() {
+            String result = ErrorMessages.WRITE_FAILED;
+            try {
+                future.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof StoreException cause) {
+                    result = cause.getMessage();
+                }
+            }
+            return result;
+        }
+    }
+}
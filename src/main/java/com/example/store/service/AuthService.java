@@ -2,6 +2,7 @@ package com.example.store.service;
 
 import com.example.store.dto.AuthRequest;
 import com.example.store.exception.StoreException;
+import com.example.store.security.JwtClaims;
 import com.example.store.security.JwtUtil;
 import com.example.store.util.ErrorMessages;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,10 @@ import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.util.Objects;
+
+import static com.example.store.util.Constants.BEARER_PREFIX;
+
 /**
  * Authentication Service class.
  */
@@ -26,15 +31,18 @@ public class AuthService {
 
     private final ClassService classService;
 
+    private final TokenRevocationService tokenRevocationService;
+
     @Autowired
     public AuthService(MyUserDetailsService userDetailsService, JwtUtil jwtUtil,
                        AuthenticationManager authenticationManager, ValidationService validationService,
-                       ClassService classService) {
+                       ClassService classService, TokenRevocationService tokenRevocationService) {
         this.userDetailsService = userDetailsService;
         this.jwtUtil = jwtUtil;
         this.authenticationManager = authenticationManager;
         this.validationService = validationService;
         this.classService = classService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     /**
@@ -62,4 +70,18 @@ public class AuthService {
 
         return jwtUtil.generateToken(userDetails);
     }
+
+    /**
+     * Logout method: revokes the bearer token of the request, so it cannot be used anymore.
+     * The token was already verified by JwtRequestFilter, so parsing it again is served from the JwtUtil cache.
+     * @param authorizationHeader String value of the Authorization header
+     * @return true if the token was not revoked before
+     */
+    public boolean logout(String authorizationHeader) {
+        if (Objects.isNull(authorizationHeader) || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            throw new StoreException(ErrorMessages.INVALID_TOKEN);
+        }
+        final JwtClaims claims = jwtUtil.parseToken(authorizationHeader.substring(BEARER_PREFIX.length()));
+        return tokenRevocationService.revoke(claims);
+    }
 }
@@ -0,0 +1,108 @@
+package com.example.store.service;
+
+import com.example.store.model.BannedUser;
+import com.example.store.repository.BannedUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Banned usernames, persisted in the database and held in memory for the membership checks.
+ * </br>
+ * The check runs for every authentication and for every authenticated request (see JwtRequestFilter), so it must
+ * not hit the database nor take a lock. The usernames are kept in an immutable hash set referenced by a volatile
+ * field: a check is a single hash lookup on whatever set is current. A ban or unban is persisted first, then a
+ * modified copy of the set is published by swapping the reference (copy on write), so readers never see a set
+ * being modified. Bans are rare compared to the checks, so the copy (linear in the number of bans) is acceptable.
+ * </br>
+ * Note: a Bloom filter would use less memory, but it can answer "banned" for a user who is not, so it would still
+ * need an exact set (or a database query) behind it. With hundreds of thousands of usernames the exact set fits
+ * comfortably in memory, so we keep only the set.
+ */
+@Service
+public class BannedUserService {
+
+    private final BannedUserRepository bannedUserRepository;
+
+    /**
+     * Usernames banned when the table is empty (a fresh database).
+     */
+    private final String[] initialUsernames;
+
+    /**
+     * Immutable, replaced as a whole on every change. Writers are serialized by "this".
+     */
+    private volatile Set<String> bannedUsernames = Set.of();
+
+    @Autowired
+    public BannedUserService(BannedUserRepository bannedUserRepository,
+                             @Value("${store.banned.initial-usernames:Diego}") String[] initialUsernames) {
+        this.bannedUserRepository = bannedUserRepository;
+        this.initialUsernames = initialUsernames;
+    }
+
+    /**
+     * Loads the banned usernames from the database, seeding the table with the initial usernames when empty.
+     */
+    @PostConstruct
+    public synchronized void load() {
+        List<String> usernames = bannedUserRepository.findAllUsernames();
+        if (usernames.isEmpty() && initialUsernames.length > 0) {
+            final List<BannedUser> bannedUsers = new ArrayList<>(initialUsernames.length);
+            for (String username : initialUsernames) {
+                bannedUsers.add(new BannedUser(username));
+            }
+            bannedUserRepository.saveAll(bannedUsers);
+            usernames = List.of(initialUsernames);
+        }
+        bannedUsernames = Set.copyOf(usernames);
+    }
+
+    /**
+     * Lock-free membership check.
+     * @param username String (null is never banned)
+     * @return true if the user is banned
+     */
+    public boolean isBanned(String username) {
+        return !Objects.isNull(username) && bannedUsernames.contains(username);
+    }
+
+    /**
+     * Bans a user.
+     * @param username String
+     * @return true if the user was not banned before
+     */
+    public synchronized boolean ban(String username) {
+        final boolean result = !bannedUsernames.contains(username);
+        if (result) {
+            bannedUserRepository.save(new BannedUser(username));
+            final Set<String> copy = new HashSet<>(bannedUsernames);
+            copy.add(username);
+            bannedUsernames = Set.copyOf(copy);
+        }
+        return result;
+    }
+
+    /**
+     * Lifts the ban of a user.
+     * @param username String
+     * @return true if the user was banned before
+     */
+    public synchronized boolean unban(String username) {
+        final boolean result = bannedUsernames.contains(username);
+        if (result) {
+            bannedUserRepository.deleteById(username);
+            final Set<String> copy = new HashSet<>(bannedUsernames);
+            copy.remove(username);
+            bannedUsernames = Set.copyOf(copy);
+        }
+        return result;
+    }
+}
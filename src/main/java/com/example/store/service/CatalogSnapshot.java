@@ -0,0 +1,63 @@
+package com.example.store.service;
+
+/**
+ * Immutable, already serialized representation of the whole catalog at a given epoch.
+ * The byte arrays are shared between requests, so they must never be modified.
+ */
+public final class CatalogSnapshot {
+
+    private final long epoch;
+    private final long stockEpoch;
+    private final String catalogVersion;
+    private final byte[] json;
+    private final byte[] gzipJson;
+    private final byte[] xml;
+    private final byte[] gzipXml;
+
+    public CatalogSnapshot(long epoch, long stockEpoch, String catalogVersion, byte[] json, byte[] gzipJson,
+                           byte[] xml, byte[] gzipXml) {
+        this.epoch = epoch;
+        this.stockEpoch = stockEpoch;
+        this.catalogVersion = catalogVersion;
+        this.json = json;
+        this.gzipJson = gzipJson;
+        this.xml = xml;
+        this.gzipXml = gzipXml;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Stock epoch this snapshot was built at (see CatalogSnapshotService.markStockChanged).
+     * @return long
+     */
+    public long getStockEpoch() {
+        return stockEpoch;
+    }
+
+    /**
+     * Version of the catalog this snapshot was built from (see CatalogSnapshotService.getCatalogVersion).
+     * @return String
+     */
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzipJson() {
+        return gzipJson;
+    }
+
+    public byte[] getXml() {
+        return xml;
+    }
+
+    public byte[] getGzipXml() {
+        return gzipXml;
+    }
+}
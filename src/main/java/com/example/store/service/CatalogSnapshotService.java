@@ -0,0 +1,264 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductListDTO;
+import com.example.store.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import static com.example.store.util.ErrorMessages.SNAPSHOT_FAILED;
+
+/**
+ * Keeps a pre-serialized snapshot of the whole catalog, used by the unfiltered GET /store.
+ * </br>
+ * Serving the catalog used to cost a findAll, the mapping of every product and the Jackson/JAXB serialization,
+ * on every request. Here it is done once per change: the snapshot holds the JSON and XML bytes (plain and gzip),
+ * so a request only copies them to the response.
+ * </br>
+ * Every write done through ProductService bumps the catalog epoch and schedules an asynchronous rebuild.
+ * Several writes arriving while a rebuild is pending are coalesced into a single rebuild.
+ * A snapshot is served only if it was built at the current epoch, otherwise (right after a write, while the
+ * rebuild is running) getSnapshot returns null and the caller reads the catalog from the database as before,
+ * so a client never sees data older than its own write.
+ * </br>
+ * Stock changes (purchases and checkouts) are far more frequent, and a buyer does not expect the catalog to reflect
+ * them right away, so they only bump the stock epoch: the last snapshot keeps being served while it is rebuilt
+ * (stale-while-revalidate), and they trigger at most one rebuild per stock refresh interval. Otherwise steady
+ * purchase traffic would keep the snapshot out of date, and every GET /store would read the whole catalog.
+ * </br>
+ * Both epochs make the catalog-wide modification counter used for the ETag of GET /store.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private static final String THREAD_NAME = "catalog-snapshot";
+
+    private final ProductRepository productRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final JAXBContext jaxbContext;
+
+    private final boolean enabled;
+
+    private final long stockRefreshMillis;
+
+    /**
+     * The epoch restarts from 0 at every startup, so it is combined with a value unique to this run,
+     * otherwise an ETag received before a restart could match a different catalog.
+     */
+    private final String bootId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    /**
+     * A single thread, so rebuilds never run concurrently.
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(this::newThread);
+
+    /**
+     * Incremented by every write to the catalog, except the stock changes.
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Incremented by every stock change (purchase, checkout).
+     */
+    private final AtomicLong stockEpoch = new AtomicLong();
+
+    /**
+     * True while a rebuild is scheduled but not started yet.
+     */
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    /**
+     * True while a rebuild triggered by a stock change is scheduled but not started yet.
+     */
+    private final AtomicBoolean stockRebuildPending = new AtomicBoolean();
+
+    private volatile CatalogSnapshot snapshot;
+
+    @Autowired
+    public CatalogSnapshotService(ProductRepository productRepository, ObjectMapper objectMapper,
+                                  @Value("${store.catalog.snapshot.enabled:true}") boolean enabled,
+                                  @Value("${store.catalog.snapshot.stock-refresh-ms:1000}") long stockRefreshMillis) {
+        this.productRepository = productRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.stockRefreshMillis = stockRefreshMillis;
+        try {
+            this.jaxbContext = JAXBContext.newInstance(ProductListDTO.class);
+        } catch (JAXBException e) {
+            throw new IllegalStateException(SNAPSHOT_FAILED, e);
+        }
+    }
+
+    /**
+     * Builds the first snapshot in background, so it doesn't delay the application startup.
+     */
+    @PostConstruct
+    public void init() {
+        scheduleRebuild();
+    }
+
+    /**
+     * Stops the rebuild thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gets the snapshot of the current catalog. It may miss the latest stock changes.
+     * @return CatalogSnapshot or null when disabled or when the catalog changed (other than its stock) since the
+     * last rebuild
+     */
+    public CatalogSnapshot getSnapshot() {
+        final CatalogSnapshot current = snapshot;
+        CatalogSnapshot result = null;
+        if (!Objects.isNull(current) && current.getEpoch() == epoch.get()) {
+            result = current;
+        }
+        return result;
+    }
+
+    /**
+     * Gets the current version of the catalog, which changes after every write done through ProductService.
+     * It must be read before reading the products, so it is never newer than the data it describes.
+     * @return String
+     */
+    public String getCatalogVersion() {
+        return toCatalogVersion(epoch.get(), stockEpoch.get());
+    }
+
+    /**
+     * Must be called after a change of the catalog was persisted.
+     */
+    public void markChanged() {
+        epoch.incrementAndGet();
+        scheduleRebuild();
+    }
+
+    /**
+     * Must be called after a change of the stock only (purchase, checkout) was persisted.
+     * The current snapshot is still served, and it is rebuilt at most once per stock refresh interval.
+     */
+    public void markStockChanged() {
+        stockEpoch.incrementAndGet();
+        if (enabled && stockRebuildPending.compareAndSet(false, true)) {
+            executor.schedule(this::rebuildAfterStockChange, stockRefreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot from the database, unless it is already up-to-date.
+     * The epochs are read before the products, so a write persisted during the rebuild results in a snapshot which
+     * is never served (older epoch) and in a new rebuild (scheduled by that write).
+     */
+    public void rebuild() {
+        rebuildPending.set(false);
+        final long buildEpoch = epoch.get();
+        final long buildStockEpoch = stockEpoch.get();
+        final CatalogSnapshot current = snapshot;
+        if (Objects.isNull(current) || current.getEpoch() != buildEpoch || current.getStockEpoch() != buildStockEpoch) {
+            try {
+                final List<ProductDTO> products = productRepository.findAllProductDtos();
+                final byte[] json = objectMapper.writeValueAsBytes(products);
+                final byte[] xml = toXml(products);
+                snapshot = new CatalogSnapshot(buildEpoch, buildStockEpoch,
+                        toCatalogVersion(buildEpoch, buildStockEpoch), json, gzip(json), xml, gzip(xml));
+            } catch (RuntimeException | IOException | JAXBException e) {
+                // requests keep reading the catalog from the database until the next successful rebuild.
+                logger.error(SNAPSHOT_FAILED, e);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the snapshot once the stock refresh interval following a stock change has elapsed.
+     */
+    private void rebuildAfterStockChange() {
+        stockRebuildPending.set(false);
+        rebuild();
+    }
+
+    /**
+     * Builds the catalog version of the epochs.
+     * @param catalogEpoch long
+     * @param catalogStockEpoch long
+     * @return String
+     */
+    private String toCatalogVersion(long catalogEpoch, long catalogStockEpoch) {
+        return bootId + "-" + catalogEpoch + "." + catalogStockEpoch;
+    }
+
+    /**
+     * Schedules a rebuild, unless one is already pending.
+     */
+    private void scheduleRebuild() {
+        if (enabled && rebuildPending.compareAndSet(false, true)) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Serializes the products as a &lt;products&gt; XML document.
+     * @param products List of ProductDTO
+     * @return byte[]
+     * @throws JAXBException on serialization problems
+     */
+    private byte[] toXml(List<ProductDTO> products) throws JAXBException {
+        final Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_ENCODING, StandardCharsets.UTF_8.name());
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        marshaller.marshal(new ProductListDTO(products), outputStream);
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Compresses the content, so clients accepting gzip receive it without compressing it on each request.
+     * @param content byte[]
+     * @return byte[] gzip content
+     * @throws IOException on IO related problems
+     */
+    private byte[] gzip(byte[] content) throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Creates the rebuild thread. It is a daemon thread, so it never blocks the JVM shutdown.
+     * @param runnable Runnable
+     * @return Thread
+     */
+    private Thread newThread(Runnable runnable) {
+        final Thread result = new Thread(runnable, THREAD_NAME);
+        result.setDaemon(true);
+        return result;
+    }
+}
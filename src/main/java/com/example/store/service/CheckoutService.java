@@ -0,0 +1,121 @@
+package com.example.store.service;
+
+import com.example.store.dto.CheckoutDTO;
+import com.example.store.dto.CheckoutItemDTO;
+import com.example.store.dto.IdListDTO;
+import com.example.store.exception.StoreBusyException;
+import com.example.store.exception.StoreException;
+import com.example.store.repository.ProductRepository;
+import com.example.store.util.ErrorMessages;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static com.example.store.util.Constants.MAX_CHECKOUT_ITEMS;
+
+/**
+ * Service responsible with the checkout of a cart: the stock of all its products is decremented in one transaction,
+ * so either all the items are bought or none of them.
+ * </br>
+ * Two carts locking the same products in different orders would deadlock. Here:
+ * - the items are merged by product and sorted by id, so every checkout locks the rows in ascending id order.
+ * - the conditional decrements (UPDATE ... WHERE id = ? AND quantity >= ?) are sent as one JDBC batch.
+ * - when an item has not enough stock, the transaction is rolled back, so nothing is bought.
+ * - a transaction failing because of the concurrency (lock timeout, deadlock or serialization failure) is retried up
+ * to maxAttempts times, then the client is asked to retry later (503).
+ */
+@Service
+public class CheckoutService {
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ProductCacheService productCacheService;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final int maxAttempts;
+
+    @Autowired
+    public CheckoutService(ProductRepository productRepository, TransactionTemplate transactionTemplate,
+                           ProductCacheService productCacheService, CatalogSnapshotService catalogSnapshotService,
+                           @Value("${store.checkout.max-attempts:3}") int maxAttempts) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.productCacheService = productCacheService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Buys all the items of the cart, or none of them.
+     * The catalog snapshot is not invalidated: the new stock shows up in GET /store with its next periodic rebuild.
+     * @param checkout CheckoutDTO
+     * @return IdListDTO the ids of the bought products, ascending
+     * @throws StoreBusyException when the transaction kept failing because of concurrent checkouts
+     */
+    public IdListDTO checkout(CheckoutDTO checkout) {
+        final SortedMap<Long, Long> quantities = getQuantities(checkout);
+        boolean done = false;
+        for (int attempt = 1; !done; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> reserve(quantities));
+                done = true;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new StoreBusyException(ErrorMessages.CHECKOUT_BUSY, e);
+                }
+            }
+        }
+        final List<Long> result = new ArrayList<>(quantities.keySet());
+        for (Long id : result) {
+            productCacheService.invalidate(id);
+        }
+        catalogSnapshotService.markStockChanged();
+        return new IdListDTO(result);
+    }
+
+    /**
+     * Decrements the stock of all the products (a transaction must be in progress).
+     * @param quantities SortedMap of the units to take by product id
+     * @throws StoreException when a product is missing or has not enough stock, so the transaction is rolled back
+     */
+    private void reserve(SortedMap<Long, Long> quantities) {
+        final int[] updatedRows = productRepository.decrementQuantities(quantities);
+        for (int updated : updatedRows) {
+            if (updated == 0) {
+                throw new StoreException(ErrorMessages.CHECKOUT_NOT_AVAILABLE);
+            }
+        }
+    }
+
+    /**
+     * Validates the items and merges them by product, sorted by id (the lock order).
+     * @param checkout CheckoutDTO
+     * @return SortedMap of the units to take by product id
+     */
+    private SortedMap<Long, Long> getQuantities(CheckoutDTO checkout) {
+        final List<CheckoutItemDTO> items = checkout.getItems();
+        if (Objects.isNull(items) || items.isEmpty() || items.size() > MAX_CHECKOUT_ITEMS) {
+            throw new StoreException(ErrorMessages.INVALID_CHECKOUT_SIZE);
+        }
+        final SortedMap<Long, Long> result = new TreeMap<>();
+        for (CheckoutItemDTO item : items) {
+            if (Objects.isNull(item) || Objects.isNull(item.getProductId()) || Objects.isNull(item.getQuantity())
+                    || item.getQuantity() < 1) {
+                throw new StoreException(ErrorMessages.INVALID_CHECKOUT_ITEM);
+            }
+            result.merge(item.getProductId(), item.getQuantity(), Long::sum);
+        }
+        return result;
+    }
+}
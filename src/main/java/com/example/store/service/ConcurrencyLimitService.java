@@ -0,0 +1,151 @@
+package com.example.store.service;
+
+import com.example.store.dto.ConcurrencyLimitStatsDTO;
+import com.example.store.security.RateLimitRoute;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive (AIMD) concurrency limits, one for the read routes and one for the write routes (see
+ * ConcurrencyLimitFilter). The authentication routes count as writes.
+ * </br>
+ * Tomcat queues the requests it cannot serve without bound, so under overload every request waits and gets slow.
+ * Here a request is admitted only while the requests in flight are below the limit, the others are rejected
+ * right away (503), so the admitted ones keep their normal latency.
+ * The limit follows the observed latency (Additive Increase, Multiplicative Decrease):
+ * - a request slower than the latency threshold means we are past capacity: the limit is multiplied by
+ * BACKOFF_RATIO, at most once per round trip. The requests started before the last decrease were admitted under
+ * the previous limit, so their latency is already accounted for: a latency spike seen by N requests in flight
+ * decreases the limit once, not N times (which would pin it to minLimit).
+ * - a request within the threshold, completed while the limit was at least half used, adds 1 to the limit
+ * (when the limit is barely used, its latency says nothing about a higher limit).
+ * The limit stays between minLimit and maxLimit. Everything is lock-free (atomic counters).
+ */
+@Service
+public class ConcurrencyLimitService {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final boolean enabled;
+
+    private final Limiter readLimiter;
+
+    private final Limiter writeLimiter;
+
+    @Autowired
+    public ConcurrencyLimitService(@Value("${store.concurrency.enabled:true}") boolean enabled,
+                                   @Value("${store.concurrency.min-limit:4}") int minLimit,
+                                   @Value("${store.concurrency.max-limit:200}") int maxLimit,
+                                   @Value("${store.concurrency.read.initial-limit:50}") int readInitialLimit,
+                                   @Value("${store.concurrency.read.latency-threshold-ms:500}") long readLatencyMillis,
+                                   @Value("${store.concurrency.write.initial-limit:20}") int writeInitialLimit,
+                                   @Value("${store.concurrency.write.latency-threshold-ms:1000}") long writeLatencyMillis) {
+        this.enabled = enabled;
+        this.readLimiter = new Limiter(readInitialLimit, minLimit, maxLimit, readLatencyMillis);
+        this.writeLimiter = new Limiter(writeInitialLimit, minLimit, maxLimit, writeLatencyMillis);
+    }
+
+    /**
+     * Admits a request if the requests in flight of its route are below the limit.
+     * An admitted request must be released (see release), whatever its outcome.
+     * @param route RateLimitRoute the route group of the request
+     * @return true if admitted
+     */
+    public boolean tryAcquire(RateLimitRoute route) {
+        return !enabled || getLimiter(route).tryAcquire();
+    }
+
+    /**
+     * Releases an admitted request and adjusts the limit of its route with the observed latency.
+     * @param route RateLimitRoute the route group of the request
+     * @param startedAt long System.nanoTime() when the request was admitted
+     * @param finishedAt long System.nanoTime() when the request was served
+     */
+    public void release(RateLimitRoute route, long startedAt, long finishedAt) {
+        if (enabled) {
+            getLimiter(route).release(startedAt, finishedAt);
+        }
+    }
+
+    /**
+     * Gets the limiter counters.
+     * @return ConcurrencyLimitStatsDTO
+     */
+    public ConcurrencyLimitStatsDTO getStats() {
+        final ConcurrencyLimitStatsDTO result = new ConcurrencyLimitStatsDTO();
+        result.setReadLimit(readLimiter.limit.get());
+        result.setReadInFlight(readLimiter.inFlight.get());
+        result.setReadRejected(readLimiter.rejected.get());
+        result.setWriteLimit(writeLimiter.limit.get());
+        result.setWriteInFlight(writeLimiter.inFlight.get());
+        result.setWriteRejected(writeLimiter.rejected.get());
+        return result;
+    }
+
+    private Limiter getLimiter(RateLimitRoute route) {
+        return route == RateLimitRoute.CATALOG ? readLimiter : writeLimiter;
+    }
+
+    /**
+     * AIMD limit of a group of routes.
+     */
+    private static final class Limiter {
+        private final int minLimit;
+        private final int maxLimit;
+        private final long thresholdNanos;
+        private final AtomicInteger limit;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong lastBackoff = new AtomicLong(System.nanoTime());
+
+        private Limiter(int initialLimit, int minLimit, int maxLimit, long thresholdMillis) {
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+            this.limit = new AtomicInteger(Math.min(maxLimit, Math.max(minLimit, initialLimit)));
+        }
+
+        /**
+         * Increments the requests in flight, unless the limit is reached.
+         * @return true if admitted
+         */
+        private boolean tryAcquire() {
+            boolean result = false;
+            boolean done = false;
+            while (!done) {
+                final int current = inFlight.get();
+                if (current >= limit.get()) {
+                    rejected.incrementAndGet();
+                    done = true;
+                } else if (inFlight.compareAndSet(current, current + 1)) {
+                    result = true;
+                    done = true;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Decrements the requests in flight and adjusts the limit. A slow request decreases the limit only if it
+         * started after the last decrease (compareAndSet, so concurrent slow requests decrease it once).
+         * @param startedAt long System.nanoTime()
+         * @param finishedAt long System.nanoTime()
+         */
+        private void release(long startedAt, long finishedAt) {
+            final int concurrency = inFlight.getAndDecrement();
+            if (finishedAt - startedAt > thresholdNanos) {
+                final long last = lastBackoff.get();
+                if (startedAt - last >= 0 && lastBackoff.compareAndSet(last, finishedAt)) {
+                    limit.updateAndGet(value -> Math.max(minLimit, (int) (value * BACKOFF_RATIO)));
+                }
+            } else if (concurrency * 2 >= limit.get()) {
+                limit.updateAndGet(value -> Math.min(maxLimit, value + 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.store.service;
+
+import com.example.store.exception.StoreException;
+import com.example.store.util.ErrorMessages;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * CursorService encodes and decodes the opaque cursors used by keyset (cursor) pagination.
+ * </br>
+ * A cursor is the id of the last product returned on a page, encoded as URL safe Base64, so clients treat it as an
+ * opaque token and never build it themselves. This leaves us free to change the cursor content later
+ * (for example adding a sort key) without breaking the clients.
+ */
+@Service
+public class CursorService {
+
+    /**
+     * Encodes the id of the last returned product into an opaque cursor.
+     * @param id Long
+     * @return String cursor
+     */
+    public String encode(Long id) {
+        final byte[] value = String.valueOf(id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+    }
+
+    /**
+     * Decodes a cursor received from the client.
+     * A missing cursor means that the first page is requested, so we return 0 (ids start from 1).
+     * @param cursor String
+     * @return Long the id after which the next page starts
+     */
+    public Long decode(String cursor) {
+        Long result = 0L;
+        if (!Objects.isNull(cursor)) {
+            try {
+                final byte[] value = Base64.getUrlDecoder().decode(cursor);
+                result = Long.valueOf(new String(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException is also an IllegalArgumentException.
+                throw new StoreException(ErrorMessages.INVALID_CURSOR, e);
+            }
+            if (result < 0) {
+                throw new StoreException(ErrorMessages.INVALID_CURSOR);
+            }
+        }
+        return result;
+    }
+}
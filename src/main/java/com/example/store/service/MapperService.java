@@ -7,7 +7,10 @@ import com.example.store.model.User;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * This class could be refactored to use ObjectMapper. But in scope of this POC, I choose keeping this project
@@ -19,13 +22,15 @@ public class MapperService {
     /**
      * Method that converts a list of Product entities into a list of ProductDTO
      * (to be used API output).
+     * Each author is converted once per list, the products of the same author share the same UserDTO.
      * @param productList List
      * @return List
      */
     public List<ProductDTO> getProductsDtoList(List<Product> productList) {
-        final List<ProductDTO> result = new ArrayList<>();
+        final List<ProductDTO> result = new ArrayList<>(productList.size());
+        final Map<Long, UserDTO> authorDtos = new HashMap<>();
         for (Product product:productList) {
-            ProductDTO convertedProduct = getProductDto(product);
+            final ProductDTO convertedProduct = getProductDto(product, getUserDto(product.getAuthor(), authorDtos));
             result.add(convertedProduct);
         }
         return result;
@@ -38,8 +43,17 @@ public class MapperService {
      * @return ProductDTO
      */
     public ProductDTO getProductDto(Product product) {
+        return getProductDto(product, getUserDto(product.getAuthor()));
+    }
+
+    /**
+     * Method that converts a Product entity into a ProductDTO, using an already converted author.
+     * @param product Product
+     * @param authorDto UserDTO
+     * @return ProductDTO
+     */
+    private ProductDTO getProductDto(Product product, UserDTO authorDto) {
         final ProductDTO result = new ProductDTO();
-        final UserDTO authorDto = getUserDto(product.getAuthor());
         result.setAuthor(authorDto);
         result.setId(product.getId());
         result.setDescription(product.getDescription());
@@ -47,6 +61,7 @@ public class MapperService {
         result.setPrice(product.getPrice());
         result.setCoverImage(product.getCoverImage());
         result.setQuantity(product.getQuantity());
+        result.setVersion(product.getVersion());
         return result;
     }
 
@@ -66,6 +81,24 @@ public class MapperService {
         return result;
     }
 
+    /**
+     * Method that converts User entity into UserDTO, reusing the UserDTO already converted for the same user.
+     * Users which are not persisted yet (without id) are always converted.
+     * @param user the User entity
+     * @param userDtos Map of already converted users by id
+     * @return the User DTO
+     */
+    private UserDTO getUserDto(User user, Map<Long, UserDTO> userDtos) {
+        UserDTO result = userDtos.get(user.getId());
+        if (Objects.isNull(result)) {
+            result = getUserDto(user);
+            if (!Objects.isNull(user.getId())) {
+                userDtos.put(user.getId(), result);
+            }
+        }
+        return result;
+    }
+
     /**
      * Method that converts an DTO (Received from API) into an entity object to be persisted.
      * @param productDto the Product DTO
@@ -81,6 +114,7 @@ public class MapperService {
         result.setPrice(productDto.getPrice());
         result.setCoverImage(productDto.getCoverImage());
         result.setQuantity(productDto.getQuantity());
+        result.setVersion(productDto.getVersion());
         return result;
     }
 
@@ -24,31 +24,35 @@ import java.util.Optional;
 public class MyUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
     private final PasswordEncoder passwordEncoder;
 
     @Autowired
-    public MyUserDetailsService(UserRepository userRepository, @Lazy PasswordEncoder passwordEncoder) {
+    public MyUserDetailsService(UserRepository userRepository, UserCacheService userCacheService,
+                                @Lazy PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
+        this.userCacheService = userCacheService;
         this.passwordEncoder = passwordEncoder;
     }
 
     /**
-     * Creates an MyUserDetails object based on the User found on the repository using username
+     * Gets the MyUserDetails object of the user with the provided username.
+     * It is called for every authenticated request, so the users are served from {@link UserCacheService}.
      * @param username String
      * @return UserDetails object
      * @throws UsernameNotFoundException on errors
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        final Optional<User> user = userRepository.findByUsername(username);
-        user.orElseThrow(() -> new UsernameNotFoundException(ErrorMessages.NOT_FOUND + username));
-        return user.map(MyUserDetails::new).get();
+        final Optional<MyUserDetails> userDetails = userCacheService.findUserDetailsByUsername(username);
+        return userDetails.orElseThrow(() -> new UsernameNotFoundException(ErrorMessages.NOT_FOUND + username));
     }
 
     /**
      * Creates a user.
      * If incorrect user provided or, a username / pseudonym that already exists,
      * we will throw a generic store exception.
+     * The uniqueness checks read the database (not the cache), and the saved user is invalidated in the cache.
      * @param user User
      * @return User
      */
@@ -64,7 +68,9 @@ public class MyUserDetailsService implements UserDetailsService {
             throw new StoreException(ErrorMessages.INVALID_USER);
         }
         user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        final User result = userRepository.save(user);
+        userCacheService.invalidate(result);
+        return result;
     }
 
     /**
@@ -74,4 +80,17 @@ public class MyUserDetailsService implements UserDetailsService {
     public String getCurrentUsername() {
         return SecurityContextHolder.getContext().getAuthentication().getName();
     }
+
+    /**
+     * gets the id of the current logged user.
+     * @return Long
+     */
+    public Long getCurrentUserId() {
+        final Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (principal instanceof MyUserDetails userDetails) {
+            return userDetails.getId();
+        } else {
+            throw new StoreException(ErrorMessages.INVALID_USER);
+        }
+    }
 }
\ No newline at end of file
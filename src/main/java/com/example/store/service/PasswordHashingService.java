@@ -0,0 +1,172 @@
+package com.example.store.service;
+
+import com.example.store.dto.PasswordHashingStatsDTO;
+import com.example.store.exception.StoreBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.example.store.util.ErrorMessages.PASSWORD_HASHING_BUSY;
+
+/**
+ * Runs the password hashing (BCrypt encode and matches) on a dedicated, bounded executor.
+ * </br>
+ * BCrypt is deliberately slow (tens of milliseconds of CPU per hash). Running it directly on the request threads
+ * means that a login storm can occupy every servlet worker and the catalog reads start timing out.
+ * Here at most poolSize hashes run at the same time and at most queueCapacity wait for a thread.
+ * When the queue is full, or a task waited longer than the timeout, the request is rejected right away with
+ * StoreBusyException (503), so the servlet workers are released instead of piling up behind the hashing.
+ * </br>
+ * The caller still waits for its own hash, but the number of workers that can be tied up by logins is bounded
+ * by poolSize + queueCapacity, and the CPU used by BCrypt is bounded by poolSize.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final String THREAD_NAME = "password-hashing-";
+
+    private final int poolSize;
+
+    private final int queueCapacity;
+
+    private final long timeoutMillis;
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong measured = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong totalHashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    @Autowired
+    public PasswordHashingService(@Value("${store.password.pool-size:2}") int poolSize,
+                                  @Value("${store.password.queue-capacity:100}") int queueCapacity,
+                                  @Value("${store.password.timeout-ms:10000}") long timeoutMillis) {
+        this.poolSize = poolSize;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        // AbortPolicy: a full queue throws RejectedExecutionException instead of running the task on the caller.
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), this::newThread, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stops the hashing threads.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a hashing task on the executor and waits for its result.
+     * Exceptions thrown by the task are rethrown as is.
+     * @param task Supplier the hashing (for example passwordEncoder.matches)
+     * @param <T> type of the result
+     * @return T the result of the task
+     * @throws StoreBusyException when the queue is full or the task didn't complete within the timeout
+     */
+    public <T> T execute(Supplier<T> task) {
+        final long submittedAt = System.nanoTime();
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> run(task, submittedAt));
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new StoreBusyException(PASSWORD_HASHING_BUSY, e);
+        }
+        return await(future);
+    }
+
+    /**
+     * Gets the executor counters.
+     * @return PasswordHashingStatsDTO
+     */
+    public PasswordHashingStatsDTO getStats() {
+        final PasswordHashingStatsDTO result = new PasswordHashingStatsDTO();
+        final long count = measured.get();
+        result.setPoolSize(poolSize);
+        result.setQueueCapacity(queueCapacity);
+        result.setActiveThreads(executor.getActiveCount());
+        result.setQueueDepth(executor.getQueue().size());
+        result.setCompleted(executor.getCompletedTaskCount());
+        result.setRejected(rejected.get());
+        result.setMaxWaitMicros(TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+        result.setMaxHashMicros(TimeUnit.NANOSECONDS.toMicros(maxHashNanos.get()));
+        if (count > 0) {
+            result.setAverageWaitMicros(TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / count));
+            result.setAverageHashMicros(TimeUnit.NANOSECONDS.toMicros(totalHashNanos.get() / count));
+        }
+        return result;
+    }
+
+    /**
+     * Runs the task on a hashing thread, measuring the time spent in the queue and the time spent hashing.
+     * @param task Supplier
+     * @param submittedAt long System.nanoTime() when the task was submitted
+     * @param <T> type of the result
+     * @return T
+     */
+    private <T> T run(Supplier<T> task, long submittedAt) {
+        final long startedAt = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            final long waitNanos = startedAt - submittedAt;
+            final long hashNanos = System.nanoTime() - startedAt;
+            measured.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            totalHashNanos.addAndGet(hashNanos);
+            maxHashNanos.accumulateAndGet(hashNanos, Math::max);
+        }
+    }
+
+    /**
+     * Waits for the task, rethrowing its exception as is.
+     * A task which didn't complete within the timeout is cancelled (if it is still queued it will never run).
+     * @param future Future
+     * @param <T> type of the result
+     * @return T
+     */
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.incrementAndGet();
+            throw new StoreBusyException(PASSWORD_HASHING_BUSY, e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new StoreBusyException(PASSWORD_HASHING_BUSY, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Thread newThread(Runnable runnable) {
+        final Thread result = new Thread(runnable, THREAD_NAME + threadCount.incrementAndGet());
+        result.setDaemon(true);
+        return result;
+    }
+}
@@ -0,0 +1,279 @@
+package com.example.store.service;
+
+import com.example.store.dto.BatchItemResultDTO;
+import com.example.store.dto.BatchResultDTO;
+import com.example.store.dto.BatchUpdateDTO;
+import com.example.store.dto.IdListDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.UserDTO;
+import com.example.store.exception.StoreException;
+import com.example.store.model.Product;
+import com.example.store.model.User;
+import com.example.store.repository.ProductRepository;
+import com.example.store.util.ErrorMessages;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.example.store.util.Constants.BATCH_CHUNK_SIZE;
+import static com.example.store.util.Constants.MAX_BATCH_SIZE;
+import static com.example.store.util.Constants.SET_BASED_CHUNK_SIZE;
+
+/**
+ * Service responsible with the bulk operations on products (seller onboarding).
+ * </br>
+ * Creating N products one by one costs N author lookups and N single row inserts (N round trips).
+ * Here:
+ * - the distinct authors of the whole batch are resolved through UserCacheService, as for a single product: the
+ * cached ones are served from memory, the missing ones are read with one query per lookup kind (username,
+ * pseudonym, id).
+ * - the product ids come from a pooled sequence (see Product), so Hibernate can group the inserts in JDBC batches
+ * of hibernate.jdbc.batch_size rows.
+ * - the persistence context is flushed and cleared every BATCH_CHUNK_SIZE products, so the memory used doesn't
+ * grow with the batch.
+ * An item with an invalid author is reported as failed and does not stop the others.
+ * The valid items are persisted in a single transaction, so they are either all created or none.
+ * </br>
+ * Updating or deleting N products one by one costs a read and a write for each product. Here the products are
+ * changed with set-based statements (UPDATE / DELETE ... WHERE id IN (...) AND author_id = ?), so the ownership is
+ * checked by the statement itself. The ids are handled in chunks of SET_BASED_CHUNK_SIZE, each chunk in its own
+ * transaction, so the statements and the locks stay bounded. Ids which don't exist or belong to other users are
+ * skipped, the response reports the affected ids, read in the same transaction (two round trips per chunk,
+ * in plain SQL, see ProductRepositoryCustom).
+ */
+@Service
+public class ProductBatchService {
+
+    private final ProductRepository productRepository;
+
+    private final UserCacheService userCacheService;
+
+    private final MapperService mapperService;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TitleIndexService titleIndexService;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final ProductCacheService productCacheService;
+
+    private final MyUserDetailsService myUserDetailsService;
+
+    @Autowired
+    public ProductBatchService(ProductRepository productRepository, UserCacheService userCacheService,
+                               MapperService mapperService, EntityManager entityManager,
+                               TransactionTemplate transactionTemplate, TitleIndexService titleIndexService,
+                               CatalogSnapshotService catalogSnapshotService, ProductCacheService productCacheService,
+                               MyUserDetailsService myUserDetailsService) {
+        this.productRepository = productRepository;
+        this.userCacheService = userCacheService;
+        this.mapperService = mapperService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.titleIndexService = titleIndexService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productCacheService = productCacheService;
+        this.myUserDetailsService = myUserDetailsService;
+    }
+
+    /**
+     * Creates the provided products.
+     * The title index and the catalog snapshot are updated after the transaction was committed.
+     * @param productDtos List of ProductDTO
+     * @return BatchResultDTO with the result of each item
+     */
+    public BatchResultDTO saveProducts(List<ProductDTO> productDtos) {
+        if (Objects.isNull(productDtos) || productDtos.isEmpty() || productDtos.size() > MAX_BATCH_SIZE) {
+            throw new StoreException(ErrorMessages.INVALID_BATCH_SIZE);
+        }
+
+        final AuthorLookup authors = findAuthors(productDtos);
+        final BatchResultDTO result = new BatchResultDTO();
+        final List<Product> products = new ArrayList<>(productDtos.size());
+        final List<BatchItemResultDTO> createdItems = new ArrayList<>(productDtos.size());
+        for (int i = 0; i < productDtos.size(); i++) {
+            final ProductDTO productDto = productDtos.get(i);
+            final BatchItemResultDTO item = new BatchItemResultDTO(i);
+            result.getItems().add(item);
+            if (Objects.isNull(productDto.getAuthor())) {
+                item.setError(ErrorMessages.INVALID_USER);
+            } else {
+                final User author = authors.find(productDto.getAuthor());
+                if (Objects.isNull(author)) {
+                    item.setError(ErrorMessages.PRODUCT_HAS_INVALID_USER);
+                } else {
+                    final Product product = mapperService.getProduct(productDto);
+                    product.setAuthor(author);
+                    product.setId(null);
+                    product.setVersion(null);
+                    products.add(product);
+                    createdItems.add(item);
+                }
+            }
+        }
+
+        if (!products.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> persist(products));
+            for (int i = 0; i < products.size(); i++) {
+                final Product product = products.get(i);
+                createdItems.get(i).setId(product.getId());
+                titleIndexService.index(product.getId(), product.getTitle());
+            }
+            catalogSnapshotService.markChanged();
+        }
+        result.setSucceeded(products.size());
+        result.setFailed(productDtos.size() - products.size());
+        return result;
+    }
+
+    /**
+     * Changes the price and / or quantity of the products of the current user.
+     * @param batchUpdateDto BatchUpdateDTO
+     * @return IdListDTO the ids of the updated products
+     */
+    public IdListDTO updateProducts(BatchUpdateDTO batchUpdateDto) {
+        final List<Long> ids = getValidIds(batchUpdateDto.getIds());
+        if (Objects.isNull(batchUpdateDto.getPrice()) && Objects.isNull(batchUpdateDto.getQuantity())) {
+            throw new StoreException(ErrorMessages.NOTHING_TO_UPDATE);
+        }
+        final Long authorId = myUserDetailsService.getCurrentUserId();
+        final List<Long> result = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += SET_BASED_CHUNK_SIZE) {
+            final List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + SET_BASED_CHUNK_SIZE));
+            final List<Long> updatedIds = productRepository.updatePriceAndQuantityByAuthor(chunk, authorId,
+                    batchUpdateDto.getPrice(), batchUpdateDto.getQuantity());
+            for (Long id : updatedIds) {
+                productCacheService.invalidate(id);
+            }
+            result.addAll(updatedIds);
+        }
+        if (!result.isEmpty()) {
+            catalogSnapshotService.markChanged();
+        }
+        return new IdListDTO(result);
+    }
+
+    /**
+     * Deletes the products of the current user.
+     * @param idListDto IdListDTO the ids of the products
+     * @return IdListDTO the ids of the deleted products
+     */
+    public IdListDTO deleteProducts(IdListDTO idListDto) {
+        final List<Long> ids = getValidIds(idListDto.getIds());
+        final Long authorId = myUserDetailsService.getCurrentUserId();
+        final List<Long> result = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += SET_BASED_CHUNK_SIZE) {
+            final List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + SET_BASED_CHUNK_SIZE));
+            final List<Long> deletedIds = productRepository.deleteByAuthor(chunk, authorId);
+            for (Long id : deletedIds) {
+                titleIndexService.remove(id);
+                productCacheService.invalidate(id);
+            }
+            result.addAll(deletedIds);
+        }
+        if (!result.isEmpty()) {
+            catalogSnapshotService.markChanged();
+        }
+        return new IdListDTO(result);
+    }
+
+    /**
+     * Validates the ids of a set-based operation.
+     * @param ids List of ids
+     * @return the distinct ids, in the order of the request
+     */
+    private List<Long> getValidIds(List<Long> ids) {
+        if (Objects.isNull(ids) || ids.isEmpty() || ids.size() > MAX_BATCH_SIZE) {
+            throw new StoreException(ErrorMessages.INVALID_BATCH_SIZE);
+        }
+        return new ArrayList<>(new LinkedHashSet<>(ids));
+    }
+
+    /**
+     * Persists the products in chunks. Each chunk is flushed (as JDBC batches) and then removed from the
+     * persistence context.
+     * @param products List of Product
+     */
+    private void persist(List<Product> products) {
+        for (int from = 0; from < products.size(); from += BATCH_CHUNK_SIZE) {
+            productRepository.saveAll(products.subList(from, Math.min(products.size(), from + BATCH_CHUNK_SIZE)));
+            entityManager.flush();
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * Reads all the distinct authors referenced by the batch.
+     * As for a single product, an author is identified by username, else by pseudonym, else by id.
+     * @param productDtos List of ProductDTO
+     * @return AuthorLookup
+     */
+    private AuthorLookup findAuthors(List<ProductDTO> productDtos) {
+        final Set<String> usernames = new HashSet<>();
+        final Set<String> pseudonyms = new HashSet<>();
+        final Set<Long> ids = new HashSet<>();
+        for (ProductDTO productDto : productDtos) {
+            final UserDTO author = productDto.getAuthor();
+            if (Objects.isNull(author)) {
+                // reported as failed by saveProducts.
+            } else if (!Objects.isNull(author.getUsername())) {
+                usernames.add(author.getUsername());
+            } else if (!Objects.isNull(author.getPseudonym())) {
+                pseudonyms.add(author.getPseudonym());
+            } else if (!Objects.isNull(author.getId())) {
+                ids.add(author.getId());
+            }
+        }
+
+        final AuthorLookup result = new AuthorLookup();
+        if (!usernames.isEmpty()) {
+            result.byUsername.putAll(userCacheService.findAllByUsername(usernames));
+        }
+        if (!pseudonyms.isEmpty()) {
+            result.byPseudonym.putAll(userCacheService.findAllByPseudonym(pseudonyms));
+        }
+        if (!ids.isEmpty()) {
+            result.byId.putAll(userCacheService.findAllById(ids));
+        }
+        return result;
+    }
+
+    /**
+     * The authors of a batch, by username, pseudonym and id.
+     */
+    private static final class AuthorLookup {
+        private final Map<String, User> byUsername = new HashMap<>();
+        private final Map<String, User> byPseudonym = new HashMap<>();
+        private final Map<Long, User> byId = new HashMap<>();
+
+        /**
+         * Finds the author of a product.
+         * @param userDto UserDTO
+         * @return User or null if not found
+         */
+        private User find(UserDTO userDto) {
+            User result = null;
+            if (!Objects.isNull(userDto.getUsername())) {
+                result = byUsername.get(userDto.getUsername());
+            } else if (!Objects.isNull(userDto.getPseudonym())) {
+                result = byPseudonym.get(userDto.getPseudonym());
+            } else if (!Objects.isNull(userDto.getId())) {
+                result = byId.get(userDto.getId());
+            }
+            return result;
+        }
+    }
+}
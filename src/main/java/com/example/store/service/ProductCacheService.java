@@ -0,0 +1,232 @@
+package com.example.store.service;
+
+import com.example.store.dto.CacheStatsDTO;
+import com.example.store.dto.ProductDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.Serial;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of {@link ProductDTO} by product id, used by ProductService.getProductById.
+ * </br>
+ * - bounded: at most maxSize entries, the least recently used entry is evicted first.
+ * - entries expire after ttl, so a change done outside ProductService becomes visible eventually.
+ * - writes done through ProductService invalidate the entry synchronously.
+ * - concurrent misses on the same id are collapsed into a single load (the other callers wait for it),
+ * so a hot product does not stampede the database when it is missing from the cache.
+ * </br>
+ * Cached DTOs are shared between requests, so they must be treated as read only.
+ * Note: a library such as Caffeine offers all of this, but we avoid adding new dependencies for this POC.
+ */
+@Service
+public class ProductCacheService {
+
+    private final long ttlNanos;
+
+    /**
+     * LRU map (access order). Guarded by "this".
+     */
+    private final LruMap entries;
+
+    /**
+     * Loads in progress, by id. Callers missing the same id wait for the same load.
+     */
+    private final Map<Long, CompletableFuture<ProductDTO>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented by each invalidation (guarded by "this"). A load started before an invalidation
+     * may have read the old value, so its result is returned to its callers but not cached.
+     */
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ProductCacheService(@Value("${store.cache.product.max-size:10000}") int maxSize,
+                               @Value("${store.cache.product.ttl-ms:60000}") long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.entries = new LruMap(maxSize, evictions);
+    }
+
+    /**
+     * Returns the cached product, or loads it using the provided loader when missing or expired.
+     * Exceptions thrown by the loader (for example product not found) are not cached.
+     * @param id Long product id
+     * @param loader Function loading the product from the database
+     * @return ProductDTO
+     */
+    public ProductDTO get(Long id, Function<Long, ProductDTO> loader) {
+        ProductDTO result = getIfPresent(id);
+        if (Objects.isNull(result)) {
+            misses.incrementAndGet();
+            result = load(id, loader);
+        } else {
+            hits.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the cached product without loading it.
+     * @param id Long product id
+     * @return ProductDTO or null if missing or expired
+     */
+    public synchronized ProductDTO getIfPresent(Long id) {
+        ProductDTO result = null;
+        final CacheEntry entry = entries.get(id);
+        if (!Objects.isNull(entry)) {
+            if (System.nanoTime() - entry.createdAt > ttlNanos) {
+                entries.remove(id);
+                evictions.incrementAndGet();
+            } else {
+                result = entry.value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes a product from the cache. Must be called after the product was changed or deleted.
+     * @param id Long product id (null is ignored, as nothing can be cached for it)
+     */
+    public void invalidate(Long id) {
+        if (!Objects.isNull(id)) {
+            synchronized (this) {
+                generation++;
+                entries.remove(id);
+            }
+            // new callers should not wait for a load which may have read the old value.
+            loading.remove(id);
+        }
+    }
+
+    /**
+     * Gets the cache counters.
+     * @return CacheStatsDTO
+     */
+    public CacheStatsDTO getStats() {
+        final CacheStatsDTO result = new CacheStatsDTO();
+        result.setHits(hits.get());
+        result.setMisses(misses.get());
+        result.setLoads(loads.get());
+        result.setEvictions(evictions.get());
+        synchronized (this) {
+            result.setSize(entries.size());
+        }
+        return result;
+    }
+
+    /**
+     * Loads a product, or waits for the load already started by another caller.
+     * @param id Long product id
+     * @param loader Function loading the product from the database
+     * @return ProductDTO
+     */
+    private ProductDTO load(Long id, Function<Long, ProductDTO> loader) {
+        final CompletableFuture<ProductDTO> future = new CompletableFuture<>();
+        final CompletableFuture<ProductDTO> inProgress = loading.putIfAbsent(id, future);
+        ProductDTO result;
+        if (Objects.isNull(inProgress)) {
+            final long loadGeneration = getGeneration();
+            try {
+                loads.incrementAndGet();
+                result = loader.apply(id);
+                put(id, result, loadGeneration);
+                future.complete(result);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                loading.remove(id, future);
+            }
+        } else {
+            result = await(inProgress);
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a load started by another caller, rethrowing its exception as is.
+     * @param future CompletableFuture
+     * @return ProductDTO
+     */
+    private ProductDTO await(CompletableFuture<ProductDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Caches the loaded product, unless an invalidation happened while loading.
+     * @param id Long
+     * @param value ProductDTO
+     * @param loadGeneration long generation read before loading
+     */
+    private synchronized void put(Long id, ProductDTO value, long loadGeneration) {
+        if (generation == loadGeneration) {
+            entries.put(id, new CacheEntry(value, System.nanoTime()));
+        }
+    }
+
+    private synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * LinkedHashMap in access order, which removes the least recently used entry once maxSize is exceeded.
+     */
+    private static final class LruMap extends LinkedHashMap<Long, CacheEntry> {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+        private final transient AtomicLong evictions;
+
+        private LruMap(int maxSize, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CacheEntry> eldest) {
+            final boolean result = size() > maxSize;
+            if (result) {
+                evictions.incrementAndGet();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Cached value with its creation time (used for ttl).
+     */
+    private static final class CacheEntry {
+        private final ProductDTO value;
+        private final long createdAt;
+
+        private CacheEntry(ProductDTO value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
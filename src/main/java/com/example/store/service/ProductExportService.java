@@ -0,0 +1,159 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.model.Product;
+import com.example.store.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static com.example.store.util.ErrorMessages.EXPORT_FAILED;
+
+/**
+ * Service responsible with the streaming export of the whole catalog (for feed consumers).
+ * </br>
+ * Unlike GET /store, the products are never collected in a List: each row is read from a forward-only cursor,
+ * converted to a DTO, written to the response and then detached (with its author) from the persistence context,
+ * so it can be garbage collected. As a result the memory used stays constant no matter how big the catalog is.
+ * </br>
+ * Note: Stream is used here only because it is the type returned by the repository, it is consumed with a classic
+ * iterator loop (see the comments in ProductService regarding stream collections).
+ */
+@Service
+public class ProductExportService {
+
+    private static final byte[] NEW_LINE = "\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] XML_START =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?><products>".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] XML_END = "</products>".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * How often (in rows) we flush the output, so the client receives data while the export is still running.
+     */
+    private static final int FLUSH_INTERVAL = 100;
+
+    private final ProductRepository productRepository;
+
+    private final MapperService mapperService;
+
+    private final EntityManager entityManager;
+
+    private final ObjectWriter jsonWriter;
+
+    private final JAXBContext jaxbContext;
+
+    @Autowired
+    public ProductExportService(ProductRepository productRepository, MapperService mapperService,
+                                EntityManager entityManager, ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.mapperService = mapperService;
+        this.entityManager = entityManager;
+        this.jsonWriter = objectMapper.writerFor(ProductDTO.class);
+        try {
+            this.jaxbContext = JAXBContext.newInstance(ProductDTO.class);
+        } catch (JAXBException e) {
+            throw new IllegalStateException(EXPORT_FAILED, e);
+        }
+    }
+
+    /**
+     * Writes all the products as NDJSON (one JSON document per line).
+     * @param outputStream OutputStream the response body
+     * @throws IOException on IO related problems (for example client disconnected)
+     */
+    @Transactional(readOnly = true)
+    public void exportAsNdjson(OutputStream outputStream) throws IOException {
+        try (Stream<Product> products = productRepository.streamAllOrderedById()) {
+            final Iterator<Product> iterator = products.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                final ProductDTO productDto = getDetachedProductDto(iterator.next());
+                outputStream.write(jsonWriter.writeValueAsBytes(productDto));
+                outputStream.write(NEW_LINE);
+                count++;
+                flushIfNeeded(outputStream, count);
+            }
+        }
+        outputStream.flush();
+    }
+
+    /**
+     * Writes all the products as a single &lt;products&gt; XML document, one &lt;product&gt; fragment at a time.
+     * @param outputStream OutputStream the response body
+     * @throws IOException on IO related problems (for example client disconnected)
+     */
+    @Transactional(readOnly = true)
+    public void exportAsXml(OutputStream outputStream) throws IOException {
+        final Marshaller marshaller = createFragmentMarshaller();
+        outputStream.write(XML_START);
+        try (Stream<Product> products = productRepository.streamAllOrderedById()) {
+            final Iterator<Product> iterator = products.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                final ProductDTO productDto = getDetachedProductDto(iterator.next());
+                marshaller.marshal(productDto, outputStream);
+                count++;
+                flushIfNeeded(outputStream, count);
+            }
+        } catch (JAXBException e) {
+            throw new IOException(EXPORT_FAILED, e);
+        }
+        outputStream.write(XML_END);
+        outputStream.flush();
+    }
+
+    /**
+     * Converts the product to DTO and removes the product and its author from the persistence context,
+     * otherwise the persistence context would keep every row read so far, and every distinct author.
+     * The author is fetched by an inner join, so it is never null; a later product of the same author
+     * gets its own instance, built from the row.
+     * @param product Product
+     * @return ProductDTO
+     */
+    private ProductDTO getDetachedProductDto(Product product) {
+        final ProductDTO result = mapperService.getProductDto(product);
+        entityManager.detach(product);
+        entityManager.detach(product.getAuthor());
+        return result;
+    }
+
+    /**
+     * Flushes the output every FLUSH_INTERVAL rows.
+     * @param outputStream OutputStream
+     * @param count int rows written so far
+     * @throws IOException on IO related problems
+     */
+    private void flushIfNeeded(OutputStream outputStream, int count) throws IOException {
+        if (count % FLUSH_INTERVAL == 0) {
+            outputStream.flush();
+        }
+    }
+
+    /**
+     * Marshaller is not thread safe, so we create one for each export.
+     * JAXB_FRAGMENT stops the marshaller from writing an XML declaration for each product.
+     * @return Marshaller
+     */
+    private Marshaller createFragmentMarshaller() throws IOException {
+        try {
+            final Marshaller result = jaxbContext.createMarshaller();
+            result.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+            result.setProperty(Marshaller.JAXB_ENCODING, StandardCharsets.UTF_8.name());
+            return result;
+        } catch (JAXBException e) {
+            throw new IOException(EXPORT_FAILED, e);
+        }
+    }
+}
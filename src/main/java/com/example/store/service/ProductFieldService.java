@@ -0,0 +1,102 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductField;
+import com.example.store.exception.StoreException;
+import com.example.store.util.ErrorMessages;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * ProductFieldService handles the "fields" parameter (sparse fieldsets) of the read endpoints.
+ * </br>
+ * List views need only a few properties (id, title, price, coverImage), while the description and the author make
+ * most of the payload. With ?fields=title,price only the requested columns are selected (see ProductRepositoryCustom)
+ * and only the requested properties are serialized (null properties are omitted, see ProductDTO).
+ * The id is always returned, as it identifies the product (and the pages of keyset pagination are built from it).
+ */
+@Service
+public class ProductFieldService {
+
+    private static final String SEPARATOR = ",";
+    private static final String KEY_SEPARATOR = ".";
+
+    /**
+     * Parses the comma separated list of properties requested by the client.
+     * @param fields String (optional) for example "title,price,coverImage"
+     * @return Set of fields (always containing the id), or null when all the fields are requested
+     */
+    public Set<ProductField> parse(String fields) {
+        Set<ProductField> result = null;
+        if (!Objects.isNull(fields)) {
+            result = EnumSet.of(ProductField.ID);
+            for (String property : fields.split(SEPARATOR)) {
+                final String trimmedProperty = property.trim();
+                if (!trimmedProperty.isEmpty()) {
+                    final ProductField field = ProductField.fromProperty(trimmedProperty);
+                    if (Objects.isNull(field)) {
+                        throw new StoreException(ErrorMessages.INVALID_FIELDS + trimmedProperty);
+                    }
+                    result.add(field);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Builds a key identifying the requested fields, which doesn't depend on the order they were requested in
+     * (used in the ETag, as each fieldset is a different representation of the product).
+     * @param fields String (optional)
+     * @return String key, empty when all the fields are requested
+     */
+    public String toKey(String fields) {
+        final Set<ProductField> selectedFields = parse(fields);
+        final StringBuilder result = new StringBuilder();
+        if (!Objects.isNull(selectedFields)) {
+            for (ProductField field : selectedFields) {
+                result.append(KEY_SEPARATOR).append(field.getProperty());
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Copies only the selected fields of a product (used when the product is already loaded, for example cached).
+     * @param productDto ProductDTO
+     * @param fields Set of fields, null meaning all the fields
+     * @return ProductDTO the same product when all the fields are selected, otherwise a copy
+     */
+    public ProductDTO select(ProductDTO productDto, Set<ProductField> fields) {
+        ProductDTO result = productDto;
+        if (!Objects.isNull(fields)) {
+            result = new ProductDTO();
+            for (ProductField field : fields) {
+                copy(productDto, result, field);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copies a field from one product to another.
+     * @param source ProductDTO
+     * @param target ProductDTO
+     * @param field ProductField
+     */
+    private void copy(ProductDTO source, ProductDTO target, ProductField field) {
+        switch (field) {
+            case ID -> target.setId(source.getId());
+            case QUANTITY -> target.setQuantity(source.getQuantity());
+            case TITLE -> target.setTitle(source.getTitle());
+            case DESCRIPTION -> target.setDescription(source.getDescription());
+            case COVER_IMAGE -> target.setCoverImage(source.getCoverImage());
+            case PRICE -> target.setPrice(source.getPrice());
+            case VERSION -> target.setVersion(source.getVersion());
+            case AUTHOR -> target.setAuthor(source.getAuthor());
+        }
+    }
+}
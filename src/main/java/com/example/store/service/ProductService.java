@@ -1,40 +1,97 @@
 package com.example.store.service;
 
 import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductField;
+import com.example.store.dto.ProductFilterDTO;
+import com.example.store.dto.ProductPageDTO;
 import com.example.store.dto.UserDTO;
 import com.example.store.exception.StoreException;
+import com.example.store.exception.StorePreconditionFailedException;
 import com.example.store.model.Product;
 import com.example.store.model.User;
 import com.example.store.repository.ProductRepository;
-import com.example.store.repository.UserRepository;
+import com.example.store.repository.ProductSpecifications;
 import com.example.store.util.ErrorMessages;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+
+import static com.example.store.util.Constants.DEFAULT_PAGE_SIZE;
+import static com.example.store.util.Constants.MAX_FILTERED_RESULTS;
+import static com.example.store.util.Constants.MAX_TITLE_IDS_IN_LIST;
+import static com.example.store.util.Constants.MAX_PAGE_SIZE;
 
 /**
  * Products Service class.
+ * </br>
+ * Lambda and stream collections have poor performance as for each dot in the chain
+ * list.stream().filter().map() the memory occupies more and more resources.
+ * And when the list is big, this could cause serious problems.
+ * Classical FOR is preferred over stream.
+ * Another weak point of stream is debugging, they are much harder to debug.
+ * And although it brings clarity for those that enjoys functional programming, that clarity cost week performance,
+ * several times increase in memory usage and hard to debug.
  */
 @Service
 public class ProductService {
+    private static final String ID = "id";
+    private static final String DESCENDING = "-";
+    private static final String SEPARATOR = ",";
+
+    /**
+     * Properties which can be used to sort the products. The id (primary key), price and quantity are indexed
+     * (see Product), the title is not, so sorting by title sorts the matching rows (at most MAX_FILTERED_RESULTS).
+     */
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of(ID, "title", "price", "quantity");
+
     private final ProductRepository productRepository;
 
-    private final UserRepository userRepository;
+    private final UserCacheService userCacheService;
 
     private final MyUserDetailsService myUserDetailsService;
 
     private final MapperService mapperService;
 
+    private final CursorService cursorService;
+
+    private final TitleIndexService titleIndexService;
+
+    private final ProductCacheService productCacheService;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private final ProductFieldService productFieldService;
+
     @Autowired
-    public ProductService(ProductRepository productRepository, UserRepository userRepository,
-                       MyUserDetailsService myUserDetailsService, MapperService mapperService) {
+    public ProductService(ProductRepository productRepository, UserCacheService userCacheService,
+                       MyUserDetailsService myUserDetailsService, MapperService mapperService,
+                       CursorService cursorService, TitleIndexService titleIndexService,
+                       ProductCacheService productCacheService, CatalogSnapshotService catalogSnapshotService,
+                       ProductFieldService productFieldService) {
         this.productRepository = productRepository;
-        this.userRepository = userRepository;
+        this.userCacheService = userCacheService;
         this.myUserDetailsService = myUserDetailsService;
         this.mapperService = mapperService;
+        this.cursorService = cursorService;
+        this.titleIndexService = titleIndexService;
+        this.productCacheService = productCacheService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productFieldService = productFieldService;
     }
 
     /**
@@ -44,93 +101,460 @@ public class ProductService {
      * @param title String
      * @return List
      */
+    @Transactional(readOnly = true)
     public List<ProductDTO> getProducts(String title) {
-        List<Product> products;
-        if (Objects.isNull(title)) {
-            products = getAllProducts();
+        return getProducts(title, null);
+    }
+
+    /**
+     * Gets products having only the requested fields (sparse fieldset), so only their columns are read.
+     * @param title String (optional) part of the title
+     * @param fields String (optional) comma separated properties, all the properties when missing
+     * @return List
+     */
+    @Transactional(readOnly = true)
+    public List<ProductDTO> getProducts(String title, String fields) {
+        final Set<ProductField> selectedFields = productFieldService.parse(fields);
+        final List<ProductDTO> result;
+        if (!Objects.isNull(title)) {
+            result = findProductDtosByIdIn(titleIndexService.search(title), selectedFields);
+        } else if (Objects.isNull(selectedFields)) {
+            result = productRepository.findAllProductDtos();
+        } else {
+            result = productRepository.findProductDtos(selectedFields);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the products matching all the provided filters, in the requested order.
+     * The filters other than the title are translated to Specifications (Criteria predicates) backed by the indexes
+     * of the product table, so a selective filter reads only the rows it returns. The title is still searched using
+     * the title index, and the matching ids are passed to the query; when there are more than MAX_TITLE_IDS_IN_LIST
+     * of them, the title is matched by the query itself (LIKE) instead of a huge IN list.
+     * Without filters (other than the title) and sort, the queries of getProducts(title, fields) are used.
+     * The list is not paged, so at most MAX_FILTERED_RESULTS products are returned: one more row is read, and when
+     * it is found the request fails, asking the client to narrow the filters or to request pages (see
+     * getProductsPage(filter, after, limit, fields)), instead of silently truncating the list.
+     * @param filter ProductFilterDTO
+     * @param sort String (optional) comma separated properties, prefixed with "-" for descending order,
+     *             for example "-price,title". The products are ordered by id by default.
+     * @param fields String (optional) comma separated properties, all the properties when missing
+     * @return List
+     */
+    @Transactional(readOnly = true)
+    public List<ProductDTO> getProducts(ProductFilterDTO filter, String sort, String fields) {
+        List<ProductDTO> result = new ArrayList<>();
+        if (!filter.hasCriteria() && Objects.isNull(sort)) {
+            result = getProducts(filter.getTitle(), fields);
+        } else {
+            final Sort order = getSort(sort);
+            final Set<ProductField> selectedFields = productFieldService.parse(fields);
+            final Specification<Product> specification = getSpecification(filter);
+            if (!Objects.isNull(specification)) {
+                result = productRepository.findProductDtos(specification, order, selectedFields,
+                        MAX_FILTERED_RESULTS + 1);
+            }
+            if (result.size() > MAX_FILTERED_RESULTS) {
+                throw new StoreException(ErrorMessages.TOO_MANY_RESULTS);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Combines the filters into a single Specification.
+     * @param filter ProductFilterDTO
+     * @return Specification, or null when we already know that no product matches (unknown author, title not found)
+     */
+    private Specification<Product> getSpecification(ProductFilterDTO filter) {
+        if (!Objects.isNull(filter.getMinPrice()) && !Objects.isNull(filter.getMaxPrice())
+                && filter.getMinPrice() > filter.getMaxPrice()) {
+            throw new StoreException(ErrorMessages.INVALID_PRICE_RANGE);
+        }
+
+        boolean matchesAny = true;
+        Specification<Product> result = Specification.where(null);
+        if (!Objects.isNull(filter.getTitle())) {
+            final List<Long> ids = titleIndexService.search(filter.getTitle());
+            matchesAny = !ids.isEmpty();
+            result = result.and(ids.size() > MAX_TITLE_IDS_IN_LIST
+                    ? ProductSpecifications.titleContains(filter.getTitle())
+                    : ProductSpecifications.idIn(ids));
+        }
+        if (matchesAny && !Objects.isNull(filter.getAuthor())) {
+            // the author is resolved by its username (cached), so the products are filtered by the foreign key.
+            final Optional<User> author = userCacheService.findByUsername(filter.getAuthor());
+            matchesAny = author.isPresent();
+            result = result.and(ProductSpecifications.authorIdEquals(author.map(User::getId).orElse(null)));
+        }
+        if (!Objects.isNull(filter.getMinPrice())) {
+            result = result.and(ProductSpecifications.priceGreaterThanOrEqualTo(filter.getMinPrice()));
+        }
+        if (!Objects.isNull(filter.getMaxPrice())) {
+            result = result.and(ProductSpecifications.priceLessThanOrEqualTo(filter.getMaxPrice()));
+        }
+        if (!Objects.isNull(filter.getInStock())) {
+            result = result.and(ProductSpecifications.inStock(filter.getInStock()));
+        }
+        return matchesAny ? result : null;
+    }
+
+    /**
+     * Validates the sort requested by the client. The id is always the last sort property,
+     * so the order is deterministic when several products have the same price (or title etc.).
+     * @param sort String (optional) for example "-price,title"
+     * @return Sort
+     */
+    private Sort getSort(String sort) {
+        final List<Sort.Order> orders = new ArrayList<>();
+        boolean sortedById = false;
+        if (!Objects.isNull(sort)) {
+            for (String value : sort.split(SEPARATOR)) {
+                final String trimmedValue = value.trim();
+                final boolean descending = trimmedValue.startsWith(DESCENDING);
+                final String property = descending ? trimmedValue.substring(DESCENDING.length()) : trimmedValue;
+                if (!SORTABLE_PROPERTIES.contains(property)) {
+                    throw new StoreException(ErrorMessages.INVALID_SORT + trimmedValue);
+                }
+                orders.add(descending ? Sort.Order.desc(property) : Sort.Order.asc(property));
+                sortedById = sortedById || ID.equals(property);
+            }
+        }
+        if (!sortedById) {
+            orders.add(Sort.Order.asc(ID));
+        }
+        return Sort.by(orders);
+    }
+
+    /**
+     * Gets a page of products using keyset (cursor) pagination, optionally filtered by a part of the title.
+     * We read one extra row, so we know if there is a next page without issuing a count query.
+     * @param title String - the part of the title (optional)
+     * @param after String - opaque cursor received on the previous page (optional, missing for the first page)
+     * @param limit Integer - the page size (optional, capped to MAX_PAGE_SIZE)
+     * @param fields String - comma separated properties (optional, all the properties when missing)
+     * @return ProductPageDTO
+     */
+    @Transactional(readOnly = true)
+    public ProductPageDTO getProductsPage(String title, String after, Integer limit, String fields) {
+        final int pageSize = getPageSize(limit);
+        final Long afterId = cursorService.decode(after);
+        final Set<ProductField> selectedFields = productFieldService.parse(fields);
+        final Pageable pageable = PageRequest.of(0, pageSize + 1);
+        final List<ProductDTO> products;
+        if (!Objects.isNull(title)) {
+            products = findProductDtosByIdIn(searchIdsByTitle(title, afterId, pageable.getPageSize()), selectedFields);
+        } else if (Objects.isNull(selectedFields)) {
+            products = productRepository.findProductDtosByIdGreaterThan(afterId, pageable);
+        } else {
+            products = productRepository.findProductDtosByIdGreaterThan(selectedFields, afterId, pageable.getPageSize());
+        }
+
+        return toPage(products, pageSize);
+    }
+
+    /**
+     * Gets a page of the products matching all the provided filters using keyset (cursor) pagination,
+     * the products being ordered by id. The filters are the ones of getProducts(filter, sort, fields),
+     * the cursor is one more Specification (id greater than the last id of the previous page).
+     * With the title as only filter, getProductsPage(title, after, limit, fields) is used.
+     * @param filter ProductFilterDTO
+     * @param after String - opaque cursor received on the previous page (optional, missing for the first page)
+     * @param limit Integer - the page size (optional, capped to MAX_PAGE_SIZE)
+     * @param fields String - comma separated properties (optional, all the properties when missing)
+     * @return ProductPageDTO
+     */
+    @Transactional(readOnly = true)
+    public ProductPageDTO getProductsPage(ProductFilterDTO filter, String after, Integer limit, String fields) {
+        final ProductPageDTO result;
+        if (filter.hasCriteria()) {
+            final int pageSize = getPageSize(limit);
+            final Long afterId = cursorService.decode(after);
+            final Set<ProductField> selectedFields = productFieldService.parse(fields);
+            final Specification<Product> specification = getSpecification(filter);
+            List<ProductDTO> products = new ArrayList<>();
+            if (!Objects.isNull(specification)) {
+                products = productRepository.findProductDtos(
+                        specification.and(ProductSpecifications.idGreaterThan(afterId)),
+                        Sort.by(Sort.Order.asc(ID)), selectedFields, pageSize + 1);
+            }
+            result = toPage(products, pageSize);
         } else {
-            products = searchProductsByTitle(title);
+            result = getProductsPage(filter.getTitle(), after, limit, fields);
         }
-        return mapperService.getProductsDtoList(products);
+        return result;
+    }
+
+    /**
+     * Builds a page from the products read for it. One extra row is read, when it is found there is a next page,
+     * whose cursor is the id of the last product of this page.
+     * @param products List of ProductDTO, ordered by id (at most pageSize + 1)
+     * @param pageSize int
+     * @return ProductPageDTO
+     */
+    private ProductPageDTO toPage(List<ProductDTO> products, int pageSize) {
+        final ProductPageDTO result = new ProductPageDTO();
+        if (products.size() > pageSize) {
+            final List<ProductDTO> pageProducts = new ArrayList<>(products.subList(0, pageSize));
+            result.setProducts(pageProducts);
+            result.setNextCursor(cursorService.encode(pageProducts.get(pageSize - 1).getId()));
+        } else {
+            result.setProducts(products);
+        }
+        return result;
+    }
+
+    /**
+     * Validates the page size requested by the client. A missing value means default page size,
+     * a value bigger than MAX_PAGE_SIZE is capped, so the memory used by one request stays bounded.
+     * @param limit Integer
+     * @return int page size
+     */
+    private int getPageSize(Integer limit) {
+        int result = DEFAULT_PAGE_SIZE;
+        if (!Objects.isNull(limit)) {
+            if (limit < 1) {
+                throw new StoreException(ErrorMessages.INVALID_PAGE_SIZE);
+            }
+            result = Math.min(limit, MAX_PAGE_SIZE);
+        }
+        return result;
     }
 
     /**
      * Gets a product by provided id.
+     * Products are read far more often than written, so they are served from a read-through cache
+     * which is invalidated by the save, update and delete operations below.
+     * No transaction is opened here, so a cache hit doesn't take a database connection;
+     * on a miss the projection query runs in the read-only transaction of the repository.
      * @param id Long
      * @return Product
      */
     public ProductDTO getProductById(Long id) {
-        final Product product = getPersistedProductById(id);
-        return mapperService.getProductDto(product);
+        return productCacheService.get(id, this::loadProductById);
     }
 
     /**
-     * Gets a product by provided id.
-     * Lambda and stream collections have poor performance as for each dot in the chain
-     * list.stream().filter().map() the memory occupies more and more resources.
-     * And when the list is big, this could cause serious problems.
-     * Classical FOR is preferred over stream.
-     * Another weak point of stream is debugging, they are much harder to debug.
-     * And although it brings clarity for those that enjoys functional programming, that clarity cost week performance,
-     * several times increase in memory usage and hard to debug.
-     * @param id the id of the product
-     * @return Product
+     * Gets the version of a product, used to answer conditional GET requests (If-None-Match).
+     * The cached product is used when present, otherwise only the version column is read.
+     * @param id Long
+     * @return Long version
+     */
+    public Long getProductVersion(Long id) {
+        final ProductDTO cachedProduct = productCacheService.getIfPresent(id);
+        final Long result;
+        if (Objects.isNull(cachedProduct)) {
+            result = productRepository.findVersionById(id)
+                    .orElseThrow(() -> new StoreException(ErrorMessages.PRODUCT_NOT_FOUND));
+        } else {
+            result = cachedProduct.getVersion();
+        }
+        return result;
+    }
+
+    /**
+     * Loads a product from the database (used by the cache on a miss).
+     * @param id Long
+     * @return ProductDTO
      */
-    private Product getPersistedProductById(Long id) {
-        return productRepository.findById(id).orElseThrow(() -> new StoreException(ErrorMessages.PRODUCT_NOT_FOUND));
+    private ProductDTO loadProductById(Long id) {
+        return productRepository.findProductDtoById(id)
+                .orElseThrow(() -> new StoreException(ErrorMessages.PRODUCT_NOT_FOUND));
     }
 
     /**
      * Creates a Product record.
+     * The id and version are generated, existing products are changed by updateProduct.
      * @param productDto the product
      * @return the persisted product
      */
     public ProductDTO saveProduct(ProductDTO productDto) {
         final Product product = mapperService.getProduct(productDto);
         product.setAuthor(getPersistedAuthor(productDto.getAuthor()));
+        product.setId(null);
+        product.setVersion(null);
         final Product persistedProduct = productRepository.save(product);
+        afterWrite(persistedProduct.getId(), persistedProduct.getTitle());
         return mapperService.getProductDto(persistedProduct);
     }
 
     /**
-     * Updates a Product record.
+     * Updates a Product record with a single statement, without loading the product first.
+     * - with an expectedVersion (If-Match), the version the client based its change on, the statement is conditional
+     * (UPDATE ... WHERE id = ? AND version = ?), so a concurrent change is detected instead of silently overwritten.
+     * - without it, the client asked for no precondition, so the last write wins (as before the conditional
+     * updates): the statement has no version condition, and the new version is read back for the response.
      * A builder pattern can be useful (via lombok for example)
      * in this scenario where we construct object, but this is a POC.
      * @param id Long
      * @param productDto ProductDTO
-     * @return ProductDTO
+     * @param expectedVersion Long (optional) version expected by the client
+     * @return ProductDTO the updated product, with its new version
+     * @throws StorePreconditionFailedException when the product has another version than the expected one
+     */
+    public ProductDTO updateProduct(Long id, ProductDTO productDto, Long expectedVersion) {
+        final Product product = mapperService.getProduct(productDto);
+        product.setId(id);
+        product.setAuthor(getPersistedAuthor(productDto.getAuthor()));
+        if (Objects.isNull(expectedVersion)) {
+            product.setVersion(productRepository.updateFields(id, getUpdateValues(product))
+                    .orElseThrow(() -> new StoreException(ErrorMessages.PRODUCT_NOT_FOUND)));
+        } else {
+            final int updated = productRepository.updateIfVersionMatches(id, expectedVersion, product.getTitle(),
+                    product.getDescription(), product.getAuthor(), product.getCoverImage(), product.getPrice(),
+                    product.getQuantity());
+            if (updated == 0) {
+                throw getUpdateFailure(id);
+            }
+            product.setVersion(expectedVersion + 1);
+        }
+        afterWrite(id, product.getTitle());
+        return mapperService.getProductDto(product);
+    }
+
+    /**
+     * Collects all the writable fields of a product (PUT replaces them all, null values included).
+     * @param product Product
+     * @return Map of the new values by field, in declaration order
+     */
+    private Map<ProductField, Object> getUpdateValues(Product product) {
+        final Map<ProductField, Object> result = new EnumMap<>(ProductField.class);
+        result.put(ProductField.QUANTITY, product.getQuantity());
+        result.put(ProductField.TITLE, product.getTitle());
+        result.put(ProductField.DESCRIPTION, product.getDescription());
+        result.put(ProductField.COVER_IMAGE, product.getCoverImage());
+        result.put(ProductField.PRICE, product.getPrice());
+        result.put(ProductField.AUTHOR, product.getAuthor());
+        return result;
+    }
+
+    /**
+     * Partially updates a Product record (PATCH): only the columns of the provided (not null) fields are written,
+     * so a reprice or a restock doesn't rewrite the description and the cover image.
+     * As for updateProduct, the change is a single statement, conditional only when an expected version is provided.
+     * The id and version of the patch are ignored.
+     * @param id Long
+     * @param patch ProductDTO having only the fields to change
+     * @param expectedVersion Long (optional) version expected by the client
+     * @return ProductDTO the updated product, with its new version
+     * @throws StorePreconditionFailedException when the product has another version
+     */
+    public ProductDTO patchProduct(Long id, ProductDTO patch, Long expectedVersion) {
+        final Map<ProductField, Object> values = getPatchValues(patch);
+        if (values.isEmpty()) {
+            throw new StoreException(ErrorMessages.EMPTY_PATCH);
+        }
+        if (Objects.isNull(expectedVersion)) {
+            if (productRepository.updateFields(id, values).isEmpty()) {
+                throw new StoreException(ErrorMessages.PRODUCT_NOT_FOUND);
+            }
+        } else if (productRepository.updateFieldsIfVersionMatches(id, expectedVersion, values) == 0) {
+            throw getUpdateFailure(id);
+        }
+        if (values.containsKey(ProductField.TITLE)) {
+            titleIndexService.index(id, patch.getTitle());
+        }
+        productCacheService.invalidate(id);
+        catalogSnapshotService.markChanged();
+        // the other columns were not read, so the updated product is loaded (and cached) for the response.
+        return getProductById(id);
+    }
+
+    /**
+     * Collects the provided fields of a patch, in declaration order.
+     * @param patch ProductDTO
+     * @return Map of the new values by field, the author being the persisted one
+     */
+    private Map<ProductField, Object> getPatchValues(ProductDTO patch) {
+        final Map<ProductField, Object> result = new EnumMap<>(ProductField.class);
+        putIfNotNull(result, ProductField.QUANTITY, patch.getQuantity());
+        putIfNotNull(result, ProductField.TITLE, patch.getTitle());
+        putIfNotNull(result, ProductField.DESCRIPTION, patch.getDescription());
+        putIfNotNull(result, ProductField.COVER_IMAGE, patch.getCoverImage());
+        putIfNotNull(result, ProductField.PRICE, patch.getPrice());
+        if (!Objects.isNull(patch.getAuthor())) {
+            result.put(ProductField.AUTHOR, getPersistedAuthor(patch.getAuthor()));
+        }
+        return result;
+    }
+
+    /**
+     * Adds a value to the patch, unless it was not provided.
+     * @param values Map of values by field
+     * @param field ProductField
+     * @param value Object
      */
-    public ProductDTO updateProduct(Long id, ProductDTO productDto) {
-        final Product existingProduct = getPersistedProductById(id);
-        existingProduct.setTitle(productDto.getTitle());
-        existingProduct.setDescription(productDto.getDescription());
-        existingProduct.setAuthor(getPersistedAuthor(productDto.getAuthor()));
-        existingProduct.setCoverImage(productDto.getCoverImage());
-        existingProduct.setPrice(productDto.getPrice());
-        existingProduct.setQuantity(productDto.getQuantity());
-        final Product updatedProduct = productRepository.save(existingProduct);
-        return mapperService.getProductDto(updatedProduct);
+    private void putIfNotNull(Map<ProductField, Object> values, ProductField field, Object value) {
+        if (!Objects.isNull(value)) {
+            values.put(field, value);
+        }
     }
 
     /**
-     * Deletes a product record.
+     * Explains why a conditional update changed no row. Only this failure path reads the product, to tell a missing
+     * product from a newer version.
+     * @param id Long
+     * @return StoreException to throw
+     */
+    private StoreException getUpdateFailure(Long id) {
+        return productRepository.existsById(id)
+                ? new StorePreconditionFailedException(ErrorMessages.PRODUCT_VERSION_MISMATCH)
+                : new StoreException(ErrorMessages.PRODUCT_NOT_FOUND);
+    }
+
+    /**
+     * Buys units of a product: its stock is decremented atomically by the database (see
+     * ProductRepository.decrementQuantity), so concurrent buyers never lose updates nor oversell.
+     * A purchase which would make the stock negative fails without changing anything.
+     * The catalog snapshot is not invalidated: the new stock shows up in GET /store with its next periodic rebuild.
+     * @param id Long
+     * @param quantity Long units to buy
+     * @return true when the units were taken from the stock
+     */
+    public boolean purchaseProduct(Long id, Long quantity) {
+        if (Objects.isNull(quantity) || quantity < 1) {
+            throw new StoreException(ErrorMessages.INVALID_PURCHASE_QUANTITY);
+        }
+        if (productRepository.decrementQuantity(id, quantity) == 0) {
+            // only the failure path reads the product, to tell a missing product from a lack of stock.
+            if (productRepository.existsById(id)) {
+                throw new StoreException(ErrorMessages.NOT_ENOUGH_STOCK);
+            }
+            throw new StoreException(ErrorMessages.PRODUCT_NOT_FOUND);
+        }
+        productCacheService.invalidate(id);
+        catalogSnapshotService.markStockChanged();
+        return true;
+    }
+
+    /**
+     * Deletes a product record of the current user.
+     * The ownership is checked by the statement itself (DELETE ... WHERE id = ? AND author_id = ?), the id of the
+     * current user being read from the authenticated principal, so a successful delete is a single statement.
      * @param id Long
      */
     public boolean deleteProduct(Long id) {
-        final Product existingProduct = getPersistedProductById(id);
-        final String username = myUserDetailsService.getCurrentUsername();
-        if (username.equals(existingProduct.getAuthor().getUsername())) {
-            productRepository.deleteById(id);
-            // as we reached this point we can consider delete was successfully done.
-            return true;
-        } else {
-            // you are attempting to remove products from other stores (which belong to different users).
-            throw new StoreException(ErrorMessages.REMOVE_NOT_ALLOWED);
+        final Long authorId = myUserDetailsService.getCurrentUserId();
+        if (productRepository.deleteByIdAndAuthor(id, authorId) == 0) {
+            // only the failure path reads the product, to tell a missing product from a product of another user.
+            if (productRepository.existsById(id)) {
+                // you are attempting to remove products from other stores (which belong to different users).
+                throw new StoreException(ErrorMessages.REMOVE_NOT_ALLOWED);
+            }
+            throw new StoreException(ErrorMessages.PRODUCT_NOT_FOUND);
         }
+        titleIndexService.remove(id);
+        productCacheService.invalidate(id);
+        catalogSnapshotService.markChanged();
+        // as we reached this point we can consider delete was successfully done.
+        return true;
     }
 
     /**
      * Method that return the persisted author using its username.
+     * The users are served from {@link UserCacheService}, so creating or updating products doesn't read the author
+     * again for every request.
      * @param userDto UserDTO
      * @return User object
      */
@@ -141,11 +565,11 @@ public class ProductService {
 
         Optional<User> author = Optional.empty();
         if (!Objects.isNull(userDto.getUsername())) {
-            author = userRepository.findByUsername(userDto.getUsername());
+            author = userCacheService.findByUsername(userDto.getUsername());
         } else if (!Objects.isNull(userDto.getPseudonym())) {
-            author = userRepository.findByPseudonym(userDto.getPseudonym());
+            author = userCacheService.findByPseudonym(userDto.getPseudonym());
         } else if (!Objects.isNull(userDto.getId())) {
-            author = userRepository.findById(userDto.getId());
+            author = userCacheService.findById(userDto.getId());
         }
 
         if (author.isPresent()) {
@@ -156,19 +580,84 @@ public class ProductService {
     }
 
     /**
-     * Lists all products.
-     * @return List
+     * Loads the products with the provided ids (found by the in-memory title index, so we don't scan the product
+     * table), with all the fields or only the selected ones.
+     * The ids are sorted, so they are passed by chunks of MAX_TITLE_IDS_IN_LIST (each query ordered by id): the IN
+     * list stays bounded and the products are still ordered by id. No id means no query.
+     * @param ids List of ids, sorted ascending
+     * @param fields Set of fields, null meaning all the fields
+     * @return List of products
      */
-    private List<Product> getAllProducts() {
-        return productRepository.findAll();
+    private List<ProductDTO> findProductDtosByIdIn(List<Long> ids, Set<ProductField> fields) {
+        final List<ProductDTO> result = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += MAX_TITLE_IDS_IN_LIST) {
+            final List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_TITLE_IDS_IN_LIST));
+            if (Objects.isNull(fields)) {
+                result.addAll(productRepository.findProductDtosByIdIn(chunk));
+            } else {
+                result.addAll(productRepository.findProductDtosByIdIn(fields, chunk));
+            }
+        }
+        return result;
     }
 
     /**
-     * Filter a list of products by a part of the title.
+     * Keyset (cursor) pagination over the products matching a part of the title (case-insensitive).
+     * The ids found by the title index are sorted, so we keep only the ones after the cursor
+     * and at most "count" of them.
      * @param title String - the part of the title
-     * @return List of products matching the search criteria
+     * @param afterId Long - the id of the last product from the previous page
+     * @param count int - maximum number of products to load
+     * @return List of ids of the products matching the search criteria
+     */
+    private List<Long> searchIdsByTitle(String title, Long afterId, int count) {
+        final List<Long> ids = titleIndexService.search(title);
+        int from = Collections.binarySearch(ids, afterId);
+        // position of the first id greater than afterId (whether afterId is found or not).
+        from = from >= 0 ? from + 1 : -from - 1;
+        return ids.subList(from, Math.min(ids.size(), from + count));
+    }
+
+    /**
+     * Updates the title index, the product cache and the catalog snapshot after a product was created or updated.
+     * When the write is part of a wider transaction (the group commit of AsyncWriteService), this is done only once
+     * the transaction is committed, so a rolled back write is never indexed and the cache cannot be reloaded with
+     * the old row before the commit. Otherwise the repository already committed, so this is done right away.
+     * @param id Long product id
+     * @param title String product title
+     */
+    private void afterWrite(Long id, String title) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new AfterCommit(() -> applyWrite(id, title)));
+        } else {
+            applyWrite(id, title);
+        }
+    }
+
+    /**
+     * Makes a committed write visible to the in-memory structures.
+     * @param id Long product id
+     * @param title String product title
      */
-    private List<Product> searchProductsByTitle(String title) {
-        return productRepository.findByTitleContaining(title);
+    private void applyWrite(Long id, String title) {
+        titleIndexService.index(id, title);
+        productCacheService.invalidate(id);
+        catalogSnapshotService.markChanged();
+    }
+
+    /**
+     * Runs an action once the current transaction is committed.
+     */
+    private static final class AfterCommit implements TransactionSynchronization {
+        private final Runnable action;
+
+        private AfterCommit(Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void afterCommit() {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,213 @@
+package com.example.store.service;
+
+import com.example.store.dto.RateLimitRouteStatsDTO;
+import com.example.store.dto.RateLimitStatsDTO;
+import com.example.store.security.RateLimitRoute;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets, one bucket for each (route group, client) pair. A client is an IP or a user.
+ * </br>
+ * Each bucket is a single AtomicLong holding its "theoretical arrival time" (GCRA, the usual equivalent of a token
+ * bucket): a request is allowed when the bucket would not overflow, and the check is a single CAS, so no lock is
+ * taken. A bucket whose time is in the past is full, so dropping it doesn't change the behavior: these are the idle
+ * buckets which are evicted.
+ * </br>
+ * The buckets are spread over STRIPE_COUNT independent maps, each bounded to maxClients / STRIPE_COUNT entries.
+ * When a stripe is full, or idleMillis passed since its last sweep, the stripe (only) is swept: the idle buckets are
+ * removed and, if it is still full, arbitrary ones too (those clients start again with a full bucket, which keeps
+ * the memory bounded when requests come from very many addresses).
+ */
+@Service
+public class RateLimitService {
+
+    private static final int STRIPE_COUNT = 16;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+
+    private final Limit[] limits = new Limit[RateLimitRoute.values().length];
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    private final int maxClientsPerStripe;
+
+    private final long idleNanos;
+
+    @Autowired
+    public RateLimitService(@Value("${store.rate-limit.enabled:true}") boolean enabled,
+                            @Value("${store.rate-limit.max-clients:100000}") int maxClients,
+                            @Value("${store.rate-limit.idle-ms:60000}") long idleMillis,
+                            @Value("${store.rate-limit.authenticate.capacity:10}") int authenticateCapacity,
+                            @Value("${store.rate-limit.authenticate.refill-per-second:1}") double authenticateRefill,
+                            @Value("${store.rate-limit.catalog.capacity:100}") int catalogCapacity,
+                            @Value("${store.rate-limit.catalog.refill-per-second:50}") double catalogRefill,
+                            @Value("${store.rate-limit.write.capacity:20}") int writeCapacity,
+                            @Value("${store.rate-limit.write.refill-per-second:5}") double writeRefill) {
+        this.enabled = enabled;
+        this.maxClientsPerStripe = Math.max(1, maxClients / STRIPE_COUNT);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.limits[RateLimitRoute.AUTHENTICATE.ordinal()] = new Limit(authenticateCapacity, authenticateRefill);
+        this.limits[RateLimitRoute.CATALOG.ordinal()] = new Limit(catalogCapacity, catalogRefill);
+        this.limits[RateLimitRoute.WRITE.ordinal()] = new Limit(writeCapacity, writeRefill);
+        final long now = System.nanoTime();
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe(now + idleNanos);
+        }
+    }
+
+    /**
+     * Takes a token from the bucket of the client.
+     * @param route RateLimitRoute
+     * @param client String client key (for example "ip:10.0.0.1" or "user:john")
+     * @return 0 when the request is allowed, otherwise the nanoseconds to wait before the next token
+     */
+    public long tryAcquire(RateLimitRoute route, String client) {
+        long result = 0;
+        if (enabled) {
+            final Limit limit = limits[route.ordinal()];
+            final long now = System.nanoTime();
+            final String key = route.ordinal() + client;
+            final Stripe stripe = stripes[(key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPE_COUNT - 1)];
+            AtomicLong bucket = stripe.buckets.get(key);
+            if (Objects.isNull(bucket)) {
+                bucket = stripe.getOrCreate(key, now, maxClientsPerStripe, idleNanos);
+            }
+            result = limit.take(bucket, now);
+            if (result == 0) {
+                limit.allowed.incrementAndGet();
+            } else {
+                limit.throttled.incrementAndGet();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the rate limiter counters.
+     * @return RateLimitStatsDTO
+     */
+    public RateLimitStatsDTO getStats() {
+        final RateLimitStatsDTO result = new RateLimitStatsDTO();
+        int trackedClients = 0;
+        for (Stripe stripe : stripes) {
+            trackedClients += stripe.buckets.size();
+        }
+        result.setTrackedClients(trackedClients);
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            final Limit limit = limits[route.ordinal()];
+            final RateLimitRouteStatsDTO routeStats = new RateLimitRouteStatsDTO(route.name());
+            routeStats.setAllowed(limit.allowed.get());
+            routeStats.setThrottled(limit.throttled.get());
+            result.getRoutes().add(routeStats);
+        }
+        return result;
+    }
+
+    /**
+     * The limit of a route group: capacity tokens, refilled at refillPerSecond.
+     */
+    private static final class Limit {
+        /**
+         * Time to refill one token.
+         */
+        private final long intervalNanos;
+
+        /**
+         * Time to refill the whole bucket.
+         */
+        private final long burstNanos;
+
+        private final AtomicLong allowed = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+
+        private Limit(int capacity, double refillPerSecond) {
+            this.intervalNanos = (long) (NANOS_PER_SECOND / refillPerSecond);
+            this.burstNanos = intervalNanos * capacity;
+        }
+
+        /**
+         * Takes a token: the theoretical arrival time moves forward by one interval, unless that would
+         * exceed the burst (an empty bucket).
+         * @param bucket AtomicLong theoretical arrival time of the bucket
+         * @param now long System.nanoTime()
+         * @return 0 when allowed, otherwise the nanoseconds to wait
+         */
+        private long take(AtomicLong bucket, long now) {
+            long result = -1;
+            while (result < 0) {
+                final long arrival = bucket.get();
+                final long next = Math.max(arrival - now, 0) + now + intervalNanos;
+                final long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    result = excess;
+                } else if (bucket.compareAndSet(arrival, next)) {
+                    result = 0;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A bounded part of the buckets. Only one thread sweeps a stripe at a time, the others don't wait for it.
+     */
+    private static final class Stripe {
+        private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final AtomicLong nextSweep;
+        private final AtomicBoolean sweeping = new AtomicBoolean();
+
+        private Stripe(long nextSweep) {
+            this.nextSweep = new AtomicLong(nextSweep);
+        }
+
+        /**
+         * Creates the bucket of a new client (full), sweeping the stripe first when needed.
+         * @param key String
+         * @param now long System.nanoTime()
+         * @param maxSize int maximum number of buckets of the stripe
+         * @param idleNanos long time between two sweeps
+         * @return AtomicLong the bucket
+         */
+        private AtomicLong getOrCreate(String key, long now, int maxSize, long idleNanos) {
+            if ((buckets.size() >= maxSize || now - nextSweep.get() >= 0) && sweeping.compareAndSet(false, true)) {
+                try {
+                    sweep(now, maxSize);
+                    nextSweep.set(now + idleNanos);
+                } finally {
+                    sweeping.set(false);
+                }
+            }
+            return buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        /**
+         * Removes the idle (full) buckets and, if the stripe is still full, arbitrary ones.
+         * @param now long System.nanoTime()
+         * @param maxSize int maximum number of buckets of the stripe
+         */
+        private void sweep(long now, int maxSize) {
+            final Iterator<AtomicLong> values = buckets.values().iterator();
+            while (values.hasNext()) {
+                if (values.next().get() - now <= 0) {
+                    values.remove();
+                }
+            }
+            final Iterator<String> keys = buckets.keySet().iterator();
+            while (buckets.size() >= maxSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+}
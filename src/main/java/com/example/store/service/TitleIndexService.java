@@ -0,0 +1,320 @@
+package com.example.store.service;
+
+import com.example.store.repository.ProductRepository;
+import com.example.store.repository.ProductTitleView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram (n-gram) inverted index over the product titles, used for substring title search.
+ * </br>
+ * A LIKE '%value%' query cannot use a database index, so every search was a full table scan.
+ * Here each lower-cased title is split in trigrams ("phone" -> "pho", "hon", "one") and for each trigram we keep
+ * a posting list: the sorted ids of the products whose title contains it. A search intersects the posting lists of
+ * the trigrams of the searched value (starting with the shortest one) and then verifies the candidates against
+ * the title, because having all the trigrams doesn't guarantee they are contiguous.
+ * </br>
+ * Posting lists are primitive long arrays (no boxing, 8 bytes per entry).
+ * The index is built at startup and kept in sync by the save, update and delete operations of ProductService.
+ * Values shorter than a trigram cannot use the index, so they are verified against all the titles held in memory.
+ */
+@Service
+public class TitleIndexService {
+
+    private static final int GRAM_SIZE = 3;
+    private static final int INITIAL_POSTING_CAPACITY = 4;
+    private static final long[] NO_IDS = new long[0];
+
+    private final ProductRepository productRepository;
+
+    /**
+     * Posting lists by trigram. A trigram is packed into a long (3 chars x 16 bits).
+     */
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    /**
+     * Lower-cased titles by product id, used to verify the candidates.
+     */
+    private final Map<Long, String> titles = new HashMap<>();
+
+    /**
+     * Searches are far more frequent than writes, so they share a read lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public TitleIndexService(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Builds the index from the persisted products. Runs before the application accepts requests.
+     */
+    @PostConstruct
+    public void buildIndex() {
+        final List<ProductTitleView> productTitles = productRepository.findAllTitles();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            titles.clear();
+            for (ProductTitleView productTitle : productTitles) {
+                addToIndex(productTitle.getId(), productTitle.getTitle());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces the title of a product in the index.
+     * @param id Long product id
+     * @param title String product title (null titles are not indexed)
+     */
+    public void index(Long id, String title) {
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(id);
+            addToIndex(id, title);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product from the index.
+     * @param id Long product id
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Case-insensitive substring search over the titles.
+     * @param value String the searched part of the title
+     * @return List of matching product ids, sorted ascending
+     */
+    public List<Long> search(String value) {
+        final String normalized = normalize(value);
+        long[] result;
+        lock.readLock().lock();
+        try {
+            if (normalized.length() < GRAM_SIZE) {
+                result = scanTitles(normalized);
+            } else {
+                result = verify(intersectPostings(normalized), normalized);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toList(result);
+    }
+
+    /**
+     * Adds a title to the index (write lock must be held).
+     * @param id Long
+     * @param title String
+     */
+    private void addToIndex(Long id, String title) {
+        if (!Objects.isNull(title)) {
+            final String normalized = normalize(title);
+            titles.put(id, normalized);
+            for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+                postings.computeIfAbsent(pack(normalized, i), key -> new PostingList()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Removes a title from the index (write lock must be held).
+     * @param id Long
+     */
+    private void removeFromIndex(Long id) {
+        final String normalized = titles.remove(id);
+        if (!Objects.isNull(normalized)) {
+            for (int i = 0; i + GRAM_SIZE <= normalized.length(); i++) {
+                final Long gram = pack(normalized, i);
+                final PostingList postingList = postings.get(gram);
+                if (!Objects.isNull(postingList)) {
+                    postingList.remove(id);
+                    if (postingList.size == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Intersects the posting lists of all the trigrams of the value.
+     * We start from the shortest posting list and binary search the others, so the cost depends on the size of
+     * the shortest list and not on the catalog size.
+     * @param normalized String lower-cased searched value
+     * @return candidates ids, sorted ascending
+     */
+    private long[] intersectPostings(String normalized) {
+        final List<PostingList> lists = new ArrayList<>();
+        PostingList shortest = null;
+        boolean allPresent = true;
+        for (int i = 0; allPresent && i + GRAM_SIZE <= normalized.length(); i++) {
+            final PostingList postingList = postings.get(pack(normalized, i));
+            if (Objects.isNull(postingList)) {
+                // one trigram is not present in any title, so nothing can match.
+                allPresent = false;
+            } else {
+                lists.add(postingList);
+                if (Objects.isNull(shortest) || postingList.size < shortest.size) {
+                    shortest = postingList;
+                }
+            }
+        }
+
+        long[] result = NO_IDS;
+        if (allPresent) {
+            final long[] candidates = Arrays.copyOf(shortest.ids, shortest.size);
+            int count = candidates.length;
+            for (PostingList postingList : lists) {
+                if (postingList != shortest) {
+                    int kept = 0;
+                    for (int i = 0; i < count; i++) {
+                        if (postingList.contains(candidates[i])) {
+                            candidates[kept++] = candidates[i];
+                        }
+                    }
+                    count = kept;
+                }
+            }
+            result = Arrays.copyOf(candidates, count);
+        }
+        return result;
+    }
+
+    /**
+     * Keeps only the candidates whose title really contains the value.
+     * @param candidates long[] sorted ids
+     * @param normalized String lower-cased searched value
+     * @return matching ids, sorted ascending
+     */
+    private long[] verify(long[] candidates, String normalized) {
+        final long[] result = new long[candidates.length];
+        int count = 0;
+        for (long candidate : candidates) {
+            if (titles.get(candidate).contains(normalized)) {
+                result[count++] = candidate;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Values shorter than a trigram are checked against every title held in memory.
+     * @param normalized String lower-cased searched value
+     * @return matching ids, sorted ascending
+     */
+    private long[] scanTitles(String normalized) {
+        long[] result = new long[titles.size()];
+        int count = 0;
+        for (Map.Entry<Long, String> entry : titles.entrySet()) {
+            if (entry.getValue().contains(normalized)) {
+                result[count++] = entry.getKey();
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Matching is case-insensitive, so both titles and searched values are lower-cased.
+     * @param value String
+     * @return String
+     */
+    private String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Packs the trigram starting at position into a long.
+     * @param value String
+     * @param position int
+     * @return Long packed trigram
+     */
+    private Long pack(String value, int position) {
+        return ((long) value.charAt(position) << 32) | ((long) value.charAt(position + 1) << 16)
+                | value.charAt(position + 2);
+    }
+
+    /**
+     * Converts the ids to a List (as expected by the repository).
+     * @param ids long[]
+     * @return List
+     */
+    private List<Long> toList(long[] ids) {
+        final List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Sorted array of product ids. As ids are generated ascending, adding a new product is usually an append.
+     */
+    private static final class PostingList {
+        private long[] ids = new long[INITIAL_POSTING_CAPACITY];
+        private int size;
+
+        /**
+         * Adds an id keeping the array sorted (a title can contain the same trigram more than once).
+         * @param id long
+         */
+        private void add(long id) {
+            final int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                final int insertionPoint = -position - 1;
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                System.arraycopy(ids, insertionPoint, ids, insertionPoint + 1, size - insertionPoint);
+                ids[insertionPoint] = id;
+                size++;
+            }
+        }
+
+        /**
+         * Removes an id if present.
+         * @param id long
+         */
+        private void remove(long id) {
+            final int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+
+        /**
+         * Checks if an id is present.
+         * @param id long
+         * @return boolean
+         */
+        private boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.store.service;
+
+import com.example.store.exception.StoreException;
+import com.example.store.model.RevokedToken;
+import com.example.store.repository.RevokedTokenRepository;
+import com.example.store.security.JwtClaims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.store.util.ErrorMessages.TOKEN_NOT_REVOCABLE;
+
+/**
+ * Revoked tokens, persisted in the database and held in memory for the checks done by JwtRequestFilter.
+ * </br>
+ * A token is identified by its jti claim (see JwtUtil.generateToken). The revoked ids are kept in a ConcurrentHashMap
+ * (id -> expiration), so the check done on every authenticated request is a lock-free O(1) lookup, without a
+ * database round trip. Only the revoked tokens are kept (not the issued ones), and only until they expire:
+ * an expired token is rejected by JwtUtil anyway, so its entry is useless. The expired entries are purged from the
+ * memory and from the database by the revocations (at most once per PURGE_INTERVAL) and at startup.
+ * </br>
+ * Tokens issued before the jti claim was introduced cannot be revoked individually, they expire on their own.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final long PURGE_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    /**
+     * Expiration (epoch milliseconds) by revoked token id.
+     */
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    @Autowired
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    /**
+     * Loads the revoked tokens which didn't expire yet, so the revocations survive restarts.
+     */
+    @PostConstruct
+    public void load() {
+        final long now = System.currentTimeMillis();
+        revokedTokenRepository.deleteExpired(now);
+        final List<RevokedToken> tokens = revokedTokenRepository.findAll();
+        for (RevokedToken token : tokens) {
+            revokedTokens.put(token.getTokenId(), token.getExpiration());
+        }
+        nextPurge.set(now + PURGE_INTERVAL);
+    }
+
+    /**
+     * Lock-free check.
+     * @param tokenId String the jti claim (null, for tokens without it, is never revoked)
+     * @return true if the token was revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        return !Objects.isNull(tokenId) && revokedTokens.containsKey(tokenId);
+    }
+
+    /**
+     * Revokes a token until it expires.
+     * @param claims JwtClaims of the token
+     * @return true if the token was not revoked before
+     * @throws StoreException when the token has no id
+     */
+    public boolean revoke(JwtClaims claims) {
+        if (Objects.isNull(claims.getTokenId())) {
+            throw new StoreException(TOKEN_NOT_REVOCABLE);
+        }
+        final long now = System.currentTimeMillis();
+        final boolean result = !isRevoked(claims.getTokenId());
+        if (result) {
+            // persisted first, so a revocation which was accepted is never lost by a restart.
+            revokedTokenRepository.save(new RevokedToken(claims.getTokenId(), claims.getExpiration()));
+            revokedTokens.put(claims.getTokenId(), claims.getExpiration());
+        }
+        purgeIfNeeded(now);
+        return result;
+    }
+
+    /**
+     * Removes the expired revocations, at most once per PURGE_INTERVAL.
+     * @param now long epoch milliseconds
+     */
+    private void purgeIfNeeded(long now) {
+        final long scheduled = nextPurge.get();
+        if (now >= scheduled && nextPurge.compareAndSet(scheduled, now + PURGE_INTERVAL)) {
+            final Iterator<Long> expirations = revokedTokens.values().iterator();
+            while (expirations.hasNext()) {
+                if (expirations.next() <= now) {
+                    expirations.remove();
+                }
+            }
+            revokedTokenRepository.deleteExpired(now);
+        }
+    }
+}
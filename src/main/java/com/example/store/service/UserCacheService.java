@@ -0,0 +1,341 @@
+package com.example.store.service;
+
+import com.example.store.model.MyUserDetails;
+import com.example.store.model.User;
+import com.example.store.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-through identity cache of the users, indexed by id, username and pseudonym.
+ * </br>
+ * Every authenticated request loads the user by username (JwtRequestFilter), and every product create or update
+ * resolves its author by username, pseudonym or id (ProductService, ProductBatchService for a whole batch), so the
+ * same few users were read several times per request. Here a user is read once and then served from memory:
+ * - bounded: at most maxSize users, the least recently used one is evicted first.
+ * - entries expire after ttl, so a change done outside the application becomes visible eventually.
+ * - user mutations (MyUserDetailsService.save) invalidate the user synchronously.
+ * - unknown users are not cached, so a user created later is found right away.
+ * - the batch lookups (findAllByUsername etc.) serve the cached users and read the missing ones with one query.
+ * </br>
+ * The entities are never shared: each call returns a new User (the cached values are immutable), so a caller
+ * changing or attaching the returned User cannot affect the other callers. MyUserDetails is immutable and shared.
+ * </br>
+ * The store admins are the users listed in store.admin.usernames, their MyUserDetails are granted the ADMIN role.
+ */
+@Service
+public class UserCacheService {
+
+    private final UserRepository userRepository;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final Set<String> adminUsernames;
+
+    /**
+     * Cached users by id, in access order (LRU). Guarded by "this", as the indexes below.
+     */
+    private final Map<Long, CachedUser> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, Long> idsByUsername = new HashMap<>();
+
+    private final Map<String, Long> idsByPseudonym = new HashMap<>();
+
+    /**
+     * Incremented by each invalidation (guarded by "this"). A load started before an invalidation
+     * may have read the old value, so its result is returned to its caller but not cached.
+     */
+    private long generation;
+
+    @Autowired
+    public UserCacheService(UserRepository userRepository,
+                            @Value("${store.cache.user.max-size:10000}") int maxSize,
+                            @Value("${store.cache.user.ttl-ms:300000}") long ttlMillis,
+                            @Value("${store.admin.usernames:}") String[] adminUsernames) {
+        this.userRepository = userRepository;
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.adminUsernames = Set.of(adminUsernames);
+    }
+
+    /**
+     * Finds a user by its username.
+     * @param username String
+     * @return Optional User (a new instance for each call)
+     */
+    public Optional<User> findByUsername(String username) {
+        final CachedUser cachedUser = lookup(getId(idsByUsername, username), () -> userRepository.findByUsername(username));
+        return Optional.ofNullable(cachedUser).map(CachedUser::toUser);
+    }
+
+    /**
+     * Finds a user by its pseudonym.
+     * @param pseudonym String
+     * @return Optional User (a new instance for each call)
+     */
+    public Optional<User> findByPseudonym(String pseudonym) {
+        final CachedUser cachedUser = lookup(getId(idsByPseudonym, pseudonym),
+                () -> userRepository.findByPseudonym(pseudonym));
+        return Optional.ofNullable(cachedUser).map(CachedUser::toUser);
+    }
+
+    /**
+     * Finds a user by its id.
+     * @param id Long
+     * @return Optional User (a new instance for each call)
+     */
+    public Optional<User> findById(Long id) {
+        final CachedUser cachedUser = lookup(id, () -> userRepository.findById(id));
+        return Optional.ofNullable(cachedUser).map(CachedUser::toUser);
+    }
+
+    /**
+     * Finds the users with the provided usernames, the missing ones being read with one query.
+     * @param usernames Collection of String
+     * @return Map of the found users by username (new instances), the unknown usernames having no entry
+     */
+    public Map<String, User> findAllByUsername(Collection<String> usernames) {
+        final Map<String, User> result = new HashMap<>();
+        final List<String> missingUsernames = new ArrayList<>();
+        for (String username : usernames) {
+            final CachedUser cachedUser = getIfPresent(getId(idsByUsername, username));
+            if (Objects.isNull(cachedUser)) {
+                missingUsernames.add(username);
+            } else {
+                result.put(username, cachedUser.toUser());
+            }
+        }
+        if (!missingUsernames.isEmpty()) {
+            for (CachedUser cachedUser : load(() -> userRepository.findByUsernameIn(missingUsernames))) {
+                result.put(cachedUser.username, cachedUser.toUser());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the users with the provided pseudonyms, the missing ones being read with one query.
+     * @param pseudonyms Collection of String
+     * @return Map of the found users by pseudonym (new instances), the unknown pseudonyms having no entry
+     */
+    public Map<String, User> findAllByPseudonym(Collection<String> pseudonyms) {
+        final Map<String, User> result = new HashMap<>();
+        final List<String> missingPseudonyms = new ArrayList<>();
+        for (String pseudonym : pseudonyms) {
+            final CachedUser cachedUser = getIfPresent(getId(idsByPseudonym, pseudonym));
+            if (Objects.isNull(cachedUser)) {
+                missingPseudonyms.add(pseudonym);
+            } else {
+                result.put(pseudonym, cachedUser.toUser());
+            }
+        }
+        if (!missingPseudonyms.isEmpty()) {
+            for (CachedUser cachedUser : load(() -> userRepository.findByPseudonymIn(missingPseudonyms))) {
+                result.put(cachedUser.pseudonym, cachedUser.toUser());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the users with the provided ids, the missing ones being read with one query.
+     * @param ids Collection of Long
+     * @return Map of the found users by id (new instances), the unknown ids having no entry
+     */
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        final Map<Long, User> result = new HashMap<>();
+        final List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            final CachedUser cachedUser = getIfPresent(id);
+            if (Objects.isNull(cachedUser)) {
+                missingIds.add(id);
+            } else {
+                result.put(id, cachedUser.toUser());
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            for (CachedUser cachedUser : load(() -> userRepository.findAllById(missingIds))) {
+                result.put(cachedUser.id, cachedUser.toUser());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the details of a user by its username (used by the authentication).
+     * @param username String
+     * @return Optional MyUserDetails (shared, as it is immutable)
+     */
+    public Optional<MyUserDetails> findUserDetailsByUsername(String username) {
+        final CachedUser cachedUser = lookup(getId(idsByUsername, username), () -> userRepository.findByUsername(username));
+        return Optional.ofNullable(cachedUser).map(CachedUser::getUserDetails);
+    }
+
+    /**
+     * Removes a user from the cache. Must be called after the user was changed or deleted.
+     * The user is removed by id, username and pseudonym, so the entries of the previous values are removed as well.
+     * @param user User
+     */
+    public synchronized void invalidate(User user) {
+        generation++;
+        removeEntry(entries.get(user.getId()));
+        removeEntry(entries.get(idsByUsername.get(user.getUsername())));
+        removeEntry(entries.get(idsByPseudonym.get(user.getPseudonym())));
+    }
+
+    /**
+     * Returns the cached user, or loads it using the provided loader when missing or expired.
+     * @param id Long id of the user when it is known (indexed), null otherwise
+     * @param loader Supplier loading the user from the database
+     * @return CachedUser or null when the user doesn't exist
+     */
+    private CachedUser lookup(Long id, Supplier<Optional<User>> loader) {
+        CachedUser result = getIfPresent(id);
+        if (Objects.isNull(result)) {
+            final long loadGeneration = getGeneration();
+            final Optional<User> user = loader.get();
+            if (user.isPresent()) {
+                result = cache(user.get(), loadGeneration);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads several users using the provided loader, and caches them.
+     * @param loader Supplier loading the users from the database
+     * @return List of CachedUser
+     */
+    private List<CachedUser> load(Supplier<List<User>> loader) {
+        final long loadGeneration = getGeneration();
+        final List<User> users = loader.get();
+        final List<CachedUser> result = new ArrayList<>(users.size());
+        for (User user : users) {
+            result.add(cache(user, loadGeneration));
+        }
+        return result;
+    }
+
+    /**
+     * Copies a loaded user, granting the ADMIN role to the store admins, and caches it.
+     * @param user User
+     * @param loadGeneration long generation read before loading
+     * @return CachedUser
+     */
+    private CachedUser cache(User user, long loadGeneration) {
+        final CachedUser result = new CachedUser(user, adminUsernames.contains(user.getUsername()), System.nanoTime());
+        put(result, loadGeneration);
+        return result;
+    }
+
+    /**
+     * Returns the cached user, removing it when expired.
+     * @param id Long (null is a miss)
+     * @return CachedUser or null
+     */
+    private synchronized CachedUser getIfPresent(Long id) {
+        CachedUser result = null;
+        if (!Objects.isNull(id)) {
+            result = entries.get(id);
+            if (!Objects.isNull(result) && System.nanoTime() - result.createdAt > ttlNanos) {
+                removeEntry(result);
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the id of a user from one of the indexes.
+     * @param index Map
+     * @param key String username or pseudonym
+     * @return Long id or null when not cached
+     */
+    private synchronized Long getId(Map<String, Long> index, String key) {
+        return index.get(key);
+    }
+
+    /**
+     * Caches a loaded user, unless an invalidation happened while loading (users without id are not cached).
+     * The least recently used user is evicted when the cache is full.
+     * @param cachedUser CachedUser
+     * @param loadGeneration long generation read before loading
+     */
+    private synchronized void put(CachedUser cachedUser, long loadGeneration) {
+        if (generation == loadGeneration && !Objects.isNull(cachedUser.id)) {
+            removeEntry(entries.get(cachedUser.id));
+            entries.put(cachedUser.id, cachedUser);
+            idsByUsername.put(cachedUser.username, cachedUser.id);
+            idsByPseudonym.put(cachedUser.pseudonym, cachedUser.id);
+            if (entries.size() > maxSize) {
+                // the first entry in access order is the least recently used one.
+                removeEntry(entries.values().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Removes a user from the cache and from the indexes (lock must be held).
+     * @param cachedUser CachedUser (null is ignored)
+     */
+    private void removeEntry(CachedUser cachedUser) {
+        if (!Objects.isNull(cachedUser)) {
+            entries.remove(cachedUser.id);
+            idsByUsername.remove(cachedUser.username, cachedUser.id);
+            idsByPseudonym.remove(cachedUser.pseudonym, cachedUser.id);
+        }
+    }
+
+    private synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Immutable copy of a user with its creation time (used for ttl).
+     */
+    private static final class CachedUser {
+        private final Long id;
+        private final String username;
+        private final String password;
+        private final String pseudonym;
+        private final MyUserDetails userDetails;
+        private final long createdAt;
+
+        private CachedUser(User user, boolean admin, long createdAt) {
+            this.id = user.getId();
+            this.username = user.getUsername();
+            this.password = user.getPassword();
+            this.pseudonym = user.getPseudonym();
+            this.userDetails = new MyUserDetails(user, admin);
+            this.createdAt = createdAt;
+        }
+
+        private MyUserDetails getUserDetails() {
+            return userDetails;
+        }
+
+        private User toUser() {
+            final User result = new User();
+            result.setId(id);
+            result.setUsername(username);
+            result.setPassword(password);
+            result.setPseudonym(pseudonym);
+            return result;
+        }
+    }
+}
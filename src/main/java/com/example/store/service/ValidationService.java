@@ -2,26 +2,29 @@ package com.example.store.service;
 
 import com.example.store.exception.StoreException;
 import com.example.store.util.ErrorMessages;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 /**
  * Custom validations service.
- * At this point list is held in memory, however, this implementation can be extended by adding
- * banning functionality. This is just a POC.
+ * The banned users are managed at runtime (see BannedUserService and BannedUserController).
  */
 @Service
 public class ValidationService {
 
-    public static final List<String> BANNED_LIST = List.of("Diego");
+    private final BannedUserService bannedUserService;
+
+    @Autowired
+    public ValidationService(BannedUserService bannedUserService) {
+        this.bannedUserService = bannedUserService;
+    }
 
     /**
-     * We don't allow user Diego to authenticate.
+     * We don't allow banned users to authenticate.
      * @param username String
      */
     public void performAuthenticateValidations(String username) {
-        if (BANNED_LIST.contains(username)) {
+        if (bannedUserService.isBanned(username)) {
             throw new StoreException(ErrorMessages.BANNED_USER);
         }
     }
@@ -9,9 +9,68 @@ public final class Constants {
      */
     public final static String ERROR = "error";
 
+    /**
+     * Seconds a client should wait before retrying a request rejected with 503 Service Unavailable.
+     */
+    public final static String RETRY_AFTER_SECONDS = "1";
+
     public final static String AUTHENTICATE = "/authenticate";
+    public final static String LOGOUT = "/logout";
     public final static String STORE_EXT = "/store/**";
     public final static String STORE = "/store";
+    public final static String STORE_TICKETS = "/store/tickets/";
+    public final static String STORE_TICKETS_EXT = "/store/tickets/**";
+    public final static String STATS_EXT = "/stats/**";
+    public final static String BANNED_USERS_EXT = "/banned-users/**";
+
+    /**
+     * Role of the store admins (see store.admin.usernames), the only users allowed to change the banned users.
+     */
+    public final static String ADMIN_ROLE = "ADMIN";
+    public final static String ADMIN_AUTHORITY = "ROLE_" + ADMIN_ROLE;
+
+    /**
+     * Constants related to the bearer tokens (see JwtRequestFilter).
+     */
+    public final static String AUTHORIZATION = "Authorization";
+    public final static String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * Constants related to keyset (cursor) pagination.
+     * Page size is capped, so that the memory used by a request stays bounded regardless of catalog size.
+     */
+    public final static int DEFAULT_PAGE_SIZE = 20;
+    public final static int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Maximum number of products returned by the filtered (not paged) list, see ProductService.getProducts.
+     * A broader filter has to be narrowed or paged, so it cannot return the whole catalog.
+     */
+    public final static int MAX_FILTERED_RESULTS = 1000;
+
+    /**
+     * Constants related to batch operations (POST /store/batch).
+     * The chunk size should match hibernate.jdbc.batch_size (see application.properties).
+     */
+    public final static int MAX_BATCH_SIZE = 10000;
+    public final static int BATCH_CHUNK_SIZE = 50;
+
+    /**
+     * Number of ids handled by one set-based statement (PUT / DELETE /store/batch).
+     * It bounds the size of the IN list and the time the rows stay locked.
+     */
+    public final static int SET_BASED_CHUNK_SIZE = 500;
+
+    /**
+     * Maximum number of ids (found by the title index) passed in one IN list, so the size of the statement and the
+     * number of parameters stay bounded whatever the number of products matching the title.
+     */
+    public final static int MAX_TITLE_IDS_IN_LIST = 500;
+
+    /**
+     * Maximum number of items of a checkout (POST /store/checkout), it bounds the rows locked by one transaction.
+     */
+    public final static int MAX_CHECKOUT_ITEMS = 100;
 
     /**
      * private constructor specific to utility classes.
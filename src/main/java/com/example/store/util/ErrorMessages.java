@@ -22,6 +22,8 @@ public final class ErrorMessages {
      */
     public final static String STORE_EXCEPTION_LOG_MESSAGE = "Store exception occurred: ";
     public final static String GENERIC_EXCEPTION_LOG_MESSAGE = "Handled generic exception: ";
+    public final static String STORE_PRECONDITION_FAILED_LOG_MESSAGE = "Conditional write rejected: {}";
+    public final static String STORE_BUSY_EXCEPTION_LOG_MESSAGE = "Request rejected, server busy: {}";
     public final static String GENERIC_EXCEPTION_RESPONSE_MESSAGE
             = "An unexpected error occurred. Please, contact support!";
 
@@ -32,11 +34,79 @@ public final class ErrorMessages {
     public static final String INVALID_USER = "Invalid user";
     public static final String REMOVE_NOT_ALLOWED = "You are not allowed to remove this product";
     public static final String PRODUCT_HAS_INVALID_USER = "Attempting to persist a product that doesn't have an existing author!";
+    public static final String INVALID_PAGE_SIZE = "Page size (limit) must be a positive number";
+    public static final String INVALID_PRICE_RANGE = "minPrice must be less than or equal to maxPrice";
+    public static final String INVALID_SORT = "Unknown sort property: ";
+    public static final String TOO_MANY_RESULTS
+            = "Too many products match the filters, please narrow them or request pages (limit)";
+    public static final String PRODUCT_VERSION_MISMATCH = "The product was changed by another request";
+    public static final String INVALID_IF_MATCH = "Invalid If-Match header";
+
+    /**
+     * {@link com.example.store.service.ProductFieldService} error messages.
+     */
+    public static final String INVALID_FIELDS = "Unknown product field: ";
+
+    /**
+     * {@link com.example.store.service.ProductBatchService} error messages.
+     */
+    public static final String INVALID_BATCH_SIZE
+            = "A batch must contain between 1 and " + Constants.MAX_BATCH_SIZE + " products";
+    public static final String NOTHING_TO_UPDATE = "At least one of price or quantity must be provided";
+    public static final String EMPTY_PATCH = "At least one field of the product must be provided";
+    public static final String INVALID_PURCHASE_QUANTITY = "The purchased quantity must be at least 1";
+    public static final String NOT_ENOUGH_STOCK = "Not enough stock for the purchased quantity";
+    public static final String INVALID_CHECKOUT_SIZE
+            = "A checkout must have between 1 and " + Constants.MAX_CHECKOUT_ITEMS + " items";
+    public static final String INVALID_CHECKOUT_ITEM = "Each checkout item needs a product id and a quantity >= 1";
+    public static final String CHECKOUT_NOT_AVAILABLE = "Not enough stock (or missing product) for an item";
+    public static final String ASYNC_WRITES_DISABLED = "Asynchronous writes are not enabled";
+    public static final String WRITE_QUEUE_FULL = "Too many pending writes, please retry later";
+    public static final String TICKET_NOT_FOUND = "Write ticket not found (unknown or expired)";
+    public static final String WRITE_FAILED = "The write failed, please retry";
+    public static final String WRITES_STOPPED = "The server is stopping, the write was not done, please retry later";
+    public static final String CHECKOUT_BUSY = "Too many concurrent checkouts of the same products, please retry later";
+
+    /**
+     * {@link com.example.store.service.ProductExportService} error messages.
+     */
+    public static final String EXPORT_FAILED = "Unable to export the products";
+
+    /**
+     * {@link com.example.store.service.CatalogSnapshotService} error messages.
+     */
+    public static final String SNAPSHOT_FAILED = "Unable to build the catalog snapshot";
+
+    /**
+     * {@link com.example.store.service.CursorService} error messages.
+     */
+    public static final String INVALID_CURSOR = "Invalid cursor";
 
     /**
      * {@link com.example.store.service.AuthService} error messages.
      */
     public static final String AUTHENTICATION_ERROR = "Invalid username or password";
+    public static final String INVALID_TOKEN = "Missing or invalid bearer token";
+
+    /**
+     * {@link com.example.store.security.RateLimitFilter} error messages.
+     */
+    public static final String TOO_MANY_REQUESTS = "Too many requests, please retry later";
+
+    /**
+     * {@link com.example.store.security.ConcurrencyLimitFilter} error messages.
+     */
+    public static final String SERVER_OVERLOADED = "Server overloaded, please retry later";
+
+    /**
+     * {@link com.example.store.service.TokenRevocationService} error messages.
+     */
+    public static final String TOKEN_NOT_REVOCABLE = "This token cannot be revoked, it expires on its own";
+
+    /**
+     * {@link com.example.store.service.PasswordHashingService} error messages.
+     */
+    public static final String PASSWORD_HASHING_BUSY = "Too many authentication requests, please retry later";
 
     /**
      * {@link com.example.store.service.MyUserDetailsService} error messages.
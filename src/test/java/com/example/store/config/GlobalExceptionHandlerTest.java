@@ -1,9 +1,13 @@
 package com.example.store.config;
 
+import com.example.store.exception.StoreBusyException;
 import com.example.store.exception.StoreException;
+import com.example.store.exception.StorePreconditionFailedException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +49,33 @@ class GlobalExceptionHandlerTest {
         assertEquals(result.getBody().get(ERROR), SOME_STORE_ERROR_MESSAGE);
     }
 
+    @Test
+    void handleStoreBusyException_shouldSucceed() {
+        final StoreBusyException ex = new StoreBusyException(PASSWORD_HASHING_BUSY);
+
+        // when
+        final ResponseEntity<Map<String, String>> result = target.handleStoreBusyException(ex);
+
+        // then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, result.getStatusCode());
+        assertEquals(RETRY_AFTER_SECONDS, result.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNotNull(result.getBody());
+        assertEquals(PASSWORD_HASHING_BUSY, result.getBody().get(ERROR));
+    }
+
+    @Test
+    void handleStorePreconditionFailedException_shouldSucceed() {
+        final StorePreconditionFailedException ex = new StorePreconditionFailedException(PRODUCT_VERSION_MISMATCH);
+
+        // when
+        final ResponseEntity<Map<String, String>> result = target.handleStorePreconditionFailedException(ex);
+
+        // then
+        assertEquals(HttpStatus.PRECONDITION_FAILED, result.getStatusCode());
+        assertNotNull(result.getBody());
+        assertEquals(PRODUCT_VERSION_MISMATCH, result.getBody().get(ERROR));
+    }
+
     @Test
     void handleGenericException_shouldSucceed() {
         // given
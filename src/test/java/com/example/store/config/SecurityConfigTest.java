@@ -1,26 +1,51 @@
 package com.example.store.config;
 
+import com.example.store.model.User;
+import com.example.store.repository.UserRepository;
 import com.example.store.security.JwtRequestFilter;
+import com.example.store.security.BoundedPasswordEncoder;
 import com.example.store.service.MyUserDetailsService;
+import com.example.store.service.PasswordHashingService;
+import com.example.store.service.UserCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.authentication.configurers.userdetails.DaoAuthenticationConfigurer;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 /**
- * Unit tests for {@link SecurityConfig}.
+ * Unit tests for {@link SecurityConfig}, and integration tests of its access rules (see AccessRules).
  */
 @ExtendWith(MockitoExtension.class)
 class SecurityConfigTest {
+
+    private static final String ADMIN_USERNAME = "admin";
+    private static final String SOME_USERNAME = "someUser";
+    private static final String PASSWORD = "password";
+    private static final String BEARER = "Bearer ";
+    private static final String[] STATS =
+            {"/stats/product-cache", "/stats/password-hashing", "/stats/rate-limit", "/stats/concurrency"};
+
     /**
      * Beans used by the class which is being tested.
      */
@@ -28,6 +53,8 @@ class SecurityConfigTest {
     private MyUserDetailsService myUserDetailsService = Mockito.mock(MyUserDetailsService.class);
     @Mock
     private JwtRequestFilter jwtRequestFilter = Mockito.mock(JwtRequestFilter.class);
+    @Mock
+    private PasswordHashingService passwordHashingService = Mockito.mock(PasswordHashingService.class);
 
     /**
      * Class being tested (named as target).
@@ -42,9 +69,9 @@ class SecurityConfigTest {
         final PasswordEncoder result = target.passwordEncoder();
 
         // then
-        verifyNoInteractions(myUserDetailsService, jwtRequestFilter);
+        verifyNoInteractions(myUserDetailsService, jwtRequestFilter, passwordHashingService);
 
-        assertNotNull(result);
+        assertInstanceOf(BoundedPasswordEncoder.class, result);
     }
 
     @Test
@@ -66,8 +93,92 @@ class SecurityConfigTest {
 
         // then
         verify(builder).userDetailsService(myUserDetailsService);
-        verifyNoInteractions(myUserDetailsService, jwtRequestFilter);
+        verifyNoInteractions(myUserDetailsService, jwtRequestFilter, passwordHashingService);
 
         assertEquals("NO ERROR", error);
     }
+
+    /**
+     * Integration tests of the access rules configured by {@link SecurityConfig}: anyone can register,
+     * so being authenticated must not be enough to read the stats.
+     */
+    @Nested
+    @SpringBootTest(properties = {"store.admin.usernames=" + ADMIN_USERNAME})
+    @AutoConfigureMockMvc
+    class AccessRules {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private UserCacheService userCacheService;
+
+        @Autowired
+        private PasswordEncoder passwordEncoder;
+
+        @BeforeEach
+        void setUp() {
+            saveUser(ADMIN_USERNAME);
+            saveUser(SOME_USERNAME);
+        }
+
+        @AfterEach
+        void tearDown() {
+            for (User user : userRepository.findAll()) {
+                userCacheService.invalidate(user);
+            }
+            userRepository.deleteAll();
+        }
+
+        @Test
+        void getStats_withoutAdminRole_shouldBeForbidden() throws Exception {
+            // given
+            final String token = authenticate(SOME_USERNAME);
+
+            // when / then
+            for (String stats : STATS) {
+                mockMvc.perform(get(stats).header(HttpHeaders.AUTHORIZATION, BEARER + token)
+                        .accept(MediaType.APPLICATION_JSON)).andExpect(status().isForbidden());
+            }
+        }
+
+        @Test
+        void getStats_withAdminRole_shouldSucceed() throws Exception {
+            // given
+            final String token = authenticate(ADMIN_USERNAME);
+
+            // when / then
+            for (String stats : STATS) {
+                mockMvc.perform(get(stats).header(HttpHeaders.AUTHORIZATION, BEARER + token)
+                        .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+            }
+        }
+
+        /**
+         * Persists a user having the test password.
+         * @param username String (also used as pseudonym)
+         */
+        private void saveUser(String username) {
+            final User user = new User();
+            user.setUsername(username);
+            user.setPseudonym(username);
+            user.setPassword(passwordEncoder.encode(PASSWORD));
+            userRepository.save(user);
+        }
+
+        /**
+         * Gets a token for the user.
+         * @param username String
+         * @return String
+         * @throws Exception on request errors
+         */
+        private String authenticate(String username) throws Exception {
+            return mockMvc.perform(post("/authenticate").contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+                    .andReturn().getResponse().getContentAsString();
+        }
+    }
 }
@@ -12,6 +12,7 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -55,6 +56,24 @@ class AuthControllerTest {
         assertEquals(TOKEN, result);
     }
 
+    @Test
+    void logout_shouldSucceed() {
+        // given
+        final String authorizationHeader = "Bearer " + TOKEN;
+
+        when(authService.logout(authorizationHeader)).thenReturn(true);
+
+        // when
+        final boolean result = target.logout(authorizationHeader);
+
+        // then
+        verify(authService).logout(authorizationHeader);
+        verifyNoMoreInteractions(authService);
+        verifyNoInteractions(userDetailsService);
+
+        assertTrue(result);
+    }
+
     @Test
     void register_shouldSucceed() {
         // given
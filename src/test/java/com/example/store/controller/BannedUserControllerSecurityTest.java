@@ -0,0 +1,122 @@
+package com.example.store.controller;
+
+import com.example.store.model.User;
+import com.example.store.repository.UserRepository;
+import com.example.store.service.BannedUserService;
+import com.example.store.service.UserCacheService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests of the access rules of {@link BannedUserController}.
+ * Anyone can register, so being authenticated must not be enough to ban or unban users.
+ */
+@SpringBootTest(properties = {"store.admin.usernames=admin"})
+@AutoConfigureMockMvc
+class BannedUserControllerSecurityTest {
+
+    private static final String ADMIN_USERNAME = "admin";
+    private static final String SOME_USERNAME = "someUser";
+    private static final String BANNED_USERNAME = "bannedUser";
+    private static final String PASSWORD = "password";
+    private static final String BEARER = "Bearer ";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCacheService userCacheService;
+
+    @Autowired
+    private BannedUserService bannedUserService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @BeforeEach
+    void setUp() {
+        saveUser(ADMIN_USERNAME);
+        saveUser(SOME_USERNAME);
+        bannedUserService.ban(BANNED_USERNAME);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bannedUserService.unban(BANNED_USERNAME);
+        for (User user : userRepository.findAll()) {
+            userCacheService.invalidate(user);
+        }
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void unbanUser_withoutAdminRole_shouldBeForbidden() throws Exception {
+        // given
+        final String token = authenticate(SOME_USERNAME);
+
+        // when
+        mockMvc.perform(delete("/banned-users/" + BANNED_USERNAME).header(HttpHeaders.AUTHORIZATION, BEARER + token))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(put("/banned-users/" + ADMIN_USERNAME).header(HttpHeaders.AUTHORIZATION, BEARER + token))
+                .andExpect(status().isForbidden());
+
+        // then
+        assertTrue(bannedUserService.isBanned(BANNED_USERNAME));
+        assertFalse(bannedUserService.isBanned(ADMIN_USERNAME));
+    }
+
+    @Test
+    void unbanUser_withAdminRole_shouldSucceed() throws Exception {
+        // given
+        final String token = authenticate(ADMIN_USERNAME);
+
+        // when
+        mockMvc.perform(delete("/banned-users/" + BANNED_USERNAME).header(HttpHeaders.AUTHORIZATION, BEARER + token))
+                .andExpect(status().isOk());
+
+        // then
+        assertFalse(bannedUserService.isBanned(BANNED_USERNAME));
+    }
+
+    /**
+     * Persists a user having the test password.
+     * @param username String (also used as pseudonym)
+     */
+    private void saveUser(String username) {
+        final User user = new User();
+        user.setUsername(username);
+        user.setPseudonym(username);
+        user.setPassword(passwordEncoder.encode(PASSWORD));
+        userRepository.save(user);
+    }
+
+    /**
+     * Gets a token for the user.
+     * @param username String
+     * @return String
+     * @throws Exception on request errors
+     */
+    private String authenticate(String username) throws Exception {
+        return mockMvc.perform(post("/authenticate").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.store.controller;
+
+import com.example.store.service.BannedUserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link BannedUserController}.
+ */
+@ExtendWith(MockitoExtension.class)
+class BannedUserControllerTest {
+
+    private static final String SOME_USERNAME = "someUser";
+
+    @Mock
+    private BannedUserService bannedUserService = Mockito.mock(BannedUserService.class);
+
+    @InjectMocks
+    private BannedUserController target;
+
+    @Test
+    void banUser_shouldSucceed() {
+        // given
+        when(bannedUserService.ban(SOME_USERNAME)).thenReturn(true);
+
+        // when
+        final boolean result = target.banUser(SOME_USERNAME);
+
+        // then
+        verify(bannedUserService).ban(SOME_USERNAME);
+        verifyNoMoreInteractions(bannedUserService);
+
+        assertTrue(result);
+    }
+
+    @Test
+    void unbanUser_shouldSucceed() {
+        // given
+        when(bannedUserService.unban(SOME_USERNAME)).thenReturn(true);
+
+        // when
+        final boolean result = target.unbanUser(SOME_USERNAME);
+
+        // then
+        verify(bannedUserService).unban(SOME_USERNAME);
+        verifyNoMoreInteractions(bannedUserService);
+
+        assertTrue(result);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.store.controller;
+
+import com.example.store.dto.CacheStatsDTO;
+import com.example.store.dto.ConcurrencyLimitStatsDTO;
+import com.example.store.dto.PasswordHashingStatsDTO;
+import com.example.store.dto.RateLimitStatsDTO;
+import com.example.store.service.ConcurrencyLimitService;
+import com.example.store.service.PasswordHashingService;
+import com.example.store.service.ProductCacheService;
+import com.example.store.service.RateLimitService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link StatsController}.
+ */
+@ExtendWith(MockitoExtension.class)
+class StatsControllerTest {
+
+    @Mock
+    private ProductCacheService productCacheService = Mockito.mock(ProductCacheService.class);
+    @Mock
+    private PasswordHashingService passwordHashingService = Mockito.mock(PasswordHashingService.class);
+    @Mock
+    private RateLimitService rateLimitService = Mockito.mock(RateLimitService.class);
+    @Mock
+    private ConcurrencyLimitService concurrencyLimitService = Mockito.mock(ConcurrencyLimitService.class);
+
+    @InjectMocks
+    private StatsController target;
+
+    @Test
+    void getProductCacheStats_shouldSucceed() {
+        // given
+        final CacheStatsDTO stats = new CacheStatsDTO();
+
+        when(productCacheService.getStats()).thenReturn(stats);
+
+        // when
+        final CacheStatsDTO result = target.getProductCacheStats();
+
+        // then
+        verify(productCacheService).getStats();
+        verifyNoMoreInteractions(productCacheService);
+        verifyNoInteractions(passwordHashingService, rateLimitService, concurrencyLimitService);
+
+        assertEquals(stats, result);
+    }
+
+    @Test
+    void getPasswordHashingStats_shouldSucceed() {
+        // given
+        final PasswordHashingStatsDTO stats = new PasswordHashingStatsDTO();
+
+        when(passwordHashingService.getStats()).thenReturn(stats);
+
+        // when
+        final PasswordHashingStatsDTO result = target.getPasswordHashingStats();
+
+        // then
+        verify(passwordHashingService).getStats();
+        verifyNoMoreInteractions(passwordHashingService);
+        verifyNoInteractions(productCacheService, rateLimitService, concurrencyLimitService);
+
+        assertEquals(stats, result);
+    }
+
+    @Test
+    void getRateLimitStats_shouldSucceed() {
+        // given
+        final RateLimitStatsDTO stats = new RateLimitStatsDTO();
+
+        when(rateLimitService.getStats()).thenReturn(stats);
+
+        // when
+        final RateLimitStatsDTO result = target.getRateLimitStats();
+
+        // then
+        verify(rateLimitService).getStats();
+        verifyNoMoreInteractions(rateLimitService);
+        verifyNoInteractions(productCacheService, passwordHashingService, concurrencyLimitService);
+
+        assertEquals(stats, result);
+    }
+
+    @Test
+    void getConcurrencyLimitStats_shouldSucceed() {
+        // given
+        final ConcurrencyLimitStatsDTO stats = new ConcurrencyLimitStatsDTO();
+
+        when(concurrencyLimitService.getStats()).thenReturn(stats);
+
+        // when
+        final ConcurrencyLimitStatsDTO result = target.getConcurrencyLimitStats();
+
+        // then
+        verify(concurrencyLimitService).getStats();
+        verifyNoMoreInteractions(concurrencyLimitService);
+        verifyNoInteractions(productCacheService, passwordHashingService, rateLimitService);
+
+        assertEquals(stats, result);
+    }
+}
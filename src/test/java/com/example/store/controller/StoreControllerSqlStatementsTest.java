@@ -0,0 +1,420 @@
+package com.example.store.controller;
+
+import com.example.store.dto.ProductField;
+import com.example.store.model.Product;
+import com.example.store.model.User;
+import com.example.store.repository.ProductRepository;
+import com.example.store.repository.UserRepository;
+import com.example.store.service.TitleIndexService;
+import com.example.store.service.UserCacheService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.store.util.Constants.MAX_TITLE_IDS_IN_LIST;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests counting the SQL statements executed by the {@link StoreController} read endpoints.
+ * The products belong to different authors, so loading the authors with a select per author (N+1 selects) makes
+ * these tests fail.
+ * The sparse fieldsets (?fields=) must still be read with one statement.
+ * The ids matching a title must be passed in bounded IN lists.
+ * The streaming export must read the products and their authors with one statement.
+ * The catalog snapshot is disabled, so GET /store reads the database.
+ * The bulk create must group its inserts in JDBC batches, the bulk update and delete must be set-based.
+ * The partial update must write only the provided columns.
+ * An update without If-Match must not fail because of a concurrent change.
+ * The delete of a product must check the ownership within the delete statement.
+ * The asynchronous writes must be committed, and visible to the title search, once they are answered.
+ */
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "store.catalog.snapshot.enabled=false", "store.write.async.enabled=true"})
+@AutoConfigureMockMvc
+class StoreControllerSqlStatementsTest {
+
+    private static final int AUTHORS = 5;
+    private static final int PRODUCTS_PER_AUTHOR = 2;
+    private static final String TITLE = "title";
+    private static final String PASSWORD = "password";
+    private static final int BATCH_PRODUCTS = 500;
+    private static final String BEARER = "Bearer ";
+    private static final int ASYNC_PRODUCTS = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TitleIndexService titleIndexService;
+
+    @Autowired
+    private UserCacheService userCacheService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private Statistics statistics;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < AUTHORS; i++) {
+            final User author = new User();
+            author.setUsername("author" + i);
+            author.setPseudonym("pseudonym" + i);
+            author.setPassword(passwordEncoder.encode(PASSWORD));
+            userRepository.save(author);
+            for (int j = 0; j < PRODUCTS_PER_AUTHOR; j++) {
+                final Product product = new Product();
+                product.setTitle(TITLE + i + j);
+                product.setPrice(10d * i + j);
+                product.setQuantity((long) j);
+                product.setAuthor(author);
+                productId = productRepository.save(product).getId();
+            }
+        }
+        titleIndexService.buildIndex();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        // the users are deleted through the repository, so they are invalidated as any other user mutation.
+        for (User user : userRepository.findAll()) {
+            userCacheService.invalidate(user);
+        }
+        userRepository.deleteAll();
+        titleIndexService.buildIndex();
+    }
+
+    @Test
+    void getCatalog_shouldExecuteOneStatement() throws Exception {
+        // when
+        mockMvc.perform(get("/store").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllProducts_withTitle_shouldExecuteOneStatement() throws Exception {
+        // when
+        mockMvc.perform(get("/store").param("title", TITLE).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getProductsPage_shouldExecuteOneStatement() throws Exception {
+        // when
+        mockMvc.perform(get("/store").param("limit", String.valueOf(AUTHORS * PRODUCTS_PER_AUTHOR))
+                .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllProducts_withFields_shouldReturnOnlyTheFields() throws Exception {
+        // when
+        final String json = mockMvc.perform(get("/store").param("fields", "title,price")
+                .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        final String xml = mockMvc.perform(get("/store").param("fields", "title").param("limit", "1")
+                .accept(MediaType.APPLICATION_XML)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // then the author is not joined, and the other fields are not serialized.
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertTrue(json.contains("\"title\":\"" + TITLE));
+        assertFalse(json.contains("author"));
+        assertFalse(json.contains("version"));
+        assertTrue(xml.contains("<title>" + TITLE));
+        assertFalse(xml.contains("<author>"));
+    }
+
+    @Test
+    void getAllProducts_withFilters_shouldExecuteOneStatementForProducts() throws Exception {
+        // when
+        final String json = mockMvc.perform(get("/store").param("author", "author3").param("minPrice", "30")
+                .param("inStock", "true").param("sort", "-price").param("fields", "price")
+                .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // then only the second product of author3 matches (the first one has no stock), the author lookup is the
+        // other statement.
+        assertEquals("[{\"id\":" + (productId - PRODUCTS_PER_AUTHOR) + ",\"price\":31.0}]", json);
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getAllProducts_withManyTitleMatches_shouldBoundTheInList() throws Exception {
+        // given more products matching the title than ids passed in one IN list
+        final User author = userRepository.findByUsername("author0").orElseThrow();
+        final List<Product> products = new ArrayList<>();
+        for (int i = 0; i <= MAX_TITLE_IDS_IN_LIST; i++) {
+            final Product product = new Product();
+            product.setTitle("many" + i);
+            product.setQuantity(1L);
+            product.setAuthor(author);
+            products.add(product);
+        }
+        productRepository.saveAll(products);
+        titleIndexService.buildIndex();
+        statistics.clear();
+
+        // when
+        final String json = mockMvc.perform(get("/store").param("title", "many").param("fields", "id")
+                .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        final long inListStatements = statistics.getPrepareStatementCount();
+        final String filteredJson = mockMvc.perform(get("/store").param("title", "MANY").param("inStock", "true")
+                .param("fields", "id").accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // then the ids are read by two bounded IN lists, while the filtered query matches the title itself.
+        assertEquals(MAX_TITLE_IDS_IN_LIST + 1, countIds(json));
+        assertEquals(2, inListStatements);
+        assertEquals(json, filteredJson);
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void exportProducts_shouldWriteTheAuthorOfEveryProduct() throws Exception {
+        // when
+        final MvcResult asyncResult = mockMvc.perform(get("/store/export").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted()).andReturn();
+        final String ndjson = mockMvc.perform(asyncDispatch(asyncResult)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // then the products of an author follow each other, so the author detached after the first product is read
+        // again for the second one, still within the single statement of the export.
+        final String[] lines = ndjson.split("\n");
+        assertEquals(AUTHORS * PRODUCTS_PER_AUTHOR, lines.length);
+        for (String line : lines) {
+            assertTrue(line.contains("\"pseudonym\":\"pseudonym"), line);
+        }
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getProductById_shouldExecuteOneStatement() throws Exception {
+        // when
+        mockMvc.perform(get("/store/" + productId).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+
+        // then
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void createProducts_shouldBatchInserts() throws Exception {
+        // given
+        final String token = authenticate();
+        final StringBuilder products = new StringBuilder("[");
+        for (int i = 0; i < BATCH_PRODUCTS; i++) {
+            products.append(i == 0 ? "" : ",").append("{\"title\":\"batch").append(i)
+                    .append("\",\"author\":{\"username\":\"author").append(i % AUTHORS).append("\"}}");
+        }
+        products.append(']');
+        statistics.clear();
+
+        // when
+        mockMvc.perform(post("/store/batch").header(HttpHeaders.AUTHORIZATION, BEARER + token)
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                .content(products.toString())).andExpect(status().isOk());
+
+        // then the inserts are grouped in JDBC batches, so there are far fewer statements than products.
+        assertEquals(BATCH_PRODUCTS, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= BATCH_PRODUCTS / 10,
+                "statements: " + statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateAndDeleteProducts_shouldChangeOnlyOwnedProducts() throws Exception {
+        // given the products of all the authors, while only the first author is logged
+        final String token = authenticate();
+        final StringBuilder ids = new StringBuilder();
+        for (Product product : productRepository.findAll()) {
+            ids.append(ids.length() == 0 ? "" : ",").append(product.getId());
+        }
+        statistics.clear();
+
+        // when
+        final String updated = mockMvc.perform(put("/store/batch").header(HttpHeaders.AUTHORIZATION, BEARER + token)
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[" + ids + "],\"price\":9.99}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        final String deleted = mockMvc.perform(delete("/store/batch").header(HttpHeaders.AUTHORIZATION, BEARER + token)
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[" + ids + "]}"))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+
+        // then each request runs its set-based statement and reads the changed ids in the same transaction. They are
+        // sent through JDBC, so Hibernate counts no statement at all (the user of the token is cached).
+        assertEquals(updated, deleted);
+        assertEquals(PRODUCTS_PER_AUTHOR, countIds(deleted));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals((AUTHORS - 1) * PRODUCTS_PER_AUTHOR, productRepository.count());
+    }
+
+    @Test
+    void updateProduct_withoutIfMatch_shouldIgnoreConcurrentChange() throws Exception {
+        // given the product is cached, then changed by another writer
+        final String token = authenticate();
+        mockMvc.perform(get("/store/" + productId).accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk());
+        productRepository.updateFieldsIfVersionMatches(productId, 0L, Map.of(ProductField.PRICE, 1d));
+
+        // when
+        final String json = mockMvc.perform(put("/store/" + productId)
+                .header(HttpHeaders.AUTHORIZATION, BEARER + token)
+                .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"replaced\",\"author\":{\"username\":\"author0\"}}"))
+                .andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andReturn().getResponse().getContentAsString();
+
+        // then the client sent no precondition, so its write wins.
+        assertTrue(json.contains("\"title\":\"replaced\""));
+        assertEquals("replaced", productRepository.findById(productId).orElseThrow().getTitle());
+    }
+
+    @Test
+    void patchProduct_shouldUpdateOnlyProvidedColumns() throws Exception {
+        // given
+        final String token = authenticate();
+        final Product product = productRepository.findById(productId).orElseThrow();
+        statistics.clear();
+
+        // when
+        final String json = mockMvc.perform(patch("/store/" + productId)
+                .header(HttpHeaders.AUTHORIZATION, BEARER + token).header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType("application/merge-patch+json").accept(MediaType.APPLICATION_JSON)
+                .content("{\"price\":9.99}"))
+                .andExpect(status().isOk()).andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(patch("/store/" + productId)
+                .header(HttpHeaders.AUTHORIZATION, BEARER + token).header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_XML).content("<product><quantity>7</quantity></product>"))
+                .andExpect(status().isPreconditionFailed());
+
+        // then one update and one select for the response, the rejected patch runs its update and an existence check.
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertTrue(json.contains("\"price\":9.99"));
+        assertTrue(json.contains("\"title\":\"" + product.getTitle() + "\""));
+        assertEquals(product.getQuantity(), productRepository.findById(productId).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void deleteProduct_shouldExecuteOneStatement() throws Exception {
+        // given the last product belongs to the last author, while only the first author is logged
+        final String token = authenticate();
+        final Long ownedProductId = productId - (AUTHORS - 1) * PRODUCTS_PER_AUTHOR;
+        statistics.clear();
+
+        // when
+        mockMvc.perform(delete("/store/" + productId).header(HttpHeaders.AUTHORIZATION, BEARER + token))
+                .andExpect(status().isBadRequest());
+        final long rejectedStatements = statistics.getPrepareStatementCount();
+        mockMvc.perform(delete("/store/" + ownedProductId).header(HttpHeaders.AUTHORIZATION, BEARER + token))
+                .andExpect(status().isOk());
+
+        // then the rejected delete also checks the product exists, the successful one is a single statement.
+        assertEquals(2, rejectedStatements);
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertTrue(productRepository.existsById(productId));
+        assertFalse(productRepository.existsById(ownedProductId));
+    }
+
+    @Test
+    void createProductsAsync_shouldCompleteTickets() throws Exception {
+        // given
+        final String token = authenticate();
+        final List<MvcResult> asyncResults = new ArrayList<>();
+        final List<String> locations = new ArrayList<>();
+
+        // when all the writes are queued before any response is awaited
+        for (int i = 0; i < ASYNC_PRODUCTS; i++) {
+            asyncResults.add(mockMvc.perform(post("/store/writes").header(HttpHeaders.AUTHORIZATION, BEARER + token)
+                    .contentType(MediaType.APPLICATION_JSON).accept(MediaType.APPLICATION_JSON)
+                    .content("{\"title\":\"async" + i + "\",\"author\":{\"username\":\"author0\"}}"))
+                    .andExpect(request().asyncStarted()).andReturn());
+        }
+
+        // then each write is answered once committed, its ticket is completed, and the products are indexed.
+        for (MvcResult asyncResult : asyncResults) {
+            final MockHttpServletResponse response = mockMvc.perform(asyncDispatch(asyncResult))
+                    .andExpect(status().isOk()).andReturn().getResponse();
+            assertTrue(response.getContentAsString().contains("\"status\":\"COMPLETED\""));
+            locations.add(response.getHeader(HttpHeaders.LOCATION));
+        }
+        final String ticket = mockMvc.perform(get(locations.get(0)).header(HttpHeaders.AUTHORIZATION, BEARER + token)
+                .accept(MediaType.APPLICATION_JSON)).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(ticket.contains("\"status\":\"COMPLETED\""));
+        mockMvc.perform(get(locations.get(0))).andExpect(status().isForbidden());
+        assertEquals(AUTHORS * PRODUCTS_PER_AUTHOR + ASYNC_PRODUCTS, productRepository.count());
+        final String json = mockMvc.perform(get("/store").param("title", "async").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+        assertEquals(ASYNC_PRODUCTS, json.split("\"title\":\"async").length - 1);
+    }
+
+    /**
+     * Gets a token for the first author.
+     * @return String
+     * @throws Exception on request errors
+     */
+    private String authenticate() throws Exception {
+        return mockMvc.perform(post("/authenticate").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"author0\",\"password\":\"" + PASSWORD + "\"}"))
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    /**
+     * Counts the ids of an IdListDTO JSON.
+     * @param idList String
+     * @return int
+     */
+    private int countIds(String idList) {
+        return idList.replaceAll("[^,]", "").length() + 1;
+    }
+}
@@ -1,20 +1,60 @@
 package com.example.store.controller;
 
+import com.example.store.dto.BatchResultDTO;
+import com.example.store.dto.BatchUpdateDTO;
+import com.example.store.dto.CheckoutDTO;
+import com.example.store.dto.CheckoutItemDTO;
+import com.example.store.dto.IdListDTO;
 import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductFilterDTO;
+import com.example.store.dto.ProductListDTO;
+import com.example.store.dto.ProductPageDTO;
 import com.example.store.dto.UserDTO;
+import com.example.store.dto.WriteTicketDTO;
+import com.example.store.exception.StoreException;
+import com.example.store.service.AsyncWriteService;
+import com.example.store.service.CatalogSnapshot;
+import com.example.store.service.CatalogSnapshotService;
+import com.example.store.service.CheckoutService;
+import com.example.store.service.ProductBatchService;
+import com.example.store.service.ProductExportService;
+import com.example.store.service.ProductFieldService;
 import com.example.store.service.ProductService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.store.util.Constants.STORE;
+import static com.example.store.util.ErrorMessages.INVALID_IF_MATCH;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
@@ -40,27 +80,276 @@ class StoreControllerTest {
 
     private static final Long ID = 1L;
 
+    private static final String CURSOR = "some cursor";
+
+    private static final Integer LIMIT = 10;
+
+    private static final Long VERSION = 3L;
+
+    private static final String CATALOG_VERSION = "boot-7";
+
+    private static final String FIELDS = "title,price";
+
+    private static final String SORT = "-price";
+
+    private static final String TICKET = "some-ticket";
+
     @Mock
     private ProductService productService = Mockito.mock(ProductService.class);
 
+    @Mock
+    private ProductExportService productExportService = Mockito.mock(ProductExportService.class);
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService = Mockito.mock(CatalogSnapshotService.class);
+
+    @Mock
+    private ProductBatchService productBatchService = Mockito.mock(ProductBatchService.class);
+
+    @Spy
+    private ProductFieldService productFieldService = new ProductFieldService();
+
+    @Mock
+    private CheckoutService checkoutService = Mockito.mock(CheckoutService.class);
+
+    @Mock
+    private AsyncWriteService asyncWriteService = Mockito.mock(AsyncWriteService.class);
+
     @InjectMocks
     private StoreController target;
 
+    @Test
+    void createProducts_shouldSucceed() {
+        // given
+        final List<ProductDTO> products = List.of(buildProductDto());
+        final BatchResultDTO batchResult = new BatchResultDTO();
+
+        when(productBatchService.saveProducts(products)).thenReturn(batchResult);
+
+        // when
+        final BatchResultDTO result = target.createProducts(products);
+
+        // then
+        verify(productBatchService).saveProducts(products);
+        verifyNoMoreInteractions(productBatchService);
+        verifyNoInteractions(productService);
+
+        assertSame(batchResult, result);
+    }
+
+    @Test
+    void updateProducts_shouldSucceed() {
+        // given
+        final BatchUpdateDTO batchUpdate = new BatchUpdateDTO();
+        final IdListDTO updatedIds = new IdListDTO(List.of(ID));
+
+        when(productBatchService.updateProducts(batchUpdate)).thenReturn(updatedIds);
+
+        // when
+        final IdListDTO result = target.updateProducts(batchUpdate);
+
+        // then
+        verify(productBatchService).updateProducts(batchUpdate);
+        verifyNoMoreInteractions(productBatchService);
+
+        assertSame(updatedIds, result);
+    }
+
+    @Test
+    void deleteProducts_shouldSucceed() {
+        // given
+        final IdListDTO ids = new IdListDTO(List.of(ID));
+        final IdListDTO deletedIds = new IdListDTO(List.of(ID));
+
+        when(productBatchService.deleteProducts(ids)).thenReturn(deletedIds);
+
+        // when
+        final IdListDTO result = target.deleteProducts(ids);
+
+        // then
+        verify(productBatchService).deleteProducts(ids);
+        verifyNoMoreInteractions(productBatchService);
+
+        assertSame(deletedIds, result);
+    }
+
+    @Test
+    void createProductsFromXml_shouldSucceed() {
+        // given
+        final ProductListDTO products = new ProductListDTO(List.of(buildProductDto()));
+        final BatchResultDTO batchResult = new BatchResultDTO();
+
+        when(productBatchService.saveProducts(products.getProducts())).thenReturn(batchResult);
+
+        // when
+        final BatchResultDTO result = target.createProductsFromXml(products);
+
+        // then
+        verify(productBatchService).saveProducts(products.getProducts());
+        verifyNoMoreInteractions(productBatchService);
+
+        assertSame(batchResult, result);
+    }
+
+    @Test
+    void getCatalog_withoutSnapshot_shouldReadProducts() {
+        // given
+        final List<ProductDTO> products = new ArrayList<>();
+
+        when(catalogSnapshotService.getSnapshot()).thenReturn(null);
+        when(productService.getProducts(null)).thenReturn(products);
+
+        // when
+        final ResponseEntity<Object> result = target.getCatalog(null, null, buildWebRequest(null));
+
+        // then
+        verify(catalogSnapshotService).getSnapshot();
+        verify(catalogSnapshotService).getCatalogVersion();
+        verify(productService).getProducts(null);
+        verifyNoMoreInteractions(catalogSnapshotService, productService);
+
+        assertSame(products, result.getBody());
+    }
+
+    @Test
+    void getCatalog_withSnapshot_shouldReturnJson() {
+        // given
+        final CatalogSnapshot snapshot = buildSnapshot();
+
+        when(catalogSnapshotService.getSnapshot()).thenReturn(snapshot);
+
+        // when
+        final ResponseEntity<Object> result = target.getCatalog(MediaType.ALL_VALUE, null, buildWebRequest(null));
+
+        // then
+        verify(catalogSnapshotService).getSnapshot();
+        verifyNoMoreInteractions(catalogSnapshotService);
+        verifyNoInteractions(productService);
+
+        assertSame(snapshot.getJson(), result.getBody());
+        assertEquals(MediaType.APPLICATION_JSON, result.getHeaders().getContentType());
+        assertNull(result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"" + CATALOG_VERSION + "\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    void getCatalog_withMatchingETag_shouldReturnNotModified() {
+        // given
+        final String eTag = "\"" + CATALOG_VERSION + "\"";
+        final ServletWebRequest webRequest = buildWebRequest(eTag);
+
+        when(catalogSnapshotService.getSnapshot()).thenReturn(null);
+        when(catalogSnapshotService.getCatalogVersion()).thenReturn(CATALOG_VERSION);
+
+        // when
+        final ResponseEntity<Object> result = target.getCatalog(null, null, webRequest);
+
+        // then the catalog is not read.
+        verify(catalogSnapshotService).getSnapshot();
+        verify(catalogSnapshotService).getCatalogVersion();
+        verifyNoMoreInteractions(catalogSnapshotService);
+        verifyNoInteractions(productService);
+
+        assertNull(result);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, webRequest.getResponse().getStatus());
+    }
+
+    @Test
+    void getCatalog_withSnapshotAndGzip_shouldReturnGzipXml() {
+        // given
+        final CatalogSnapshot snapshot = buildSnapshot();
+
+        when(catalogSnapshotService.getSnapshot()).thenReturn(snapshot);
+
+        // when
+        final ResponseEntity<Object> result = target.getCatalog("application/xml, application/json;q=0.5",
+                "gzip, deflate", buildWebRequest(null));
+
+        // then
+        verify(catalogSnapshotService).getSnapshot();
+        verifyNoMoreInteractions(catalogSnapshotService);
+        verifyNoInteractions(productService);
+
+        assertSame(snapshot.getGzipXml(), result.getBody());
+        assertEquals(MediaType.APPLICATION_XML, result.getHeaders().getContentType());
+        assertEquals("gzip", result.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"" + CATALOG_VERSION + "-xml-gzip\"", result.getHeaders().getETag());
+    }
+
     @Test
     void getAllProducts_shouldSucceed() {
         // given
-        when(productService.getProducts(TITLE)).thenReturn(new ArrayList<>());
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setTitle(TITLE);
+
+        when(productService.getProducts(filter, SORT, FIELDS)).thenReturn(new ArrayList<>());
 
         // when
-        final List<ProductDTO> result = target.getAllProducts(TITLE);
+        final List<ProductDTO> result = target.getAllProducts(filter, SORT, FIELDS);
 
         // then
-        verify(productService).getProducts(TITLE);
+        verify(productService).getProducts(filter, SORT, FIELDS);
         verifyNoMoreInteractions(productService);
 
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void getProductsPage_shouldSucceed() {
+        // given
+        final ProductPageDTO page = new ProductPageDTO();
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setTitle(TITLE);
+
+        when(productService.getProductsPage(filter, CURSOR, LIMIT, FIELDS)).thenReturn(page);
+
+        // when
+        final ProductPageDTO result = target.getProductsPage(filter, CURSOR, LIMIT, FIELDS);
+
+        // then
+        verify(productService).getProductsPage(filter, CURSOR, LIMIT, FIELDS);
+        verifyNoMoreInteractions(productService);
+
+        assertEquals(page, result);
+    }
+
+    @Test
+    void exportProductsAsNdjson_shouldSucceed() throws Exception {
+        // given
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        final ResponseEntity<StreamingResponseBody> result = target.exportProductsAsNdjson();
+
+        // then the export only starts when the body is written.
+        verifyNoInteractions(productExportService);
+        assertEquals(MediaType.APPLICATION_NDJSON, result.getHeaders().getContentType());
+        assertNotNull(result.getBody());
+
+        result.getBody().writeTo(outputStream);
+        verify(productExportService).exportAsNdjson(outputStream);
+        verifyNoMoreInteractions(productExportService);
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void exportProductsAsXml_shouldSucceed() throws Exception {
+        // given
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        // when
+        final ResponseEntity<StreamingResponseBody> result = target.exportProductsAsXml();
+
+        // then
+        assertEquals(MediaType.APPLICATION_XML, result.getHeaders().getContentType());
+        assertNotNull(result.getBody());
+
+        result.getBody().writeTo(outputStream);
+        verify(productExportService).exportAsXml(outputStream);
+        verifyNoMoreInteractions(productExportService);
+        verifyNoInteractions(productService);
+    }
+
     @Test
     void getProductById_shouldSucceed() {
         // given
@@ -69,13 +358,78 @@ class StoreControllerTest {
         when(productService.getProductById(ID)).thenReturn(productDTO);
 
         // when
-        final ProductDTO result = target.getProductById(ID);
+        final ResponseEntity<ProductDTO> result = target.getProductById(ID, null, null, null, buildWebRequest(null));
+
+        // then
+        verify(productService).getProductById(ID);
+        verifyNoMoreInteractions(productService);
+
+        assertEquals(productDTO, result.getBody());
+        assertEquals("\"" + VERSION + "\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    void getProductById_withFields_shouldReturnOnlyTheFields() {
+        // given
+        final ProductDTO productDTO = buildProductDto();
+
+        when(productService.getProductById(ID)).thenReturn(productDTO);
+
+        // when
+        final ResponseEntity<ProductDTO> result =
+                target.getProductById(ID, "price, title", null, null, buildWebRequest(null));
+
+        // then the fields are copied from the (cached) product, the ETag doesn't depend on their order.
+        verify(productService).getProductById(ID);
+        verifyNoMoreInteractions(productService);
+
+        assertNotNull(result.getBody());
+        assertEquals(productDTO.getId(), result.getBody().getId());
+        assertEquals(productDTO.getTitle(), result.getBody().getTitle());
+        assertEquals(productDTO.getPrice(), result.getBody().getPrice());
+        assertNull(result.getBody().getDescription());
+        assertNull(result.getBody().getAuthor());
+        assertEquals("\"" + VERSION + ".id.title.price\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    void getProductById_withMatchingETag_shouldReturnNotModified() {
+        // given
+        final String eTag = "\"" + VERSION + "-xml\"";
+        final ServletWebRequest webRequest = buildWebRequest(eTag);
+
+        when(productService.getProductVersion(ID)).thenReturn(VERSION);
+
+        // when
+        final ResponseEntity<ProductDTO> result =
+                target.getProductById(ID, null, MediaType.APPLICATION_XML_VALUE, eTag, webRequest);
+
+        // then the product is not loaded.
+        verify(productService).getProductVersion(ID);
+        verifyNoMoreInteractions(productService);
+
+        assertNull(result);
+        assertEquals(HttpServletResponse.SC_NOT_MODIFIED, webRequest.getResponse().getStatus());
+    }
+
+    @Test
+    void getProductById_withDifferentETag_shouldSucceed() {
+        // given
+        final String eTag = "\"0\"";
+        final ProductDTO productDTO = buildProductDto();
+
+        when(productService.getProductVersion(ID)).thenReturn(VERSION);
+        when(productService.getProductById(ID)).thenReturn(productDTO);
+
+        // when
+        final ResponseEntity<ProductDTO> result = target.getProductById(ID, null, null, eTag, buildWebRequest(eTag));
 
         // then
+        verify(productService).getProductVersion(ID);
         verify(productService).getProductById(ID);
         verifyNoMoreInteractions(productService);
 
-        assertEquals(productDTO, result);
+        assertEquals(productDTO, result.getBody());
     }
 
     @Test
@@ -98,18 +452,164 @@ class StoreControllerTest {
     @Test
     public void updateProduct_shouldSucceed() {
         // given
-        ProductDTO product = buildProductDto();
+        final ProductDTO product = buildProductDto();
+        final ProductDTO updatedProduct = buildProductDto();
+        updatedProduct.setVersion(VERSION + 1);
+
+        when(productService.updateProduct(ID, product, VERSION)).thenReturn(updatedProduct);
+
+        // when
+        final ResponseEntity<ProductDTO> result = target.updateProduct(ID, product, null, "W/\"" + VERSION + "\"");
+
+        // then the version of the If-Match header is checked by the update, the new ETag is returned.
+        verify(productService).updateProduct(ID, product, VERSION);
+        verifyNoMoreInteractions(productService);
+
+        assertEquals(updatedProduct, result.getBody());
+        assertEquals("\"" + (VERSION + 1) + "\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    public void updateProduct_withoutIfMatch_shouldSucceed() {
+        // given
+        final ProductDTO product = buildProductDto();
 
-        when(productService.updateProduct(ID, product)).thenReturn(product);
+        when(productService.updateProduct(ID, product, null)).thenReturn(product);
 
         // when
-        ProductDTO result = target.updateProduct(ID, product);
+        final ResponseEntity<ProductDTO> result = target.updateProduct(ID, product, null, null);
 
         // then
-        verify(productService).updateProduct(ID, product);
+        verify(productService).updateProduct(ID, product, null);
         verifyNoMoreInteractions(productService);
 
-        assertEquals(product, result);
+        assertEquals(product, result.getBody());
+    }
+
+    @Test
+    public void updateProduct_withInvalidIfMatch_shouldFail() {
+        // given
+        final ProductDTO product = buildProductDto();
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.updateProduct(ID, product, null, "not an etag"));
+
+        // then
+        assertEquals(INVALID_IF_MATCH, exception.getMessage());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    public void patchProduct_shouldSucceed() {
+        // given
+        final ProductDTO patch = new ProductDTO();
+        patch.setPrice(9.99);
+        final ProductDTO updatedProduct = buildProductDto();
+        updatedProduct.setVersion(VERSION + 1);
+
+        when(productService.patchProduct(ID, patch, VERSION)).thenReturn(updatedProduct);
+
+        // when
+        final ResponseEntity<ProductDTO> result = target.patchProduct(ID, patch, MediaType.APPLICATION_XML_VALUE,
+                "\"" + VERSION + "\"");
+
+        // then
+        verify(productService).patchProduct(ID, patch, VERSION);
+        verifyNoMoreInteractions(productService);
+
+        assertEquals(updatedProduct, result.getBody());
+        assertEquals("\"" + (VERSION + 1) + "-xml\"", result.getHeaders().getETag());
+    }
+
+    @Test
+    public void purchaseProduct_shouldSucceed() {
+        // given
+        when(productService.purchaseProduct(ID, 2L)).thenReturn(true);
+
+        // when
+        boolean result = target.purchaseProduct(ID, 2L);
+
+        // then
+        verify(productService).purchaseProduct(ID, 2L);
+        verifyNoMoreInteractions(productService);
+
+        assertTrue(result);
+    }
+
+    @Test
+    public void checkout_shouldSucceed() {
+        // given
+        final CheckoutDTO checkout = new CheckoutDTO(List.of(new CheckoutItemDTO(ID, 2L)));
+        final IdListDTO idList = new IdListDTO(List.of(ID));
+
+        when(checkoutService.checkout(checkout)).thenReturn(idList);
+
+        // when
+        final IdListDTO result = target.checkout(checkout);
+
+        // then
+        verify(checkoutService).checkout(checkout);
+        verifyNoMoreInteractions(checkoutService);
+        verifyNoInteractions(productService);
+
+        assertEquals(idList, result);
+    }
+
+    @Test
+    public void createProductAsync_shouldReturnTicket() {
+        // given
+        final ProductDTO product = buildProductDto();
+        final WriteTicketDTO ticket = new WriteTicketDTO(TICKET, WriteTicketDTO.COMPLETED);
+
+        when(asyncWriteService.submitSave(product)).thenReturn(CompletableFuture.completedFuture(ticket));
+
+        // when
+        final ResponseEntity<WriteTicketDTO> result = target.createProductAsync(product).join();
+
+        // then the write is queued, and answered once its ticket is completed.
+        verify(asyncWriteService).submitSave(product);
+        verifyNoInteractions(productService);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("/store/tickets/" + TICKET, String.valueOf(result.getHeaders().getLocation()));
+        assertSame(ticket, result.getBody());
+    }
+
+    @Test
+    public void updateProductAsync_shouldReturnTicket() {
+        // given
+        final ProductDTO product = buildProductDto();
+        final WriteTicketDTO ticket = new WriteTicketDTO(TICKET, WriteTicketDTO.COMPLETED);
+
+        when(asyncWriteService.submitUpdate(ID, product)).thenReturn(CompletableFuture.completedFuture(ticket));
+
+        // when
+        final ResponseEntity<WriteTicketDTO> result = target.updateProductAsync(ID, product).join();
+
+        // then
+        verify(asyncWriteService).submitUpdate(ID, product);
+        verifyNoInteractions(productService);
+
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertSame(ticket, result.getBody());
+    }
+
+    @Test
+    public void getWriteTicket_shouldSucceed() {
+        // given
+        final WriteTicketDTO ticket = new WriteTicketDTO(TICKET, WriteTicketDTO.COMPLETED);
+
+        when(asyncWriteService.getTicket(TICKET)).thenReturn(ticket);
+
+        // when
+        final WriteTicketDTO result = target.getWriteTicket(TICKET);
+
+        // then
+        verify(asyncWriteService).getTicket(TICKET);
+        verifyNoMoreInteractions(asyncWriteService);
+
+        assertSame(ticket, result);
     }
 
     @Test
@@ -140,6 +640,7 @@ class StoreControllerTest {
         product.setQuantity(10L);
         product.setCoverImage("coverImage");
         product.setTitle("title");
+        product.setVersion(VERSION);
         return product;
     }
 
@@ -154,4 +655,25 @@ class StoreControllerTest {
         user.setId(ID);
         return user;
     }
+
+    /**
+     * Builder method for a catalog snapshot.
+     * @return CatalogSnapshot
+     */
+    private CatalogSnapshot buildSnapshot() {
+        return new CatalogSnapshot(0, 0, CATALOG_VERSION, new byte[]{1}, new byte[]{2}, new byte[]{3}, new byte[]{4});
+    }
+
+    /**
+     * Builder method for a GET request.
+     * @param ifNoneMatch String If-None-Match header (optional)
+     * @return ServletWebRequest
+     */
+    private ServletWebRequest buildWebRequest(String ifNoneMatch) {
+        final MockHttpServletRequest request = new MockHttpServletRequest(HttpMethod.GET.name(), STORE);
+        if (!Objects.isNull(ifNoneMatch)) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
 }
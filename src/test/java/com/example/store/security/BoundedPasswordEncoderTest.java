@@ -0,0 +1,97 @@
+package com.example.store.security;
+
+import com.example.store.service.PasswordHashingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link BoundedPasswordEncoder}.
+ */
+@ExtendWith(MockitoExtension.class)
+class BoundedPasswordEncoderTest {
+
+    private static final String RAW_PASSWORD = "somePassword";
+    private static final String ENCODED_PASSWORD = "someEncodedPassword";
+
+    /**
+     * Beans used by the class which is being tested.
+     */
+    @Mock
+    private PasswordEncoder delegate = Mockito.mock(PasswordEncoder.class);
+
+    private PasswordHashingService passwordHashingService;
+
+    /**
+     * Class being tested (named as target).
+     */
+    private BoundedPasswordEncoder target;
+
+    @BeforeEach
+    void setUp() {
+        passwordHashingService = new PasswordHashingService(1, 1, 5000);
+        target = new BoundedPasswordEncoder(delegate, passwordHashingService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingService.shutdown();
+    }
+
+    @Test
+    void encode_should_runOnHashingExecutor() {
+        // given
+        when(delegate.encode(RAW_PASSWORD)).thenReturn(ENCODED_PASSWORD);
+
+        // when
+        final String result = target.encode(RAW_PASSWORD);
+
+        // then
+        verify(delegate).encode(RAW_PASSWORD);
+        verifyNoMoreInteractions(delegate);
+
+        assertEquals(ENCODED_PASSWORD, result);
+    }
+
+    @Test
+    void matches_should_runOnHashingExecutor() {
+        // given
+        when(delegate.matches(RAW_PASSWORD, ENCODED_PASSWORD)).thenReturn(true);
+
+        // when
+        final boolean result = target.matches(RAW_PASSWORD, ENCODED_PASSWORD);
+
+        // then
+        verify(delegate).matches(RAW_PASSWORD, ENCODED_PASSWORD);
+        verifyNoMoreInteractions(delegate);
+
+        assertTrue(result);
+    }
+
+    @Test
+    void upgradeEncoding_should_callDelegate() {
+        // given
+        when(delegate.upgradeEncoding(ENCODED_PASSWORD)).thenReturn(true);
+
+        // when
+        final boolean result = target.upgradeEncoding(ENCODED_PASSWORD);
+
+        // then
+        verify(delegate).upgradeEncoding(ENCODED_PASSWORD);
+        verifyNoMoreInteractions(delegate);
+
+        assertTrue(result);
+        assertEquals(0, passwordHashingService.getStats().getMaxHashMicros());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.store.security;
+
+import com.example.store.service.ConcurrencyLimitService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import static com.example.store.util.Constants.RETRY_AFTER_SECONDS;
+import static com.example.store.util.ErrorMessages.SERVER_OVERLOADED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ConcurrencyLimitFilter}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ConcurrencyLimitFilterTest {
+
+    @Mock
+    private ConcurrencyLimitService concurrencyLimitService = mock(ConcurrencyLimitService.class);
+    @Mock
+    private FilterChain filterChain = mock(FilterChain.class);
+
+    private ConcurrencyLimitFilter target;
+
+    @BeforeEach
+    void setUp() {
+        target = new ConcurrencyLimitFilter(concurrencyLimitService, new ObjectMapper());
+    }
+
+    @Test
+    void doFilterInternal_withFreeSlot_should_serveAndRelease() throws Exception {
+        // given
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/store");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(concurrencyLimitService.tryAcquire(RateLimitRoute.CATALOG)).thenReturn(true);
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(concurrencyLimitService).tryAcquire(RateLimitRoute.CATALOG);
+        verify(filterChain).doFilter(request, response);
+        verify(concurrencyLimitService).release(eq(RateLimitRoute.CATALOG), anyLong(), anyLong());
+        verifyNoMoreInteractions(concurrencyLimitService, filterChain);
+    }
+
+    @Test
+    void doFilterInternal_withFailingRequest_should_release() throws Exception {
+        // given
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/store");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(concurrencyLimitService.tryAcquire(RateLimitRoute.WRITE)).thenReturn(true);
+        doThrow(new ServletException()).when(filterChain).doFilter(request, response);
+
+        // when
+        assertThrows(ServletException.class, () -> target.doFilterInternal(request, response, filterChain));
+
+        // then
+        verify(concurrencyLimitService).tryAcquire(RateLimitRoute.WRITE);
+        verify(concurrencyLimitService).release(eq(RateLimitRoute.WRITE), anyLong(), anyLong());
+        verifyNoMoreInteractions(concurrencyLimitService);
+    }
+
+    @Test
+    void doFilterInternal_withNotLimitedRoute_should_notTakeSlot() throws Exception {
+        // given
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stats/concurrency");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(filterChain).doFilter(request, response);
+        verifyNoMoreInteractions(filterChain);
+        verifyNoInteractions(concurrencyLimitService);
+    }
+
+    @Test
+    void doFilterInternal_withoutFreeSlot_should_reject() throws Exception {
+        // given
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/authenticate");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(concurrencyLimitService.tryAcquire(RateLimitRoute.AUTHENTICATE)).thenReturn(false);
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(concurrencyLimitService).tryAcquire(RateLimitRoute.AUTHENTICATE);
+        verifyNoMoreInteractions(concurrencyLimitService);
+        verifyNoInteractions(filterChain);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), response.getStatus());
+        assertEquals(RETRY_AFTER_SECONDS, response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains(SERVER_OVERLOADED));
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.store.security;
 
+import com.example.store.service.BannedUserService;
 import com.example.store.service.MyUserDetailsService;
+import com.example.store.service.TokenRevocationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,20 +17,27 @@ import javax.servlet.http.HttpServletResponse;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for {@link JwtRequestFilter}.
- * As this is POC, only success scenario is covered here.
+ * As this is POC, only the success, banned user and revoked token scenarios are covered here.
  */
 @ExtendWith(MockitoExtension.class)
 class JwtRequestFilterTest {
 
+    private static final String TOKEN_ID = "someTokenId";
+
     @Mock
     private MyUserDetailsService userDetailsService = mock(MyUserDetailsService.class);
     @Mock
     private JwtUtil jwtUtil = mock(JwtUtil.class);
     @Mock
+    private BannedUserService bannedUserService = mock(BannedUserService.class);
+    @Mock
+    private TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+    @Mock
     private HttpServletRequest request = mock(HttpServletRequest.class);
     @Mock
     private HttpServletResponse response = mock(HttpServletResponse.class);
@@ -41,7 +50,7 @@ class JwtRequestFilterTest {
 
     @BeforeEach
     void setUp() {
-        target = new JwtRequestFilter(userDetailsService, jwtUtil);
+        target = new JwtRequestFilter(userDetailsService, jwtUtil, bannedUserService, tokenRevocationService);
     }
 
     @Test
@@ -52,9 +61,13 @@ class JwtRequestFilterTest {
         final String authHeader = "Bearer " + token;
 
         when(request.getHeader("Authorization")).thenReturn(authHeader);
-        when(jwtUtil.extractUsername(token)).thenReturn(username);
+        final JwtClaims claims = new JwtClaims(TOKEN_ID, username, System.currentTimeMillis() + 1000);
+
+        when(jwtUtil.parseToken(token)).thenReturn(claims);
+        when(bannedUserService.isBanned(username)).thenReturn(false);
+        when(tokenRevocationService.isRevoked(TOKEN_ID)).thenReturn(false);
         when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtUtil.validateToken(token, userDetails)).thenReturn(true);
+        when(jwtUtil.validateToken(claims, userDetails)).thenReturn(true);
         when(userDetails.getAuthorities()).thenReturn(List.of());
 
         // when
@@ -62,9 +75,9 @@ class JwtRequestFilterTest {
 
         // then
         verify(request).getHeader("Authorization");
-        verify(jwtUtil).extractUsername(token);
+        verify(jwtUtil).parseToken(token);
         verify(userDetailsService).loadUserByUsername(username);
-        verify(jwtUtil).validateToken(token, userDetails);
+        verify(jwtUtil).validateToken(claims, userDetails);
         verify(userDetails).getAuthorities();
         verify(filterChain).doFilter(request, response);
         verifyNoMoreInteractions(jwtUtil);
@@ -75,4 +88,55 @@ class JwtRequestFilterTest {
         // clear context to avoid side effects
         SecurityContextHolder.clearContext();
     }
-}
\ No newline at end of file
+
+    @Test
+    void doFilterInternal_withBannedUser_should_notAuthenticate() throws Exception {
+        // given
+        final String token = "valid.jwt.token";
+        final String username = "Diego";
+        final JwtClaims claims = new JwtClaims(TOKEN_ID, username, System.currentTimeMillis() + 1000);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.parseToken(token)).thenReturn(claims);
+        when(bannedUserService.isBanned(username)).thenReturn(true);
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(jwtUtil).parseToken(token);
+        verify(bannedUserService).isBanned(username);
+        verify(filterChain).doFilter(request, response);
+        verifyNoMoreInteractions(jwtUtil);
+        verifyNoMoreInteractions(bannedUserService);
+        verifyNoInteractions(userDetailsService, tokenRevocationService);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilterInternal_withRevokedToken_should_notAuthenticate() throws Exception {
+        // given
+        final String token = "valid.jwt.token";
+        final String username = "john_doe";
+        final JwtClaims claims = new JwtClaims(TOKEN_ID, username, System.currentTimeMillis() + 1000);
+
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(jwtUtil.parseToken(token)).thenReturn(claims);
+        when(bannedUserService.isBanned(username)).thenReturn(false);
+        when(tokenRevocationService.isRevoked(TOKEN_ID)).thenReturn(true);
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(jwtUtil).parseToken(token);
+        verify(bannedUserService).isBanned(username);
+        verify(tokenRevocationService).isRevoked(TOKEN_ID);
+        verify(filterChain).doFilter(request, response);
+        verifyNoMoreInteractions(jwtUtil, bannedUserService, tokenRevocationService);
+        verifyNoInteractions(userDetailsService);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
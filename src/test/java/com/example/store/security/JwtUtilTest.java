@@ -3,24 +3,42 @@ package com.example.store.security;
 import com.example.store.model.MyUserDetails;
 import com.example.store.model.User;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
 
 import java.util.Date;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Unit tests for {@link JwtUtil}.
+ * The benchmark of the token verification (uncached vs cached) runs only with -Dstore.benchmark=true.
  */
 @ExtendWith(MockitoExtension.class)
 class JwtUtilTest {
 
     private final static String USER_NAME = "mr_apricot";
     private final static String INVALID_USER_NAME = "mr_peach";
-    private final JwtUtil target = new JwtUtil();
+    private final static int CACHE_SIZE = 2;
+    private final static int BENCHMARK_ITERATIONS = 200000;
+    private final static int BENCHMARK_WARMUP_ROUNDS = 3;
+    private static final Logger logger = LoggerFactory.getLogger(JwtUtilTest.class);
+    private final JwtUtil target = new JwtUtil(CACHE_SIZE);
 
     @Test
     void extractUsername_shouldSucceed() {
@@ -73,6 +91,77 @@ class JwtUtilTest {
         assertFalse(result);
     }
 
+    @Test
+    void parseToken_shouldReturnCachedClaims() {
+        // given
+        final String token = getToken();
+
+        // when
+        final JwtClaims result = target.parseToken(token);
+
+        // then the token is verified once, the same claims are returned afterwards.
+        assertEquals(USER_NAME, result.getUsername());
+        assertFalse(result.isExpired(System.currentTimeMillis()));
+        assertSame(result, target.parseToken(token));
+    }
+
+    @Test
+    void generateToken_should_setDistinctTokenIds() {
+        // given
+        final String firstToken = getToken();
+        final String secondToken = getToken();
+
+        // when
+        final JwtClaims result = target.parseToken(firstToken);
+
+        // then each token can be revoked on its own.
+        assertNotNull(result.getTokenId());
+        assertNotEquals(result.getTokenId(), target.parseToken(secondToken).getTokenId());
+    }
+
+    @Test
+    void parseToken_withInvalidSignature_shouldFail() {
+        // given
+        final String token = getToken();
+        final String tamperedToken = token.substring(0, token.length() - 2) + "xx";
+
+        // when
+        assertThrows(SignatureException.class, () -> target.parseToken(tamperedToken));
+    }
+
+    @Test
+    void parseToken_withExpiredToken_shouldFail() {
+        // given
+        final String token = Jwts.builder().setSubject(USER_NAME)
+                .setExpiration(new Date(System.currentTimeMillis() - 1000))
+                .signWith(SignatureAlgorithm.HS256, "secret").compact();
+
+        // when
+        assertThrows(ExpiredJwtException.class, () -> target.parseToken(token));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "store.benchmark", matches = "true")
+    void parseToken_benchmark() {
+        // given
+        final String token = getToken();
+        final MyUserDetails userDetails = getUserDetails(USER_NAME);
+
+        for (int round = 0; round < BENCHMARK_WARMUP_ROUNDS; round++) {
+            runUncached(token, userDetails);
+            runCached(token, userDetails);
+        }
+
+        // when
+        final long uncachedNanos = runUncached(token, userDetails);
+        final long cachedNanos = runCached(token, userDetails);
+
+        // then
+        logger.info("jwt benchmark: iterations={} uncached ns/request={} cached ns/request={}",
+                BENCHMARK_ITERATIONS, uncachedNanos / BENCHMARK_ITERATIONS, cachedNanos / BENCHMARK_ITERATIONS);
+        assertTrue(cachedNanos < uncachedNanos);
+    }
+
     @Test
     void generateToken_shouldSucceed() {
         // given this method is tested indirectly in above testing methods.
@@ -84,6 +173,44 @@ class JwtUtilTest {
         assertFalse(result.isEmpty());
     }
 
+    /**
+     * Runs the token work of a request as the filter did before the cache: the username is extracted, then the
+     * validation extracts the username and the expiration again (three verifications and parses, see extractClaim).
+     * @param token String
+     * @param userDetails MyUserDetails
+     * @return long elapsed nanoseconds for BENCHMARK_ITERATIONS requests
+     */
+    private long runUncached(String token, MyUserDetails userDetails) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            final String username = target.extractClaim(token, Claims::getSubject);
+            final boolean valid = username.equals(target.extractClaim(token, Claims::getSubject))
+                    && userDetails.getUsername().equals(username)
+                    && target.extractClaim(token, Claims::getExpiration).after(new Date());
+            if (!valid) {
+                throw new IllegalStateException(INVALID_USER_NAME);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Runs the token work of a request as the filter does now: parsed once (served from the cache), then the
+     * claims are validated.
+     * @param token String
+     * @param userDetails MyUserDetails
+     * @return long elapsed nanoseconds for BENCHMARK_ITERATIONS requests
+     */
+    private long runCached(String token, MyUserDetails userDetails) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            if (!target.validateToken(target.parseToken(token), userDetails)) {
+                throw new IllegalStateException(INVALID_USER_NAME);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
     /**
      * Creates a token using USER_NAME
      * @return a string
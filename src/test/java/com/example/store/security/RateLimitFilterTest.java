@@ -0,0 +1,166 @@
+package com.example.store.security;
+
+import com.example.store.service.RateLimitService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.MalformedJwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.store.util.ErrorMessages.TOO_MANY_REQUESTS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link RateLimitFilter}.
+ */
+@ExtendWith(MockitoExtension.class)
+class RateLimitFilterTest {
+
+    private static final String REMOTE_ADDRESS = "10.0.0.1";
+    private static final String TOKEN = "valid.jwt.token";
+    private static final String USERNAME = "john_doe";
+
+    @Mock
+    private RateLimitService rateLimitService = mock(RateLimitService.class);
+    @Mock
+    private JwtUtil jwtUtil = mock(JwtUtil.class);
+    @Mock
+    private FilterChain filterChain = mock(FilterChain.class);
+
+    private RateLimitFilter target;
+
+    @BeforeEach
+    void setUp() {
+        target = new RateLimitFilter(rateLimitService, jwtUtil, new ObjectMapper());
+    }
+
+    @Test
+    void doFilterInternal_withAnonymousCatalogRead_should_limitByIp() throws Exception {
+        // given
+        final MockHttpServletRequest request = createRequest("GET", "/store");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(rateLimitService.tryAcquire(RateLimitRoute.CATALOG, "ip:" + REMOTE_ADDRESS)).thenReturn(0L);
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(rateLimitService).tryAcquire(RateLimitRoute.CATALOG, "ip:" + REMOTE_ADDRESS);
+        verify(filterChain).doFilter(request, response);
+        verifyNoMoreInteractions(rateLimitService, filterChain);
+        verifyNoInteractions(jwtUtil);
+    }
+
+    @Test
+    void doFilterInternal_withBearerToken_should_limitByUser() throws Exception {
+        // given
+        final MockHttpServletRequest request = createRequest("DELETE", "/store/1");
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(jwtUtil.parseToken(TOKEN)).thenReturn(new JwtClaims("someTokenId", USERNAME, Long.MAX_VALUE));
+        when(rateLimitService.tryAcquire(RateLimitRoute.WRITE, "user:" + USERNAME)).thenReturn(0L);
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(jwtUtil).parseToken(TOKEN);
+        verify(rateLimitService).tryAcquire(RateLimitRoute.WRITE, "user:" + USERNAME);
+        verify(filterChain).doFilter(request, response);
+        verifyNoMoreInteractions(jwtUtil, rateLimitService, filterChain);
+    }
+
+    @Test
+    void doFilterInternal_withInvalidBearerToken_should_limitByIp() throws Exception {
+        // given
+        final MockHttpServletRequest request = createRequest("PUT", "/store/1");
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(jwtUtil.parseToken(TOKEN)).thenThrow(new MalformedJwtException(TOKEN));
+        when(rateLimitService.tryAcquire(RateLimitRoute.WRITE, "ip:" + REMOTE_ADDRESS)).thenReturn(0L);
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(jwtUtil).parseToken(TOKEN);
+        verify(rateLimitService).tryAcquire(RateLimitRoute.WRITE, "ip:" + REMOTE_ADDRESS);
+        verify(filterChain).doFilter(request, response);
+        verifyNoMoreInteractions(jwtUtil, rateLimitService, filterChain);
+    }
+
+    @Test
+    void doFilterInternal_withAuthenticate_should_limitByIp() throws Exception {
+        // given
+        final MockHttpServletRequest request = createRequest("POST", "/authenticate");
+        request.addHeader("Authorization", "Bearer " + TOKEN);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(rateLimitService.tryAcquire(RateLimitRoute.AUTHENTICATE, "ip:" + REMOTE_ADDRESS)).thenReturn(0L);
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(rateLimitService).tryAcquire(RateLimitRoute.AUTHENTICATE, "ip:" + REMOTE_ADDRESS);
+        verify(filterChain).doFilter(request, response);
+        verifyNoMoreInteractions(rateLimitService, filterChain);
+        verifyNoInteractions(jwtUtil);
+    }
+
+    @Test
+    void doFilterInternal_withNotLimitedRoute_should_notTakeToken() throws Exception {
+        // given
+        final MockHttpServletRequest request = createRequest("GET", "/stats/rate-limit");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(filterChain).doFilter(request, response);
+        verifyNoMoreInteractions(filterChain);
+        verifyNoInteractions(rateLimitService, jwtUtil);
+    }
+
+    @Test
+    void doFilterInternal_withEmptyBucket_should_reject() throws Exception {
+        // given
+        final MockHttpServletRequest request = createRequest("GET", "/store/1");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(rateLimitService.tryAcquire(RateLimitRoute.CATALOG, "ip:" + REMOTE_ADDRESS))
+                .thenReturn(TimeUnit.MILLISECONDS.toNanos(1500));
+
+        // when
+        target.doFilterInternal(request, response, filterChain);
+
+        // then
+        verify(rateLimitService).tryAcquire(RateLimitRoute.CATALOG, "ip:" + REMOTE_ADDRESS);
+        verifyNoMoreInteractions(rateLimitService);
+        verifyNoInteractions(filterChain, jwtUtil);
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains(TOO_MANY_REQUESTS));
+    }
+
+    private MockHttpServletRequest createRequest(String method, String path) {
+        final MockHttpServletRequest result = new MockHttpServletRequest(method, path);
+        result.setRemoteAddr(REMOTE_ADDRESS);
+        return result;
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.WriteTicketDTO;
+import com.example.store.exception.StoreBusyException;
+import com.example.store.exception.StoreException;
+import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AsyncWriteService}.
+ * The writes are queued before the writer is started, so they are all drained in the same batch.
+ */
+@ExtendWith(MockitoExtension.class)
+class AsyncWriteServiceTest {
+
+    private static final Long ID = 1L;
+    private static final Long OTHER_ID = 2L;
+    private static final Long VERSION = 3L;
+    private static final int QUEUE_CAPACITY = 10;
+    private static final int MAX_BATCH_SIZE = 10;
+    private static final long TICKET_TTL_MS = 60000;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Mock
+    private ProductService productService = Mockito.mock(ProductService.class);
+
+    @Mock
+    private TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+
+    private AsyncWriteService target;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (target != null) {
+            target.shutdown();
+        }
+    }
+
+    @Test
+    void saveProductAsync_shouldCompleteAfterGroupCommit() throws Exception {
+        // given
+        target = buildTarget(true, QUEUE_CAPACITY);
+        final ProductDTO first = buildProductDto(null, "first");
+        final ProductDTO second = buildProductDto(null, "second");
+        final ProductDTO firstSaved = buildProductDto(ID, "first");
+        final ProductDTO secondSaved = buildProductDto(OTHER_ID, "second");
+
+        when(productService.saveProduct(first)).thenReturn(firstSaved);
+        when(productService.saveProduct(second)).thenReturn(secondSaved);
+
+        // when
+        final CompletableFuture<ProductDTO> firstResult = target.saveProductAsync(first);
+        final CompletableFuture<ProductDTO> secondResult = target.saveProductAsync(second);
+        target.start();
+
+        // then both creations are written by one transaction.
+        assertEquals(firstSaved, firstResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(secondSaved, secondResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        verify(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void updateProductAsync_withSameProduct_shouldCoalesce() throws Exception {
+        // given
+        target = buildTarget(true, QUEUE_CAPACITY);
+        final ProductDTO firstUpdate = buildProductDto(ID, "first");
+        final ProductDTO lastUpdate = buildProductDto(ID, "last");
+        final ProductDTO otherUpdate = buildProductDto(OTHER_ID, "other");
+
+        when(productService.updateProduct(ID, lastUpdate, null)).thenReturn(lastUpdate);
+        when(productService.updateProduct(OTHER_ID, otherUpdate, null)).thenReturn(otherUpdate);
+
+        // when
+        final CompletableFuture<ProductDTO> firstResult = target.updateProductAsync(ID, firstUpdate);
+        final CompletableFuture<ProductDTO> otherResult = target.updateProductAsync(OTHER_ID, otherUpdate);
+        final CompletableFuture<ProductDTO> lastResult = target.updateProductAsync(ID, lastUpdate);
+        target.start();
+
+        // then only the last update of the product is written, the replaced one completes with its result.
+        assertEquals(lastUpdate, firstResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(lastUpdate, lastResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(otherUpdate, otherResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        verify(productService).updateProduct(ID, lastUpdate, null);
+        verify(productService, never()).updateProduct(ID, firstUpdate, null);
+    }
+
+    @Test
+    void saveProductAsync_withInvalidWrite_shouldFailAlone() throws Exception {
+        // given
+        target = buildTarget(true, QUEUE_CAPACITY);
+        final ProductDTO valid = buildProductDto(null, "valid");
+        final ProductDTO invalid = buildProductDto(null, "invalid");
+        final ProductDTO saved = buildProductDto(ID, "valid");
+
+        when(productService.saveProduct(valid)).thenReturn(saved);
+        when(productService.saveProduct(invalid)).thenThrow(new StoreException(ErrorMessages.INVALID_USER));
+
+        // when
+        final CompletableFuture<ProductDTO> validResult = target.saveProductAsync(valid);
+        final CompletableFuture<ProductDTO> invalidResult = target.saveProductAsync(invalid);
+        target.start();
+
+        // then the failed batch is written again one write per transaction.
+        assertEquals(saved, validResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        final ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> invalidResult.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertInstanceOf(StoreException.class, exception.getCause());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void submitSave_shouldReportTicket() throws Exception {
+        // given
+        target = buildTarget(true, QUEUE_CAPACITY);
+        final ProductDTO product = buildProductDto(null, "title");
+        final ProductDTO saved = buildProductDto(ID, "title");
+        saved.setVersion(VERSION);
+
+        when(productService.saveProduct(product)).thenReturn(saved);
+
+        // when
+        final CompletableFuture<WriteTicketDTO> result = target.submitSave(product);
+        final boolean acknowledgedBeforeCommit = result.isDone();
+        target.start();
+        final WriteTicketDTO completed = result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        // then the ticket is acknowledged only once the write is committed, and it can be polled again.
+        assertFalse(acknowledgedBeforeCommit);
+        assertEquals(WriteTicketDTO.COMPLETED, completed.getStatus());
+        assertEquals(ID, completed.getProductId());
+        assertEquals(VERSION, completed.getVersion());
+        assertEquals(WriteTicketDTO.COMPLETED, target.getTicket(completed.getTicket()).getStatus());
+    }
+
+    @Test
+    void submitUpdate_withFailure_shouldReportError() throws Exception {
+        // given
+        target = buildTarget(true, QUEUE_CAPACITY);
+        final ProductDTO product = buildProductDto(ID, "title");
+
+        when(productService.updateProduct(ID, product, null))
+                .thenThrow(new StoreException(ErrorMessages.PRODUCT_NOT_FOUND));
+
+        // when
+        final CompletableFuture<WriteTicketDTO> result = target.submitUpdate(ID, product);
+        target.start();
+        final WriteTicketDTO failed = result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        // then
+        assertEquals(WriteTicketDTO.FAILED, failed.getStatus());
+        assertEquals(ErrorMessages.PRODUCT_NOT_FOUND, failed.getError());
+    }
+
+    @Test
+    void saveProductAsync_withFullQueue_shouldFail() {
+        // given
+        target = buildTarget(true, 1);
+        target.saveProductAsync(buildProductDto(null, "queued"));
+
+        // when
+        final StoreBusyException exception = assertThrows(StoreBusyException.class,
+                () -> target.saveProductAsync(buildProductDto(null, "rejected")));
+
+        // then
+        assertEquals(ErrorMessages.WRITE_QUEUE_FULL, exception.getMessage());
+    }
+
+    @Test
+    void shutdown_shouldWriteQueuedWrites() throws Exception {
+        // given
+        target = buildTarget(true, QUEUE_CAPACITY);
+        final ProductDTO product = buildProductDto(null, "title");
+        final ProductDTO saved = buildProductDto(ID, "title");
+
+        when(productService.saveProduct(product)).thenReturn(saved);
+
+        // when
+        final CompletableFuture<ProductDTO> result = target.saveProductAsync(product);
+        target.start();
+        target.shutdown();
+
+        // then the writer is waited for, so the queued write is committed before the application stops.
+        assertTrue(result.isDone());
+        assertEquals(saved, result.get());
+    }
+
+    @Test
+    void shutdown_withWritesNotWritten_shouldFailThem() {
+        // given a writer which is not running, so the queued write cannot be written
+        target = buildTarget(true, QUEUE_CAPACITY);
+        final CompletableFuture<WriteTicketDTO> result = target.submitSave(buildProductDto(null, "title"));
+
+        // when
+        assertDoesNotThrow(() -> target.shutdown());
+
+        // then the client gets an error instead of a ticket pending forever, and new writes are rejected.
+        final WriteTicketDTO failed = result.join();
+        assertEquals(WriteTicketDTO.FAILED, failed.getStatus());
+        assertEquals(ErrorMessages.WRITES_STOPPED, failed.getError());
+        final StoreBusyException exception = assertThrows(StoreBusyException.class,
+                () -> target.saveProductAsync(buildProductDto(null, "rejected")));
+        assertEquals(ErrorMessages.WRITES_STOPPED, exception.getMessage());
+        verifyNoInteractions(productService, transactionTemplate);
+    }
+
+    @Test
+    void saveProductAsync_whenDisabled_shouldFail() {
+        // given
+        target = buildTarget(false, QUEUE_CAPACITY);
+        target.start();
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.submitSave(buildProductDto(null, "title")));
+
+        // then
+        assertEquals(ErrorMessages.ASYNC_WRITES_DISABLED, exception.getMessage());
+        verifyNoInteractions(productService, transactionTemplate);
+    }
+
+    @Test
+    void getTicket_withUnknownTicket_shouldFail() {
+        // given
+        target = buildTarget(true, QUEUE_CAPACITY);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.getTicket("unknown"));
+
+        // then
+        assertEquals(ErrorMessages.TICKET_NOT_FOUND, exception.getMessage());
+    }
+
+    /**
+     * Builds the service, the transactions running their callbacks as if they were started.
+     * @param enabled boolean
+     * @param queueCapacity int
+     * @return AsyncWriteService
+     */
+    @SuppressWarnings("unchecked")
+    private AsyncWriteService buildTarget(boolean enabled, int queueCapacity) {
+        Mockito.lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        Mockito.lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        return new AsyncWriteService(productService, transactionTemplate, enabled, queueCapacity, MAX_BATCH_SIZE,
+                TICKET_TTL_MS);
+    }
+
+    /**
+     * builds an object used for testing.
+     * @param id Long
+     * @param title String
+     * @return ProductDTO
+     */
+    private ProductDTO buildProductDto(Long id, String title) {
+        final ProductDTO result = new ProductDTO();
+        result.setId(id);
+        result.setTitle(title);
+        result.setPrice(10d);
+        result.setQuantity(10L);
+        return result;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.store.service;
 import com.example.store.dto.AuthRequest;
 import com.example.store.model.MyUserDetails;
 import com.example.store.model.User;
+import com.example.store.exception.StoreException;
+import com.example.store.security.JwtClaims;
 import com.example.store.security.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,7 +15,10 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import static com.example.store.util.ErrorMessages.INVALID_TOKEN;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -37,13 +42,15 @@ class AuthServiceTest {
     private final ValidationService validationService = mock(ValidationService.class);
     @Mock
     private final ClassService classService = mock(ClassService.class);
+    @Mock
+    private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
 
     private AuthService target;
 
     @BeforeEach
     void setUp() {
         target = new AuthService(userDetailsService, jwtUtil, authenticationManager,
-                validationService, classService);
+                validationService, classService, tokenRevocationService);
     }
 
     @Test
@@ -77,6 +84,37 @@ class AuthServiceTest {
         assertEquals(TOKEN, result);
     }
 
+    @Test
+    void logout_shouldSucceed() {
+        // given
+        final JwtClaims claims = new JwtClaims("someTokenId", USERNAME, System.currentTimeMillis() + 1000);
+
+        when(jwtUtil.parseToken(TOKEN)).thenReturn(claims);
+        when(tokenRevocationService.revoke(claims)).thenReturn(true);
+
+        // when
+        final boolean result = target.logout("Bearer " + TOKEN);
+
+        // then
+        verify(jwtUtil).parseToken(TOKEN);
+        verify(tokenRevocationService).revoke(claims);
+        verifyNoMoreInteractions(jwtUtil, tokenRevocationService);
+        verifyNoInteractions(validationService, classService, authenticationManager, userDetailsService);
+
+        assertTrue(result);
+    }
+
+    @Test
+    void logout_withoutBearerToken_shouldFail() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.logout(TOKEN));
+
+        // then
+        verifyNoInteractions(jwtUtil, tokenRevocationService);
+
+        assertEquals(INVALID_TOKEN, exception.getMessage());
+    }
+
     /**
      * create an object used for testing purposes.
      * @return MyUserDetails
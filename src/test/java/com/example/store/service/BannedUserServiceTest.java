@@ -0,0 +1,142 @@
+package com.example.store.service;
+
+import com.example.store.model.BannedUser;
+import com.example.store.repository.BannedUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link BannedUserService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class BannedUserServiceTest {
+
+    private static final String INITIAL_USERNAME = "Diego";
+    private static final String PERSISTED_USERNAME = "persisted";
+    private static final String SOME_USERNAME = "someUser";
+
+    /**
+     * Beans used by the class which is being tested.
+     */
+    @Mock
+    private BannedUserRepository bannedUserRepository = Mockito.mock(BannedUserRepository.class);
+
+    /**
+     * Class being tested (named as target).
+     */
+    private BannedUserService target;
+
+    @BeforeEach
+    void setUp() {
+        target = new BannedUserService(bannedUserRepository, new String[] {INITIAL_USERNAME});
+    }
+
+    @Test
+    void load_withEmptyTable_should_seedInitialUsernames() {
+        // given
+        when(bannedUserRepository.findAllUsernames()).thenReturn(List.of());
+
+        // when
+        target.load();
+
+        // then
+        verify(bannedUserRepository).findAllUsernames();
+        verify(bannedUserRepository).saveAll(List.of(new BannedUser(INITIAL_USERNAME)));
+        verifyNoMoreInteractions(bannedUserRepository);
+
+        assertTrue(target.isBanned(INITIAL_USERNAME));
+    }
+
+    @Test
+    void load_withPersistedUsernames_should_notSeed() {
+        // given
+        when(bannedUserRepository.findAllUsernames()).thenReturn(List.of(PERSISTED_USERNAME));
+
+        // when
+        target.load();
+
+        // then
+        verify(bannedUserRepository).findAllUsernames();
+        verifyNoMoreInteractions(bannedUserRepository);
+
+        assertTrue(target.isBanned(PERSISTED_USERNAME));
+        assertFalse(target.isBanned(INITIAL_USERNAME));
+    }
+
+    @Test
+    void isBanned_withNullUsername_should_returnFalse() {
+        // when
+        final boolean result = target.isBanned(null);
+
+        // then
+        assertFalse(result);
+    }
+
+    @Test
+    void ban_should_persistAndPublish() {
+        // when
+        final boolean result = target.ban(SOME_USERNAME);
+
+        // then
+        verify(bannedUserRepository).save(new BannedUser(SOME_USERNAME));
+        verifyNoMoreInteractions(bannedUserRepository);
+
+        assertTrue(result);
+        assertTrue(target.isBanned(SOME_USERNAME));
+    }
+
+    @Test
+    void ban_withBannedUser_should_returnFalse() {
+        // given
+        target.ban(SOME_USERNAME);
+
+        // when
+        final boolean result = target.ban(SOME_USERNAME);
+
+        // then
+        verify(bannedUserRepository).save(new BannedUser(SOME_USERNAME));
+        verifyNoMoreInteractions(bannedUserRepository);
+
+        assertFalse(result);
+    }
+
+    @Test
+    void unban_should_deleteAndPublish() {
+        // given
+        target.ban(SOME_USERNAME);
+
+        // when
+        final boolean result = target.unban(SOME_USERNAME);
+
+        // then
+        verify(bannedUserRepository).save(new BannedUser(SOME_USERNAME));
+        verify(bannedUserRepository).deleteById(SOME_USERNAME);
+        verifyNoMoreInteractions(bannedUserRepository);
+
+        assertTrue(result);
+        assertFalse(target.isBanned(SOME_USERNAME));
+    }
+
+    @Test
+    void unban_withNotBannedUser_should_returnFalse() {
+        // when
+        final boolean result = target.unban(SOME_USERNAME);
+
+        // then
+        verifyNoMoreInteractions(bannedUserRepository);
+
+        assertFalse(result);
+    }
+}
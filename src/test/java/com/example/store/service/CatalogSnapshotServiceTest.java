@@ -0,0 +1,194 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CatalogSnapshotService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotServiceTest {
+
+    private static final String TITLE = "some title";
+    private static final long STOCK_REFRESH_MS = 50;
+
+    @Mock
+    private ProductRepository productRepository = Mockito.mock(ProductRepository.class);
+
+    private CatalogSnapshotService target;
+
+    @BeforeEach
+    void setUp() {
+        target = new CatalogSnapshotService(productRepository, new ObjectMapper(), true, STOCK_REFRESH_MS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        target.shutdown();
+    }
+
+    @Test
+    void getSnapshot_beforeRebuild_shouldReturnNull() {
+        // when
+        final CatalogSnapshot result = target.getSnapshot();
+
+        // then
+        assertNull(result);
+    }
+
+    @Test
+    void rebuild_shouldSerializeCatalog() throws IOException {
+        // given
+        when(productRepository.findAllProductDtos()).thenReturn(List.of(buildProductDto()));
+
+        // when
+        target.rebuild();
+
+        // then
+        final CatalogSnapshot result = target.getSnapshot();
+        assertNotNull(result);
+        assertEquals(0, result.getEpoch());
+
+        final String json = new String(result.getJson(), StandardCharsets.UTF_8);
+        final String xml = new String(result.getXml(), StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("[{") && json.contains(TITLE));
+        assertTrue(xml.contains("<products><product>") && xml.contains(TITLE));
+        assertArrayEquals(result.getJson(), gunzip(result.getGzipJson()));
+        assertArrayEquals(result.getXml(), gunzip(result.getGzipXml()));
+    }
+
+    @Test
+    void markChanged_shouldHideOldSnapshotAndRebuild() {
+        // given
+        when(productRepository.findAllProductDtos()).thenReturn(List.of(buildProductDto()));
+        target.rebuild();
+
+        // when
+        target.markChanged();
+
+        // then the catalog is read again in background, and the new snapshot has the new epoch.
+        verify(productRepository, timeout(5000).times(2)).findAllProductDtos();
+        CatalogSnapshot result = target.getSnapshot();
+        for (int i = 0; i < 500 && result == null; i++) {
+            sleep();
+            result = target.getSnapshot();
+        }
+        assertNotNull(result);
+        assertEquals(1, result.getEpoch());
+    }
+
+    @Test
+    void markStockChanged_shouldKeepServingSnapshotAndRebuildOnce() {
+        // given
+        when(productRepository.findAllProductDtos()).thenReturn(List.of(buildProductDto()));
+        target.rebuild();
+        final CatalogSnapshot before = target.getSnapshot();
+
+        // when
+        target.markStockChanged();
+        target.markStockChanged();
+        final CatalogSnapshot served = target.getSnapshot();
+
+        // then the old snapshot is served until the delayed rebuild, which covers both stock changes.
+        assertSame(before, served);
+        verify(productRepository, timeout(5000).times(2)).findAllProductDtos();
+        CatalogSnapshot result = target.getSnapshot();
+        for (int i = 0; i < 500 && result == before; i++) {
+            sleep();
+            result = target.getSnapshot();
+        }
+        assertEquals(0, result.getEpoch());
+        assertEquals(2, result.getStockEpoch());
+        assertEquals(target.getCatalogVersion(), result.getCatalogVersion());
+        assertNotEquals(before.getCatalogVersion(), result.getCatalogVersion());
+    }
+
+    @Test
+    void rebuild_whenUpToDate_shouldNotReadCatalog() {
+        // given
+        when(productRepository.findAllProductDtos()).thenReturn(List.of(buildProductDto()));
+        target.rebuild();
+
+        // when
+        target.rebuild();
+
+        // then
+        verify(productRepository).findAllProductDtos();
+    }
+
+    @Test
+    void markChanged_whenDisabled_shouldNotRebuild() {
+        // given
+        final CatalogSnapshotService disabled =
+                new CatalogSnapshotService(productRepository, new ObjectMapper(), false, STOCK_REFRESH_MS);
+
+        // when
+        disabled.init();
+        disabled.markChanged();
+
+        // then
+        assertNull(disabled.getSnapshot());
+        verifyNoInteractions(productRepository);
+        disabled.shutdown();
+    }
+
+    /**
+     * Builder method for a product.
+     * @return ProductDTO
+     */
+    private ProductDTO buildProductDto() {
+        final ProductDTO result = new ProductDTO();
+        result.setId(1L);
+        result.setTitle(TITLE);
+        return result;
+    }
+
+    /**
+     * Decompresses gzip content.
+     * @param content byte[]
+     * @return byte[]
+     * @throws IOException on IO related problems
+     */
+    private byte[] gunzip(byte[] content) throws IOException {
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    /**
+     * Waits a bit for the background rebuild.
+     */
+    private void sleep() {
+        try {
+            Thread.sleep(10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.store.service;
+
+import com.example.store.dto.CheckoutDTO;
+import com.example.store.dto.CheckoutItemDTO;
+import com.example.store.exception.StoreBusyException;
+import com.example.store.exception.StoreException;
+import com.example.store.model.Product;
+import com.example.store.repository.ProductRepository;
+import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress tests of {@link CheckoutService#checkout(CheckoutDTO)} against the database: concurrent carts sharing
+ * products in random orders must neither deadlock nor oversell.
+ * </br>
+ * The contention benchmark (cart size x concurrent buyers) is long, so it runs only with -Dstore.benchmark=true.
+ */
+@SpringBootTest
+class CheckoutServiceConcurrencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutServiceConcurrencyTest.class);
+
+    private static final int PRODUCTS = 8;
+    private static final long STOCK = 200;
+    private static final int CART_SIZE = 4;
+    private static final int CARTS = 600;
+    private static final int THREADS = 16;
+
+    private static final int BENCHMARK_PRODUCTS = 32;
+    private static final int BENCHMARK_CARTS = 2000;
+    private static final int[] BENCHMARK_CART_SIZES = {1, 4, 16};
+    private static final int[] BENCHMARK_BUYERS = {1, 4, 16, 64};
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAllById(productIds);
+        productIds.clear();
+    }
+
+    @Test
+    void checkout_withOverlappingCarts_shouldNotDeadlockNorOversell() throws Exception {
+        // given more demand than stock, each cart listing its products in a random order
+        createProducts(PRODUCTS, STOCK);
+        final AtomicLongArray sold = new AtomicLongArray(PRODUCTS);
+        final Outcomes outcomes = run(CART_SIZE, CARTS, THREADS, sold);
+
+        // then every product sold exactly the units missing from its stock, and never more than its stock.
+        for (int i = 0; i < PRODUCTS; i++) {
+            final long quantity = productRepository.findById(productIds.get(i)).orElseThrow().getQuantity();
+            assertTrue(quantity >= 0);
+            assertEquals(STOCK - quantity, sold.get(i));
+        }
+        assertEquals(CARTS, outcomes.bought.get() + outcomes.notAvailable.get());
+        assertEquals(0, outcomes.busy.get());
+        assertTrue(outcomes.notAvailable.get() > 0);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "store.benchmark", matches = "true")
+    void checkout_benchmark() throws Exception {
+        for (int cartSize : BENCHMARK_CART_SIZES) {
+            for (int buyers : BENCHMARK_BUYERS) {
+                // the stock never runs out, so every checkout writes.
+                createProducts(BENCHMARK_PRODUCTS, (long) BENCHMARK_CARTS * cartSize);
+                final long start = System.nanoTime();
+                final Outcomes outcomes = run(cartSize, BENCHMARK_CARTS, buyers,
+                        new AtomicLongArray(BENCHMARK_PRODUCTS));
+                final long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                logger.info("checkout benchmark: cartSize={} buyers={} checkouts/s={} bought={} busy={}",
+                        cartSize, buyers, BENCHMARK_CARTS * 1000L / elapsedMillis, outcomes.bought.get(),
+                        outcomes.busy.get());
+                assertEquals(BENCHMARK_CARTS, outcomes.bought.get() + outcomes.busy.get());
+                tearDown();
+            }
+        }
+    }
+
+    /**
+     * Creates the products used by a test.
+     * @param count int number of products
+     * @param stock long quantity of each product
+     */
+    private void createProducts(int count, long stock) {
+        for (int i = 0; i < count; i++) {
+            final Product product = new Product();
+            product.setTitle("cart product " + i);
+            product.setPrice(10d);
+            product.setQuantity(stock);
+            productIds.add(productRepository.save(product).getId());
+        }
+    }
+
+    /**
+     * Checks out the carts from concurrent buyers, all released at the same time.
+     * @param cartSize int distinct products of each cart (one unit each)
+     * @param carts int number of checkouts
+     * @param buyers int number of threads
+     * @param sold AtomicLongArray units sold by product index
+     * @return Outcomes of the checkouts
+     * @throws Exception when a checkout failed unexpectedly
+     */
+    private Outcomes run(int cartSize, int carts, int buyers, AtomicLongArray sold) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(buyers);
+        final CountDownLatch start = new CountDownLatch(1);
+        final Outcomes result = new Outcomes();
+        final List<Future<?>> futures = new ArrayList<>(carts);
+        for (int i = 0; i < carts; i++) {
+            final Random random = new Random(i);
+            futures.add(executor.submit(() -> checkout(start, randomIndexes(random, cartSize), sold, result)));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * Picks distinct product indexes in a random order.
+     * @param random Random
+     * @param count int
+     * @return List of indexes
+     */
+    private List<Integer> randomIndexes(Random random, int count) {
+        final List<Integer> indexes = new ArrayList<>(productIds.size());
+        for (int i = 0; i < productIds.size(); i++) {
+            indexes.add(i);
+        }
+        Collections.shuffle(indexes, random);
+        return indexes.subList(0, count);
+    }
+
+    /**
+     * Checks out one unit of each product once the start gate is open, counting the outcome.
+     * @param start CountDownLatch start gate
+     * @param indexes List of product indexes, in cart order
+     * @param sold AtomicLongArray units sold by product index
+     * @param outcomes Outcomes
+     */
+    private void checkout(CountDownLatch start, List<Integer> indexes, AtomicLongArray sold, Outcomes outcomes) {
+        final List<CheckoutItemDTO> items = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            items.add(new CheckoutItemDTO(productIds.get(index), 1L));
+        }
+        try {
+            start.await();
+            checkoutService.checkout(new CheckoutDTO(items));
+            for (Integer index : indexes) {
+                sold.incrementAndGet(index);
+            }
+            outcomes.bought.incrementAndGet();
+        } catch (StoreBusyException e) {
+            outcomes.busy.incrementAndGet();
+        } catch (StoreException e) {
+            assertEquals(ErrorMessages.CHECKOUT_NOT_AVAILABLE, e.getMessage());
+            outcomes.notAvailable.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counters of the checkout outcomes.
+     */
+    private static final class Outcomes {
+        private final AtomicInteger bought = new AtomicInteger();
+        private final AtomicInteger notAvailable = new AtomicInteger();
+        private final AtomicInteger busy = new AtomicInteger();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.store.service;
+
+import com.example.store.dto.CheckoutDTO;
+import com.example.store.dto.CheckoutItemDTO;
+import com.example.store.dto.IdListDTO;
+import com.example.store.exception.StoreBusyException;
+import com.example.store.exception.StoreException;
+import com.example.store.repository.ProductRepository;
+import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import static com.example.store.util.Constants.MAX_CHECKOUT_ITEMS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link CheckoutService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class CheckoutServiceTest {
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    @Mock
+    private ProductRepository productRepository = Mockito.mock(ProductRepository.class);
+
+    @Mock
+    private TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+
+    @Mock
+    private ProductCacheService productCacheService = Mockito.mock(ProductCacheService.class);
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService = Mockito.mock(CatalogSnapshotService.class);
+
+    private CheckoutService target;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        target = new CheckoutService(productRepository, transactionTemplate, productCacheService,
+                catalogSnapshotService, MAX_ATTEMPTS);
+        // the callback runs as if the transaction was started.
+        Mockito.lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void checkout_shouldDecrementInIdOrder() {
+        // given the items are not sorted, and a product is present twice
+        final CheckoutDTO checkout = new CheckoutDTO(List.of(new CheckoutItemDTO(7L, 1L),
+                new CheckoutItemDTO(3L, 2L), new CheckoutItemDTO(7L, 4L)));
+        final SortedMap<Long, Long> quantities = new TreeMap<>();
+        quantities.put(3L, 2L);
+        quantities.put(7L, 5L);
+
+        when(productRepository.decrementQuantities(quantities)).thenReturn(new int[]{1, 1});
+
+        // when
+        final IdListDTO result = target.checkout(checkout);
+
+        // then the products are locked in ascending id order, by one batch in one transaction.
+        verify(transactionTemplate).executeWithoutResult(any());
+        verify(productRepository).decrementQuantities(quantities);
+        verify(productCacheService).invalidate(3L);
+        verify(productCacheService).invalidate(7L);
+        verify(catalogSnapshotService).markStockChanged();
+
+        assertEquals(List.of(3L, 7L), result.getIds());
+    }
+
+    @Test
+    void checkout_withNotEnoughStock_shouldFail() {
+        // given
+        final CheckoutDTO checkout = new CheckoutDTO(List.of(new CheckoutItemDTO(3L, 2L),
+                new CheckoutItemDTO(7L, 1L)));
+
+        when(productRepository.decrementQuantities(any())).thenReturn(new int[]{1, 0});
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.checkout(checkout));
+
+        // then the exception rolls back the transaction, so nothing is bought.
+        assertEquals(ErrorMessages.CHECKOUT_NOT_AVAILABLE, exception.getMessage());
+        verifyNoInteractions(productCacheService, catalogSnapshotService);
+    }
+
+    @Test
+    void checkout_withLockFailure_shouldRetry() {
+        // given
+        final CheckoutDTO checkout = new CheckoutDTO(List.of(new CheckoutItemDTO(3L, 2L)));
+
+        when(productRepository.decrementQuantities(any()))
+                .thenThrow(new CannotAcquireLockException("lock timeout"))
+                .thenReturn(new int[]{1});
+
+        // when
+        final IdListDTO result = target.checkout(checkout);
+
+        // then
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        assertEquals(List.of(3L), result.getIds());
+    }
+
+    @Test
+    void checkout_withLockFailures_shouldFailAfterMaxAttempts() {
+        // given
+        final CheckoutDTO checkout = new CheckoutDTO(List.of(new CheckoutItemDTO(3L, 2L)));
+
+        when(productRepository.decrementQuantities(any())).thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        // when
+        final StoreBusyException exception = assertThrows(StoreBusyException.class, () -> target.checkout(checkout));
+
+        // then
+        assertEquals(ErrorMessages.CHECKOUT_BUSY, exception.getMessage());
+        verify(transactionTemplate, times(MAX_ATTEMPTS)).executeWithoutResult(any());
+        verifyNoInteractions(productCacheService, catalogSnapshotService);
+    }
+
+    @Test
+    void checkout_withInvalidSize_shouldFail() {
+        // given
+        final List<CheckoutItemDTO> items = new ArrayList<>();
+        for (int i = 0; i <= MAX_CHECKOUT_ITEMS; i++) {
+            items.add(new CheckoutItemDTO((long) i, 1L));
+        }
+
+        // when
+        final StoreException empty = assertThrows(StoreException.class,
+                () -> target.checkout(new CheckoutDTO(new ArrayList<>())));
+        final StoreException tooBig = assertThrows(StoreException.class,
+                () -> target.checkout(new CheckoutDTO(items)));
+
+        // then
+        assertEquals(ErrorMessages.INVALID_CHECKOUT_SIZE, empty.getMessage());
+        assertEquals(ErrorMessages.INVALID_CHECKOUT_SIZE, tooBig.getMessage());
+        verifyNoInteractions(productRepository, transactionTemplate);
+    }
+
+    @Test
+    void checkout_withInvalidItem_shouldFail() {
+        // given
+        final CheckoutDTO checkout = new CheckoutDTO(List.of(new CheckoutItemDTO(3L, 2L),
+                new CheckoutItemDTO(7L, 0L)));
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.checkout(checkout));
+
+        // then
+        assertEquals(ErrorMessages.INVALID_CHECKOUT_ITEM, exception.getMessage());
+        verifyNoInteractions(productRepository, transactionTemplate);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.store.service;
+
+import com.example.store.dto.ConcurrencyLimitStatsDTO;
+import com.example.store.security.RateLimitRoute;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ConcurrencyLimitService}.
+ */
+class ConcurrencyLimitServiceTest {
+
+    private static final int MIN_LIMIT = 2;
+    private static final int MAX_LIMIT = 12;
+    private static final int INITIAL_LIMIT = 10;
+    private static final long THRESHOLD_MS = 100;
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(THRESHOLD_MS + 1);
+
+    private final ConcurrencyLimitService target = createTarget(true);
+
+    @Test
+    void tryAcquire_should_rejectAboveLimit() {
+        // given
+        for (int i = 0; i < INITIAL_LIMIT; i++) {
+            assertTrue(target.tryAcquire(RateLimitRoute.CATALOG));
+        }
+
+        // when
+        final boolean result = target.tryAcquire(RateLimitRoute.CATALOG);
+
+        // then the write routes have their own limit.
+        assertFalse(result);
+        assertTrue(target.tryAcquire(RateLimitRoute.WRITE));
+        final ConcurrencyLimitStatsDTO stats = target.getStats();
+        assertEquals(INITIAL_LIMIT, stats.getReadInFlight());
+        assertEquals(1, stats.getReadRejected());
+        assertEquals(1, stats.getWriteInFlight());
+        assertEquals(0, stats.getWriteRejected());
+    }
+
+    @Test
+    void release_withSlowRequest_should_decreaseLimit() {
+        // given
+        final long startedAt = System.nanoTime();
+        target.tryAcquire(RateLimitRoute.WRITE);
+
+        // when
+        target.release(RateLimitRoute.WRITE, startedAt, startedAt + SLOW);
+
+        // then
+        final ConcurrencyLimitStatsDTO stats = target.getStats();
+        assertEquals(9, stats.getWriteLimit());
+        assertEquals(0, stats.getWriteInFlight());
+    }
+
+    @Test
+    void release_withSlowRequests_should_notGoBelowMinLimit() {
+        // given
+        final long startedAt = System.nanoTime();
+
+        // when each request starts once the previous one is served, so each one decreases the limit
+        for (int i = 0; i < 100; i++) {
+            target.tryAcquire(RateLimitRoute.AUTHENTICATE);
+            target.release(RateLimitRoute.AUTHENTICATE, startedAt + i * SLOW, startedAt + (i + 1) * SLOW);
+        }
+
+        // then
+        assertEquals(MIN_LIMIT, target.getStats().getWriteLimit());
+    }
+
+    @Test
+    void release_withBurstOfSlowRequests_should_decreaseLimitOnce() {
+        // given requests admitted together, all slowed down by the same latency spike
+        final long startedAt = System.nanoTime();
+        int acquired = 0;
+        while (target.tryAcquire(RateLimitRoute.CATALOG)) {
+            acquired++;
+        }
+
+        // when
+        for (int i = 0; i < acquired; i++) {
+            target.release(RateLimitRoute.CATALOG, startedAt, startedAt + SLOW + i);
+        }
+        final int limitAfterBurst = target.getStats().getReadLimit();
+        target.tryAcquire(RateLimitRoute.CATALOG);
+        target.release(RateLimitRoute.CATALOG, startedAt + SLOW + acquired, startedAt + 2 * SLOW + acquired);
+
+        // then the burst decreases the limit once, a slow request started after the decrease decreases it again.
+        assertEquals(INITIAL_LIMIT, acquired);
+        assertEquals(9, limitAfterBurst);
+        assertEquals(8, target.getStats().getReadLimit());
+        assertEquals(0, target.getStats().getReadInFlight());
+    }
+
+    @Test
+    void release_withFastRequestsAtHighConcurrency_should_increaseLimitUpToMax() {
+        // given
+        final long startedAt = System.nanoTime();
+
+        // when
+        for (int round = 0; round < 10; round++) {
+            int acquired = 0;
+            while (target.tryAcquire(RateLimitRoute.CATALOG)) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                target.release(RateLimitRoute.CATALOG, startedAt, startedAt + FAST);
+            }
+        }
+
+        // then
+        assertEquals(MAX_LIMIT, target.getStats().getReadLimit());
+    }
+
+    @Test
+    void release_withFastRequestsAtLowConcurrency_should_keepLimit() {
+        // given
+        final long startedAt = System.nanoTime();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            target.tryAcquire(RateLimitRoute.CATALOG);
+            target.release(RateLimitRoute.CATALOG, startedAt, startedAt + FAST);
+        }
+
+        // then
+        assertEquals(INITIAL_LIMIT, target.getStats().getReadLimit());
+    }
+
+    @Test
+    void tryAcquire_whenDisabled_should_alwaysAdmit() {
+        // given
+        final ConcurrencyLimitService disabled = createTarget(false);
+
+        // when
+        for (int i = 0; i < INITIAL_LIMIT * 2; i++) {
+            assertTrue(disabled.tryAcquire(RateLimitRoute.CATALOG));
+        }
+
+        // then
+        assertEquals(0, disabled.getStats().getReadInFlight());
+    }
+
+    private static ConcurrencyLimitService createTarget(boolean enabled) {
+        return new ConcurrencyLimitService(enabled, MIN_LIMIT, MAX_LIMIT, INITIAL_LIMIT, THRESHOLD_MS,
+                INITIAL_LIMIT, THRESHOLD_MS);
+    }
+}
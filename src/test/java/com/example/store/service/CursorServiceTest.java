@@ -0,0 +1,59 @@
+package com.example.store.service;
+
+import com.example.store.exception.StoreException;
+import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link CursorService}.
+ */
+class CursorServiceTest {
+
+    private final static Long ID = 42L;
+    private final static String INVALID_CURSOR = "not a cursor!";
+
+    private final CursorService target = new CursorService();
+
+    @Test
+    void encode_shouldReturnOpaqueValue() {
+        // when
+        final String result = target.encode(ID);
+
+        // then the id is not visible as is to the client.
+        assertNotEquals(String.valueOf(ID), result);
+    }
+
+    @Test
+    void decode_withEncodedCursor_shouldSucceed() {
+        // given
+        final String cursor = target.encode(ID);
+
+        // when
+        final Long result = target.decode(cursor);
+
+        // then
+        assertEquals(ID, result);
+    }
+
+    @Test
+    void decode_withNullCursor_shouldReturnFirstPage() {
+        // when
+        final Long result = target.decode(null);
+
+        // then
+        assertEquals(0L, result);
+    }
+
+    @Test
+    void decode_withInvalidCursor_shouldFail() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.decode(INVALID_CURSOR));
+
+        // then
+        assertEquals(ErrorMessages.INVALID_CURSOR, exception.getMessage());
+    }
+}
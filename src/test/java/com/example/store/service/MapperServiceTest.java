@@ -11,6 +11,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * Unit tests for {@link MapperService}.
@@ -47,6 +48,20 @@ public class MapperServiceTest {
         assertEquals(products.get(0).getQuantity(), result.get(0).getQuantity());
         assertEquals(products.get(0).getDescription(), result.get(0).getDescription());
         assertEquals(products.get(0).getCoverImage(), result.get(0).getCoverImage());
+        assertEquals(products.get(0).getVersion(), result.get(0).getVersion());
+    }
+
+    @Test
+    public void getProductsDtoList_withSameAuthor_shouldConvertAuthorOnce() {
+        // given
+        final List<Product> products = List.of(buildProduct(), buildProduct());
+
+        // when
+        final List<ProductDTO> result = target.getProductsDtoList(products);
+
+        // then
+        assertEquals(products.size(), result.size());
+        assertSame(result.get(0).getAuthor(), result.get(1).getAuthor());
     }
 
     @Test
@@ -67,6 +82,7 @@ public class MapperServiceTest {
         assertEquals(product.getQuantity(), result.getQuantity());
         assertEquals(product.getDescription(), result.getDescription());
         assertEquals(product.getCoverImage(), result.getCoverImage());
+        assertEquals(product.getVersion(), result.getVersion());
     }
 
     @Test
@@ -101,6 +117,7 @@ public class MapperServiceTest {
         assertEquals(productDto.getQuantity(), result.getQuantity());
         assertEquals(productDto.getDescription(), result.getDescription());
         assertEquals(productDto.getCoverImage(), result.getCoverImage());
+        assertEquals(productDto.getVersion(), result.getVersion());
     }
 
     @Test
@@ -129,6 +146,7 @@ public class MapperServiceTest {
         product.setDescription("description");
         product.setPrice(10d);
         product.setQuantity(10L);
+        product.setVersion(3L);
         product.setCoverImage("coverImage");
         product.setTitle("title");
         return product;
@@ -156,6 +174,7 @@ public class MapperServiceTest {
         product.setDescription("description");
         product.setPrice(10d);
         product.setQuantity(10L);
+        product.setVersion(3L);
         product.setCoverImage("coverImage");
         product.setTitle("title");
         return product;
@@ -1,14 +1,18 @@
 package com.example.store.service;
 
+import com.example.store.exception.StoreException;
+import com.example.store.model.MyUserDetails;
 import com.example.store.model.User;
 import com.example.store.repository.UserRepository;
 import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -16,6 +20,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -29,15 +34,27 @@ public class MyUserDetailsServiceTest {
     private static final String INVALID_USER_NAME = "invalid username";
     private static final Long ID = 1L;
     private static final String ENCODED_PASSWORD = "encoded password";
+    private static final int CACHE_SIZE = 10;
+    private static final long CACHE_TTL_MS = 60000;
 
     @Mock
     private UserRepository userRepository = Mockito.mock(UserRepository.class);
     @Mock
     private PasswordEncoder passwordEncoder = Mockito.mock(PasswordEncoder.class);
 
-    @InjectMocks
+    /**
+     * A real cache is used, so the tests below also cover the read-through behavior.
+     */
+    private UserCacheService userCacheService;
+
     private MyUserDetailsService target;
 
+    @BeforeEach
+    void setUp() {
+        userCacheService = new UserCacheService(userRepository, CACHE_SIZE, CACHE_TTL_MS, new String[0]);
+        target = new MyUserDetailsService(userRepository, userCacheService, passwordEncoder);
+    }
+
     @Test
     public void loadUserByUsername_shouldSucceed() {
         // given
@@ -57,6 +74,24 @@ public class MyUserDetailsServiceTest {
         assertEquals(userDetails.getPassword(), user.getPassword());
     }
 
+    @Test
+    public void loadUserByUsername_calledTwice_shouldReadUserOnce() {
+        // given
+        final User user = buildUser();
+
+        when(userRepository.findByUsername(USER_NAME)).thenReturn(Optional.of(user));
+
+        // when
+        final UserDetails first = target.loadUserByUsername(USER_NAME);
+        final UserDetails second = target.loadUserByUsername(USER_NAME);
+
+        // then the second call is served from the cache.
+        verify(userRepository).findByUsername(USER_NAME);
+        verifyNoMoreInteractions(userRepository);
+
+        assertSame(first, second);
+    }
+
     @Test
     public void loadUserByUsername_withUserNotFound_shouldFail() {
         // given
@@ -94,6 +129,65 @@ public class MyUserDetailsServiceTest {
         assertEquals(user, result);
     }
 
+    @Test
+    public void save_shouldInvalidateCachedUser() {
+        // given a cached user (read for authentication), which is not found by the uniqueness check of save
+        final User cachedUser = buildUser();
+        final User user = buildUser();
+        user.setPassword("pass");
+
+        when(userRepository.findByUsername(USER_NAME))
+                .thenReturn(Optional.of(cachedUser), Optional.empty(), Optional.of(user));
+        when(userRepository.findByPseudonym(user.getPseudonym())).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(user.getPassword())).thenReturn(ENCODED_PASSWORD);
+        when(userRepository.save(user)).thenReturn(user);
+        target.loadUserByUsername(USER_NAME);
+
+        // when
+        target.save(user);
+        final UserDetails result = target.loadUserByUsername(USER_NAME);
+
+        // then the saved user is read again.
+        verify(userRepository, times(3)).findByUsername(USER_NAME);
+        verify(userRepository).findByPseudonym(user.getPseudonym());
+        verify(userRepository).save(user);
+        verifyNoMoreInteractions(userRepository);
+
+        assertEquals(ENCODED_PASSWORD, result.getPassword());
+    }
+
+    @Test
+    public void getCurrentUserId_shouldSucceed() {
+        // given
+        final MyUserDetails userDetails = new MyUserDetails(buildUser());
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(userDetails, null, null));
+
+        // when
+        final Long result = target.getCurrentUserId();
+
+        // then
+        SecurityContextHolder.clearContext();
+        verifyNoInteractions(userRepository);
+
+        assertEquals(ID, result);
+    }
+
+    @Test
+    public void getCurrentUserId_withUnknownPrincipal_shouldFail() {
+        // given
+        SecurityContextHolder.getContext()
+                .setAuthentication(new UsernamePasswordAuthenticationToken(USER_NAME, null, null));
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.getCurrentUserId());
+
+        // then
+        SecurityContextHolder.clearContext();
+
+        assertEquals(ErrorMessages.INVALID_USER, exception.getMessage());
+    }
+
     /**
      * builds an object used for testing.
      * @return User
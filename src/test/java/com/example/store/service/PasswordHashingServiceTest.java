@@ -0,0 +1,141 @@
+package com.example.store.service;
+
+import com.example.store.dto.PasswordHashingStatsDTO;
+import com.example.store.exception.StoreBusyException;
+import com.example.store.exception.StoreException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.store.util.ErrorMessages.PASSWORD_HASHING_BUSY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link PasswordHashingService}.
+ */
+class PasswordHashingServiceTest {
+
+    private static final String SOME_HASH = "someHash";
+    private static final String SOME_ERROR = "some error";
+    private static final long TIMEOUT_MS = 5000;
+
+    /**
+     * Class being tested (named as target).
+     */
+    private PasswordHashingService target;
+
+    @AfterEach
+    void tearDown() {
+        target.shutdown();
+    }
+
+    @Test
+    void execute_should_returnResultOfTask() {
+        // given
+        target = new PasswordHashingService(1, 1, TIMEOUT_MS);
+
+        // when
+        final String result = target.execute(() -> SOME_HASH);
+
+        // then
+        assertEquals(SOME_HASH, result);
+    }
+
+    @Test
+    void execute_should_rethrowExceptionOfTask() {
+        // given
+        target = new PasswordHashingService(1, 1, TIMEOUT_MS);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.execute(() -> {
+            throw new StoreException(SOME_ERROR);
+        }));
+
+        // then
+        assertEquals(SOME_ERROR, exception.getMessage());
+    }
+
+    @Test
+    void execute_should_reject_when_queueIsFull() throws Exception {
+        // given
+        target = new PasswordHashingService(1, 1, TIMEOUT_MS);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> target.execute(() -> {
+            started.countDown();
+            await(release);
+            return SOME_HASH;
+        }));
+        assertTrue(started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        final CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> target.execute(() -> SOME_HASH));
+        waitForQueueDepth(1);
+
+        // when
+        final StoreBusyException exception = assertThrows(StoreBusyException.class,
+                () -> target.execute(() -> SOME_HASH));
+
+        // then
+        assertEquals(PASSWORD_HASHING_BUSY, exception.getMessage());
+        release.countDown();
+        assertEquals(SOME_HASH, running.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(SOME_HASH, queued.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, target.getStats().getRejected());
+    }
+
+    @Test
+    void execute_should_reject_when_timeoutExpires() {
+        // given
+        target = new PasswordHashingService(1, 1, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // when
+        final StoreBusyException exception = assertThrows(StoreBusyException.class, () -> target.execute(() -> {
+            await(release);
+            return SOME_HASH;
+        }));
+
+        // then
+        release.countDown();
+        assertEquals(PASSWORD_HASHING_BUSY, exception.getMessage());
+        assertEquals(1, target.getStats().getRejected());
+    }
+
+    @Test
+    void getStats_should_succeed() {
+        // given
+        target = new PasswordHashingService(2, 3, TIMEOUT_MS);
+        target.execute(() -> SOME_HASH);
+
+        // when
+        final PasswordHashingStatsDTO result = target.getStats();
+
+        // then
+        assertEquals(2, result.getPoolSize());
+        assertEquals(3, result.getQueueCapacity());
+        assertEquals(0, result.getQueueDepth());
+        assertEquals(0, result.getRejected());
+        assertTrue(result.getMaxHashMicros() >= result.getAverageHashMicros());
+        assertTrue(result.getMaxWaitMicros() >= result.getAverageWaitMicros());
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void waitForQueueDepth(int queueDepth) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MS);
+        while (target.getStats().getQueueDepth() < queueDepth && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(queueDepth, target.getStats().getQueueDepth());
+    }
+}
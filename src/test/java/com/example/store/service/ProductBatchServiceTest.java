@@ -0,0 +1,347 @@
+package com.example.store.service;
+
+import com.example.store.dto.BatchResultDTO;
+import com.example.store.dto.BatchUpdateDTO;
+import com.example.store.dto.IdListDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.UserDTO;
+import com.example.store.exception.StoreException;
+import com.example.store.model.Product;
+import com.example.store.model.User;
+import com.example.store.repository.ProductRepository;
+import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static com.example.store.util.Constants.BATCH_CHUNK_SIZE;
+import static com.example.store.util.Constants.MAX_BATCH_SIZE;
+import static com.example.store.util.Constants.SET_BASED_CHUNK_SIZE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link ProductBatchService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductBatchServiceTest {
+
+    private static final String USERNAME = "username";
+    private static final String PSEUDONYM = "pseudonym";
+    private static final String UNKNOWN = "unknown";
+    private static final Long USER_ID = 1L;
+    private static final Double PRICE = 9.99d;
+
+    @Mock
+    private ProductRepository productRepository = Mockito.mock(ProductRepository.class);
+
+    @Mock
+    private UserCacheService userCacheService = Mockito.mock(UserCacheService.class);
+
+    @Mock
+    private EntityManager entityManager = Mockito.mock(EntityManager.class);
+
+    @Mock
+    private TransactionTemplate transactionTemplate = Mockito.mock(TransactionTemplate.class);
+
+    @Mock
+    private TitleIndexService titleIndexService = Mockito.mock(TitleIndexService.class);
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService = Mockito.mock(CatalogSnapshotService.class);
+
+    @Mock
+    private ProductCacheService productCacheService = Mockito.mock(ProductCacheService.class);
+
+    @Mock
+    private MyUserDetailsService myUserDetailsService = Mockito.mock(MyUserDetailsService.class);
+
+    private final MapperService mapperService = new MapperService();
+
+    private ProductBatchService target;
+
+    /**
+     * Last id generated by the simulated saveAll.
+     */
+    private long lastId;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        target = new ProductBatchService(productRepository, userCacheService, mapperService, entityManager,
+                transactionTemplate, titleIndexService, catalogSnapshotService, productCacheService,
+                myUserDetailsService);
+        // the callbacks run as if the transaction was started.
+        Mockito.lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        Mockito.lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    void saveProducts_withSameAuthor_shouldReadAuthorOnce() {
+        // given
+        final List<ProductDTO> products = new ArrayList<>();
+        for (int i = 0; i < BATCH_CHUNK_SIZE + 1; i++) {
+            products.add(buildProductDto(USERNAME, null));
+        }
+
+        when(userCacheService.findAllByUsername(Set.of(USERNAME))).thenReturn(Map.of(USERNAME, buildUser()));
+        doAnswer(invocation -> assignIds(invocation.getArgument(0))).when(productRepository).saveAll(anyList());
+
+        // when
+        final BatchResultDTO result = target.saveProducts(products);
+
+        // then one author query, and the products are persisted in 2 chunks.
+        verify(userCacheService).findAllByUsername(Set.of(USERNAME));
+        verify(productRepository, times(2)).saveAll(anyList());
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+        verify(titleIndexService, times(products.size())).index(any(), any());
+        verify(catalogSnapshotService).markChanged();
+        verifyNoMoreInteractions(userCacheService, productRepository, catalogSnapshotService);
+
+        assertEquals(products.size(), result.getSucceeded());
+        assertEquals(0, result.getFailed());
+        assertEquals(products.size(), result.getItems().size());
+        assertEquals(1L, result.getItems().get(0).getId());
+        assertEquals((long) products.size(), result.getItems().get(products.size() - 1).getId());
+    }
+
+    @Test
+    void saveProducts_withInvalidAuthors_shouldReportFailedItems() {
+        // given
+        final ProductDTO withoutAuthor = buildProductDto(null, null);
+        withoutAuthor.setAuthor(null);
+        final List<ProductDTO> products = List.of(buildProductDto(null, PSEUDONYM), withoutAuthor,
+                buildProductDto(UNKNOWN, null));
+
+        when(userCacheService.findAllByUsername(Set.of(UNKNOWN))).thenReturn(new HashMap<>());
+        when(userCacheService.findAllByPseudonym(Set.of(PSEUDONYM))).thenReturn(Map.of(PSEUDONYM, buildUser()));
+        doAnswer(invocation -> assignIds(invocation.getArgument(0))).when(productRepository).saveAll(anyList());
+
+        // when
+        final BatchResultDTO result = target.saveProducts(products);
+
+        // then
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(1L, result.getItems().get(0).getId());
+        assertNull(result.getItems().get(0).getError());
+        assertEquals(ErrorMessages.INVALID_USER, result.getItems().get(1).getError());
+        assertEquals(ErrorMessages.PRODUCT_HAS_INVALID_USER, result.getItems().get(2).getError());
+        assertEquals(2, result.getItems().get(2).getIndex());
+    }
+
+    @Test
+    void saveProducts_withoutValidItems_shouldNotPersist() {
+        // given
+        final List<ProductDTO> products = List.of(buildProductDto(null, null));
+
+        when(userCacheService.findAllById(Set.of(USER_ID))).thenReturn(new HashMap<>());
+
+        // when
+        final BatchResultDTO result = target.saveProducts(products);
+
+        // then
+        verifyNoInteractions(productRepository, transactionTemplate, titleIndexService, catalogSnapshotService);
+
+        assertEquals(0, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+    }
+
+    @Test
+    void saveProducts_withTooManyItems_shouldFail() {
+        // given
+        final List<ProductDTO> products = new ArrayList<>();
+        for (int i = 0; i <= MAX_BATCH_SIZE; i++) {
+            products.add(new ProductDTO());
+        }
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.saveProducts(products));
+
+        // then
+        verifyNoInteractions(userCacheService, productRepository);
+
+        assertEquals(ErrorMessages.INVALID_BATCH_SIZE, exception.getMessage());
+    }
+
+    @Test
+    void saveProducts_withEmptyList_shouldFail() {
+        // when
+        final StoreException exception =
+                assertThrows(StoreException.class, () -> target.saveProducts(new ArrayList<>()));
+
+        // then
+        assertEquals(ErrorMessages.INVALID_BATCH_SIZE, exception.getMessage());
+    }
+
+    @Test
+    void updateProducts_shouldUpdateOwnedProductsInChunks() {
+        // given
+        final List<Long> ids = buildIds(SET_BASED_CHUNK_SIZE + 1);
+        final List<Long> firstChunk = ids.subList(0, SET_BASED_CHUNK_SIZE);
+        final List<Long> secondChunk = ids.subList(SET_BASED_CHUNK_SIZE, ids.size());
+        final BatchUpdateDTO batchUpdate = new BatchUpdateDTO();
+        batchUpdate.setIds(ids);
+        batchUpdate.setPrice(PRICE);
+
+        when(myUserDetailsService.getCurrentUserId()).thenReturn(USER_ID);
+        when(productRepository.updatePriceAndQuantityByAuthor(firstChunk, USER_ID, PRICE, null))
+                .thenReturn(List.of(1L, 2L));
+        when(productRepository.updatePriceAndQuantityByAuthor(secondChunk, USER_ID, PRICE, null))
+                .thenReturn(new ArrayList<>());
+
+        // when
+        final IdListDTO result = target.updateProducts(batchUpdate);
+
+        // then each chunk is a single statement, which returns the updated ids.
+        verify(productRepository).updatePriceAndQuantityByAuthor(firstChunk, USER_ID, PRICE, null);
+        verify(productRepository).updatePriceAndQuantityByAuthor(secondChunk, USER_ID, PRICE, null);
+        verify(productCacheService).invalidate(1L);
+        verify(productCacheService).invalidate(2L);
+        verify(catalogSnapshotService).markChanged();
+        verifyNoMoreInteractions(productRepository, productCacheService, catalogSnapshotService);
+        verifyNoInteractions(titleIndexService);
+
+        assertEquals(List.of(1L, 2L), result.getIds());
+    }
+
+    @Test
+    void updateProducts_withoutChanges_shouldFail() {
+        // given
+        final BatchUpdateDTO batchUpdate = new BatchUpdateDTO();
+        batchUpdate.setIds(List.of(1L));
+
+        // when
+        final StoreException exception =
+                assertThrows(StoreException.class, () -> target.updateProducts(batchUpdate));
+
+        // then
+        verifyNoInteractions(productRepository, myUserDetailsService);
+
+        assertEquals(ErrorMessages.NOTHING_TO_UPDATE, exception.getMessage());
+    }
+
+    @Test
+    void deleteProducts_withDuplicatedIds_shouldDeleteOwnedProducts() {
+        // given
+        final IdListDTO idList = new IdListDTO(List.of(1L, 2L, 1L));
+        final List<Long> distinctIds = List.of(1L, 2L);
+
+        when(myUserDetailsService.getCurrentUserId()).thenReturn(USER_ID);
+        when(productRepository.deleteByAuthor(distinctIds, USER_ID)).thenReturn(List.of(2L));
+
+        // when
+        final IdListDTO result = target.deleteProducts(idList);
+
+        // then only the product of the current user is reported.
+        verify(productRepository).deleteByAuthor(distinctIds, USER_ID);
+        verify(titleIndexService).remove(2L);
+        verify(productCacheService).invalidate(2L);
+        verify(catalogSnapshotService).markChanged();
+        verifyNoMoreInteractions(productRepository, titleIndexService, productCacheService, catalogSnapshotService);
+
+        assertEquals(List.of(2L), result.getIds());
+    }
+
+    @Test
+    void deleteProducts_withoutOwnedProducts_shouldNotMarkChanged() {
+        // given
+        final IdListDTO idList = new IdListDTO(List.of(1L));
+
+        when(myUserDetailsService.getCurrentUserId()).thenReturn(USER_ID);
+        when(productRepository.deleteByAuthor(idList.getIds(), USER_ID)).thenReturn(new ArrayList<>());
+
+        // when
+        final IdListDTO result = target.deleteProducts(idList);
+
+        // then
+        verifyNoInteractions(titleIndexService, productCacheService, catalogSnapshotService);
+
+        assertTrue(result.getIds().isEmpty());
+    }
+
+    /**
+     * builds the ids 1..count.
+     * @param count int
+     * @return List of ids
+     */
+    private List<Long> buildIds(int count) {
+        final List<Long> result = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    /**
+     * Simulates the id generation done by saveAll.
+     * @param products List of Product
+     * @return the same products
+     */
+    private List<Product> assignIds(List<Product> products) {
+        for (Product product : products) {
+            product.setId(++lastId);
+        }
+        return products;
+    }
+
+    /**
+     * builds an object used for testing.
+     * @param username String author username
+     * @param pseudonym String author pseudonym
+     * @return ProductDTO
+     */
+    private ProductDTO buildProductDto(String username, String pseudonym) {
+        final ProductDTO product = new ProductDTO();
+        final UserDTO author = new UserDTO();
+        author.setUsername(username);
+        author.setPseudonym(pseudonym);
+        author.setId(USER_ID);
+        product.setAuthor(author);
+        product.setTitle("title");
+        product.setPrice(10d);
+        product.setQuantity(10L);
+        return product;
+    }
+
+    /**
+     * builds an object used for testing.
+     * @return User
+     */
+    private User buildUser() {
+        final User user = new User();
+        user.setId(USER_ID);
+        user.setUsername(USERNAME);
+        user.setPseudonym(PSEUDONYM);
+        return user;
+    }
+}
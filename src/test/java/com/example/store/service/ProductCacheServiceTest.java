@@ -0,0 +1,166 @@
+package com.example.store.service;
+
+import com.example.store.dto.CacheStatsDTO;
+import com.example.store.dto.ProductDTO;
+import com.example.store.exception.StoreException;
+import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ProductCacheService}.
+ * The loader counts its calls, so we can check how many times the database would have been hit.
+ */
+class ProductCacheServiceTest {
+
+    private static final Long ID = 1L;
+    private static final int MAX_SIZE = 2;
+    private static final long TTL_MS = 60000;
+
+    private final AtomicInteger loaderCalls = new AtomicInteger();
+
+    private final ProductCacheService target = new ProductCacheService(MAX_SIZE, TTL_MS);
+
+    @Test
+    void get_calledTwice_shouldLoadOnce() {
+        // when
+        final ProductDTO first = target.get(ID, this::load);
+        final ProductDTO second = target.get(ID, this::load);
+
+        // then
+        final CacheStatsDTO stats = target.getStats();
+        assertSame(first, second);
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getLoads());
+    }
+
+    @Test
+    void get_afterInvalidate_shouldLoadAgain() {
+        // given
+        target.get(ID, this::load);
+
+        // when
+        target.invalidate(ID);
+        target.get(ID, this::load);
+
+        // then
+        assertEquals(2, loaderCalls.get());
+    }
+
+    @Test
+    void get_withMoreEntriesThanMaxSize_shouldEvictLeastRecentlyUsed() {
+        // given
+        target.get(1L, this::load);
+        target.get(2L, this::load);
+        target.get(1L, this::load);
+
+        // when
+        target.get(3L, this::load);
+
+        // then 2 was the least recently used entry.
+        assertNull(target.getIfPresent(2L));
+        assertEquals(1, target.getStats().getEvictions());
+        assertEquals(MAX_SIZE, target.getStats().getSize());
+    }
+
+    @Test
+    void get_withExpiredEntry_shouldLoadAgain() throws Exception {
+        // given
+        final ProductCacheService shortLivedCache = new ProductCacheService(MAX_SIZE, 1);
+        shortLivedCache.get(ID, this::load);
+        Thread.sleep(5);
+
+        // when
+        shortLivedCache.get(ID, this::load);
+
+        // then
+        assertEquals(2, loaderCalls.get());
+        assertEquals(1, shortLivedCache.getStats().getEvictions());
+    }
+
+    @Test
+    void get_withFailingLoader_shouldNotCacheException() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.get(ID, this::fail));
+        target.get(ID, this::load);
+
+        // then
+        assertEquals(ErrorMessages.PRODUCT_NOT_FOUND, exception.getMessage());
+        assertEquals(1, loaderCalls.get());
+    }
+
+    @Test
+    void get_withConcurrentMisses_shouldLoadOnce() throws Exception {
+        // given a loader which blocks until all the callers are waiting
+        final int callers = 8;
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(callers);
+        final Future<?>[] futures = new Future<?>[callers];
+
+        // when
+        for (int i = 0; i < callers; i++) {
+            futures[i] = executor.submit(() -> target.get(ID, id -> blockingLoad(id, release)));
+        }
+        while (target.getStats().getMisses() < callers) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(1, loaderCalls.get());
+        assertEquals(1, target.getStats().getLoads());
+    }
+
+    /**
+     * Loader used for testing.
+     * @param id Long
+     * @return ProductDTO
+     */
+    private ProductDTO load(Long id) {
+        loaderCalls.incrementAndGet();
+        final ProductDTO result = new ProductDTO();
+        result.setId(id);
+        return result;
+    }
+
+    /**
+     * Loader used for testing which waits for the latch.
+     * @param id Long
+     * @param release CountDownLatch
+     * @return ProductDTO
+     */
+    private ProductDTO blockingLoad(Long id, CountDownLatch release) {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return load(id);
+    }
+
+    /**
+     * Loader used for testing which fails.
+     * @param id Long
+     * @return nothing, it always fails
+     */
+    private ProductDTO fail(Long id) {
+        throw new StoreException(ErrorMessages.PRODUCT_NOT_FOUND);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.UserDTO;
+import com.example.store.model.Product;
+import com.example.store.model.User;
+import com.example.store.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link ProductExportService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository = mock(ProductRepository.class);
+    @Mock
+    private MapperService mapperService = mock(MapperService.class);
+    @Mock
+    private EntityManager entityManager = mock(EntityManager.class);
+
+    private ProductExportService target;
+
+    @BeforeEach
+    void setUp() {
+        target = new ProductExportService(productRepository, mapperService, entityManager, new ObjectMapper());
+    }
+
+    @Test
+    void exportAsNdjson_shouldWriteOneLinePerProduct() throws Exception {
+        // given
+        final Product first = new Product();
+        first.setId(1L);
+        first.setAuthor(buildUser(1L));
+        final Product second = new Product();
+        second.setId(2L);
+        second.setAuthor(buildUser(2L));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        when(productRepository.streamAllOrderedById()).thenReturn(Stream.of(first, second));
+        when(mapperService.getProductDto(first)).thenReturn(buildProductDto(1L, "first"));
+        when(mapperService.getProductDto(second)).thenReturn(buildProductDto(2L, "second"));
+
+        // when
+        target.exportAsNdjson(outputStream);
+
+        // then every product and its author are detached once written, so memory doesn't grow with the catalog size
+        // (nor with the number of authors).
+        verify(productRepository).streamAllOrderedById();
+        verify(entityManager).detach(first);
+        verify(entityManager).detach(first.getAuthor());
+        verify(entityManager).detach(second);
+        verify(entityManager).detach(second.getAuthor());
+        verifyNoMoreInteractions(productRepository, entityManager);
+
+        final String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"title\":\"first\""));
+        assertTrue(lines[1].contains("\"title\":\"second\""));
+    }
+
+    @Test
+    void exportAsXml_shouldWriteSingleDocument() throws Exception {
+        // given
+        final Product product = new Product();
+        product.setAuthor(buildUser(1L));
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        when(productRepository.streamAllOrderedById()).thenReturn(Stream.of(product));
+        when(mapperService.getProductDto(product)).thenReturn(buildProductDto(1L, "first"));
+
+        // when
+        target.exportAsXml(outputStream);
+
+        // then
+        verify(entityManager).detach(product);
+        verify(entityManager).detach(product.getAuthor());
+
+        final String result = outputStream.toString(StandardCharsets.UTF_8);
+        assertTrue(result.startsWith("<?xml"));
+        assertTrue(result.contains("<products><product>"));
+        assertTrue(result.contains("<title>first</title>"));
+        assertTrue(result.endsWith("</product></products>"));
+    }
+
+    @Test
+    void exportAsXml_withEmptyCatalog_shouldWriteEmptyDocument() throws Exception {
+        // given
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        when(productRepository.streamAllOrderedById()).thenReturn(Stream.empty());
+
+        // when
+        target.exportAsXml(outputStream);
+
+        // then
+        verifyNoInteractions(mapperService, entityManager);
+
+        assertTrue(outputStream.toString(StandardCharsets.UTF_8).endsWith("<products></products>"));
+    }
+
+    /**
+     * builds an object used for testing.
+     * @param id Long
+     * @param title String
+     * @return ProductDTO
+     */
+    private ProductDTO buildProductDto(Long id, String title) {
+        final ProductDTO result = new ProductDTO();
+        result.setId(id);
+        result.setTitle(title);
+        result.setAuthor(new UserDTO());
+        return result;
+    }
+
+    /**
+     * builds an object used for testing.
+     * @param id Long
+     * @return User
+     */
+    private User buildUser(Long id) {
+        final User result = new User();
+        result.setId(id);
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.store.service;
+
+import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductField;
+import com.example.store.dto.UserDTO;
+import com.example.store.exception.StoreException;
+import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link ProductFieldService}.
+ */
+class ProductFieldServiceTest {
+
+    private final ProductFieldService target = new ProductFieldService();
+
+    @Test
+    void parse_withFields_shouldAlwaysContainId() {
+        // when
+        final Set<ProductField> result = target.parse(" title, price,,coverImage ");
+
+        // then
+        assertEquals(EnumSet.of(ProductField.ID, ProductField.TITLE, ProductField.COVER_IMAGE, ProductField.PRICE),
+                result);
+    }
+
+    @Test
+    void parse_withoutFields_shouldReturnAllFields() {
+        // when
+        final Set<ProductField> result = target.parse(null);
+
+        // then null means that all the fields are requested.
+        assertNull(result);
+    }
+
+    @Test
+    void parse_withUnknownField_shouldFail() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.parse("title,cover_image"));
+
+        // then
+        assertEquals(ErrorMessages.INVALID_FIELDS + "cover_image", exception.getMessage());
+    }
+
+    @Test
+    void toKey_shouldNotDependOnOrder() {
+        // when
+        final String result = target.toKey("author,title");
+
+        // then
+        assertEquals(".id.title.author", result);
+        assertEquals(result, target.toKey("title,author"));
+        assertEquals("", target.toKey(null));
+    }
+
+    @Test
+    void select_withFields_shouldCopyOnlyTheFields() {
+        // given
+        final ProductDTO product = buildProductDto();
+
+        // when
+        final ProductDTO result = target.select(product, EnumSet.of(ProductField.ID, ProductField.AUTHOR));
+
+        // then
+        assertEquals(product.getId(), result.getId());
+        assertSame(product.getAuthor(), result.getAuthor());
+        assertNull(result.getTitle());
+        assertNull(result.getDescription());
+        assertNull(result.getVersion());
+    }
+
+    @Test
+    void select_withoutFields_shouldReturnTheProduct() {
+        // given
+        final ProductDTO product = buildProductDto();
+
+        // when
+        final ProductDTO result = target.select(product, null);
+
+        // then
+        assertSame(product, result);
+    }
+
+    /**
+     * builds an object used for testing.
+     * @return ProductDTO
+     */
+    private ProductDTO buildProductDto() {
+        return new ProductDTO(1L, 10L, "title", "description", "coverImage", 10d, 3L, 2L, "username", "pseudonym");
+    }
+}
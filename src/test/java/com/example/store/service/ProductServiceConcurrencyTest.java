@@ -0,0 +1,103 @@
+package com.example.store.service;
+
+import com.example.store.exception.StoreException;
+import com.example.store.model.Product;
+import com.example.store.repository.ProductRepository;
+import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stress test of {@link ProductService#purchaseProduct(Long, Long)} against the database:
+ * many concurrent buyers of the same product must never oversell it, nor lose a decrement.
+ */
+@SpringBootTest
+class ProductServiceConcurrencyTest {
+
+    private static final long STOCK = 100;
+    private static final int BUYERS = 400;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        final Product product = new Product();
+        product.setTitle("hot product");
+        product.setPrice(10d);
+        product.setQuantity(STOCK);
+        productId = productRepository.save(product).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteById(productId);
+    }
+
+    @Test
+    void purchaseProduct_withConcurrentBuyers_shouldNotOversell() throws Exception {
+        // given more buyers than units, all released at the same time
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger purchased = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final List<Future<?>> futures = new ArrayList<>(BUYERS);
+        for (int i = 0; i < BUYERS; i++) {
+            futures.add(executor.submit(() -> buy(start, purchased, rejected)));
+        }
+
+        // when
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then exactly the stock was sold, every other buyer was told there is not enough stock.
+        assertEquals(STOCK, purchased.get());
+        assertEquals(BUYERS - STOCK, rejected.get());
+        assertEquals(0L, productRepository.findById(productId).orElseThrow().getQuantity());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Buys one unit once the start gate is open, counting the outcome.
+     * @param start CountDownLatch start gate
+     * @param purchased AtomicInteger successful purchases
+     * @param rejected AtomicInteger purchases rejected for lack of stock
+     */
+    private void buy(CountDownLatch start, AtomicInteger purchased, AtomicInteger rejected) {
+        try {
+            start.await();
+            productService.purchaseProduct(productId, 1L);
+            purchased.incrementAndGet();
+        } catch (StoreException e) {
+            if (ErrorMessages.NOT_ENOUGH_STOCK.equals(e.getMessage())) {
+                rejected.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
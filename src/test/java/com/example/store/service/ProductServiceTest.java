@@ -1,27 +1,43 @@
 package com.example.store.service;
 
 import com.example.store.dto.ProductDTO;
+import com.example.store.dto.ProductField;
+import com.example.store.dto.ProductFilterDTO;
+import com.example.store.dto.ProductPageDTO;
 import com.example.store.dto.UserDTO;
 import com.example.store.exception.StoreException;
+import com.example.store.exception.StorePreconditionFailedException;
 import com.example.store.model.Product;
 import com.example.store.model.User;
 import com.example.store.repository.ProductRepository;
 import com.example.store.repository.UserRepository;
 import com.example.store.util.ErrorMessages;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import static com.example.store.util.Constants.MAX_FILTERED_RESULTS;
+import static com.example.store.util.Constants.MAX_TITLE_IDS_IN_LIST;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.*;
 
 /**
@@ -33,7 +49,15 @@ public class ProductServiceTest {
     private final static String TITLE = "some title";
     private final static Long ID = 1L;
     private final static Long INVALID_ID = 0L;
+    private final static String USERNAME = "user";
     private final static String DIFFERENT_USERNAME = "different username";
+    private final static String CURSOR = "some cursor";
+    private final static String NEXT_CURSOR = "next cursor";
+    private final static Long AFTER_ID = 5L;
+    private final static Integer LIMIT = 2;
+    private final static Long VERSION = 3L;
+    private final static int CACHE_SIZE = 10;
+    private final static long CACHE_TTL_MS = 60000;
 
     @Mock
     private ProductRepository productRepository = Mockito.mock(ProductRepository.class);
@@ -47,26 +71,44 @@ public class ProductServiceTest {
     @Mock
     private MapperService mapperService = Mockito.mock(MapperService.class);
 
-    @InjectMocks
+    @Mock
+    private CursorService cursorService = Mockito.mock(CursorService.class);
+
+    @Mock
+    private TitleIndexService titleIndexService = Mockito.mock(TitleIndexService.class);
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService = Mockito.mock(CatalogSnapshotService.class);
+
+    /**
+     * A real cache is used, so the tests below also cover the read-through behavior.
+     */
+    private ProductCacheService productCacheService;
+
     private ProductService target;
 
+    @BeforeEach
+    void setUp() {
+        productCacheService = new ProductCacheService(CACHE_SIZE, CACHE_TTL_MS);
+        target = new ProductService(productRepository,
+                new UserCacheService(userRepository, CACHE_SIZE, CACHE_TTL_MS, new String[0]), myUserDetailsService, mapperService,
+                cursorService, titleIndexService, productCacheService, catalogSnapshotService, new ProductFieldService());
+    }
+
     @Test
     public void getProducts_withoutTitle_shouldSucceed() {
         // given
-        final List<Product> products = new ArrayList<>();
         final List<ProductDTO> productDTOs = new ArrayList<>();
 
-        when(productRepository.findAll()).thenReturn(products);
-        when(mapperService.getProductsDtoList(products)).thenReturn(productDTOs);
+        when(productRepository.findAllProductDtos()).thenReturn(productDTOs);
 
         // when
         final List<ProductDTO> result = target.getProducts(null);
 
-        // then
-        verify(productRepository).findAll();
-        verify(mapperService).getProductsDtoList(products);
-        verifyNoMoreInteractions(productRepository, mapperService);
-        verifyNoInteractions(userRepository, myUserDetailsService);
+        // then the DTOs are read directly, the entities are not loaded and mapped.
+        verify(productRepository).findAllProductDtos();
+        verifyNoMoreInteractions(productRepository);
+        verifyNoInteractions(userRepository, myUserDetailsService, mapperService);
 
         assertTrue(result.isEmpty());
     }
@@ -74,60 +116,480 @@ public class ProductServiceTest {
     @Test
     public void getProducts_withTitle_shouldSucceed() {
         // given
-        final List<Product> products = new ArrayList<>();
-        final List<ProductDTO> productDTOs = new ArrayList<>();
+        final List<Long> ids = List.of(ID, 3L);
+        final List<ProductDTO> productDTOs = List.of(buildProductDto(), buildProductDto());
+
+        when(titleIndexService.search(TITLE)).thenReturn(ids);
+        when(productRepository.findProductDtosByIdIn(ids)).thenReturn(productDTOs);
+
+        // when
+        final List<ProductDTO> result = target.getProducts(TITLE);
 
-        when(productRepository.findByTitleContaining(TITLE)).thenReturn(products);
-        when(mapperService.getProductsDtoList(products)).thenReturn(productDTOs);
+        // then the ids are found by the title index, so the product table is not scanned.
+        verify(titleIndexService).search(TITLE);
+        verify(productRepository).findProductDtosByIdIn(ids);
+        verifyNoMoreInteractions(productRepository, titleIndexService);
+        verifyNoInteractions(userRepository, myUserDetailsService, mapperService);
+
+        assertEquals(productDTOs, result);
+    }
+
+    @Test
+    public void getProducts_withManyTitleMatches_shouldReadTheIdsByChunks() {
+        // given
+        final List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= MAX_TITLE_IDS_IN_LIST + 1; id++) {
+            ids.add(id);
+        }
+        final List<Long> firstChunk = ids.subList(0, MAX_TITLE_IDS_IN_LIST);
+        final List<Long> secondChunk = List.of((long) MAX_TITLE_IDS_IN_LIST + 1);
+        final ProductDTO firstProduct = buildProductDto();
+        final ProductDTO lastProduct = buildProductDto();
+
+        when(titleIndexService.search(TITLE)).thenReturn(ids);
+        when(productRepository.findProductDtosByIdIn(firstChunk)).thenReturn(List.of(firstProduct));
+        when(productRepository.findProductDtosByIdIn(secondChunk)).thenReturn(List.of(lastProduct));
+
+        // when
+        final List<ProductDTO> result = target.getProducts(TITLE);
+
+        // then each IN list is bounded, and the products stay ordered by id.
+        verify(titleIndexService).search(TITLE);
+        verify(productRepository).findProductDtosByIdIn(firstChunk);
+        verify(productRepository).findProductDtosByIdIn(secondChunk);
+        verifyNoMoreInteractions(productRepository, titleIndexService);
+
+        assertEquals(List.of(firstProduct, lastProduct), result);
+    }
+
+    @Test
+    public void getProducts_withTitleNotFound_shouldNotQueryRepository() {
+        // given
+        when(titleIndexService.search(TITLE)).thenReturn(new ArrayList<>());
 
         // when
         final List<ProductDTO> result = target.getProducts(TITLE);
 
         // then
-        verify(productRepository).findByTitleContaining(TITLE);
-        verify(mapperService).getProductsDtoList(products);
-        verifyNoMoreInteractions(productRepository, mapperService);
-        verifyNoInteractions(userRepository, myUserDetailsService);
+        verify(titleIndexService).search(TITLE);
+        verifyNoInteractions(productRepository, userRepository, myUserDetailsService, mapperService);
 
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    public void getProducts_withFields_shouldReadOnlyTheFields() {
+        // given
+        final Set<ProductField> fields = EnumSet.of(ProductField.ID, ProductField.TITLE, ProductField.PRICE);
+        final List<ProductDTO> productDTOs = List.of(buildProductDto());
+
+        when(productRepository.findProductDtos(fields)).thenReturn(productDTOs);
+
+        // when
+        final List<ProductDTO> result = target.getProducts(null, "title,price");
+
+        // then
+        verify(productRepository).findProductDtos(fields);
+        verifyNoMoreInteractions(productRepository);
+        verifyNoInteractions(titleIndexService, mapperService);
+
+        assertEquals(productDTOs, result);
+    }
+
+    @Test
+    public void getProducts_withUnknownField_shouldFail() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.getProducts(null, "title,password"));
+
+        // then
+        verifyNoInteractions(productRepository, titleIndexService);
+
+        assertEquals(ErrorMessages.INVALID_FIELDS + "password", exception.getMessage());
+    }
+
+    @Test
+    public void getProducts_withFilters_shouldUseSpecification() {
+        // given
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setAuthor(USERNAME);
+        filter.setMinPrice(5d);
+        filter.setInStock(true);
+        final Sort sort = Sort.by(Sort.Order.desc("price"), Sort.Order.asc("title"), Sort.Order.asc("id"));
+        final List<ProductDTO> productDTOs = List.of(buildProductDto());
+
+        when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.of(buildUser()));
+        when(productRepository.findProductDtos(any(), eq(sort), isNull(), eq(MAX_FILTERED_RESULTS + 1)))
+                .thenReturn(productDTOs);
+
+        // when
+        final List<ProductDTO> result = target.getProducts(filter, "-price, title", null);
+
+        // then the author is resolved, so the products are filtered by the author id.
+        verify(userRepository).findByUsername(USERNAME);
+        verify(productRepository).findProductDtos(any(), eq(sort), isNull(), eq(MAX_FILTERED_RESULTS + 1));
+        verifyNoMoreInteractions(productRepository, userRepository);
+        verifyNoInteractions(titleIndexService, mapperService);
+
+        assertEquals(productDTOs, result);
+    }
+
+    @Test
+    public void getProducts_withUnknownAuthor_shouldNotQueryProducts() {
+        // given
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setAuthor(DIFFERENT_USERNAME);
+
+        when(userRepository.findByUsername(DIFFERENT_USERNAME)).thenReturn(Optional.empty());
+
+        // when
+        final List<ProductDTO> result = target.getProducts(filter, null, null);
+
+        // then
+        verify(userRepository).findByUsername(DIFFERENT_USERNAME);
+        verifyNoInteractions(productRepository);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void getProducts_withTitleOnly_shouldUseTitleIndex() {
+        // given
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setTitle(TITLE);
+        final List<Long> ids = List.of(ID);
+        final List<ProductDTO> productDTOs = List.of(buildProductDto());
+
+        when(titleIndexService.search(TITLE)).thenReturn(ids);
+        when(productRepository.findProductDtosByIdIn(ids)).thenReturn(productDTOs);
+
+        // when
+        final List<ProductDTO> result = target.getProducts(filter, null, null);
+
+        // then
+        verify(productRepository).findProductDtosByIdIn(ids);
+        verifyNoMoreInteractions(productRepository);
+
+        assertEquals(productDTOs, result);
+    }
+
+    @Test
+    public void getProducts_withInvalidPriceRange_shouldFail() {
+        // given
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setMinPrice(10d);
+        filter.setMaxPrice(5d);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.getProducts(filter, null, null));
+
+        // then
+        verifyNoInteractions(productRepository, userRepository);
+
+        assertEquals(ErrorMessages.INVALID_PRICE_RANGE, exception.getMessage());
+    }
+
+    @Test
+    public void getProducts_withTooManyResults_shouldFail() {
+        // given
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setInStock(true);
+        final List<ProductDTO> productDTOs = new ArrayList<>();
+        for (int i = 0; i <= MAX_FILTERED_RESULTS; i++) {
+            productDTOs.add(buildProductDto());
+        }
+
+        when(productRepository.findProductDtos(any(), any(), isNull(), eq(MAX_FILTERED_RESULTS + 1)))
+                .thenReturn(productDTOs);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.getProducts(filter, null, null));
+
+        // then the client is asked to narrow the filters, instead of receiving a truncated list.
+        verify(productRepository).findProductDtos(any(), any(), isNull(), eq(MAX_FILTERED_RESULTS + 1));
+        verifyNoMoreInteractions(productRepository);
+
+        assertEquals(ErrorMessages.TOO_MANY_RESULTS, exception.getMessage());
+    }
+
+    @Test
+    public void getProductsPage_withFilters_shouldUseSpecificationOrderedById() {
+        // given
+        final ProductFilterDTO filter = new ProductFilterDTO();
+        filter.setMinPrice(5d);
+        final Sort sort = Sort.by(Sort.Order.asc("id"));
+        final ProductDTO lastProduct = buildProductDto();
+        lastProduct.setId(7L);
+        final List<ProductDTO> products = List.of(buildProductDto(), lastProduct, buildProductDto());
+
+        when(cursorService.decode(CURSOR)).thenReturn(AFTER_ID);
+        when(productRepository.findProductDtos(any(), eq(sort), isNull(), eq(LIMIT + 1))).thenReturn(products);
+        when(cursorService.encode(lastProduct.getId())).thenReturn(NEXT_CURSOR);
+
+        // when
+        final ProductPageDTO result = target.getProductsPage(filter, CURSOR, LIMIT, null);
+
+        // then one extra row is read, so we know that there is a next page.
+        verify(cursorService).decode(CURSOR);
+        verify(productRepository).findProductDtos(any(), eq(sort), isNull(), eq(LIMIT + 1));
+        verify(cursorService).encode(lastProduct.getId());
+        verifyNoMoreInteractions(productRepository, cursorService);
+        verifyNoInteractions(userRepository, titleIndexService, mapperService);
+
+        assertEquals(products.subList(0, LIMIT), result.getProducts());
+        assertEquals(NEXT_CURSOR, result.getNextCursor());
+    }
+
+    @Test
+    public void getProducts_withUnknownSort_shouldFail() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.getProducts(new ProductFilterDTO(), "-description", null));
+
+        // then
+        verifyNoInteractions(productRepository);
+
+        assertEquals(ErrorMessages.INVALID_SORT + "-description", exception.getMessage());
+    }
+
+    @Test
+    public void getProductsPage_withTitleAndFields_shouldReadOnlyTheFields() {
+        // given
+        final Set<ProductField> fields = EnumSet.of(ProductField.ID, ProductField.COVER_IMAGE);
+        final List<Long> ids = List.of(ID, AFTER_ID, 6L);
+        final List<ProductDTO> productDTOs = List.of(buildProductDto());
+
+        when(cursorService.decode(CURSOR)).thenReturn(AFTER_ID);
+        when(titleIndexService.search(TITLE)).thenReturn(ids);
+        when(productRepository.findProductDtosByIdIn(fields, List.of(6L))).thenReturn(productDTOs);
+
+        // when
+        final ProductPageDTO result = target.getProductsPage(TITLE, CURSOR, LIMIT, "coverImage");
+
+        // then
+        verify(titleIndexService).search(TITLE);
+        verify(productRepository).findProductDtosByIdIn(fields, List.of(6L));
+        verify(cursorService).decode(CURSOR);
+        verifyNoMoreInteractions(productRepository, cursorService, titleIndexService);
+
+        assertEquals(productDTOs, result.getProducts());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    public void getProductsPage_withNextPage_shouldReturnCursor() {
+        // given (one extra row is read, so we know that there is a next page)
+        final Pageable pageable = PageRequest.of(0, LIMIT + 1);
+        final ProductDTO lastProduct = buildProductDto();
+        lastProduct.setId(7L);
+        final List<ProductDTO> products = List.of(buildProductDto(), lastProduct, buildProductDto());
+
+        when(cursorService.decode(CURSOR)).thenReturn(AFTER_ID);
+        when(productRepository.findProductDtosByIdGreaterThan(AFTER_ID, pageable)).thenReturn(products);
+        when(cursorService.encode(lastProduct.getId())).thenReturn(NEXT_CURSOR);
+
+        // when
+        final ProductPageDTO result = target.getProductsPage((String) null, CURSOR, LIMIT, null);
+
+        // then
+        verify(cursorService).decode(CURSOR);
+        verify(productRepository).findProductDtosByIdGreaterThan(AFTER_ID, pageable);
+        verify(cursorService).encode(lastProduct.getId());
+        verifyNoMoreInteractions(productRepository, cursorService);
+        verifyNoInteractions(userRepository, myUserDetailsService, mapperService);
+
+        assertEquals(products.subList(0, LIMIT), result.getProducts());
+        assertEquals(NEXT_CURSOR, result.getNextCursor());
+    }
+
+    @Test
+    public void getProductsPage_withTitleOnLastPage_shouldNotReturnCursor() {
+        // given
+        final List<Long> ids = List.of(ID, AFTER_ID, 6L);
+        final List<ProductDTO> productDTOs = List.of(buildProductDto());
+
+        when(cursorService.decode(CURSOR)).thenReturn(AFTER_ID);
+        when(titleIndexService.search(TITLE)).thenReturn(ids);
+        when(productRepository.findProductDtosByIdIn(List.of(6L))).thenReturn(productDTOs);
+
+        // when
+        final ProductPageDTO result = target.getProductsPage(TITLE, CURSOR, LIMIT, null);
+
+        // then only the ids after the cursor are loaded.
+        verify(titleIndexService).search(TITLE);
+        verify(productRepository).findProductDtosByIdIn(List.of(6L));
+        verify(cursorService).decode(CURSOR);
+        verifyNoMoreInteractions(productRepository, cursorService, titleIndexService);
+
+        assertEquals(productDTOs, result.getProducts());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    public void getProductsPage_withInvalidLimit_shouldFail() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.getProductsPage((String) null, null, 0, null));
+
+        // then
+        verifyNoInteractions(productRepository, mapperService, cursorService);
+
+        assertEquals(ErrorMessages.INVALID_PAGE_SIZE, exception.getMessage());
+    }
+
     @Test
     public void getProductById_shouldSucceed() {
         // given
-        final Product product = buildProduct();
         final ProductDTO productDto = buildProductDto();
 
-        when(productRepository.findById(ID)).thenReturn(Optional.of(product));
-        when(mapperService.getProductDto(product)).thenReturn(productDto);
+        when(productRepository.findProductDtoById(ID)).thenReturn(Optional.of(productDto));
 
         // when
         final ProductDTO result = target.getProductById(ID);
 
         // then
-        verify(productRepository).findById(ID);
+        verify(productRepository).findProductDtoById(ID);
+        verifyNoMoreInteractions(productRepository);
+        verifyNoInteractions(userRepository, myUserDetailsService, mapperService);
+
+        assertEquals(productDto, result);
+    }
+
+    @Test
+    public void getProductById_calledTwice_shouldLoadOnce() {
+        // given
+        final ProductDTO productDto = buildProductDto();
+
+        when(productRepository.findProductDtoById(ID)).thenReturn(Optional.of(productDto));
+
+        // when
+        target.getProductById(ID);
+        final ProductDTO result = target.getProductById(ID);
+
+        // then the second call is served from the cache.
+        verify(productRepository).findProductDtoById(ID);
         verifyNoMoreInteractions(productRepository);
-        verifyNoInteractions(userRepository, myUserDetailsService);
 
         assertEquals(productDto, result);
+        assertEquals(1, productCacheService.getStats().getHits());
+        assertEquals(1, productCacheService.getStats().getMisses());
+    }
+
+    @Test
+    public void getProductById_afterUpdate_shouldLoadAgain() {
+        // given
+        final Product product = buildProduct();
+        final ProductDTO productDto = buildProductDto();
+
+        when(productRepository.findProductDtoById(ID)).thenReturn(Optional.of(productDto));
+        when(mapperService.getProduct(productDto)).thenReturn(product);
+        when(userRepository.findByUsername(productDto.getAuthor().getUsername()))
+                .thenReturn(Optional.of(product.getAuthor()));
+        when(productRepository.updateIfVersionMatches(ID, VERSION, product.getTitle(), product.getDescription(),
+                product.getAuthor(), product.getCoverImage(), product.getPrice(), product.getQuantity()))
+                .thenReturn(1);
+        target.getProductById(ID);
+
+        // when
+        target.updateProduct(ID, productDto, VERSION);
+        target.getProductById(ID);
+
+        // then the update invalidated the cached product.
+        verify(productRepository, times(2)).findProductDtoById(ID);
+        assertEquals(0, productCacheService.getStats().getHits());
     }
 
     @Test
     public void getProductById_withInvalidId_shouldFail() {
         // given
-        when(productRepository.findById(INVALID_ID)).thenReturn(Optional.empty());
+        when(productRepository.findProductDtoById(INVALID_ID)).thenReturn(Optional.empty());
 
         // when
         final StoreException exception = assertThrows(StoreException.class, () -> target.getProductById(INVALID_ID));
 
         // then
-        verify(productRepository).findById(INVALID_ID);
+        verify(productRepository).findProductDtoById(INVALID_ID);
         verifyNoMoreInteractions(productRepository);
         verifyNoInteractions(userRepository, myUserDetailsService);
 
         assertEquals(ErrorMessages.PRODUCT_NOT_FOUND, exception.getMessage());
     }
 
+    @Test
+    public void getProductVersion_withCachedProduct_shouldNotReadDatabase() {
+        // given
+        final ProductDTO productDto = buildProductDto();
+        productDto.setVersion(VERSION);
+
+        when(productRepository.findProductDtoById(ID)).thenReturn(Optional.of(productDto));
+        target.getProductById(ID);
+
+        // when
+        final Long result = target.getProductVersion(ID);
+
+        // then
+        verify(productRepository).findProductDtoById(ID);
+        verifyNoMoreInteractions(productRepository);
+
+        assertEquals(VERSION, result);
+    }
+
+    @Test
+    public void getProductVersion_withoutCachedProduct_shouldReadVersion() {
+        // given
+        when(productRepository.findVersionById(ID)).thenReturn(Optional.of(VERSION));
+
+        // when
+        final Long result = target.getProductVersion(ID);
+
+        // then
+        verify(productRepository).findVersionById(ID);
+        verifyNoMoreInteractions(productRepository);
+        verifyNoInteractions(mapperService);
+
+        assertEquals(VERSION, result);
+    }
+
+    @Test
+    public void getProductVersion_withInvalidId_shouldFail() {
+        // given
+        when(productRepository.findVersionById(INVALID_ID)).thenReturn(Optional.empty());
+
+        // when
+        final StoreException exception =
+                assertThrows(StoreException.class, () -> target.getProductVersion(INVALID_ID));
+
+        // then
+        verify(productRepository).findVersionById(INVALID_ID);
+        verifyNoMoreInteractions(productRepository);
+
+        assertEquals(ErrorMessages.PRODUCT_NOT_FOUND, exception.getMessage());
+    }
+
+    @Test
+    public void saveProduct_withIdAndVersion_shouldCreateNewProduct() {
+        // given
+        final ProductDTO product = buildProductDto();
+        final Product productEntity = buildProduct();
+        productEntity.setId(ID);
+        productEntity.setVersion(VERSION);
+
+        when(userRepository.findByUsername(product.getAuthor().getUsername()))
+                .thenReturn(Optional.of(productEntity.getAuthor()));
+        when(mapperService.getProduct(product)).thenReturn(productEntity);
+        when(productRepository.save(productEntity)).thenReturn(productEntity);
+        when(mapperService.getProductDto(productEntity)).thenReturn(product);
+
+        // when
+        target.saveProduct(product);
+
+        // then id and version are generated by the database, so an existing product is never overwritten.
+        verify(productRepository).save(productEntity);
+        assertNull(productEntity.getId());
+        assertNull(productEntity.getVersion());
+    }
+
     @Test
     public void saveProduct_withNullUser_shouldFail() {
         // given
@@ -180,6 +642,8 @@ public class ProductServiceTest {
         // then
         verify(userRepository).findById(ID);
         verify(productRepository).save(productEntity);
+        verify(titleIndexService).index(productEntity.getId(), productEntity.getTitle());
+        verify(catalogSnapshotService).markChanged();
         verify(mapperService).getProduct(product);
         verify(mapperService).getProductDto(productEntity);
         verifyNoMoreInteractions(userRepository, productRepository, mapperService);
@@ -210,6 +674,8 @@ public class ProductServiceTest {
         // then
         verify(userRepository).findByUsername(username);
         verify(productRepository).save(productEntity);
+        verify(titleIndexService).index(productEntity.getId(), productEntity.getTitle());
+        verify(catalogSnapshotService).markChanged();
         verify(mapperService).getProduct(product);
         verify(mapperService).getProductDto(productEntity);
         verifyNoMoreInteractions(userRepository, productRepository, mapperService);
@@ -241,6 +707,8 @@ public class ProductServiceTest {
         // then
         verify(userRepository).findByPseudonym(pseudonym);
         verify(productRepository).save(productEntity);
+        verify(titleIndexService).index(productEntity.getId(), productEntity.getTitle());
+        verify(catalogSnapshotService).markChanged();
         verify(mapperService).getProduct(product);
         verify(mapperService).getProductDto(productEntity);
         verifyNoMoreInteractions(userRepository, productRepository, mapperService);
@@ -251,47 +719,321 @@ public class ProductServiceTest {
 
     /**
      * getProductById and getPersistedAuthor are already fully covered by previous unit tests.
-     * As a result, this is the only relevant test for updateProduct method.
+     * The product is changed by a single conditional statement, it is never loaded before.
      */
     @Test
     public void updateProduct_should_succeed() {
         // given
         final ProductDTO product = buildProductDto();
-        final Product savedProduct = buildProduct();
+        final Product productEntity = buildProduct();
 
-        when(productRepository.findById(ID)).thenReturn(Optional.of(savedProduct));
-        when(userRepository.findByUsername(product.getAuthor().getUsername())).thenReturn(Optional.of(savedProduct.getAuthor()));
-        when(productRepository.save(savedProduct)).thenReturn(savedProduct);
-        when(mapperService.getProductDto(savedProduct)).thenReturn(product);
+        when(mapperService.getProduct(product)).thenReturn(productEntity);
+        when(userRepository.findByUsername(product.getAuthor().getUsername()))
+                .thenReturn(Optional.of(productEntity.getAuthor()));
+        when(productRepository.updateIfVersionMatches(ID, VERSION, productEntity.getTitle(),
+                productEntity.getDescription(), productEntity.getAuthor(), productEntity.getCoverImage(),
+                productEntity.getPrice(), productEntity.getQuantity())).thenReturn(1);
+        when(mapperService.getProductDto(productEntity)).thenReturn(product);
 
         // when
-        final ProductDTO result = target.updateProduct(ID, product);
+        final ProductDTO result = target.updateProduct(ID, product, VERSION);
 
         // then
-        verify(productRepository).findById(ID);
+        verify(mapperService).getProduct(product);
         verify(userRepository).findByUsername(product.getAuthor().getUsername());
-        verify(productRepository).save(savedProduct);
-        verify(mapperService).getProductDto(savedProduct);
+        verify(productRepository).updateIfVersionMatches(ID, VERSION, productEntity.getTitle(),
+                productEntity.getDescription(), productEntity.getAuthor(), productEntity.getCoverImage(),
+                productEntity.getPrice(), productEntity.getQuantity());
+        verify(titleIndexService).index(ID, productEntity.getTitle());
+        verify(catalogSnapshotService).markChanged();
+        verify(mapperService).getProductDto(productEntity);
         verifyNoMoreInteractions(productRepository, userRepository, mapperService);
         verifyNoInteractions(myUserDetailsService);
 
         assertEquals(product, result);
+        assertEquals(ID, productEntity.getId());
+        assertEquals(VERSION + 1, productEntity.getVersion());
+    }
+
+    @Test
+    public void saveProduct_withinTransaction_should_updateIndexAfterCommit() {
+        // given a transaction in progress (the group commit of AsyncWriteService)
+        final ProductDTO product = buildProductDto();
+        final Product productEntity = buildProduct();
+        final Product persistedProduct = buildProduct();
+        persistedProduct.setId(ID);
+
+        when(mapperService.getProduct(product)).thenReturn(productEntity);
+        when(userRepository.findByUsername(product.getAuthor().getUsername()))
+                .thenReturn(Optional.of(productEntity.getAuthor()));
+        when(productRepository.save(productEntity)).thenReturn(persistedProduct);
+        when(mapperService.getProductDto(persistedProduct)).thenReturn(product);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // when
+            target.saveProduct(product);
+
+            // then nothing is indexed before the commit.
+            verifyNoInteractions(titleIndexService, catalogSnapshotService);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+            verify(titleIndexService).index(ID, persistedProduct.getTitle());
+            verify(catalogSnapshotService).markChanged();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void updateProduct_withoutExpectedVersion_should_updateWithoutPrecondition() {
+        // given
+        final ProductDTO product = buildProductDto();
+        final Product productEntity = buildProduct();
+        final Map<ProductField, Object> values = buildUpdateValues(productEntity);
+
+        when(mapperService.getProduct(product)).thenReturn(productEntity);
+        when(userRepository.findByUsername(product.getAuthor().getUsername()))
+                .thenReturn(Optional.of(productEntity.getAuthor()));
+        when(productRepository.updateFields(ID, values)).thenReturn(Optional.of(VERSION + 5));
+        when(mapperService.getProductDto(productEntity)).thenReturn(product);
+
+        // when
+        final ProductDTO result = target.updateProduct(ID, product, null);
+
+        // then the version is neither read before nor checked by the update, the new one is returned.
+        verify(productRepository).updateFields(ID, values);
+        verifyNoMoreInteractions(productRepository);
+        verify(titleIndexService).index(ID, productEntity.getTitle());
+        verify(catalogSnapshotService).markChanged();
+
+        assertEquals(product, result);
+        assertEquals(VERSION + 5, productEntity.getVersion());
+    }
+
+    @Test
+    public void updateProduct_withoutExpectedVersionAndInvalidId_should_fail() {
+        // given
+        final ProductDTO product = buildProductDto();
+        final Product productEntity = buildProduct();
+
+        when(mapperService.getProduct(product)).thenReturn(productEntity);
+        when(userRepository.findByUsername(product.getAuthor().getUsername()))
+                .thenReturn(Optional.of(productEntity.getAuthor()));
+        when(productRepository.updateFields(INVALID_ID, buildUpdateValues(productEntity)))
+                .thenReturn(Optional.empty());
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.updateProduct(INVALID_ID, product, null));
+
+        // then
+        assertEquals(ErrorMessages.PRODUCT_NOT_FOUND, exception.getMessage());
+        verifyNoInteractions(titleIndexService, catalogSnapshotService);
+    }
+
+    @Test
+    public void updateProduct_withOtherVersion_should_fail() {
+        // given
+        final ProductDTO product = buildProductDto();
+        final Product productEntity = buildProduct();
+
+        when(mapperService.getProduct(product)).thenReturn(productEntity);
+        when(userRepository.findByUsername(product.getAuthor().getUsername()))
+                .thenReturn(Optional.of(productEntity.getAuthor()));
+        when(productRepository.updateIfVersionMatches(ID, VERSION, productEntity.getTitle(),
+                productEntity.getDescription(), productEntity.getAuthor(), productEntity.getCoverImage(),
+                productEntity.getPrice(), productEntity.getQuantity())).thenReturn(0);
+        when(productRepository.existsById(ID)).thenReturn(true);
+
+        // when
+        final StorePreconditionFailedException exception = assertThrows(StorePreconditionFailedException.class,
+                () -> target.updateProduct(ID, product, VERSION));
+
+        // then nothing is changed outside the database.
+        assertEquals(ErrorMessages.PRODUCT_VERSION_MISMATCH, exception.getMessage());
+        verify(productRepository).existsById(ID);
+        verifyNoInteractions(titleIndexService, catalogSnapshotService);
+    }
+
+    @Test
+    public void updateProduct_withInvalidId_should_fail() {
+        // given
+        final ProductDTO product = buildProductDto();
+        final Product productEntity = buildProduct();
+
+        when(mapperService.getProduct(product)).thenReturn(productEntity);
+        when(userRepository.findByUsername(product.getAuthor().getUsername()))
+                .thenReturn(Optional.of(productEntity.getAuthor()));
+        when(productRepository.updateIfVersionMatches(INVALID_ID, VERSION, productEntity.getTitle(),
+                productEntity.getDescription(), productEntity.getAuthor(), productEntity.getCoverImage(),
+                productEntity.getPrice(), productEntity.getQuantity())).thenReturn(0);
+        when(productRepository.existsById(INVALID_ID)).thenReturn(false);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.updateProduct(INVALID_ID, product, VERSION));
+
+        // then
+        assertEquals(ErrorMessages.PRODUCT_NOT_FOUND, exception.getMessage());
+        verifyNoInteractions(titleIndexService, catalogSnapshotService);
+    }
+
+    @Test
+    public void patchProduct_should_writeOnlyProvidedFields() {
+        // given
+        final ProductDTO patch = new ProductDTO();
+        patch.setPrice(9.99);
+        patch.setQuantity(5L);
+        final Map<ProductField, Object> values = new EnumMap<>(ProductField.class);
+        values.put(ProductField.QUANTITY, 5L);
+        values.put(ProductField.PRICE, 9.99);
+        final ProductDTO productDto = buildProductDto();
+
+        when(productRepository.updateFieldsIfVersionMatches(ID, VERSION, values)).thenReturn(1);
+        when(productRepository.findProductDtoById(ID)).thenReturn(Optional.of(productDto));
+
+        // when
+        final ProductDTO result = target.patchProduct(ID, patch, VERSION);
+
+        // then the title is unchanged, so the title index is not touched.
+        verify(productRepository).updateFieldsIfVersionMatches(ID, VERSION, values);
+        verify(productRepository).findProductDtoById(ID);
+        verify(catalogSnapshotService).markChanged();
+        verifyNoMoreInteractions(productRepository);
+        verifyNoInteractions(userRepository, mapperService, titleIndexService);
+
+        assertEquals(productDto, result);
+    }
+
+    @Test
+    public void patchProduct_withTitleAndAuthor_should_succeed() {
+        // given
+        final ProductDTO patch = new ProductDTO();
+        patch.setTitle(TITLE);
+        patch.setAuthor(buildUserDto());
+        final User author = buildUser();
+        final Map<ProductField, Object> values = new EnumMap<>(ProductField.class);
+        values.put(ProductField.TITLE, TITLE);
+        values.put(ProductField.AUTHOR, author);
+        final ProductDTO productDto = buildProductDto();
+
+        when(userRepository.findByUsername(author.getUsername())).thenReturn(Optional.of(author));
+        when(productRepository.updateFields(ID, values)).thenReturn(Optional.of(VERSION + 1));
+        when(productRepository.findProductDtoById(ID)).thenReturn(Optional.of(productDto));
+
+        // when
+        final ProductDTO result = target.patchProduct(ID, patch, null);
+
+        // then without If-Match the version is neither read nor checked.
+        verify(productRepository).updateFields(ID, values);
+        verify(productRepository).findProductDtoById(ID);
+        verifyNoMoreInteractions(productRepository);
+        verify(titleIndexService).index(ID, TITLE);
+        assertEquals(productDto, result);
+    }
+
+    @Test
+    public void patchProduct_withoutFields_should_fail() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.patchProduct(ID, new ProductDTO(), VERSION));
+
+        // then
+        assertEquals(ErrorMessages.EMPTY_PATCH, exception.getMessage());
+        verifyNoInteractions(productRepository, titleIndexService, catalogSnapshotService);
+    }
+
+    @Test
+    public void patchProduct_withOtherVersion_should_fail() {
+        // given
+        final ProductDTO patch = new ProductDTO();
+        patch.setPrice(9.99);
+        final Map<ProductField, Object> values = new EnumMap<>(ProductField.class);
+        values.put(ProductField.PRICE, 9.99);
+
+        when(productRepository.updateFieldsIfVersionMatches(ID, VERSION, values)).thenReturn(0);
+        when(productRepository.existsById(ID)).thenReturn(true);
+
+        // when
+        final StorePreconditionFailedException exception = assertThrows(StorePreconditionFailedException.class,
+                () -> target.patchProduct(ID, patch, VERSION));
+
+        // then
+        assertEquals(ErrorMessages.PRODUCT_VERSION_MISMATCH, exception.getMessage());
+        verifyNoInteractions(titleIndexService, catalogSnapshotService);
+    }
+
+    @Test
+    public void purchaseProduct_should_succeed() {
+        // given
+        when(productRepository.decrementQuantity(ID, 2L)).thenReturn(1);
+
+        // when
+        final boolean result = target.purchaseProduct(ID, 2L);
+
+        // then the stock is checked and decremented by the same statement.
+        verify(productRepository).decrementQuantity(ID, 2L);
+        verify(catalogSnapshotService).markStockChanged();
+        verifyNoMoreInteractions(productRepository);
+
+        assertTrue(result);
+    }
+
+    @Test
+    public void purchaseProduct_withInvalidQuantity_should_fail() {
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.purchaseProduct(ID, 0L));
+
+        // then
+        assertEquals(ErrorMessages.INVALID_PURCHASE_QUANTITY, exception.getMessage());
+        verifyNoInteractions(productRepository, catalogSnapshotService);
+    }
+
+    @Test
+    public void purchaseProduct_withNotEnoughStock_should_fail() {
+        // given
+        when(productRepository.decrementQuantity(ID, 2L)).thenReturn(0);
+        when(productRepository.existsById(ID)).thenReturn(true);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.purchaseProduct(ID, 2L));
+
+        // then
+        assertEquals(ErrorMessages.NOT_ENOUGH_STOCK, exception.getMessage());
+        verifyNoInteractions(catalogSnapshotService);
+    }
+
+    @Test
+    public void purchaseProduct_withInvalidId_should_fail() {
+        // given
+        when(productRepository.decrementQuantity(INVALID_ID, 2L)).thenReturn(0);
+        when(productRepository.existsById(INVALID_ID)).thenReturn(false);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.purchaseProduct(INVALID_ID, 2L));
+
+        // then
+        assertEquals(ErrorMessages.PRODUCT_NOT_FOUND, exception.getMessage());
     }
 
     @Test
     public void deleteProduct_should_succeed() {
         // given
-        final Product product = buildProduct();
-        when(productRepository.findById(ID)).thenReturn(Optional.of(product));
-        when(myUserDetailsService.getCurrentUsername()).thenReturn(product.getAuthor().getUsername());
+        when(myUserDetailsService.getCurrentUserId()).thenReturn(ID);
+        when(productRepository.deleteByIdAndAuthor(ID, ID)).thenReturn(1);
 
         // when
         boolean result = target.deleteProduct(ID);
 
-        // then
-        verify(productRepository).findById(ID);
-        verify(myUserDetailsService).getCurrentUsername();
-        verify(productRepository).deleteById(ID);
+        // then the ownership is checked by the delete statement, the product is not read.
+        verify(myUserDetailsService).getCurrentUserId();
+        verify(productRepository).deleteByIdAndAuthor(ID, ID);
+        verify(titleIndexService).remove(ID);
+        verify(catalogSnapshotService).markChanged();
+        verifyNoMoreInteractions(productRepository, myUserDetailsService);
 
         assertTrue(result);
     }
@@ -299,9 +1041,9 @@ public class ProductServiceTest {
     @Test
     public void deleteProduct_withForDifferentAuthor_should_fail() {
         // given
-        final Product product = buildProduct();
-        when(productRepository.findById(ID)).thenReturn(Optional.of(product));
-        when(myUserDetailsService.getCurrentUsername()).thenReturn(DIFFERENT_USERNAME);
+        when(myUserDetailsService.getCurrentUserId()).thenReturn(ID);
+        when(productRepository.deleteByIdAndAuthor(ID, ID)).thenReturn(0);
+        when(productRepository.existsById(ID)).thenReturn(true);
 
         // when
         final StoreException exception = assertThrows(StoreException.class,
@@ -309,9 +1051,42 @@ public class ProductServiceTest {
 
         // then
         assertEquals(ErrorMessages.REMOVE_NOT_ALLOWED, exception.getMessage());
+        verifyNoInteractions(titleIndexService, catalogSnapshotService);
+    }
+
+    @Test
+    public void deleteProduct_withInvalidId_should_fail() {
+        // given
+        when(myUserDetailsService.getCurrentUserId()).thenReturn(ID);
+        when(productRepository.deleteByIdAndAuthor(INVALID_ID, ID)).thenReturn(0);
+        when(productRepository.existsById(INVALID_ID)).thenReturn(false);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class,
+                () -> target.deleteProduct(INVALID_ID));
+
+        // then
+        assertEquals(ErrorMessages.PRODUCT_NOT_FOUND, exception.getMessage());
+        verifyNoInteractions(titleIndexService, catalogSnapshotService);
     }
 
 
+    /**
+     * builds the values written by a PUT without precondition.
+     * @param product Product
+     * @return Map of the values by field
+     */
+    private Map<ProductField, Object> buildUpdateValues(Product product) {
+        final Map<ProductField, Object> result = new EnumMap<>(ProductField.class);
+        result.put(ProductField.QUANTITY, product.getQuantity());
+        result.put(ProductField.TITLE, product.getTitle());
+        result.put(ProductField.DESCRIPTION, product.getDescription());
+        result.put(ProductField.COVER_IMAGE, product.getCoverImage());
+        result.put(ProductField.PRICE, product.getPrice());
+        result.put(ProductField.AUTHOR, product.getAuthor());
+        return result;
+    }
+
     /**
      * builds an object used for testing.
      * @return Product
@@ -0,0 +1,107 @@
+package com.example.store.service;
+
+import com.example.store.dto.RateLimitRouteStatsDTO;
+import com.example.store.dto.RateLimitStatsDTO;
+import com.example.store.security.RateLimitRoute;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link RateLimitService}.
+ */
+class RateLimitServiceTest {
+
+    private static final String CLIENT = "ip:10.0.0.1";
+    private static final String OTHER_CLIENT = "ip:10.0.0.2";
+    private static final int CAPACITY = 3;
+    private static final double SLOW_REFILL = 0.001;
+    private static final long IDLE_MS = 60000;
+
+    @Test
+    void tryAcquire_should_allowCapacityThenThrottle() {
+        // given
+        final RateLimitService target = createTarget(true, 1000);
+
+        // when
+        for (int i = 0; i < CAPACITY; i++) {
+            assertEquals(0, target.tryAcquire(RateLimitRoute.CATALOG, CLIENT));
+        }
+        final long result = target.tryAcquire(RateLimitRoute.CATALOG, CLIENT);
+
+        // then the next token is refilled after 1000 seconds.
+        assertTrue(result > 0);
+        assertTrue(result <= 1000_000_000_000L);
+    }
+
+    @Test
+    void tryAcquire_should_keepSeparateBucketsByClientAndRoute() {
+        // given
+        final RateLimitService target = createTarget(true, 1000);
+        for (int i = 0; i < CAPACITY; i++) {
+            target.tryAcquire(RateLimitRoute.CATALOG, CLIENT);
+        }
+
+        // when
+        final long otherClient = target.tryAcquire(RateLimitRoute.CATALOG, OTHER_CLIENT);
+        final long otherRoute = target.tryAcquire(RateLimitRoute.WRITE, CLIENT);
+
+        // then
+        assertEquals(0, otherClient);
+        assertEquals(0, otherRoute);
+    }
+
+    @Test
+    void tryAcquire_whenDisabled_should_alwaysAllow() {
+        // given
+        final RateLimitService target = createTarget(false, 1000);
+
+        // when
+        for (int i = 0; i < CAPACITY * 2; i++) {
+            assertEquals(0, target.tryAcquire(RateLimitRoute.AUTHENTICATE, CLIENT));
+        }
+
+        // then
+        assertEquals(0, target.getStats().getTrackedClients());
+    }
+
+    @Test
+    void tryAcquire_should_boundTrackedClients() {
+        // given 16 stripes of 2 buckets each.
+        final RateLimitService target = createTarget(true, 32);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            target.tryAcquire(RateLimitRoute.CATALOG, "ip:" + i);
+        }
+
+        // then
+        assertTrue(target.getStats().getTrackedClients() <= 32);
+    }
+
+    @Test
+    void getStats_should_countAllowedAndThrottled() {
+        // given
+        final RateLimitService target = createTarget(true, 1000);
+        for (int i = 0; i <= CAPACITY; i++) {
+            target.tryAcquire(RateLimitRoute.AUTHENTICATE, CLIENT);
+        }
+
+        // when
+        final RateLimitStatsDTO result = target.getStats();
+
+        // then
+        assertEquals(1, result.getTrackedClients());
+        assertEquals(RateLimitRoute.values().length, result.getRoutes().size());
+        final RateLimitRouteStatsDTO authenticate = result.getRoutes().get(RateLimitRoute.AUTHENTICATE.ordinal());
+        assertEquals(RateLimitRoute.AUTHENTICATE.name(), authenticate.getRoute());
+        assertEquals(CAPACITY, authenticate.getAllowed());
+        assertEquals(1, authenticate.getThrottled());
+    }
+
+    private RateLimitService createTarget(boolean enabled, int maxClients) {
+        return new RateLimitService(enabled, maxClients, IDLE_MS, CAPACITY, SLOW_REFILL, CAPACITY, SLOW_REFILL,
+                CAPACITY, SLOW_REFILL);
+    }
+}
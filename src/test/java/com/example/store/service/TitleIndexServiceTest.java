@@ -0,0 +1,115 @@
+package com.example.store.service;
+
+import com.example.store.repository.ProductRepository;
+import com.example.store.repository.ProductTitleView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link TitleIndexService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class TitleIndexServiceTest {
+
+    @Mock
+    private ProductRepository productRepository = mock(ProductRepository.class);
+
+    private TitleIndexService target;
+
+    @BeforeEach
+    void setUp() {
+        target = new TitleIndexService(productRepository);
+        target.index(1L, "Red Phone");
+        target.index(2L, "Blue phone case");
+        target.index(3L, "Headphones");
+        target.index(4L, "Phabcone");
+    }
+
+    @Test
+    void search_shouldBeCaseInsensitive() {
+        // when
+        final List<Long> result = target.search("PHONE");
+
+        // then results are sorted by id.
+        assertEquals(List.of(1L, 2L, 3L), result);
+    }
+
+    @Test
+    void search_withAllTrigramsButNotContiguous_shouldNotMatch() {
+        // given a title containing all the trigrams of "phone" (pho, hon, one), but not "phone" itself.
+        target.index(5L, "hon one pho");
+
+        // when
+        final List<Long> result = target.search("phone");
+
+        // then the candidate 5 is dropped by the verification step.
+        assertEquals(List.of(1L, 2L, 3L), result);
+    }
+
+    @Test
+    void search_withUnknownTrigram_shouldReturnEmpty() {
+        // when
+        final List<Long> result = target.search("laptop");
+
+        // then
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void search_withShortValue_shouldScanTitles() {
+        // when
+        final List<Long> result = target.search("ph");
+
+        // then
+        assertEquals(List.of(1L, 2L, 3L, 4L), result);
+    }
+
+    @Test
+    void index_withUpdatedTitle_shouldReplaceOldTitle() {
+        // when
+        target.index(1L, "Red Laptop");
+
+        // then
+        assertEquals(List.of(2L, 3L), target.search("phone"));
+        assertEquals(List.of(1L), target.search("laptop"));
+    }
+
+    @Test
+    void remove_shouldSucceed() {
+        // when
+        target.remove(2L);
+
+        // then
+        assertEquals(List.of(1L, 3L), target.search("phone"));
+        assertTrue(target.search("case").isEmpty());
+    }
+
+    @Test
+    void buildIndex_shouldLoadPersistedTitles() {
+        // given
+        final ProductTitleView productTitle = mock(ProductTitleView.class);
+
+        when(productTitle.getId()).thenReturn(7L);
+        when(productTitle.getTitle()).thenReturn("Garden Hose");
+        when(productRepository.findAllTitles()).thenReturn(List.of(productTitle));
+
+        // when
+        target.buildIndex();
+
+        // then the previous content is replaced by the persisted titles.
+        verify(productRepository).findAllTitles();
+        verifyNoMoreInteractions(productRepository);
+
+        assertEquals(List.of(7L), target.search("hose"));
+        assertTrue(target.search("phone").isEmpty());
+    }
+}
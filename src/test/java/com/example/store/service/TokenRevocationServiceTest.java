@@ -0,0 +1,154 @@
+package com.example.store.service;
+
+import com.example.store.exception.StoreException;
+import com.example.store.model.RevokedToken;
+import com.example.store.repository.RevokedTokenRepository;
+import com.example.store.security.JwtClaims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.example.store.util.ErrorMessages.TOKEN_NOT_REVOCABLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link TokenRevocationService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationServiceTest {
+
+    private static final String TOKEN_ID = "someTokenId";
+    private static final String OTHER_TOKEN_ID = "otherTokenId";
+    private static final String USERNAME = "someUser";
+    private static final long ONE_HOUR = 3_600_000L;
+
+    /**
+     * Beans used by the class which is being tested.
+     */
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository = Mockito.mock(RevokedTokenRepository.class);
+
+    /**
+     * Class being tested (named as target).
+     */
+    private TokenRevocationService target;
+
+    @BeforeEach
+    void setUp() {
+        target = new TokenRevocationService(revokedTokenRepository);
+    }
+
+    @Test
+    void load_should_restorePersistedRevocations() {
+        // given
+        final long expiration = System.currentTimeMillis() + ONE_HOUR;
+
+        when(revokedTokenRepository.findAll()).thenReturn(List.of(new RevokedToken(TOKEN_ID, expiration)));
+
+        // when
+        target.load();
+
+        // then
+        verify(revokedTokenRepository).deleteExpired(anyLong());
+        verify(revokedTokenRepository).findAll();
+        verifyNoMoreInteractions(revokedTokenRepository);
+
+        assertTrue(target.isRevoked(TOKEN_ID));
+        assertFalse(target.isRevoked(OTHER_TOKEN_ID));
+    }
+
+    @Test
+    void isRevoked_withoutTokenId_should_returnFalse() {
+        // when
+        final boolean result = target.isRevoked(null);
+
+        // then
+        verifyNoInteractions(revokedTokenRepository);
+
+        assertFalse(result);
+    }
+
+    @Test
+    void revoke_should_persistAndPublish() {
+        // given
+        final long expiration = System.currentTimeMillis() + ONE_HOUR;
+        final JwtClaims claims = new JwtClaims(TOKEN_ID, USERNAME, expiration);
+
+        // when
+        final boolean result = target.revoke(claims);
+
+        // then
+        verify(revokedTokenRepository).save(new RevokedToken(TOKEN_ID, expiration));
+        // the first revocation also purges the expired revocations.
+        verify(revokedTokenRepository).deleteExpired(anyLong());
+        verifyNoMoreInteractions(revokedTokenRepository);
+
+        assertTrue(result);
+        assertTrue(target.isRevoked(TOKEN_ID));
+    }
+
+    @Test
+    void revoke_withRevokedToken_should_returnFalse() {
+        // given
+        final long expiration = System.currentTimeMillis() + ONE_HOUR;
+        final JwtClaims claims = new JwtClaims(TOKEN_ID, USERNAME, expiration);
+        target.revoke(claims);
+
+        // when
+        final boolean result = target.revoke(claims);
+
+        // then
+        verify(revokedTokenRepository).save(new RevokedToken(TOKEN_ID, expiration));
+        verify(revokedTokenRepository).deleteExpired(anyLong());
+        verifyNoMoreInteractions(revokedTokenRepository);
+
+        assertFalse(result);
+    }
+
+    @Test
+    void revoke_should_purgeExpiredRevocations() {
+        // given
+        final long now = System.currentTimeMillis();
+        target.revoke(new JwtClaims(OTHER_TOKEN_ID, USERNAME, now - 1));
+        final TokenRevocationService purging = new TokenRevocationService(revokedTokenRepository);
+
+        // when
+        purging.revoke(new JwtClaims(OTHER_TOKEN_ID, USERNAME, now - 1));
+
+        // then an expired token is rejected anyway, so its revocation is not kept.
+        verify(revokedTokenRepository, times(2)).save(new RevokedToken(OTHER_TOKEN_ID, now - 1));
+        verify(revokedTokenRepository, times(2)).deleteExpired(anyLong());
+        verifyNoMoreInteractions(revokedTokenRepository);
+
+        assertFalse(target.isRevoked(OTHER_TOKEN_ID));
+        assertFalse(purging.isRevoked(OTHER_TOKEN_ID));
+    }
+
+    @Test
+    void revoke_withoutTokenId_shouldFail() {
+        // given
+        final JwtClaims claims = new JwtClaims(null, USERNAME, System.currentTimeMillis() + ONE_HOUR);
+
+        // when
+        final StoreException exception = assertThrows(StoreException.class, () -> target.revoke(claims));
+
+        // then
+        verifyNoInteractions(revokedTokenRepository);
+
+        assertEquals(TOKEN_NOT_REVOCABLE, exception.getMessage());
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.store.service;
+
+import com.example.store.model.MyUserDetails;
+import com.example.store.model.User;
+import com.example.store.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.example.store.util.Constants.ADMIN_AUTHORITY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link UserCacheService}.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserCacheServiceTest {
+
+    private static final Long ID = 1L;
+    private static final String USER_NAME = "username";
+    private static final String PSEUDONYM = "pseudonym";
+    private static final int MAX_SIZE = 1;
+    private static final long TTL_MS = 60000;
+    private static final String ADMIN_USERNAME = "admin";
+
+    @Mock
+    private UserRepository userRepository = Mockito.mock(UserRepository.class);
+
+    private UserCacheService target;
+
+    @BeforeEach
+    void setUp() {
+        target = new UserCacheService(userRepository, MAX_SIZE, TTL_MS, new String[]{ADMIN_USERNAME});
+    }
+
+    @Test
+    void findByUsername_shouldIndexUserByIdAndPseudonym() {
+        // given
+        when(userRepository.findByUsername(USER_NAME)).thenReturn(Optional.of(buildUser(ID, USER_NAME, PSEUDONYM)));
+
+        // when
+        final Optional<User> result = target.findByUsername(USER_NAME);
+
+        // then the user read by username is found by the other keys without reading it again.
+        assertEquals(buildUser(ID, USER_NAME, PSEUDONYM), result.orElseThrow());
+        assertEquals(result, target.findById(ID));
+        assertEquals(result, target.findByPseudonym(PSEUDONYM));
+        verify(userRepository).findByUsername(USER_NAME);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void findById_shouldReturnNewInstances() {
+        // given
+        when(userRepository.findById(ID)).thenReturn(Optional.of(buildUser(ID, USER_NAME, PSEUDONYM)));
+
+        // when
+        final User first = target.findById(ID).orElseThrow();
+        first.setUsername("changed");
+        final User second = target.findById(ID).orElseThrow();
+
+        // then a caller changing the returned user doesn't change the cached user.
+        assertNotSame(first, second);
+        assertEquals(USER_NAME, second.getUsername());
+        verify(userRepository).findById(ID);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void findAllByUsername_shouldReadOnlyMissingUsers() {
+        // given
+        final String otherUsername = "other";
+        when(userRepository.findByUsername(USER_NAME)).thenReturn(Optional.of(buildUser(ID, USER_NAME, PSEUDONYM)));
+        when(userRepository.findByUsernameIn(List.of(otherUsername)))
+                .thenReturn(List.of(buildUser(2L, otherUsername, otherUsername)));
+        target.findByUsername(USER_NAME);
+
+        // when
+        final Map<String, User> result = target.findAllByUsername(List.of(USER_NAME, otherUsername));
+
+        // then the cached user is not read again, and the missing one is read once.
+        assertEquals(2, result.size());
+        assertEquals(buildUser(ID, USER_NAME, PSEUDONYM), result.get(USER_NAME));
+        assertEquals(buildUser(2L, otherUsername, otherUsername), result.get(otherUsername));
+        verify(userRepository).findByUsername(USER_NAME);
+        verify(userRepository).findByUsernameIn(List.of(otherUsername));
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void findUserDetailsByUsername_shouldReturnSharedUserDetails() {
+        // given
+        when(userRepository.findByUsername(USER_NAME)).thenReturn(Optional.of(buildUser(ID, USER_NAME, PSEUDONYM)));
+
+        // when
+        final MyUserDetails first = target.findUserDetailsByUsername(USER_NAME).orElseThrow();
+        final MyUserDetails second = target.findUserDetailsByUsername(USER_NAME).orElseThrow();
+
+        // then
+        assertSame(first, second);
+        assertEquals(ID, first.getId());
+        assertTrue(first.getAuthorities().isEmpty());
+        verify(userRepository).findByUsername(USER_NAME);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void findUserDetailsByUsername_withAdmin_shouldGrantAdminRole() {
+        // given
+        when(userRepository.findByUsername(ADMIN_USERNAME))
+                .thenReturn(Optional.of(buildUser(ID, ADMIN_USERNAME, PSEUDONYM)));
+
+        // when
+        final MyUserDetails result = target.findUserDetailsByUsername(ADMIN_USERNAME).orElseThrow();
+
+        // then
+        assertEquals(1, result.getAuthorities().size());
+        assertEquals(ADMIN_AUTHORITY, result.getAuthorities().iterator().next().getAuthority());
+    }
+
+    @Test
+    void findByUsername_withUnknownUser_shouldNotCacheIt() {
+        // given
+        when(userRepository.findByUsername(USER_NAME))
+                .thenReturn(Optional.empty(), Optional.of(buildUser(ID, USER_NAME, PSEUDONYM)));
+
+        // when
+        final Optional<User> first = target.findByUsername(USER_NAME);
+        final Optional<User> second = target.findByUsername(USER_NAME);
+
+        // then a user created after the first call is found.
+        assertTrue(first.isEmpty());
+        assertTrue(second.isPresent());
+        verify(userRepository, times(2)).findByUsername(USER_NAME);
+    }
+
+    @Test
+    void invalidate_shouldRemoveUserFromAllIndexes() {
+        // given
+        when(userRepository.findByUsername(USER_NAME)).thenReturn(Optional.of(buildUser(ID, USER_NAME, PSEUDONYM)));
+        when(userRepository.findByPseudonym(PSEUDONYM)).thenReturn(Optional.of(buildUser(ID, USER_NAME, PSEUDONYM)));
+        target.findByUsername(USER_NAME);
+
+        // when
+        target.invalidate(buildUser(ID, USER_NAME, PSEUDONYM));
+        target.findByPseudonym(PSEUDONYM);
+
+        // then
+        verify(userRepository).findByUsername(USER_NAME);
+        verify(userRepository).findByPseudonym(PSEUDONYM);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void findById_whenFull_shouldEvictLeastRecentlyUsedUser() {
+        // given
+        final Long otherId = 2L;
+        when(userRepository.findById(ID)).thenReturn(Optional.of(buildUser(ID, USER_NAME, PSEUDONYM)));
+        when(userRepository.findById(otherId)).thenReturn(Optional.of(buildUser(otherId, "other", "other")));
+
+        // when
+        target.findById(ID);
+        target.findById(otherId);
+        target.findById(ID);
+
+        // then the cache holds one user, so the first one was evicted.
+        verify(userRepository, times(2)).findById(ID);
+        verify(userRepository).findById(otherId);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    /**
+     * builds an object used for testing.
+     * @param id Long
+     * @param username String
+     * @param pseudonym String
+     * @return User
+     */
+    private User buildUser(Long id, String username, String pseudonym) {
+        final User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setPseudonym(pseudonym);
+        user.setPassword("password");
+        return user;
+    }
+}
@@ -2,37 +2,60 @@ package com.example.store.service;
 
 import com.example.store.exception.StoreException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
 
 import static com.example.store.util.ErrorMessages.BANNED_USER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for {@link ValidationService}.
  */
+@ExtendWith(MockitoExtension.class)
 public class ValidationServiceTest {
 
-    private final ValidationService target = new ValidationService();
+    private static final String BANNED_USERNAME = "Diego";
+    private static final String SOME_USERNAME = "some user different from Diego";
+
+    @Mock
+    private BannedUserService bannedUserService = Mockito.mock(BannedUserService.class);
+
+    @InjectMocks
+    private ValidationService target;
 
     @Test
     public void performAuthenticateValidations_withBannedUser_shouldFail() {
         // given
-        final String username = ValidationService.BANNED_LIST.get(0);
+        when(bannedUserService.isBanned(BANNED_USERNAME)).thenReturn(true);
 
         // when
         final StoreException exception = assertThrows(StoreException.class,
-                () -> target.performAuthenticateValidations(username));
+                () -> target.performAuthenticateValidations(BANNED_USERNAME));
 
         // then
+        verify(bannedUserService).isBanned(BANNED_USERNAME);
+        verifyNoMoreInteractions(bannedUserService);
+
         assertEquals(BANNED_USER, exception.getMessage());
     }
 
     @Test
     public void performAuthenticateValidations_shouldSucceed() {
         // given
-        final String username = "some user different from Diego";
+        when(bannedUserService.isBanned(SOME_USERNAME)).thenReturn(false);
 
         // when
-        target.performAuthenticateValidations(username);
+        target.performAuthenticateValidations(SOME_USERNAME);
+
+        // then
+        verify(bannedUserService).isBanned(SOME_USERNAME);
+        verifyNoMoreInteractions(bannedUserService);
     }
 }